@@ -17,19 +17,25 @@
 
 package org.openengsb.core.api.model;
 
+import java.util.List;
+
 import com.google.common.base.Objects;
 
 /**
  * This class is a container to define the conditions for the query of commit objects from the EDB. All elements which
  * are null are ignored during the querying process. The only exceptions are the beginTimestamp and the endTimestamp.
  * For the beginTimestamp the default value 0 is taken and for the endTimestamp the default value Long.MAX_VALUE is
- * taken. In this way, these both values can be used in a "between" clause in the SQL command.
+ * taken. In this way, these both values can be used in a "between" clause in the SQL command. The matching commits are
+ * ordered by their timestamp, the maxResults limit the number of returned commits, so the history can be read page by
+ * page by starting each page at the timestamp of the last commit of the previous one.
  */
 public class CommitQueryRequest {
     private String context;
     private String committer;
     private Long startTimestamp;
     private Long endTimestamp;
+    private List<String> modelTypes;
+    private Integer maxResults;
 
     public CommitQueryRequest() {
         startTimestamp = 0L;
@@ -68,6 +74,26 @@ public class CommitQueryRequest {
         this.endTimestamp = endTimestamp;
     }
 
+    public List<String> getModelTypes() {
+        return modelTypes;
+    }
+
+    /**
+     * Restricts the query to commits which insert, update or delete models of one of the given model types, given by
+     * the canonical names of the model classes.
+     */
+    public void setModelTypes(List<String> modelTypes) {
+        this.modelTypes = modelTypes;
+    }
+
+    public Integer getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(Integer maxResults) {
+        this.maxResults = maxResults;
+    }
+
     @Override
     public String toString() {
         return Objects.toStringHelper(this.getClass())
@@ -75,6 +101,8 @@ public class CommitQueryRequest {
             .add("committer", committer)
             .add("startTimestamp", startTimestamp)
             .add("endTimestamp", endTimestamp)
+            .add("modelTypes", modelTypes)
+            .add("maxResults", maxResults)
             .omitNullValues()
             .toString();
     }
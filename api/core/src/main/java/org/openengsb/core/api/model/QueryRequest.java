@@ -43,12 +43,17 @@ import com.google.common.collect.Sets;
  * 
  * andJoined = Defines if the parameters are joined via logical AND operators (value=true) or logical OR operators
  * (value=false). The default value is true.
+ * 
+ * Next to the parameters, which are compared for equality, a request can contain ranges. A range restricts the values
+ * of a property to lie between a lower and an upper bound (both inclusive). Ranges are joined with the parameters in
+ * the same way as the parameters among themselves.
  */
 public final class QueryRequest implements Serializable {
 
     private static final long serialVersionUID = -7265061639501222473L;
 
     private final Map<String, Set<Object>> parameters;
+    private Map<String, Range> ranges;
     private String modelClassName;
     private long timestamp;
     private String contextId;
@@ -59,6 +64,7 @@ public final class QueryRequest implements Serializable {
 
     private QueryRequest() {
         parameters = Maps.newHashMap();
+        ranges = Maps.newHashMap();
         timestamp = System.currentTimeMillis();
         wildcardAware = false;
         caseSensitive = true;
@@ -115,6 +121,30 @@ public final class QueryRequest implements Serializable {
         return parameters;
     }
 
+    /**
+     * Adds a range to this request. Only models whose property with the given key lies between the given bounds (both
+     * inclusive) are matching. One of the bounds may be null, which means that the range is open on this side. Numbers,
+     * dates and strings are supported as bounds.
+     */
+    public QueryRequest addRange(String key, Object lowerBound, Object upperBound) {
+        ranges.put(key, new Range(lowerBound, upperBound));
+        return this;
+    }
+
+    /**
+     * Returns the map of ranges for this request.
+     */
+    public Map<String, Range> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * Replaces the ranges of this request with the given ones.
+     */
+    public void setRanges(Map<String, Range> ranges) {
+        this.ranges = Maps.newHashMap(ranges);
+    }
+
     /**
      * Returns the timestamp which was choosen for this request.
      */
@@ -242,6 +272,9 @@ public final class QueryRequest implements Serializable {
                 helper.add(entry.getKey(), value);
             }
         }
+        for (Map.Entry<String, Range> entry : ranges.entrySet()) {
+            helper.add(entry.getKey(), entry.getValue());
+        }
         return helper.omitNullValues().toString();
     }
 
@@ -278,12 +311,71 @@ public final class QueryRequest implements Serializable {
                 && (wildcardAware == other.wildcardAware)
                 && (Objects.equal(contextId, other.contextId))
                 && (Objects.equal(modelClassName, other.modelClassName))
-                && (Objects.equal(parameters, other.parameters));
+                && (Objects.equal(parameters, other.parameters))
+                && (Objects.equal(ranges, other.ranges));
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(parameters, modelClassName, timestamp, contextId, wildcardAware, caseSensitive,
+        return Objects.hashCode(parameters, ranges, modelClassName, timestamp, contextId, wildcardAware, caseSensitive,
             andJoined, deleted);
     }
+
+    /**
+     * A range of values with an inclusive lower and upper bound. A bound which is null means that the range is open on
+     * this side. Next to the constructor with both bounds, it has a default constructor and setters, so that it can be
+     * created by bean based (e.g. JSON) deserialization.
+     */
+    public static final class Range implements Serializable {
+        private static final long serialVersionUID = 2919466733744254377L;
+
+        private Object lowerBound;
+        private Object upperBound;
+
+        public Range() {
+        }
+
+        public Range(Object lowerBound, Object upperBound) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        public Object getLowerBound() {
+            return lowerBound;
+        }
+
+        public void setLowerBound(Object lowerBound) {
+            this.lowerBound = lowerBound;
+        }
+
+        public Object getUpperBound() {
+            return upperBound;
+        }
+
+        public void setUpperBound(Object upperBound) {
+            this.upperBound = upperBound;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Range other = (Range) o;
+            return Objects.equal(lowerBound, other.lowerBound) && Objects.equal(upperBound, other.upperBound);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(lowerBound, upperBound);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lowerBound + ", " + upperBound + "]";
+        }
+    }
 }
@@ -24,7 +24,8 @@ package org.openengsb.core.api.remote;
  *
  * To configure the custom marshaller for an argument use the {@link UseCustomJasonMarshaller} annotation at the param
  * with the classname. The two conditions which have to be fullfilled are that the class has a default constructure and
- * that it implements this interface.
+ * that it implements this interface. A new instance is created for every call, so implementations need not be
+ * thread-safe.
  */
 public interface CustomJsonMarshaller<OutputType> {
 
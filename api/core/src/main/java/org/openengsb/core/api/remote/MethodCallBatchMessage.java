@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.api.remote;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A {@link MethodCallMessage} which carries several {@link MethodCall}s at once. The routing- and
+ * security-information of the message apply to all calls, so a batch is decrypted, verified and authenticated only
+ * once. The calls are executed in the order of the list and answered with a {@link MethodResultBatchMessage}
+ * containing one result per call in the same order.
+ *
+ * Incoming ports read every message as batch message. As long as no {@link #getMethodCalls() method calls} are set,
+ * the message is handled like a plain MethodCallMessage.
+ */
+@XmlRootElement
+public class MethodCallBatchMessage extends MethodCallMessage {
+
+    private static final long serialVersionUID = 2863618512938071945L;
+
+    private List<MethodCall> methodCalls;
+
+    public MethodCallBatchMessage() {
+    }
+
+    public MethodCallBatchMessage(List<MethodCall> methodCalls, boolean answer) {
+        super(null, UUID.randomUUID().toString(), answer);
+        this.methodCalls = methodCalls;
+    }
+
+    public List<MethodCall> getMethodCalls() {
+        return methodCalls;
+    }
+
+    public void setMethodCalls(List<MethodCall> methodCalls) {
+        this.methodCalls = methodCalls;
+    }
+
+}
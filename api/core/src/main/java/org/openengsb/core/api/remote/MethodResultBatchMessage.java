@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.api.remote;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The answer to a {@link MethodCallBatchMessage}, containing one {@link MethodResult} per call of the batch in the same
+ * order. A call which failed does not fail the whole batch, but is answered with a result of type
+ * {@link MethodResult.ReturnType#Exception}.
+ *
+ * Outgoing ports read every answer as batch message. As long as no {@link #getResults() results} are set, the message
+ * is handled like a plain MethodResultMessage.
+ */
+@XmlRootElement
+public class MethodResultBatchMessage extends MethodResultMessage {
+
+    private static final long serialVersionUID = -3371873574218713950L;
+
+    private List<MethodResult> results;
+
+    public MethodResultBatchMessage() {
+    }
+
+    public MethodResultBatchMessage(List<MethodResult> results, String callId) {
+        super(null, callId);
+        this.results = results;
+    }
+
+    public List<MethodResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<MethodResult> results) {
+        this.results = results;
+    }
+
+}
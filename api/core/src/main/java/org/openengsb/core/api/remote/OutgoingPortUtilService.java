@@ -17,6 +17,8 @@
 
 package org.openengsb.core.api.remote;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
 /**
  * Provides utility-methods for calling services on a remote OpenEngSB.
  *
@@ -31,4 +33,12 @@ public interface OutgoingPortUtilService {
     MethodResult sendMethodCallWithResult(String portId, String destination, MethodCall call)
         throws RemoteCommunicationException;
 
+    /**
+     * Sends the call like {@link #sendMethodCallWithResult(String, String, MethodCall)}, but returns immediately. The
+     * returned future completes with the result of the call, or fails with the exception which occurred when sending
+     * it.
+     */
+    ListenableFuture<MethodResult> sendMethodCallWithResultAsync(String portId, String destination, MethodCall call)
+        throws RemoteCommunicationException;
+
 }
@@ -22,6 +22,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -110,4 +112,20 @@ public class QueryRequestTest {
         assertThat(a.hashCode(), is(not(b.hashCode())));
     }
 
+    @Test
+    public void equals_onRangesSetAsBeans_shouldReturnTrue() throws Exception {
+        QueryRequest a = QueryRequest.create()
+            .setTimestamp(timestamp)
+            .addRange("answer", 40, 50);
+
+        QueryRequest.Range range = new QueryRequest.Range();
+        range.setLowerBound(40);
+        range.setUpperBound(50);
+        QueryRequest b = QueryRequest.create()
+            .setTimestamp(timestamp);
+        b.setRanges(Collections.singletonMap("answer", range));
+
+        assertTrue(a.equals(b));
+    }
+
 }
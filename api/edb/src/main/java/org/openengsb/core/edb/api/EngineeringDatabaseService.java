@@ -17,6 +17,7 @@
 
 package org.openengsb.core.edb.api;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -35,6 +36,14 @@ public interface EngineeringDatabaseService {
      */
     Long commit(EDBCommit obj) throws EDBException;
 
+    /**
+     * Imports the given commit, which may only contain inserts, as one revision and returns its time stamp. It is meant
+     * for bulk loads: the begin and pre-commit hooks are skipped and the inserted OIDs are checked in batches instead
+     * of one by one. If one of the OIDs is already active, an EDBCheckException containing the failed inserts is
+     * thrown.
+     */
+    Long importCommit(EDBCommit obj) throws EDBException;
+
     /**
      * Retrieve the current state of the object with the specified OID.
      */
@@ -50,6 +59,12 @@ public interface EngineeringDatabaseService {
      */
     List<EDBObject> getObjects(List<String> oids) throws EDBException;
 
+    /**
+     * Retrieve the state of the objects with the specified OIDs for the given timestamp. Objects which did not exist at
+     * that time are not part of the result. A timestamp of null stands for the current state.
+     */
+    List<EDBObject> getObjects(List<String> oids, Long timestamp) throws EDBException;
+
     /**
      * Retrieve the current state - a list of all EDBObjects currently available.
      */
@@ -81,6 +96,20 @@ public interface EngineeringDatabaseService {
      */
     List<EDBObject> query(QueryRequest request) throws EDBException;
 
+    /**
+     * Queries for at most maxResults EDBObjects based on the given query request object. The result is ordered by the
+     * OIDs of the objects and starts after the given OID, so the OID of the last object of one page can be used to
+     * load the next one. If afterOid is null, the first page is returned.
+     */
+    List<EDBObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException;
+
+    /**
+     * Returns an iterator over the EDBObjects matching the given query request. The objects are loaded lazily in pages
+     * of the given fetch size, so the result never has to be held in memory as a whole. Iterating over the result of
+     * QueryRequest.create() streams the current head of the EDB.
+     */
+    Iterator<EDBObject> queryIterator(QueryRequest request, int fetchSize) throws EDBException;
+
     /**
      * Convenience function to query for a commit with a single matching key-value pair.
      */
@@ -154,6 +183,11 @@ public interface EngineeringDatabaseService {
      */
     UUID getLastRevisionNumberOfContext(String contextId) throws EDBException;
 
+    /**
+     * Returns the ids of all contexts under which commits were performed in the EDB.
+     */
+    List<String> getContextIds() throws EDBException;
+
     /**
      * Deletes the commit corresponding to the given revision.
      * 
@@ -66,6 +66,15 @@ public interface Index<T> {
      */
     Collection<IndexField<?>> getFields();
 
+    /**
+     * Returns the field of this index that holds the id of the model, i.e. the field annotated with
+     * {@code OpenEngSBModelId}. Together with the context of a commit it identifies the OID of the model in the EDB.
+     * 
+     * @return the model id field, or null if the model has no id field
+     * @throws UnavailableTypeInformationException if the type information is required but not available
+     */
+    IndexField<?> getModelIdField() throws UnavailableTypeInformationException;
+
     /**
      * Allows you to specify a ClassLoader that is used when restoring type information when calling
      * {@link #getModelClass()} on a sparsely loaded Index.
@@ -17,7 +17,9 @@
 
 package org.openengsb.core.edbi.api;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An IndexEngine maintains Index data of model classes and allows to merge data into the index structures.
@@ -98,4 +100,50 @@ public interface IndexEngine {
      * @throws EDBIndexException propagated underlying non-runtime exceptions
      */
     void commit(IndexCommit commit) throws EDBIndexException;
+
+    /**
+     * Merges the given IndexCommits in the given order within a single transaction, so that either all of them are
+     * merged into the underlying data structure or none of them.
+     * 
+     * @param commits the IndexCommits to merge
+     * @throws EDBIndexException propagated underlying non-runtime exceptions
+     */
+    void commit(List<IndexCommit> commits) throws EDBIndexException;
+
+    /**
+     * Rebuilds the Index of the given model type from the given commits, which have to contain the history of the
+     * models in the order in which it was committed. The commits are merged into new tables, which replace the tables
+     * of the existing index once all commits are merged, so that the existing index stays available until then. The
+     * index is created if it does not exist yet, models of other types in the commits are ignored.
+     * 
+     * @param model the model type
+     * @param commits the commits to merge
+     * @return the rebuilt Index
+     * @throws EDBIndexException if the index could not be rebuilt, in which case the existing index is left unchanged
+     */
+    <T> Index<T> rebuildIndex(Class<T> model, Iterator<IndexCommit> commits) throws EDBIndexException;
+
+    /**
+     * Rebuilds the Indexes of the given model types from the given commits like
+     * {@link #rebuildIndex(Class, Iterator)}, merging each commit into the new tables of all given model types. The
+     * existing indexes are replaced once all commits are merged.
+     * 
+     * @param models the model types
+     * @param commits the commits to merge
+     * @return the rebuilt Indexes, in the order of the given model types
+     * @throws EDBIndexException if the indexes could not be rebuilt, in which case the existing indexes are left
+     *         unchanged
+     */
+    List<Index<?>> rebuildIndexes(List<Class<?>> models, Iterator<IndexCommit> commits) throws EDBIndexException;
+
+    /**
+     * Executes the given query against the current state of the models of its index. Each returned row maps the names
+     * of the index fields to the values of a model.
+     * 
+     * @param query the query to execute
+     * @return the matching rows in the requested order
+     * @throws IndexNotFoundException if the index of the query does not exist
+     * @throws EDBIndexException if the query refers to unknown fields or can not be executed
+     */
+    List<Map<String, Object>> query(IndexQuery<?> query) throws EDBIndexException;
 }
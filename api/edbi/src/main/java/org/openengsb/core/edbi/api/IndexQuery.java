@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A query against the current state of the models of an Index, i.e. the data of the latest version of each model. The
+ * conditions of a query refer to the fields of the index by their name and are joined by a logical AND. A query is
+ * executed via {@link IndexEngine#query(IndexQuery)}.
+ *
+ * <pre>
+ * IndexQuery.on(index).where("age", Operator.GREATER, 18).orderBy("name", true).limit(10);
+ * </pre>
+ *
+ * @param <T> the type of the model
+ */
+public class IndexQuery<T> {
+
+    /**
+     * The comparison operators of a condition.
+     */
+    public enum Operator {
+        EQUAL,
+        NOT_EQUAL,
+        LESS,
+        LESS_OR_EQUAL,
+        GREATER,
+        GREATER_OR_EQUAL,
+        LIKE,
+        IS_NULL
+    }
+
+    private Index<T> index;
+
+    private List<Condition> conditions;
+    private List<Ordering> orderings;
+    private Integer limit;
+
+    private String afterField;
+    private Object afterValue;
+
+    protected IndexQuery(Index<T> index) {
+        this.index = index;
+        this.conditions = new ArrayList<>();
+        this.orderings = new ArrayList<>();
+    }
+
+    /**
+     * Creates a new query without conditions for the given index.
+     *
+     * @param index the index to query
+     * @return a new query
+     */
+    public static <T> IndexQuery<T> on(Index<T> index) {
+        return new IndexQuery<>(index);
+    }
+
+    /**
+     * Adds a condition on the given field.
+     *
+     * @param field the name of the index field
+     * @param operator the comparison operator
+     * @param value the value to compare with, ignored for {@link Operator#IS_NULL}
+     * @return this for chaining
+     */
+    public IndexQuery<T> where(String field, Operator operator, Object value) {
+        conditions.add(new Condition(field, operator, value));
+        return this;
+    }
+
+    /**
+     * Adds a condition that the given field equals the value.
+     *
+     * @param field the name of the index field
+     * @param value the value
+     * @return this for chaining
+     */
+    public IndexQuery<T> equal(String field, Object value) {
+        return where(field, Operator.EQUAL, value);
+    }
+
+    /**
+     * Adds a condition that the given field lies between the given bounds (both inclusive). A bound which is null
+     * leaves the range open on this side.
+     *
+     * @param field the name of the index field
+     * @param lowerBound the lower bound or null
+     * @param upperBound the upper bound or null
+     * @return this for chaining
+     */
+    public IndexQuery<T> between(String field, Object lowerBound, Object upperBound) {
+        if (lowerBound != null) {
+            where(field, Operator.GREATER_OR_EQUAL, lowerBound);
+        }
+        if (upperBound != null) {
+            where(field, Operator.LESS_OR_EQUAL, upperBound);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a condition that the given field matches the pattern, where % matches any sequence of characters and _
+     * exactly one character.
+     *
+     * @param field the name of the index field
+     * @param pattern the pattern
+     * @return this for chaining
+     */
+    public IndexQuery<T> like(String field, String pattern) {
+        return where(field, Operator.LIKE, pattern);
+    }
+
+    /**
+     * Orders the result by the given field. Multiple orderings are applied in the order they were added.
+     *
+     * @param field the name of the index field
+     * @param ascending true for an ascending, false for a descending order
+     * @return this for chaining
+     */
+    public IndexQuery<T> orderBy(String field, boolean ascending) {
+        orderings.add(new Ordering(field, ascending));
+        return this;
+    }
+
+    /**
+     * Restricts the number of returned models.
+     *
+     * @param limit the maximum number of models
+     * @return this for chaining
+     */
+    public IndexQuery<T> limit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit has to be positive, but was " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Restricts the result to the models whose given field is greater than the given value and orders the result by
+     * this field before any other ordering. Together with a unique field (e.g. the model id) and a limit this allows
+     * keyset paging, where the value is the one of the last model of the previous page.
+     *
+     * @param field the name of the index field
+     * @param value the value of the field of the last model of the previous page
+     * @return this for chaining
+     */
+    public IndexQuery<T> after(String field, Object value) {
+        this.afterField = field;
+        this.afterValue = value;
+        return this;
+    }
+
+    public Index<T> getIndex() {
+        return index;
+    }
+
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    public List<Ordering> getOrderings() {
+        return Collections.unmodifiableList(orderings);
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public String getAfterField() {
+        return afterField;
+    }
+
+    public Object getAfterValue() {
+        return afterValue;
+    }
+
+    /**
+     * A condition on a single index field.
+     */
+    public static class Condition {
+        private final String field;
+        private final Operator operator;
+        private final Object value;
+
+        public Condition(String field, Operator operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * The ordering by a single index field.
+     */
+    public static class Ordering {
+        private final String field;
+        private final boolean ascending;
+
+        public Ordering(String field, boolean ascending) {
+            this.field = field;
+            this.ascending = ascending;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public boolean isAscending() {
+            return ascending;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edbi.api;
+
+import java.util.List;
+
+/**
+ * Rebuilds Indexes from the history of their models, e.g. if an Index diverged from the models because commits could
+ * not be merged, or if its model class changed.
+ */
+public interface IndexRebuilder {
+
+    /**
+     * Rebuilds the Index of the given model class from the entire history of its models. The Index is replaced once
+     * it is rebuilt completely, see {@link IndexEngine#rebuildIndex(Class, java.util.Iterator)}.
+     * 
+     * @param modelClassName the canonical name of the model class, which is the name of its Index
+     * @return the rebuilt Index
+     * @throws IndexNotFoundException if there are no commits of models of the given class
+     * @throws EDBIndexException if the history could not be loaded or the Index could not be rebuilt
+     */
+    Index<?> rebuild(String modelClassName) throws EDBIndexException;
+
+    /**
+     * Rebuilds the Indexes of the given model classes like {@link #rebuild(String)}, but reads the history only once
+     * for all of them. The Indexes are replaced once all of them are rebuilt completely, see
+     * {@link IndexEngine#rebuildIndexes(List, java.util.Iterator)}.
+     * 
+     * @param modelClassNames the canonical names of the model classes
+     * @return the rebuilt Indexes, in the order of the given model classes
+     * @throws IndexNotFoundException if there are no commits of models of one of the given classes
+     * @throws EDBIndexException if the history could not be loaded or the Indexes could not be rebuilt
+     */
+    List<Index<?>> rebuild(List<String> modelClassNames) throws EDBIndexException;
+}
@@ -0,0 +1,34 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edbi.api;
+
+/**
+ * Tells whether the Indexes are up to date with the commits of the EKB. Indexes are updated asynchronously after a
+ * commit, so an Index may lag behind the EDB for a while, or even diverge from it if a commit could not be merged.
+ */
+public interface IndexStatus {
+
+    /**
+     * Returns true if every commit with models of the given class has been merged into its Index, i.e. there are no
+     * pending commits with models of this class and the Index is not stale.
+     * 
+     * @param modelClassName the canonical name of the model class, which is the name of its Index
+     * @return true if the Index reflects the current state of the models
+     */
+    boolean isUpToDate(String modelClassName);
+}
@@ -17,6 +17,7 @@
 
 package org.openengsb.core.ekb.api;
 
+import java.util.Iterator;
 import java.util.UUID;
 
 /**
@@ -53,6 +54,16 @@ public interface PersistInterface {
      */
     void forceCommit(EKBCommit commit, UUID expectedContextHeadRevision) throws EKBException;
 
+    /**
+     * Imports the models of the given iterator as inserts in one single commit. This is meant for bulk loads like the
+     * initial load of a new tool. The domain, connector, instance and comment of the import are taken from the given
+     * EKBCommit, to which the imported models are added and which gets the revision numbers of the import. Unlike a
+     * normal commit, the pre-commit hooks and the sanity checks are skipped and the models are converted in parallel,
+     * chunk by chunk with a bounded number of chunks in conversion. All models have to be new, otherwise a
+     * ModelPersistException is thrown and nothing is imported. The post-commit hooks run once with all imported models.
+     */
+    void importModels(EKBCommit commit, Iterator<?> models) throws EKBException;
+
     /**
      * Only perform the sanity checks of the EKBCommit.
      */
@@ -17,6 +17,7 @@
 
 package org.openengsb.core.ekb.api;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -49,6 +50,13 @@ public interface QueryInterface {
      */
     <T> List<T> query(Class<T> model, QueryRequest request);
 
+    /**
+     * Queries for models which are fitting to the parameters given by the query request object. The models are loaded
+     * and converted lazily in pages of the given fetch size while iterating over the result, so even large results
+     * (e.g. the export of a whole context) can be processed in constant memory.
+     */
+    <T> Iterator<T> queryIterator(Class<T> model, QueryRequest request, int fetchSize);
+
     /**
      * Queries for models which are fitting to the parameters given by the query string.
      */
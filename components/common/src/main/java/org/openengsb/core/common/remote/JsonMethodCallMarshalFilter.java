@@ -18,18 +18,18 @@
 package org.openengsb.core.common.remote;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.openengsb.core.api.remote.FilterAction;
 import org.openengsb.core.api.remote.FilterConfigurationException;
 import org.openengsb.core.api.remote.FilterException;
 import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.util.JsonUtils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 /**
  * This filter takes a JSON-serialized {@link MethodCallMessage} and deserializes it. The {@link MethodCallMessage}
  * object is then passed on to the next filter. The returned {@link MethodResultMessage} is than seralized to JSON
@@ -50,29 +50,38 @@ public class JsonMethodCallMarshalFilter extends AbstractFilterChainElement<Stri
 
     @Override
     public String doFilter(String input, Map<String, Object> metadata) throws FilterException {
-        ObjectMapper objectMapper = JsonUtils.createObjectMapperWithIntroSpectors();
-        MethodCallMessage callMessage;
+        MethodCallBatchMessage callMessage;
         try {
-            callMessage = objectMapper.readValue(input, MethodCallMessage.class);
-            MethodCall call = callMessage.getMethodCall();
-            Object[] args = call.getArgs();
-            for (int i = 0; i < args.length; i++) {
-                String className = call.getClasses().get(i);
-                Class<?> parameterClass;
-                try {
-                    parameterClass = getClass().getClassLoader().loadClass(className);
-                } catch (ClassNotFoundException e) {
-                    throw new FilterException(e);
+            callMessage = JsonUtils.getReader(MethodCallBatchMessage.class).readValue(input);
+            List<MethodCall> batch = callMessage.getMethodCalls();
+            if (batch != null) {
+                for (MethodCall call : batch) {
+                    convertArgs(call);
                 }
-                args[i] = objectMapper.convertValue(args[i], parameterClass);
+            } else {
+                convertArgs(callMessage.getMethodCall());
             }
             MethodResultMessage returnValue = (MethodResultMessage) next.filter(callMessage, metadata);
-            return objectMapper.writeValueAsString(returnValue);
+            return JsonUtils.getWriter().writeValueAsString(returnValue);
         } catch (IOException e) {
             throw new FilterException(e);
         }
     }
 
+    private void convertArgs(MethodCall call) {
+        Object[] args = call.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            String className = call.getClasses().get(i);
+            Class<?> parameterClass;
+            try {
+                parameterClass = JsonUtils.loadClass(className, getClass().getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new FilterException(e);
+            }
+            args[i] = JsonUtils.convertValue(args[i], parameterClass);
+        }
+    }
+
     @Override
     public void setNext(FilterAction next) throws FilterConfigurationException {
         checkNextInputAndOutputTypes(next, MethodCallMessage.class, MethodResultMessage.class);
@@ -18,6 +18,7 @@
 package org.openengsb.core.common.remote;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
@@ -27,11 +28,10 @@ import org.openengsb.core.api.remote.FilterException;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResult.ReturnType;
+import org.openengsb.core.api.remote.MethodResultBatchMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.util.JsonUtils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 /**
  * This filter takes a {@link MethodCallMessage} and serializes it to JSON. The String s then passed on to the next
  * filter. The returned JSON-String representing a {@link MethodResultMessage} is then deserialized and returned.
@@ -52,34 +52,43 @@ public class JsonOutgoingMethodCallMarshalFilter extends
 
     @Override
     public MethodResultMessage doFilter(MethodCallMessage input, Map<String, Object> metadata) throws FilterException {
-        ObjectMapper objectMapper = JsonUtils.createObjectMapperWithIntroSpectors();
-        MethodResultMessage resultMessage;
+        MethodResultBatchMessage resultMessage;
         try {
-            String jsonString = objectMapper.writeValueAsString(input);
+            String jsonString = JsonUtils.getWriter().writeValueAsString(input);
             String resultString = (String) next.filter(jsonString, metadata);
             if (resultString == null) {
                 return null;
             }
-            resultMessage = objectMapper.readValue(resultString, MethodResultMessage.class);
+            resultMessage = JsonUtils.getReader(MethodResultBatchMessage.class).readValue(resultString);
         } catch (IOException e) {
             throw new FilterException(e);
         }
-        MethodResult result = resultMessage.getResult();
-        if (result.getType().equals(ReturnType.Void)) {
-            result.setArg(null);
-        } else {
-            Class<?> resultType;
-            try {
-                resultType = Class.forName(result.getClassName());
-            } catch (ClassNotFoundException e) {
-                throw new FilterException(e);
+        List<MethodResult> batch = resultMessage.getResults();
+        if (batch != null) {
+            for (MethodResult result : batch) {
+                convertResult(result);
             }
-            Object convertedValue = objectMapper.convertValue(result.getArg(), resultType);
-            result.setArg(convertedValue);
+        } else {
+            convertResult(resultMessage.getResult());
         }
         return resultMessage;
     }
 
+    private void convertResult(MethodResult result) {
+        if (result.getType().equals(ReturnType.Void)) {
+            result.setArg(null);
+            return;
+        }
+        Class<?> resultType;
+        try {
+            ClassLoader classLoader = JsonOutgoingMethodCallMarshalFilter.class.getClassLoader();
+            resultType = JsonUtils.loadClass(result.getClassName(), classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new FilterException(e);
+        }
+        result.setArg(JsonUtils.convertValue(result.getArg(), resultType));
+    }
+
     public static Class<?> getAttributeType(Class<?> clazz, String attributeName) throws NoSuchMethodException {
         return clazz.getMethod("get" + StringUtils.capitalize(attributeName)).getReturnType();
     }
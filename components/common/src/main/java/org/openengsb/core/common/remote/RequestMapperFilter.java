@@ -17,12 +17,20 @@
 
 package org.openengsb.core.common.remote;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
+import org.openengsb.core.api.remote.MethodResult.ReturnType;
+import org.openengsb.core.api.remote.MethodResultBatchMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.api.remote.RequestHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This filter takes a {@link MethodCallMessage} and handles it using a {@link RequestHandler}. The result is then
@@ -39,9 +47,15 @@ import org.openengsb.core.api.remote.RequestHandler;
  *      [MethodResultMessage] < Filter < [MethodResult]
  * </pre>
  * </code>
+ *
+ * The calls of a {@link MethodCallBatchMessage} are handled one after another and answered with a
+ * {@link MethodResultBatchMessage}. A call that fails is answered with an exception result, the remaining calls of the
+ * batch are handled nevertheless.
  */
 public class RequestMapperFilter extends AbstractFilterAction<MethodCallMessage, MethodResultMessage> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestMapperFilter.class);
+
     private RequestHandler requestHandler;
 
     public RequestMapperFilter() {
@@ -55,10 +69,32 @@ public class RequestMapperFilter extends AbstractFilterAction<MethodCallMessage,
     protected MethodResultMessage doFilter(MethodCallMessage input, Map<String, Object> metadata) {
         metadata.put("callId", input.getCallId());
         metadata.put("answer", input.isAnswer());
+        if (input instanceof MethodCallBatchMessage && ((MethodCallBatchMessage) input).getMethodCalls() != null) {
+            return handleBatch((MethodCallBatchMessage) input);
+        }
         MethodResult result = requestHandler.handleCall(input.getMethodCall());
         return new MethodResultMessage(result, input.getCallId());
     }
 
+    private MethodResultBatchMessage handleBatch(MethodCallBatchMessage input) {
+        LOGGER.debug("handling batch {} of {} calls", input.getCallId(), input.getMethodCalls().size());
+        List<MethodResult> results = new ArrayList<MethodResult>();
+        for (MethodCall call : input.getMethodCalls()) {
+            try {
+                results.add(requestHandler.handleCall(call));
+            } catch (RuntimeException e) {
+                LOGGER.warn("call {} of batch {} failed", call.getMethodName(), input.getCallId(), e);
+                MethodResult result = new MethodResult();
+                result.setType(ReturnType.Exception);
+                result.setArg(e.getMessage());
+                result.setClassName(e.getClass().getName());
+                result.setMetaData(call.getMetaData());
+                results.add(result);
+            }
+        }
+        return new MethodResultBatchMessage(results, input.getCallId());
+    }
+
     public void setRequestHandler(RequestHandler requestHandler) {
         this.requestHandler = requestHandler;
     }
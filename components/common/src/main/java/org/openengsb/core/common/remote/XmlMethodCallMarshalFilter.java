@@ -41,7 +41,7 @@ import org.w3c.dom.Node;
  * MethodCallRequest is then passed to the next filter. The resulting {@link MethodResultMessage} is then seralized to
  * XML again and returned.
  *
- * This filter is intended for incoming ports.
+ * This filter is intended for incoming ports. Batches of method calls are not supported and rejected.
  *
  * <code>
  * <pre>
@@ -98,6 +98,10 @@ public class XmlMethodCallMarshalFilter extends AbstractFilterChainElement<Docum
     private MethodCallMessage parseMethodCall(Document input) throws JAXBException {
         MethodCallMessage request = unmarshaller.unmarshal(input, MethodCallMessage.class).getValue();
         MethodCall result = request.getMethodCall();
+        if (result == null) {
+            throw new FilterException("message " + request.getCallId()
+                    + " contains no single method call, batches of method calls are not supported as XML");
+        }
         List<String> classNames = result.getClasses();
         Class<?>[] clazzes = new Class<?>[classNames.size()];
         ClassLoader cl = this.getClass().getClassLoader();
@@ -31,6 +31,7 @@ import javax.xml.transform.dom.DOMResult;
 import org.apache.commons.lang.ClassUtils;
 import org.openengsb.core.api.remote.FilterAction;
 import org.openengsb.core.api.remote.FilterException;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResultMessage;
@@ -41,7 +42,7 @@ import org.w3c.dom.Node;
  * This filter takes a {@link MethodCallMessage} and serializes it into a {@link Document}. The document is then passed
  * to the next filter. The resulting document is then deseralized and returned.
  *
- * This filter is intended for outgoing ports.
+ * This filter is intended for outgoing ports. {@link MethodCallBatchMessage}s are not supported and rejected.
  *
  * <code>
  * <pre>
@@ -70,6 +71,10 @@ public class XmlMethodCallMarshalOutgoingFilter extends
     @Override
     protected MethodResultMessage doFilter(MethodCallMessage input, Map<String, Object> metaData)
         throws FilterException {
+        if (input instanceof MethodCallBatchMessage) {
+            throw new FilterException(
+                "batches of method calls cannot be sent as XML, outgoing.batchWindow has to be 0");
+        }
         Document serializeRequest = serializeRequest(input);
         Document resultDocument = (Document) next.filter(serializeRequest, metaData);
         try {
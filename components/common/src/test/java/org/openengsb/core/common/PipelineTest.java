@@ -40,7 +40,9 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.openengsb.core.api.remote.FilterAction;
 import org.openengsb.core.api.remote.FilterConfigurationException;
+import org.openengsb.core.api.remote.FilterException;
 import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResultMessage;
@@ -50,6 +52,7 @@ import org.openengsb.core.common.remote.JsonMethodCallMarshalFilter;
 import org.openengsb.core.common.remote.RequestMapperFilter;
 import org.openengsb.core.common.remote.XmlDecoderFilter;
 import org.openengsb.core.common.remote.XmlMethodCallMarshalFilter;
+import org.openengsb.core.common.remote.XmlMethodCallMarshalOutgoingFilter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
@@ -143,6 +146,13 @@ public class PipelineTest {
         assertThat((String) metaData.get("callId"), is("bar"));
     }
 
+    @Test(expected = FilterException.class)
+    public void testSendBatchWithXml_shouldThrowFilterException() throws Exception {
+        MethodCall call = new MethodCall("test", new Object[]{ "foo" });
+        MethodCallBatchMessage batch = new MethodCallBatchMessage(Arrays.asList(call, call), true);
+        new XmlMethodCallMarshalOutgoingFilter().filter(batch, new HashMap<String, Object>());
+    }
+
     @Test(expected = FilterConfigurationException.class)
     public void testCreateFilterWithIncompatibleFirst_shouldThrowFilterConfigurationException() throws Exception {
         FilterChainFactory<String, String> filterChainFactory =
@@ -20,17 +20,24 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.internal.stubbing.answers.Returns;
 import org.openengsb.core.api.remote.FilterAction;
+import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
+import org.openengsb.core.api.remote.MethodResult.ReturnType;
+import org.openengsb.core.api.remote.MethodResultBatchMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 
 public class JsonFilterTest {
@@ -72,6 +79,43 @@ public class JsonFilterTest {
             + "  \"credentials\" : null"
             + "}";
 
+    private static final String BATCH_CALL_MESSAGE = ""
+            + "{"
+            + "  \"callId\" : \"8f0e5d43-3c6e-4b6a-9a51-7d1d2a1f3c0b\","
+            + "  \"timestamp\" : 1339753772049,"
+            + "  \"methodCall\" : null,"
+            + "  \"methodCalls\" : [ {"
+            + "    \"methodName\" : \"theMethod\","
+            + "    \"args\" : [ { \"name\" : \"foo\", \"id\" : 42 } ],"
+            + "    \"metaData\" : { },"
+            + "    \"classes\" : [ \"org.openengsb.core.common.remote.TestModel\" ]"
+            + "  }, {"
+            + "    \"methodName\" : \"theOtherMethod\","
+            + "    \"args\" : [ { \"name\" : \"bar\", \"id\" : 43 } ],"
+            + "    \"metaData\" : { },"
+            + "    \"classes\" : [ \"org.openengsb.core.common.remote.TestModel\" ]"
+            + "  } ],"
+            + "  \"answer\" : true"
+            + "}";
+
+    private static final String BATCH_RESULT_MESSAGE = ""
+            + "{"
+            + "   \"result\":null,"
+            + "   \"results\":[{"
+            + "      \"type\":\"Object\","
+            + "      \"arg\":{ \"id\":\"42\", \"name\":\"foo\" },"
+            + "      \"metaData\":{ },"
+            + "      \"className\":\"org.openengsb.core.common.remote.TestModel\""
+            + "   }, {"
+            + "      \"type\":\"Void\","
+            + "      \"arg\":null,"
+            + "      \"metaData\":{ },"
+            + "      \"className\":null"
+            + "   }],"
+            + "   \"timestamp\":634752977414591025,"
+            + "   \"callId\":\"8f0e5d43-3c6e-4b6a-9a51-7d1d2a1f3c0b\""
+            + "}";
+
     @Test
     public void testMethodCallMarashalFilter_shouldMarshalOutgoingMessage() throws Exception {
         JsonOutgoingMethodCallMarshalFilter jsonOutgoingMethodCallMarshalFilter =
@@ -106,4 +150,48 @@ public class JsonFilterTest {
         jsonMethodCallMarshalFilter.setNext(mock);
         jsonMethodCallMarshalFilter.filter(CALL_MESSAGE, new HashMap<String, Object>());
     }
+
+    @Test
+    public void testIncomingMethodCallMarshalFilter_shouldConvertArgumentsOfAllBatchedCalls() throws Exception {
+        JsonMethodCallMarshalFilter jsonMethodCallMarshalFilter = new JsonMethodCallMarshalFilter();
+        FilterAction mock = mock(FilterAction.class);
+        when(mock.filter(any(MethodCallMessage.class), any(Map.class)))
+            .thenReturn(new MethodResultMessage(new MethodResult(), "foo"));
+        when(mock.getSupportedInputType()).thenAnswer(new Returns(MethodCallMessage.class));
+        when(mock.getSupportedOutputType()).thenAnswer(new Returns(MethodResultMessage.class));
+        jsonMethodCallMarshalFilter.setNext(mock);
+
+        jsonMethodCallMarshalFilter.filter(BATCH_CALL_MESSAGE, new HashMap<String, Object>());
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(mock).filter(captor.capture(), anyMap());
+        assertThat(captor.getValue(), instanceOf(MethodCallBatchMessage.class));
+        MethodCallBatchMessage batch = (MethodCallBatchMessage) captor.getValue();
+        assertThat(batch.getMethodCalls().size(), is(2));
+        for (MethodCall call : batch.getMethodCalls()) {
+            assertThat(call.getArgs()[0], instanceOf(TestModel.class));
+        }
+        assertThat(((TestModel) batch.getMethodCalls().get(1).getArgs()[0]).getName(), is("bar"));
+    }
+
+    @Test
+    public void testOutgoingMethodCallMarshalFilter_shouldConvertAllBatchedResults() throws Exception {
+        JsonOutgoingMethodCallMarshalFilter jsonOutgoingMethodCallMarshalFilter =
+            new JsonOutgoingMethodCallMarshalFilter();
+        FilterAction mock = mock(FilterAction.class);
+        when(mock.filter(any(MethodCallMessage.class), any(Map.class))).thenReturn(BATCH_RESULT_MESSAGE);
+        when(mock.getSupportedInputType()).thenAnswer(new Returns(String.class));
+        when(mock.getSupportedOutputType()).thenAnswer(new Returns(String.class));
+        jsonOutgoingMethodCallMarshalFilter.setNext(mock);
+
+        MethodResultMessage result =
+            (MethodResultMessage) jsonOutgoingMethodCallMarshalFilter.filter(new MethodCallMessage(),
+                new HashMap<String, Object>());
+
+        assertThat(result, instanceOf(MethodResultBatchMessage.class));
+        MethodResultBatchMessage batch = (MethodResultBatchMessage) result;
+        assertThat(batch.getResults().size(), is(2));
+        assertThat(batch.getResults().get(0).getArg(), instanceOf(TestModel.class));
+        assertThat(batch.getResults().get(1).getType(), is(ReturnType.Void));
+    }
 }
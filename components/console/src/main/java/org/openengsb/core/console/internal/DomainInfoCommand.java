@@ -24,7 +24,6 @@ import java.util.Locale;
 import org.apache.karaf.shell.commands.Command;
 import org.apache.karaf.shell.console.OsgiCommandSupport;
 import org.openengsb.core.api.DomainProvider;
-import org.openengsb.core.api.OsgiUtilsService;
 import org.openengsb.core.util.Comparators;
 import org.openengsb.core.util.DefaultOsgiUtilsService;
 import org.openengsb.core.util.OutputStreamFormater;
@@ -34,13 +33,17 @@ public class DomainInfoCommand extends OsgiCommandSupport {
 
     @Override
     protected Object doExecute() throws Exception {
-        OsgiUtilsService service = new DefaultOsgiUtilsService(getBundleContext());
-        List<DomainProvider> serviceList = service.listServices(DomainProvider.class);
-        Collections.sort(serviceList, Comparators.forDomainProvider());
-        System.out.println("Services");
-        for (DomainProvider dp : serviceList) {
-            OutputStreamFormater.printValue(dp.getName().getString(Locale.getDefault()),
-                dp.getDescription().getString(Locale.getDefault()));
+        DefaultOsgiUtilsService service = new DefaultOsgiUtilsService(getBundleContext());
+        try {
+            List<DomainProvider> serviceList = service.listServices(DomainProvider.class);
+            Collections.sort(serviceList, Comparators.forDomainProvider());
+            System.out.println("Services");
+            for (DomainProvider dp : serviceList) {
+                OutputStreamFormater.printValue(dp.getName().getString(Locale.getDefault()),
+                    dp.getDescription().getString(Locale.getDefault()));
+            }
+        } finally {
+            service.close();
         }
 
         return null;
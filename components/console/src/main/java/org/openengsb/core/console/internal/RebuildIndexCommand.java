@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.console.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.karaf.shell.commands.Argument;
+import org.apache.karaf.shell.commands.Command;
+import org.apache.karaf.shell.commands.Option;
+import org.apache.karaf.shell.console.OsgiCommandSupport;
+import org.openengsb.core.api.OsgiUtilsService;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexRebuilder;
+import org.openengsb.core.util.DefaultOsgiUtilsService;
+
+@Command(scope = "openengsb", name = "rebuild-index",
+    description = "Rebuilds EDB indexes from the commit history and replaces the existing index tables.")
+public class RebuildIndexCommand extends OsgiCommandSupport {
+
+    @Option(name = "-a", aliases = {"--all"}, description = "Rebuild all existing indexes", required = false,
+        multiValued = false)
+    private boolean all;
+
+    @Argument(index = 0, name = "models", description = "The canonical names of the model classes to rebuild",
+        required = false, multiValued = true)
+    private List<String> models = new ArrayList<String>();
+
+    @Override
+    protected Object doExecute() throws Exception {
+        DefaultOsgiUtilsService service = new DefaultOsgiUtilsService(getBundleContext());
+        try {
+            rebuildIndexes(service);
+        } finally {
+            service.close();
+        }
+        return null;
+    }
+
+    private void rebuildIndexes(OsgiUtilsService service) {
+        List<IndexRebuilder> rebuilders = service.listServices(IndexRebuilder.class);
+        if (rebuilders.isEmpty()) {
+            System.err.println("No index rebuilder available, is the openengsb-edbi feature installed?");
+            return;
+        }
+
+        if (all) {
+            for (IndexEngine indexEngine : service.listServices(IndexEngine.class)) {
+                for (Index<?> index : indexEngine.getAll()) {
+                    models.add(index.getName());
+                }
+            }
+        }
+        if (models.isEmpty()) {
+            System.err.println("Specify the model classes whose indexes to rebuild, or --all");
+            return;
+        }
+
+        rebuild(rebuilders.get(0), models);
+    }
+
+    private void rebuild(IndexRebuilder rebuilder, List<String> models) {
+        System.out.println(String.format("Rebuilding indexes of %s", models));
+        long start = System.currentTimeMillis();
+        try {
+            for (Index<?> index : rebuilder.rebuild(models)) {
+                System.out.println(String.format("Rebuilt index %s", index.getName()));
+            }
+            System.out.println(String.format("Rebuilt %d indexes in %d ms", models.size(),
+                System.currentTimeMillis() - start));
+        } catch (EDBIndexException ex) {
+            System.err.println(String.format("An error occurred: %s", ex.getMessage()));
+        }
+    }
+}
@@ -17,14 +17,40 @@
 
 package org.openengsb.core.edb.jpa.internal;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.meta.ClassMapping;
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.openengsb.core.edb.api.EDBCheckException;
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.api.EDBObject;
+import org.openengsb.core.edb.api.EDBObjectEntry;
 import org.openengsb.core.edb.api.EngineeringDatabaseService;
 import org.openengsb.core.edb.api.hooks.EDBBeginCommitHook;
 import org.openengsb.core.edb.api.hooks.EDBErrorHook;
@@ -35,11 +61,33 @@ import org.osgi.service.blueprint.container.ServiceUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+
 /**
- * The AbstractEDBService is used to encapsulate the commit logic of the EDB.
+ * The AbstractEDBService is used to encapsulate the commit logic of the EDB. Commits are processed by one writer at a
+ * time in the order in which they arrive, while read operations are not blocked by running commits. Every write is
+ * done in a transaction of its own, which is completed before the commit lock is released, so the lock is never held
+ * beyond the EDB method which acquired it.
  */
 public abstract class AbstractEDBService implements EngineeringDatabaseService {
+    private static final int IMPORT_QUERY_CHUNK_SIZE = 500;
+    private static final String TYPED_VALUES_MIGRATION = "typedValues";
+    private static final String TYPED_VALUE_INDEXES_MIGRATION = "typedValueIndexes";
+    private static final List<String> TYPED_VALUE_FIELDS = Arrays.asList("longValue", "doubleValue", "booleanValue");
+    private static final List<String> TYPED_VALUE_TYPES = Arrays.asList(Long.class.getName(),
+        Integer.class.getName(), Short.class.getName(), Byte.class.getName(), Double.class.getName(),
+        Float.class.getName(), Boolean.class.getName(), Date.class.getName());
+    private static final long DEFAULT_OBJECT_CACHE_SIZE = 100000;
     protected EntityManager entityManager;
+    private final ReentrantLock commitLock = new ReentrantLock(true);
+    private boolean groupCommitEnabled = false;
+    private long groupCommitWindow = 5;
+    private int groupCommitMaxObjects = 1000;
+    private volatile GroupCommitQueue groupCommitQueue;
+    private final CommitClock commitClock = new CommitClock();
+    private volatile EDBObjectCache objectCache = new EDBObjectCache(DEFAULT_OBJECT_CACHE_SIZE);
+    private ObjectName objectCacheMBeanName;
     private final Logger logger;
     private final Boolean revisionCheckEnabled;
     private final List<EDBErrorHook> errorHooks;
@@ -68,44 +116,310 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
         if (commit.isCommitted()) {
             throw new EDBException("EDBCommit is already commitet.");
         }
-        if (revisionCheckEnabled && commit.getParentRevisionNumber() != null
-                && !commit.getParentRevisionNumber().equals(getCurrentRevisionNumber())) {
-            throw new EDBException("EDBCommit do not have the correct head revision number.");
+        if (groupCommitQueue != null) {
+            return performGroupCommitLogic((JPACommit) commit, groupCommitQueue);
+        }
+        Long timestamp;
+        commitLock.lock();
+        try {
+            checkHeadRevision(commit, null);
+            runBeginCommitHooks(commit);
+            EDBException exception = runPreCommitHooks(commit);
+            if (exception != null) {
+                return runErrorHooks(commit, exception);
+            }
+            timestamp = performCommit((JPACommit) commit);
+        } finally {
+            commitLock.unlock();
+        }
+        runEDBPostHooks(commit);
+
+        return timestamp;
+    }
+
+    /**
+     * Performs the commit logic in the group commit mode. The checks and hooks are done in the calling thread, one
+     * commit after the other. Commits which touch objects of a not yet written commit wait until this commit is durable
+     * before they are checked. The checked commit is then handed over to the group commit queue and this method
+     * returns as soon as the group containing the commit has been written. The error hooks run after the commit lock is
+     * released, since the commit they may return waits for the group writer, which needs the commit lock.
+     */
+    private Long performGroupCommitLogic(JPACommit commit, GroupCommitQueue queue) throws EDBException {
+        GroupCommitQueue.PendingCommit pending = null;
+        EDBException exception;
+        lockWithoutPendingOids(queue, GroupCommitQueue.getOids(commit));
+        try {
+            checkHeadRevision(commit, queue);
+            runBeginCommitHooks(commit);
+            exception = runPreCommitHooks(commit);
+            if (exception == null) {
+                pending = queue.enqueue(commit);
+            }
+        } finally {
+            commitLock.unlock();
         }
-        runBeginCommitHooks(commit);
-        EDBException exception = runPreCommitHooks(commit);
         if (exception != null) {
             return runErrorHooks(commit, exception);
         }
-        Long timestamp = performCommit((JPACommit) commit);
+        Long timestamp = queue.await(pending);
         runEDBPostHooks(commit);
 
         return timestamp;
     }
 
+    /**
+     * Performs the import of a commit which consists only of inserts. The begin and pre-commit hooks are not run. They
+     * are replaced by one batched check that none of the inserted OIDs is active yet. The post-commit hooks run once
+     * after the import as for every other commit.
+     */
+    protected Long performImportLogic(EDBCommit commit) throws EDBException {
+        if (!(commit instanceof JPACommit)) {
+            throw new EDBException("The given commit type is not supported.");
+        }
+        if (commit.isCommitted()) {
+            throw new EDBException("EDBCommit is already commitet.");
+        }
+        JPACommit jpaCommit = (JPACommit) commit;
+        if (!jpaCommit.getUpdatedObjects().isEmpty() || !jpaCommit.getDeletions().isEmpty()) {
+            throw new EDBException("Only inserts are supported by the import of a commit.");
+        }
+        GroupCommitQueue queue = groupCommitQueue;
+        Long timestamp;
+        lockWithoutPendingOids(queue, GroupCommitQueue.getOids(jpaCommit));
+        try {
+            checkHeadRevision(commit, queue);
+            timestamp = performImport(jpaCommit);
+        } finally {
+            commitLock.unlock();
+        }
+        runEDBPostHooks(commit);
+
+        return timestamp;
+    }
+
+    /**
+     * Acquires the commit lock as soon as none of the given OIDs is part of a pending commit of the given group commit
+     * queue (which may be null). The lock is not held while waiting, since the pending commits are written under the
+     * commit lock. Commits are only queued under the commit lock, so no new pending commit can touch the OIDs until
+     * the lock is released again.
+     */
+    private void lockWithoutPendingOids(GroupCommitQueue queue, Collection<String> oids) throws EDBException {
+        while (true) {
+            if (queue != null) {
+                queue.awaitPendingOids(oids);
+            }
+            commitLock.lock();
+            if (queue == null || !queue.hasPendingOids(oids)) {
+                return;
+            }
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Tests if the parent revision of the given commit is the current head revision, if the revision check is enabled.
+     * In the group commit mode, the newest commit which is not written yet is the head revision.
+     */
+    private void checkHeadRevision(EDBCommit commit, GroupCommitQueue queue) throws EDBException {
+        if (!revisionCheckEnabled || commit.getParentRevisionNumber() == null) {
+            return;
+        }
+        UUID headRevision = queue != null ? queue.getPendingHeadRevision() : null;
+        if (headRevision == null) {
+            headRevision = getCurrentRevisionNumber();
+        }
+        if (!commit.getParentRevisionNumber().equals(headRevision)) {
+            throw new EDBException("EDBCommit do not have the correct head revision number.");
+        }
+    }
+
+    /**
+     * Writes a group of commits within one transaction. Every commit gets its own timestamp, so the commits of a group
+     * get consecutive timestamps if they are written within one millisecond. The group is written under the commit
+     * lock, so it does not interleave with imports, deletions of commits or the filling of the head table.
+     */
+    private void performGroupCommit(List<JPACommit> commits) throws EDBException {
+        commitLock.lock();
+        try {
+            beginWriteTransaction();
+            Set<String> oids = new HashSet<>();
+            for (JPACommit commit : commits) {
+                persistCommitChanges(commit, nextCommitTimestamp());
+                oids.addAll(GroupCommitQueue.getOids(commit));
+            }
+            commitWriteTransaction();
+            invalidateCachedObjects(oids);
+        } catch (Exception ex) {
+            try {
+                rollbackWriteTransaction();
+            } catch (Exception e) {
+                throw new EDBException("Failed to rollback transaction to EDB", e);
+            }
+            throw new EDBException("Failed to commit transaction to EDB", ex);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
     /**
      * Does the actual commit work (JPA related actions) and returns the timestamp when the commit was done. Throws an
      * EDBException if an error occurs.
      */
     private Long performCommit(JPACommit commit) throws EDBException {
-        synchronized (entityManager) {
-            long timestamp = System.currentTimeMillis();
+        long timestamp;
+        try {
+            beginWriteTransaction();
+            timestamp = nextCommitTimestamp();
+            persistCommitChanges(commit, timestamp);
+            commitWriteTransaction();
+            invalidateCachedObjects(GroupCommitQueue.getOids(commit));
+        } catch (Exception ex) {
             try {
-                beginTransaction();
-                persistCommitChanges(commit, timestamp);
-                commitTransaction();
-            } catch (Exception ex) {
-                try {
-                    rollbackTransaction();
-                } catch (Exception e) {
-                    throw new EDBException("Failed to rollback transaction to EDB", e);
+                rollbackWriteTransaction();
+            } catch (Exception e) {
+                throw new EDBException("Failed to rollback transaction to EDB", e);
+            }
+            throw new EDBException("Failed to commit transaction to EDB", ex);
+        }
+        return timestamp;
+    }
+
+    /**
+     * Does the JPA related work of an import. All objects are persisted before the head table is updated, so the
+     * inserts are not interrupted by head lookups and can be flushed in JDBC batches. The existing heads of the
+     * imported OIDs are loaded with a few IN queries instead of one lookup per object.
+     */
+    private Long performImport(JPACommit commit) throws EDBException {
+        long timestamp;
+        try {
+            beginWriteTransaction();
+            List<JPAObject> inserts = commit.getInsertedObjects();
+            Map<String, JPAObjectHead> heads = loadObjectHeads(inserts);
+            checkImportedObjects(inserts, heads);
+            timestamp = nextCommitTimestamp();
+            commit.setTimestamp(timestamp);
+            for (JPAObject insert : inserts) {
+                insert.addEntry(CheckPreCommitHook.createVersionEntry(1, insert));
+                insert.setTimestamp(timestamp);
+                entityManager.persist(insert);
+            }
+            commit.setCommitted(true);
+            entityManager.persist(commit);
+            for (JPAObject insert : inserts) {
+                JPAObjectHead head = heads.get(insert.getOID());
+                if (head == null) {
+                    entityManager.persist(new JPAObjectHead(insert));
+                } else {
+                    head.setObject(insert);
                 }
-                throw new EDBException("Failed to commit transaction to EDB", ex);
             }
-            return timestamp;
+            commitWriteTransaction();
+            invalidateCachedObjects(GroupCommitQueue.getOids(commit));
+        } catch (Exception ex) {
+            try {
+                rollbackWriteTransaction();
+            } catch (Exception e) {
+                throw new EDBException("Failed to rollback transaction to EDB", e);
+            }
+            if (ex instanceof EDBCheckException) {
+                throw (EDBCheckException) ex;
+            }
+            throw new EDBException("Failed to import commit into the EDB", ex);
+        }
+        return timestamp;
+    }
+
+    /**
+     * Removes the newest versions of the given OIDs from the object cache.
+     */
+    private void invalidateCachedObjects(Collection<String> oids) {
+        EDBObjectCache cache = objectCache;
+        if (cache != null) {
+            cache.invalidate(oids);
+        }
+    }
+
+    /**
+     * Removes the given versions, which have been deleted from the history, from the object cache.
+     */
+    private void invalidateCachedVersions(List<JPAObject> removedObjects) {
+        EDBObjectCache cache = objectCache;
+        if (cache == null) {
+            return;
+        }
+        for (JPAObject object : removedObjects) {
+            cache.invalidateVersion(object.getOID(), object.getTimestamp());
+        }
+    }
+
+    /**
+     * Loads the head entries of the OIDs of the given objects, chunked into IN queries of a limited size.
+     */
+    private Map<String, JPAObjectHead> loadObjectHeads(List<JPAObject> objects) {
+        List<String> oids = new ArrayList<>();
+        for (JPAObject object : objects) {
+            oids.add(object.getOID());
+        }
+        Map<String, JPAObjectHead> heads = new HashMap<>();
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        for (List<String> chunk : Lists.partition(oids, IMPORT_QUERY_CHUNK_SIZE)) {
+            CriteriaQuery<JPAObjectHead> query = criteriaBuilder.createQuery(JPAObjectHead.class);
+            Root<JPAObjectHead> from = query.from(JPAObjectHead.class);
+            query.select(from).where(from.get("oid").in(chunk));
+            for (JPAObjectHead head : entityManager.createQuery(query).getResultList()) {
+                heads.put(head.getOID(), head);
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * Checks that none of the imported OIDs is active in the EDB or contained twice in the import. Throws an
+     * EDBCheckException with the failing objects otherwise.
+     */
+    private void checkImportedObjects(List<JPAObject> inserts, Map<String, JPAObjectHead> heads)
+        throws EDBCheckException {
+        List<JPAObject> failedObjects = new ArrayList<>();
+        Set<String> importedOids = new HashSet<>();
+        for (JPAObject insert : inserts) {
+            JPAObjectHead head = heads.get(insert.getOID());
+            if ((head != null && !head.isDeleted()) || !importedOids.add(insert.getOID())) {
+                failedObjects.add(insert);
+            }
+        }
+        if (!failedObjects.isEmpty()) {
+            EDBCheckException exception = new EDBCheckException(failedObjects.size()
+                    + " of the imported objects exist already.");
+            exception.setFailedInserts(EDBUtils.convertJPAObjectsToEDBObjects(failedObjects));
+            exception.setFailedUpdates(new ArrayList<EDBObject>());
+            exception.setFailedDeletes(new ArrayList<String>());
+            throw exception;
         }
     }
 
+    /**
+     * Returns the timestamp for the next commit. Since the timestamp is unique and strictly increasing, it can be used
+     * to identify a commit. It follows the system time, but never waits for it. On the first commit, the clock is set
+     * to the timestamp of the last persisted commit, so that commits after a restart are newer than all existing ones.
+     */
+    private long nextCommitTimestamp() {
+        if (!commitClock.isInitialized()) {
+            Long lastTimestamp = loadLastCommitTimestamp();
+            if (lastTimestamp != null) {
+                commitClock.update(lastTimestamp);
+            }
+        }
+        return commitClock.next();
+    }
+
+    private Long loadLastCommitTimestamp() {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.select(criteriaBuilder.max(from.<Long> get("timestamp")));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
     /**
      * Add all the changes which are done through the given commit object to the entity manager.
      */
@@ -126,6 +440,7 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
         for (JPAObject update : modified) {
             update.setTimestamp(timestamp);
             entityManager.persist(update);
+            updateObjectHead(update);
         }
     }
 
@@ -139,9 +454,285 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
             o.setDeleted(true);
             JPAObject j = EDBUtils.convertEDBObjectToJPAObject(o);
             entityManager.persist(j);
+            updateObjectHead(j);
+        }
+    }
+
+    /**
+     * Sets the given object as the newest version of its OID in the head table.
+     */
+    private void updateObjectHead(JPAObject object) {
+        JPAObjectHead head = entityManager.find(JPAObjectHead.class, object.getOID());
+        if (head == null) {
+            entityManager.persist(new JPAObjectHead(object));
+        } else {
+            head.setObject(object);
+        }
+    }
+
+    /**
+     * Fills the head table from the history for all OIDs which have versions in the history but no head entry, e.g.
+     * because they were written before the head table existed. The head entries are created in chunks, each one in
+     * its own transaction. Returns the number of created head entries.
+     */
+    protected int fillMissingObjectHeads() throws EDBException {
+        int filled = 0;
+        commitLock.lock();
+        try {
+            int created;
+            do {
+                created = fillMissingObjectHeadChunk(filled == 0);
+                filled += created;
+            } while (created > 0);
+        } finally {
+            commitLock.unlock();
+        }
+        if (filled > 0) {
+            logger.info("Filled {} missing head entries from the EDB history", filled);
+        }
+        return filled;
+    }
+
+    private int fillMissingObjectHeadChunk(boolean checkCounts) throws EDBException {
+        try {
+            beginWriteTransaction();
+            Map<String, JPAObject> newest = new HashMap<>();
+            if (!checkCounts || hasMissingObjectHeads()) {
+                for (JPAObject object : loadNewestObjectsWithoutHead(IMPORT_QUERY_CHUNK_SIZE)) {
+                    JPAObject other = newest.get(object.getOID());
+                    if (other == null || other.getId() < object.getId()) {
+                        newest.put(object.getOID(), object);
+                    }
+                }
+            }
+            for (JPAObject object : newest.values()) {
+                entityManager.persist(new JPAObjectHead(object));
+            }
+            commitWriteTransaction();
+            return newest.size();
+        } catch (Exception ex) {
+            try {
+                rollbackWriteTransaction();
+            } catch (Exception e) {
+                throw new EDBException("Failed to rollback transaction to EDB", e);
+            }
+            throw new EDBException("Failed to fill the head table from the EDB history", ex);
         }
     }
 
+    /**
+     * Returns true if there are less head entries than OIDs in the history.
+     */
+    private boolean hasMissingObjectHeads() {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> oidCount = criteriaBuilder.createQuery(Long.class);
+        Root<JPAObject> objects = oidCount.from(JPAObject.class);
+        oidCount.select(criteriaBuilder.countDistinct(objects.get("oid")));
+        CriteriaQuery<Long> headCount = criteriaBuilder.createQuery(Long.class);
+        headCount.select(criteriaBuilder.count(headCount.from(JPAObjectHead.class)));
+        return entityManager.createQuery(oidCount).getSingleResult()
+                > entityManager.createQuery(headCount).getSingleResult();
+    }
+
+    /**
+     * Loads the newest versions of at most maxResults OIDs which have no head entry yet.
+     */
+    private List<JPAObject> loadNewestObjectsWithoutHead(int maxResults) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+
+        Subquery<Long> maxTime = query.subquery(Long.class);
+        Root<JPAObject> version = maxTime.from(JPAObject.class);
+        maxTime.select(criteriaBuilder.max(version.<Long> get("timestamp")));
+        maxTime.where(criteriaBuilder.equal(version.get("oid"), from.get("oid")));
+
+        Subquery<String> head = query.subquery(String.class);
+        Root<JPAObjectHead> headFrom = head.from(JPAObjectHead.class);
+        head.select(headFrom.<String> get("oid"));
+        head.where(criteriaBuilder.equal(headFrom.get("oid"), from.get("oid")));
+
+        query.select(from);
+        query.where(criteriaBuilder.equal(from.get("timestamp"), maxTime),
+            criteriaBuilder.not(criteriaBuilder.exists(head)));
+        query.orderBy(criteriaBuilder.asc(from.get("oid")));
+        return entityManager.createQuery(query).setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * Fills the typed value columns of the entries of numbers, booleans and dates which have none, e.g. because they
+     * were written before these columns existed, so that range queries find them. The entries are updated in chunks,
+     * each one in its own transaction. Since all entries are written with typed values, this is only done once: the
+     * completed fill is recorded as JPAMigration and skipped on later starts. Returns the number of updated entries.
+     */
+    protected int fillMissingTypedValues() throws EDBException {
+        if (entityManager.find(JPAMigration.class, TYPED_VALUES_MIGRATION) != null) {
+            return 0;
+        }
+        int filled = 0;
+        commitLock.lock();
+        try {
+            Long lastId = 0L;
+            List<JPAEntry> chunk;
+            do {
+                chunk = fillMissingTypedValueChunk(lastId);
+                for (JPAEntry entry : chunk) {
+                    if (entry.getLongValue() != null || entry.getDoubleValue() != null
+                            || entry.getBooleanValue() != null) {
+                        filled++;
+                    }
+                    lastId = entry.getId();
+                }
+            } while (!chunk.isEmpty());
+            recordMigration(TYPED_VALUES_MIGRATION);
+        } finally {
+            commitLock.unlock();
+        }
+        if (filled > 0) {
+            logger.info("Filled the typed values of {} EDB entries", filled);
+        }
+        return filled;
+    }
+
+    /**
+     * Creates composite indexes on the key and each of the typed value columns of the entries, so that the equality
+     * and range predicates of queries find the entries of a key with a typed value directly. JPA 2.0 can only declare
+     * indexes on single columns, so they are created with the table and column names of the OpenJPA mapping, once per
+     * database. Since they only speed up queries, a failure is logged and the EDB is started anyway.
+     */
+    protected void createTypedValueIndexes() throws EDBException {
+        if (entityManager.find(JPAMigration.class, TYPED_VALUE_INDEXES_MIGRATION) != null) {
+            return;
+        }
+        OpenJPAEntityManagerSPI openJpa = entityManager.unwrap(OpenJPAEntityManagerSPI.class);
+        JDBCConfiguration configuration = (JDBCConfiguration) openJpa.getConfiguration();
+        DBDictionary dictionary = configuration.getDBDictionaryInstance();
+        ClassMapping mapping = configuration.getMappingRepositoryInstance().getMapping(JPAEntry.class, null, true);
+        String table = dictionary.getFullName(mapping.getTable(), false);
+        String keyColumn = dictionary.toDBName(mapping.getFieldMapping("key").getColumns()[0].getIdentifier());
+        for (String field : TYPED_VALUE_FIELDS) {
+            String column = dictionary.toDBName(mapping.getFieldMapping(field).getColumns()[0].getIdentifier());
+            String index = "I_JPAENTRY_KEY_" + field.substring(0, field.length() - "Value".length()).toUpperCase();
+            try {
+                beginWriteTransaction();
+                entityManager.createNativeQuery(String.format("CREATE INDEX %s ON %s (%s, %s)", index, table,
+                    keyColumn, column)).executeUpdate();
+                commitWriteTransaction();
+            } catch (Exception ex) {
+                logger.warn("Unable to create the index {} of the EDB entries: {}", index, ex.getMessage());
+                try {
+                    rollbackWriteTransaction();
+                } catch (Exception e) {
+                    throw new EDBException("Failed to rollback transaction to EDB", e);
+                }
+            }
+        }
+        recordMigration(TYPED_VALUE_INDEXES_MIGRATION);
+    }
+
+    /**
+     * Records the one-time migration of the given name as completed.
+     */
+    private void recordMigration(String name) throws EDBException {
+        try {
+            beginWriteTransaction();
+            entityManager.persist(new JPAMigration(name, System.currentTimeMillis()));
+            commitWriteTransaction();
+        } catch (Exception ex) {
+            try {
+                rollbackWriteTransaction();
+            } catch (Exception e) {
+                throw new EDBException("Failed to rollback transaction to EDB", e);
+            }
+            throw new EDBException("Failed to record the migration " + name + " of the EDB", ex);
+        }
+    }
+
+    private List<JPAEntry> fillMissingTypedValueChunk(Long afterId) throws EDBException {
+        try {
+            beginWriteTransaction();
+            List<JPAEntry> entries = loadEntriesWithoutTypedValue(afterId, IMPORT_QUERY_CHUNK_SIZE);
+            for (JPAEntry entry : entries) {
+                EDBObjectEntry converted = EDBUtils.convertJPAEntryToEDBObjectEntry(entry);
+                if (converted != null) {
+                    entry.setTypedValue(converted.getValue());
+                }
+            }
+            commitWriteTransaction();
+            return entries;
+        } catch (Exception ex) {
+            try {
+                rollbackWriteTransaction();
+            } catch (Exception e) {
+                throw new EDBException("Failed to rollback transaction to EDB", e);
+            }
+            throw new EDBException("Failed to fill the typed values of the EDB entries", ex);
+        }
+    }
+
+    /**
+     * Loads at most maxResults entries with an id greater than the given one, whose type has a typed value column but
+     * which have no typed value, ordered by their id.
+     */
+    private List<JPAEntry> loadEntriesWithoutTypedValue(Long afterId, int maxResults) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAEntry> query = criteriaBuilder.createQuery(JPAEntry.class);
+        Root<JPAEntry> from = query.from(JPAEntry.class);
+
+        query.select(from);
+        query.where(criteriaBuilder.greaterThan(from.<Long> get("id"), afterId),
+            from.get("type").in(TYPED_VALUE_TYPES),
+            criteriaBuilder.isNull(from.get("longValue")),
+            criteriaBuilder.isNull(from.get("doubleValue")),
+            criteriaBuilder.isNull(from.get("booleanValue")));
+        query.orderBy(criteriaBuilder.asc(from.get("id")));
+        return entityManager.createQuery(query).setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * Moves the head entries of the given objects, which are about to be removed, to the newest version of their OIDs
+     * which will remain in the history. OIDs which have no versions left are removed from the head table.
+     */
+    private void rebaseObjectHeads(List<JPAObject> removedObjects) {
+        Set<Long> removedIds = new HashSet<>();
+        Set<String> oids = new LinkedHashSet<>();
+        for (JPAObject object : removedObjects) {
+            removedIds.add(object.getId());
+            oids.add(object.getOID());
+        }
+        for (String oid : oids) {
+            JPAObjectHead head = entityManager.find(JPAObjectHead.class, oid);
+            if (head == null) {
+                continue;
+            }
+            JPAObject newest = loadNewestRemainingObject(oid, removedIds);
+            if (newest != null) {
+                head.setObject(newest);
+            } else {
+                entityManager.remove(head);
+            }
+        }
+    }
+
+    /**
+     * Loads the newest version of the object with the given OID out of the history, ignoring the versions with the
+     * given ids. Returns null if there is none.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private JPAObject loadNewestRemainingObject(String oid, Set<Long> ignoredIds) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root from = query.from(JPAObject.class);
+        query.select(from);
+        Predicate predicate1 = criteriaBuilder.equal(from.get("oid"), oid);
+        Predicate predicate2 = criteriaBuilder.not(from.get("id").in(ignoredIds));
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+        query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query).setMaxResults(1);
+        List<JPAObject> result = typedQuery.getResultList();
+        return result.isEmpty() ? null : result.get(0);
+    }
+
     /**
      * Runs all registered begin commit hooks on the EDBCommit object. Logs exceptions which occurs in the hooks, except
      * for ServiceUnavailableExceptions and EDBExceptions. If an EDBException occurs, it is thrown and so returned to
@@ -225,23 +816,29 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
     }
 
     protected void performDeleteLogic(JPACommit commit, List<JPAObject> deletedObjects) {
-        synchronized (entityManager) {
+        lockWithoutPendingOids(groupCommitQueue, GroupCommitQueue.getOids(commit));
+        try {
+            beginWriteTransaction();
+            List<JPAObject> removedObjects = new ArrayList<>(commit.getJPAObjects());
+            removedObjects.addAll(deletedObjects);
+            rebaseObjectHeads(removedObjects);
+            entityManager.flush();
+            for (JPAObject deletedObject : deletedObjects) {
+                entityManager.remove(deletedObject);
+            }
+            entityManager.remove(commit);
+            commitWriteTransaction();
+            invalidateCachedVersions(removedObjects);
+            logger.info("Deleted commit " + commit.getRevisionNumber());
+        } catch (Exception ex) {
             try {
-                beginTransaction();
-                for (JPAObject deletedObject : deletedObjects) {
-                    entityManager.remove(deletedObject);
-                }
-                entityManager.remove(commit);
-                commitTransaction();
-                logger.info("Deleted commit " + commit.getRevisionNumber());
-            } catch (Exception ex) {
-                try {
-                    rollbackTransaction();
-                } catch (Exception e) {
-                    throw new EDBException("Failed to rollback transaction to EDB", e);
-                }
-                throw new EDBException("Failed to commit transaction to EDB", ex);
+                rollbackWriteTransaction();
+            } catch (Exception e) {
+                throw new EDBException("Failed to rollback transaction to EDB", e);
             }
+            throw new EDBException("Failed to commit transaction to EDB", ex);
+        } finally {
+            commitLock.unlock();
         }
     }
 
@@ -254,6 +851,113 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
     protected void rollbackTransaction() {
     }
 
+    /**
+     * Begins the transaction in which the EDB writes a commit, a group of commits, an import or the deletion of a
+     * commit. The write has to be durable before the commit lock is released, so implementations which rely on a
+     * container managed transaction have to start a separate transaction here instead of joining the one of the caller.
+     */
+    protected void beginWriteTransaction() {
+        beginTransaction();
+    }
+
+    protected void commitWriteTransaction() {
+        commitTransaction();
+    }
+
+    protected void rollbackWriteTransaction() {
+        rollbackTransaction();
+    }
+
+    /**
+     * Enables or disables the group commit mode. In this mode, commits which arrive within the group commit window are
+     * written together in one transaction.
+     */
+    public void setGroupCommitEnabled(Boolean groupCommitEnabled) {
+        this.groupCommitEnabled = groupCommitEnabled;
+        updateGroupCommitQueue();
+    }
+
+    /**
+     * Sets the time in milliseconds the writer of a group waits for further commits before it writes the group.
+     */
+    public void setGroupCommitWindow(Long groupCommitWindow) {
+        this.groupCommitWindow = groupCommitWindow;
+        updateGroupCommitQueue();
+    }
+
+    /**
+     * Sets the number of objects after which a group is closed, even if the group commit window is not over yet.
+     */
+    public void setGroupCommitMaxObjects(Integer groupCommitMaxObjects) {
+        this.groupCommitMaxObjects = groupCommitMaxObjects;
+        updateGroupCommitQueue();
+    }
+
+    /**
+     * Sets the maximum number of entries of the EDBObjects which are kept in the object cache. A value of 0 disables
+     * the cache.
+     */
+    public void setObjectCacheSize(Long objectCacheSize) {
+        objectCache = objectCacheSize > 0 ? new EDBObjectCache(objectCacheSize) : null;
+    }
+
+    /**
+     * Returns the object cache or null if the cache is disabled.
+     */
+    protected EDBObjectCache getObjectCache() {
+        return objectCache;
+    }
+
+    /**
+     * Returns the hit and miss statistics of the object cache or null if the cache is disabled.
+     */
+    public CacheStats getObjectCacheStats() {
+        EDBObjectCache cache = objectCache;
+        return cache != null ? cache.getStats() : null;
+    }
+
+    /**
+     * Registers the statistics of the object cache as MBean under {@value ObjectCacheStatistics#OBJECT_NAME}, unless
+     * another EDB service registered them already.
+     */
+    protected synchronized void registerObjectCacheMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ObjectCacheStatistics.OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new ObjectCacheStatistics(this), name);
+                objectCacheMBeanName = name;
+            }
+        } catch (JMException e) {
+            logger.warn("Unable to register the object cache MBean", e);
+        }
+    }
+
+    protected synchronized void unregisterObjectCacheMBean() {
+        if (objectCacheMBeanName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectCacheMBeanName);
+        } catch (JMException e) {
+            logger.warn("Unable to unregister the object cache MBean", e);
+        }
+        objectCacheMBeanName = null;
+    }
+
+    private void updateGroupCommitQueue() {
+        if (!groupCommitEnabled) {
+            groupCommitQueue = null;
+            return;
+        }
+        groupCommitQueue = new GroupCommitQueue(new GroupCommitQueue.GroupWriter() {
+            @Override
+            public void writeGroup(List<JPACommit> commits) throws EDBException {
+                performGroupCommit(commits);
+            }
+        }, groupCommitWindow, groupCommitMaxObjects);
+    }
+
     public void setEntityManager(EntityManager entityManager) {
         this.entityManager = entityManager;
     }
@@ -102,7 +102,7 @@ public class CheckPreCommitHook implements EDBPreCommitHook {
             if (checkIfActiveOidExisting(oid)) {
                 failedObjects.add(insert);
             } else {
-                insert.addEntry(new JPAEntry(EDBConstants.MODEL_VERSION, "1", Integer.class.getName(), insert));
+                insert.addEntry(createVersionEntry(1, insert));
             }
         }
         return failedObjects;
@@ -132,8 +132,7 @@ public class CheckPreCommitHook implements EDBPreCommitHook {
                 Integer modelVersion = investigateVersionAndCheckForConflict(update);
                 modelVersion++;
                 update.removeEntry(EDBConstants.MODEL_VERSION);
-                update.addEntry(new JPAEntry(EDBConstants.MODEL_VERSION, modelVersion + "", 
-                    Integer.class.getName(), update));
+                update.addEntry(createVersionEntry(modelVersion, update));
             } catch (EDBException e) {
                 failedObjects.add(update);
             }
@@ -141,6 +140,16 @@ public class CheckPreCommitHook implements EDBPreCommitHook {
         return failedObjects;
     }
 
+    /**
+     * Creates the model version entry with the given version for the given JPAObject.
+     */
+    static JPAEntry createVersionEntry(Integer modelVersion, JPAObject owner) {
+        JPAEntry entry = new JPAEntry(EDBConstants.MODEL_VERSION, modelVersion.toString(), Integer.class.getName(),
+            owner);
+        entry.setTypedValue(modelVersion);
+        return entry;
+    }
+
     /**
      * Investigates the version of an JPAObject and checks if a conflict can be found.
      */
@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The CommitClock hands out the timestamps of the EDB commits. The timestamps follow the system time, but are strictly
+ * increasing, so no two commits ever get the same timestamp. If more than one commit happens within one millisecond,
+ * the clock does not wait for the next millisecond but runs ahead of the system time, so consecutive commits (e.g.
+ * the commits of one group) get consecutive timestamps and the commit rate is not limited by the clock. The clock
+ * falls back to the system time as soon as the system time catches up again. While the clock is ahead, a read at the
+ * current system time may not yet see the newest commits, which are ordered after this point in time.
+ */
+final class CommitClock {
+    private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Returns true if the clock has handed out or seen a timestamp already.
+     */
+    boolean isInitialized() {
+        return last.get() != Long.MIN_VALUE;
+    }
+
+    /**
+     * Makes sure that all following timestamps are bigger than the given one (e.g. the timestamp of the last commit
+     * which is already persisted).
+     */
+    void update(long timestamp) {
+        long current = last.get();
+        while (current < timestamp && !last.compareAndSet(current, timestamp)) {
+            current = last.get();
+        }
+    }
+
+    /**
+     * Returns the next commit timestamp, which is bigger than all timestamps handed out before. It is the current
+     * system time, unless the clock is ahead of it.
+     */
+    long next() {
+        while (true) {
+            long current = last.get();
+            long next = Math.max(System.currentTimeMillis(), current + 1);
+            if (last.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openengsb.core.edb.api.EDBObject;
+import org.openengsb.core.edb.api.EDBObjectEntry;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * Caches converted EDBObjects. Since a committed version of an object never changes, the versions are cached by their
+ * OID and timestamp and only have to be removed when their commit is deleted. Additionally the timestamp of the newest
+ * version of every OID is cached, which is invalidated whenever a commit touches the OID. Older versions are found by
+ * their validity interval, which reaches from their timestamp to the timestamp of the next version of the OID and does
+ * not change either until a commit is deleted.
+ *
+ * Every invalidation increases a generation counter. Readers take the generation before they load an object from the
+ * database and the newest version of an OID is only cached if no invalidation happened in the meantime, so that a
+ * reader which raced with a commit can not put an outdated version back into the cache.
+ *
+ * The cached objects are copied when they are put into or taken from the cache, since EDBObjects are mutable.
+ */
+final class EDBObjectCache {
+    private final Cache<VersionKey, EDBObject> versions;
+    private final Cache<String, Long> newestVersions;
+    private final Cache<String, NavigableMap<Long, Long>> validities;
+    private final AtomicLong generation = new AtomicLong();
+
+    EDBObjectCache(long maxEntries) {
+        versions = CacheBuilder.newBuilder().maximumWeight(maxEntries).weigher(new Weigher<VersionKey, EDBObject>() {
+            @Override
+            public int weigh(VersionKey key, EDBObject value) {
+                return value.size() + 1;
+            }
+        }).recordStats().build();
+        newestVersions = CacheBuilder.newBuilder().maximumSize(maxEntries).recordStats().build();
+        validities = CacheBuilder.newBuilder().maximumSize(maxEntries).recordStats().build();
+    }
+
+    /**
+     * Returns the current generation, which has to be passed to putNewestVersion.
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns a copy of the newest version of the object with the given OID or null if it is not cached.
+     */
+    EDBObject getNewestVersion(String oid) {
+        Long timestamp = newestVersions.getIfPresent(oid);
+        return timestamp != null ? getVersion(oid, timestamp) : null;
+    }
+
+    /**
+     * Returns a copy of the version of the object with the given OID which was valid at the given timestamp or null if
+     * it is not cached.
+     */
+    EDBObject getVersionAt(String oid, long timestamp) {
+        Long newest = newestVersions.getIfPresent(oid);
+        if (newest != null && newest <= timestamp) {
+            return getVersion(oid, newest);
+        }
+        NavigableMap<Long, Long> intervals = validities.getIfPresent(oid);
+        Map.Entry<Long, Long> interval = intervals != null ? intervals.floorEntry(timestamp) : null;
+        if (interval == null || timestamp >= interval.getValue()) {
+            return null;
+        }
+        return getVersion(oid, interval.getKey());
+    }
+
+    /**
+     * Returns a copy of the version of the object with the given OID and timestamp or null if it is not cached.
+     */
+    private EDBObject getVersion(String oid, Long timestamp) {
+        EDBObject object = versions.getIfPresent(new VersionKey(oid, timestamp));
+        return object != null ? copy(object) : null;
+    }
+
+    /**
+     * Caches the given object as the newest version of its OID, if no invalidation happened since the given generation.
+     */
+    void putNewestVersion(EDBObject object, long readGeneration) {
+        Long timestamp = object.getTimestamp();
+        if (timestamp == null) {
+            return;
+        }
+        versions.put(new VersionKey(object.getOID(), timestamp), copy(object));
+        synchronized (this) {
+            if (generation.get() == readGeneration) {
+                newestVersions.put(object.getOID(), timestamp);
+            }
+        }
+    }
+
+    /**
+     * Caches the given version of an object, which is valid until the given timestamp of the next version of its OID,
+     * if no invalidation happened since the given generation.
+     */
+    void putVersion(EDBObject object, long nextTimestamp, long readGeneration) {
+        Long timestamp = object.getTimestamp();
+        if (timestamp == null) {
+            return;
+        }
+        versions.put(new VersionKey(object.getOID(), timestamp), copy(object));
+        synchronized (this) {
+            if (generation.get() == readGeneration) {
+                NavigableMap<Long, Long> intervals = validities.getIfPresent(object.getOID());
+                if (intervals == null) {
+                    intervals = new ConcurrentSkipListMap<>();
+                    validities.put(object.getOID(), intervals);
+                }
+                intervals.put(timestamp, nextTimestamp);
+            }
+        }
+    }
+
+    /**
+     * Removes the cached newest versions of the given OIDs and starts a new generation.
+     */
+    synchronized void invalidate(Collection<String> oids) {
+        generation.incrementAndGet();
+        newestVersions.invalidateAll(oids);
+    }
+
+    /**
+     * Removes the given version of an OID, e.g. because its commit is deleted, together with the validity intervals of
+     * the OID, and starts a new generation.
+     */
+    synchronized void invalidateVersion(String oid, Long timestamp) {
+        generation.incrementAndGet();
+        newestVersions.invalidate(oid);
+        validities.invalidate(oid);
+        versions.invalidate(new VersionKey(oid, timestamp));
+    }
+
+    /**
+     * Returns the combined hit and miss statistics of the version, newest version and validity interval lookups.
+     */
+    CacheStats getStats() {
+        return versions.stats().plus(newestVersions.stats()).plus(validities.stats());
+    }
+
+    private static EDBObject copy(EDBObject object) {
+        EDBObject copy = new EDBObject(object.getOID());
+        for (Map.Entry<String, EDBObjectEntry> entry : object.entrySet()) {
+            EDBObjectEntry value = entry.getValue();
+            copy.put(entry.getKey(), new EDBObjectEntry(value.getKey(), value.getValue(), value.getType()));
+        }
+        return copy;
+    }
+
+    private static final class VersionKey {
+        private final String oid;
+        private final Long timestamp;
+
+        private VersionKey(String oid, Long timestamp) {
+            this.oid = oid;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(oid, timestamp);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof VersionKey)) {
+                return false;
+            }
+            VersionKey other = (VersionKey) obj;
+            return Objects.equal(oid, other.oid) && Objects.equal(timestamp, other.timestamp);
+        }
+    }
+}
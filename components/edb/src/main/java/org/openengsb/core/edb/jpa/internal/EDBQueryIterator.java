@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.edb.api.EDBObject;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * Iterates over the result of a query request by loading it page by page from the EDB. Only the current page is held
+ * in memory. The next page is loaded with the OID of the last returned object as start (keyset pagination), so the
+ * pages stay consistent as long as the timestamp of the request is not changed. Every page is loaded in its own
+ * transaction, since the iterator is used after the service call which created it returned.
+ */
+class EDBQueryIterator extends AbstractIterator<EDBObject> {
+    private final EDBService edbService;
+    private final QueryRequest request;
+    private final int fetchSize;
+    private Iterator<EDBObject> page;
+    private String lastOid;
+    private boolean lastPage;
+
+    public EDBQueryIterator(EDBService edbService, QueryRequest request, int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("The fetch size has to be positive, but was " + fetchSize);
+        }
+        this.edbService = edbService;
+        this.request = request;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    protected EDBObject computeNext() {
+        if (page == null || !page.hasNext()) {
+            if (lastPage) {
+                return endOfData();
+            }
+            List<EDBObject> objects = edbService.queryPage(request, lastOid, fetchSize);
+            lastPage = objects.size() < fetchSize;
+            page = objects.iterator();
+            if (!page.hasNext()) {
+                return endOfData();
+            }
+        }
+        EDBObject next = page.next();
+        lastOid = next.getOID();
+        return next;
+    }
+}
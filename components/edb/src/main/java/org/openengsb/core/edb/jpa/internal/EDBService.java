@@ -19,10 +19,15 @@ package org.openengsb.core.edb.jpa.internal;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.transaction.Status;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.model.CommitMetaInfo;
 import org.openengsb.core.api.model.CommitQueryRequest;
@@ -45,6 +50,8 @@ import org.openengsb.core.edb.jpa.internal.util.EDBUtils;
 public class EDBService extends AbstractEDBService {
     private final JPADao dao;
     private final AuthenticationContext authenticationContext;
+    private final ThreadLocal<Transaction> suspendedTransaction = new ThreadLocal<>();
+    private TransactionManager transactionManager;
 
     public EDBService(JPADao dao, AuthenticationContext authenticationContext,
             List<EDBBeginCommitHook> beginCommitHooks, List<EDBPreCommitHook> preCommitHooks,
@@ -55,13 +62,53 @@ public class EDBService extends AbstractEDBService {
         this.authenticationContext = authenticationContext;
     }
 
+    /**
+     * Prepares the EDB when the service is started. Databases which were written before the head table existed get
+     * their head entries filled from the history, so that current state reads find all objects. Entries which were
+     * written before the typed value columns existed get these filled, so that range queries find them, and the
+     * entries get the indexes on their keys and typed values. The statistics of the object cache are registered as
+     * MBean.
+     */
+    public void start() throws EDBException {
+        fillMissingObjectHeads();
+        fillMissingTypedValues();
+        createTypedValueIndexes();
+        registerObjectCacheMBean();
+    }
+
+    /**
+     * Unregisters the MBean of the object cache statistics when the service is stopped.
+     */
+    public void stop() {
+        unregisterObjectCacheMBean();
+    }
+
     @Override
     public Long commit(EDBCommit commit) throws EDBException {
         return performCommitLogic(commit);
     }
 
+    @Override
+    public Long importCommit(EDBCommit commit) throws EDBException {
+        return performImportLogic(commit);
+    }
+
     @Override
     public EDBObject getObject(String oid) throws EDBException {
+        EDBObjectCache cache = getObjectCache();
+        if (cache == null) {
+            return loadObject(oid);
+        }
+        EDBObject result = cache.getNewestVersion(oid);
+        if (result == null) {
+            long generation = cache.getGeneration();
+            result = loadObject(oid);
+            cache.putNewestVersion(result, generation);
+        }
+        return result;
+    }
+
+    private EDBObject loadObject(String oid) throws EDBException {
         getLogger().debug("loading newest JPAObject with the oid {}", oid);
         JPAObject temp = dao.getJPAObject(oid);
         return EDBUtils.convertJPAObjectToEDBObject(temp);
@@ -69,6 +116,25 @@ public class EDBService extends AbstractEDBService {
 
     @Override
     public EDBObject getObject(String oid, Long timestamp) throws EDBException {
+        EDBObjectCache cache = getObjectCache();
+        if (cache == null || timestamp == null) {
+            return loadObject(oid, timestamp);
+        }
+        EDBObject result = cache.getVersionAt(oid, timestamp);
+        if (result == null) {
+            long generation = cache.getGeneration();
+            result = loadObject(oid, timestamp);
+            Long nextTimestamp = dao.getNextVersionTimestamp(oid, result.getTimestamp());
+            if (nextTimestamp == null) {
+                cache.putNewestVersion(result, generation);
+            } else {
+                cache.putVersion(result, nextTimestamp, generation);
+            }
+        }
+        return result;
+    }
+
+    private EDBObject loadObject(String oid, Long timestamp) throws EDBException {
         getLogger().debug("loading JPAObject with the oid {} for timestamp {}", oid, timestamp);
         JPAObject temp = dao.getJPAObject(oid, timestamp);
         return EDBUtils.convertJPAObjectToEDBObject(temp);
@@ -80,6 +146,33 @@ public class EDBService extends AbstractEDBService {
         return EDBUtils.convertJPAObjectsToEDBObjects(objects);
     }
 
+    /**
+     * Versions which are in the object cache are taken from there, all others are loaded with as few queries as
+     * possible. Since the validity of the loaded versions is not known, they are not added to the cache.
+     */
+    @Override
+    public List<EDBObject> getObjects(List<String> oids, Long timestamp) throws EDBException {
+        if (timestamp == null) {
+            return getObjects(oids);
+        }
+        getLogger().debug("loading JPAObjects with the oids {} for timestamp {}", oids, timestamp);
+        EDBObjectCache cache = getObjectCache();
+        List<EDBObject> result = new ArrayList<EDBObject>();
+        List<String> missing = new ArrayList<String>();
+        for (String oid : oids) {
+            EDBObject cached = cache != null ? cache.getVersionAt(oid, timestamp) : null;
+            if (cached != null) {
+                result.add(cached);
+            } else {
+                missing.add(oid);
+            }
+        }
+        if (!missing.isEmpty()) {
+            result.addAll(EDBUtils.convertJPAObjectsToEDBObjects(dao.getJPAObjects(missing, timestamp)));
+        }
+        return result;
+    }
+
     @Override
     public List<EDBObject> getHistory(String oid) throws EDBException {
         getLogger().debug("loading history of JPAObject with the oid {}", oid);
@@ -114,7 +207,7 @@ public class EDBService extends AbstractEDBService {
 
     @Override
     public List<EDBObject> getHead() throws EDBException {
-        return dao.getJPAHead(System.currentTimeMillis()).getEDBObjects();
+        return dao.getJPAHead().getEDBObjects();
     }
 
     @Override
@@ -137,6 +230,57 @@ public class EDBService extends AbstractEDBService {
         }
     }
 
+    @Override
+    public List<EDBObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException {
+        getLogger().debug("Query for {} objects after the oid {} based on the request: {}",
+            new Object[]{ maxResults, afterOid, request });
+        try {
+            return EDBUtils.convertJPAObjectsToEDBObjects(dao.query(request, afterOid, maxResults));
+        } catch (Exception ex) {
+            throw new EDBException("Failed to query for objects with the given map", ex);
+        }
+    }
+
+    @Override
+    public Iterator<EDBObject> queryIterator(QueryRequest request, int fetchSize) throws EDBException {
+        return new EDBQueryIterator(this, request, fetchSize);
+    }
+
+    /**
+     * Loads one page of the result of a query for an EDBQueryIterator. The iterator loads its pages after the call of
+     * queryIterator returned, i.e. outside of the container managed transaction of the service call. So every page is
+     * loaded in its own transaction, unless the caller already runs in a transaction.
+     */
+    List<EDBObject> queryPage(QueryRequest request, String afterOid, int maxResults) throws EDBException {
+        if (transactionManager == null) {
+            return query(request, afterOid, maxResults);
+        }
+        boolean ownTransaction = false;
+        try {
+            if (transactionManager.getStatus() == Status.STATUS_NO_TRANSACTION) {
+                transactionManager.begin();
+                ownTransaction = true;
+            }
+            List<EDBObject> page = query(request, afterOid, maxResults);
+            if (ownTransaction) {
+                transactionManager.commit();
+            }
+            return page;
+        } catch (Exception e) {
+            if (ownTransaction) {
+                try {
+                    transactionManager.rollback();
+                } catch (Exception ex) {
+                    getLogger().warn("Failed to rollback the transaction of a query page", ex);
+                }
+            }
+            if (e instanceof EDBException) {
+                throw (EDBException) e;
+            }
+            throw new EDBException("Failed to load the next page of the query", e);
+        }
+    }
+
     @Override
     public List<EDBCommit> getCommitsByKeyValue(String key, Object value) throws EDBException {
         Map<String, Object> queryMap = new HashMap<String, Object>();
@@ -172,7 +316,7 @@ public class EDBService extends AbstractEDBService {
     @Override
     public UUID getCurrentRevisionNumber() throws EDBException {
         try {
-            return getCommit(System.currentTimeMillis()).getRevisionNumber();
+            return getCommit(Long.MAX_VALUE).getRevisionNumber();
         } catch (EDBException e) {
             getLogger().debug("There was no commit so far, so the current revision number is null");
             return null;
@@ -189,6 +333,11 @@ public class EDBService extends AbstractEDBService {
         return null;
     }
 
+    @Override
+    public List<String> getContextIds() throws EDBException {
+        return dao.getContextIds();
+    }
+
     @Override
     public JPACommit getCommit(Long from) throws EDBException {
         List<JPACommit> commits = dao.getJPACommit(from);
@@ -246,6 +395,74 @@ public class EDBService extends AbstractEDBService {
         return commit;
     }
 
+    /**
+     * Writes in a separate JTA transaction while the one of the caller is suspended. So the write is durable when the
+     * EDB method returns and the commit lock never waits for the completion of the transaction of the caller, which
+     * may happen in a different thread.
+     */
+    @Override
+    protected void beginWriteTransaction() {
+        if (transactionManager == null) {
+            super.beginWriteTransaction();
+            return;
+        }
+        try {
+            suspendedTransaction.set(transactionManager.suspend());
+            transactionManager.begin();
+        } catch (Exception e) {
+            resumeSuspendedTransaction();
+            throw new EDBException("Failed to begin EDB write transaction", e);
+        }
+    }
+
+    @Override
+    protected void commitWriteTransaction() {
+        if (transactionManager == null) {
+            super.commitWriteTransaction();
+            return;
+        }
+        try {
+            transactionManager.commit();
+        } catch (Exception e) {
+            throw new EDBException("Failed to commit EDB write transaction", e);
+        }
+        resumeSuspendedTransaction();
+    }
+
+    @Override
+    protected void rollbackWriteTransaction() {
+        if (transactionManager == null) {
+            super.rollbackWriteTransaction();
+            return;
+        }
+        try {
+            if (transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                transactionManager.rollback();
+            }
+        } catch (Exception e) {
+            throw new EDBException("Failed to rollback EDB write transaction", e);
+        } finally {
+            resumeSuspendedTransaction();
+        }
+    }
+
+    private void resumeSuspendedTransaction() {
+        Transaction transaction = suspendedTransaction.get();
+        suspendedTransaction.remove();
+        if (transaction == null) {
+            return;
+        }
+        try {
+            transactionManager.resume(transaction);
+        } catch (Exception e) {
+            throw new EDBException("Failed to resume the transaction of the committer", e);
+        }
+    }
+
+    public void setTransactionManager(TransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
     /**
      * Returns the actual authenticated user.
      */
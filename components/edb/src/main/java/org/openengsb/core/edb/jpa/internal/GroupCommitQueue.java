@@ -0,0 +1,290 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.openengsb.core.edb.api.EDBException;
+
+/**
+ * The GroupCommitQueue collects commits which already passed their checks and writes them in groups. The first thread
+ * which waits for its queued commit becomes the leader of the next group. The leader waits for the configured window
+ * and writes all commits which arrived so far (up to the configured number of objects) through the group writer in one
+ * transaction. All other threads simply wait until their commit has been written by a leader.
+ * 
+ * The queue also keeps track of the OIDs which are part of pending commits, so that commits touching the same objects
+ * can wait until the pending changes are durable before they are checked.
+ */
+final class GroupCommitQueue {
+
+    /**
+     * Writes a group of commits in one transaction and sets the timestamps of the commits.
+     */
+    interface GroupWriter {
+        void writeGroup(List<JPACommit> commits) throws EDBException;
+    }
+
+    private final GroupWriter writer;
+    private final long window;
+    private final int maxObjects;
+    private final Deque<PendingCommit> queue = new ArrayDeque<>();
+    private final Map<String, Integer> pendingOids = new HashMap<>();
+    private UUID pendingHeadRevision;
+    private boolean leaderActive;
+
+    GroupCommitQueue(GroupWriter writer, long window, int maxObjects) {
+        this.writer = writer;
+        this.window = window;
+        this.maxObjects = maxObjects;
+    }
+
+    /**
+     * Blocks until none of the given OIDs is part of a pending commit any more.
+     */
+    synchronized void awaitPendingOids(Collection<String> oids) throws EDBException {
+        while (containsPendingOid(oids)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EDBException("Interrupted while waiting for pending commits", e);
+            }
+        }
+    }
+
+    /**
+     * Returns true if one of the given OIDs is part of a pending commit.
+     */
+    synchronized boolean hasPendingOids(Collection<String> oids) {
+        return containsPendingOid(oids);
+    }
+
+    /**
+     * Returns the revision of the newest pending commit or null if there is no pending commit.
+     */
+    synchronized UUID getPendingHeadRevision() {
+        return pendingHeadRevision;
+    }
+
+    /**
+     * Adds the given commit to the queue. The OIDs of the commit count as pending until it has been written.
+     */
+    synchronized PendingCommit enqueue(JPACommit commit) {
+        PendingCommit pending = new PendingCommit(commit);
+        queue.add(pending);
+        for (String oid : pending.getOids()) {
+            Integer count = pendingOids.get(oid);
+            pendingOids.put(oid, count == null ? 1 : count + 1);
+        }
+        pendingHeadRevision = commit.getRevisionNumber();
+        return pending;
+    }
+
+    /**
+     * Blocks until the given queued commit has been written and returns its timestamp. Since the commit can't be
+     * withdrawn once it is queued, interrupts are deferred until the commit has been written.
+     */
+    Long await(PendingCommit pending) throws EDBException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (!pending.isDone() && leaderActive) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (pending.isDone()) {
+                        return pending.getResult();
+                    }
+                    leaderActive = true;
+                }
+                try {
+                    interrupted |= leadGroup();
+                } finally {
+                    synchronized (this) {
+                        leaderActive = false;
+                        notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits for the group window, takes the next group out of the queue and writes it. Returns true if the thread has
+     * been interrupted while waiting for the window.
+     */
+    private boolean leadGroup() {
+        boolean interrupted = false;
+        if (window > 0) {
+            try {
+                Thread.sleep(window);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        List<PendingCommit> group = takeGroup();
+        List<JPACommit> commits = new ArrayList<>();
+        for (PendingCommit pending : group) {
+            commits.add(pending.getCommit());
+        }
+        try {
+            writer.writeGroup(commits);
+            completePendingCommits(group);
+        } catch (EDBException e) {
+            failPendingCommits(group, e);
+        } catch (RuntimeException e) {
+            failPendingCommits(group, new EDBException("Failed to write group commit", e));
+        }
+        return interrupted;
+    }
+
+    private synchronized List<PendingCommit> takeGroup() {
+        List<PendingCommit> group = new ArrayList<>();
+        int objects = 0;
+        while (!queue.isEmpty()) {
+            PendingCommit next = queue.peek();
+            if (!group.isEmpty() && objects + next.getObjectCount() > maxObjects) {
+                break;
+            }
+            objects += next.getObjectCount();
+            group.add(queue.poll());
+        }
+        return group;
+    }
+
+    private synchronized void completePendingCommits(List<PendingCommit> group) {
+        for (PendingCommit pending : group) {
+            pending.complete(pending.getCommit().getTimestamp(), null);
+            releaseOids(pending);
+        }
+        if (queue.isEmpty()) {
+            pendingHeadRevision = null;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Fails the given group and all commits which are still queued, since their checks may rely on the failed group.
+     */
+    private synchronized void failPendingCommits(List<PendingCommit> group, EDBException cause) {
+        List<PendingCommit> failed = new ArrayList<>(group);
+        failed.addAll(queue);
+        queue.clear();
+        for (PendingCommit pending : failed) {
+            pending.getCommit().setCommitted(false);
+            pending.complete(null, cause);
+            releaseOids(pending);
+        }
+        pendingHeadRevision = null;
+        notifyAll();
+    }
+
+    private void releaseOids(PendingCommit pending) {
+        for (String oid : pending.getOids()) {
+            Integer count = pendingOids.get(oid);
+            if (count == null || count <= 1) {
+                pendingOids.remove(oid);
+            } else {
+                pendingOids.put(oid, count - 1);
+            }
+        }
+    }
+
+    private boolean containsPendingOid(Collection<String> oids) {
+        for (String oid : oids) {
+            if (pendingOids.containsKey(oid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the OIDs of all objects which are changed through the given commit.
+     */
+    static Set<String> getOids(JPACommit commit) {
+        Set<String> oids = new HashSet<>();
+        for (JPAObject object : commit.getJPAObjects()) {
+            oids.add(object.getOID());
+        }
+        oids.addAll(commit.getDeletions());
+        return oids;
+    }
+
+    /**
+     * A commit waiting in the queue together with the result of its write.
+     */
+    static final class PendingCommit {
+        private final JPACommit commit;
+        private final Set<String> oids;
+        private boolean done;
+        private Long timestamp;
+        private EDBException exception;
+
+        PendingCommit(JPACommit commit) {
+            this.commit = commit;
+            this.oids = getOids(commit);
+        }
+
+        JPACommit getCommit() {
+            return commit;
+        }
+
+        Set<String> getOids() {
+            return oids;
+        }
+
+        int getObjectCount() {
+            return Math.max(oids.size(), 1);
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        void complete(Long timestamp, EDBException exception) {
+            this.timestamp = timestamp;
+            this.exception = exception;
+            this.done = true;
+        }
+
+        Long getResult() throws EDBException {
+            if (exception != null) {
+                throw exception;
+            }
+            return timestamp;
+        }
+    }
+}
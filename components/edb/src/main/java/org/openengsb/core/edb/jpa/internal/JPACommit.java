@@ -30,6 +30,8 @@ import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.OneToMany;
 
+import org.apache.openjpa.persistence.jdbc.Index;
+
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.api.EDBObject;
@@ -45,6 +47,7 @@ public class JPACommit extends VersionedEntity implements EDBCommit {
 
     @Column(name = "COMMITER", length = 50)
     private String committer;
+    @Index
     @Column(name = "TIME")
     private Long timestamp;
     @Column(name = "CONTEXT", length = 50)
@@ -166,10 +169,8 @@ public class JPACommit extends VersionedEntity implements EDBCommit {
 
     @Override
     public void insert(EDBObject obj) throws EDBException {
-        if (!inserts.contains(obj)) {
-            inserts.add(EDBUtils.convertEDBObjectToJPAObject(obj));
-            LOGGER.debug("Added object {} to the commit for inserting", obj.getOID());
-        }
+        inserts.add(EDBUtils.convertEDBObjectToJPAObject(obj));
+        LOGGER.debug("Added object {} to the commit for inserting", obj.getOID());
     }
 
     public void insertAll(List<EDBObject> objects) throws EDBException {
@@ -17,6 +17,8 @@
 
 package org.openengsb.core.edb.jpa.internal;
 
+import java.util.Date;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -28,21 +30,34 @@ import org.openengsb.core.edb.api.EDBObjectEntry;
 
 /**
  * A JPAEntry is assigned with JPAObjects. A JPAObject contains as many JPAEntries as it wants. So to say the JPAEntries
- * are concrete key/value pairs extending JPAObjects.
+ * are concrete key/value pairs extending JPAObjects. Next to the string representation of the value, numbers, booleans
+ * and dates are also stored in typed and indexed columns, so that they can be compared and queried by ranges in the
+ * database.
  */
 @SuppressWarnings("serial")
 @Entity
 public class JPAEntry extends VersionedEntity {
+    @Index
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "OWNER_ID")
     private JPAObject owner;
     @Index
     @Column(name = "KEY")
     private String key;
+    @Index
     @Column(name = "VALUE")
     private String value;
     @Column(name = "TYPE")
     private String type;
+    @Index
+    @Column(name = "LONG_VALUE")
+    private Long longValue;
+    @Index
+    @Column(name = "DOUBLE_VALUE")
+    private Double doubleValue;
+    @Index
+    @Column(name = "BOOLEAN_VALUE")
+    private Boolean booleanValue;
 
     public JPAEntry() {
         key = "";
@@ -61,6 +76,27 @@ public class JPAEntry extends VersionedEntity {
         this.value = entry.getValue().toString();
         this.type = entry.getType();
         this.owner = owner;
+        setTypedValue(entry.getValue());
+    }
+
+    /**
+     * Fills the typed value columns based on the given value. Integral numbers and dates (as milliseconds) are stored
+     * in the long column, floating point numbers in the double column and booleans in the boolean column. For all
+     * other values the typed columns stay empty.
+     */
+    public void setTypedValue(Object object) {
+        longValue = null;
+        doubleValue = null;
+        booleanValue = null;
+        if (object instanceof Long || object instanceof Integer || object instanceof Short || object instanceof Byte) {
+            longValue = ((Number) object).longValue();
+        } else if (object instanceof Double || object instanceof Float) {
+            doubleValue = ((Number) object).doubleValue();
+        } else if (object instanceof Boolean) {
+            booleanValue = (Boolean) object;
+        } else if (object instanceof Date) {
+            longValue = ((Date) object).getTime();
+        }
     }
     
     public JPAObject getOwner() {
@@ -94,4 +130,16 @@ public class JPAEntry extends VersionedEntity {
     public void setType(String type) {
         this.type = type;
     }
+
+    public Long getLongValue() {
+        return longValue;
+    }
+
+    public Double getDoubleValue() {
+        return doubleValue;
+    }
+
+    public Boolean getBooleanValue() {
+        return booleanValue;
+    }
 }
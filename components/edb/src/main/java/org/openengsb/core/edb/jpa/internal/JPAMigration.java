@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edb.jpa.internal;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * A JPAMigration records that a one-time migration of the EDB data has been completed, e.g. filling columns which
+ * were added in a later version, so that it does not have to search for unmigrated data on every start.
+ */
+@SuppressWarnings("serial")
+@Entity
+public class JPAMigration implements Serializable {
+    @Id
+    @Column(name = "NAME")
+    private String name;
+    @Column(name = "TIME")
+    private Long timestamp;
+
+    public JPAMigration() {
+    }
+
+    public JPAMigration(String name, Long timestamp) {
+        this.name = name;
+        this.timestamp = timestamp;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+}
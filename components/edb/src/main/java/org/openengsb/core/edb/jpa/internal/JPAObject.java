@@ -38,6 +38,7 @@ import org.apache.openjpa.persistence.jdbc.Index;
 public class JPAObject extends VersionedEntity {
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, mappedBy = "owner")
     private List<JPAEntry> entries;
+    @Index
     @Column(name = "TIME")
     private Long timestamp;
     @Column(name = "ISDELETED")
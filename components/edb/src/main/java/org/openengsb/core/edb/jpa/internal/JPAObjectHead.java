@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OneToOne;
+
+import org.apache.openjpa.persistence.jdbc.Index;
+
+/**
+ * A JPAObjectHead is the materialized head of an object in the EDB. For every OID there is exactly one head entry,
+ * which points to the newest JPAObject version of this OID. The head entries are maintained by the EDB in the same
+ * transaction as the commit itself, so that queries for the current state don't need to search the whole history.
+ */
+@SuppressWarnings("serial")
+@Entity
+public class JPAObjectHead implements Serializable {
+    @Id
+    @Column(name = "OID")
+    private String oid;
+    @OneToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "OBJECT_ID")
+    private JPAObject object;
+    @Column(name = "TIME")
+    private Long timestamp;
+    @Index
+    @Column(name = "ISDELETED")
+    private Boolean isDeleted;
+
+    public JPAObjectHead() {
+        isDeleted = false;
+    }
+
+    public JPAObjectHead(JPAObject object) {
+        this.oid = object.getOID();
+        setObject(object);
+    }
+
+    public String getOID() {
+        return oid;
+    }
+
+    public void setOID(String oid) {
+        this.oid = oid;
+    }
+
+    public JPAObject getObject() {
+        return object;
+    }
+
+    /**
+     * Sets the newest version of the object and takes over its timestamp and deleted flag.
+     */
+    public void setObject(JPAObject object) {
+        this.object = object;
+        this.timestamp = object.getTimestamp();
+        this.isDeleted = object.isDeleted();
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public Boolean isDeleted() {
+        return isDeleted;
+    }
+}
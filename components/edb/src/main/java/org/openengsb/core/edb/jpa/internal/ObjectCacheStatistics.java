@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * Exposes the statistics of the object cache of an EDB service as MBean under {@value #OBJECT_NAME}.
+ */
+public class ObjectCacheStatistics implements ObjectCacheStatisticsMBean {
+
+    public static final String OBJECT_NAME = "org.openengsb.edb:type=ObjectCache";
+
+    private static final CacheStats EMPTY_STATS = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private final AbstractEDBService service;
+
+    public ObjectCacheStatistics(AbstractEDBService service) {
+        this.service = service;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return service.getObjectCache() != null;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return getStats().requestCount();
+    }
+
+    @Override
+    public long getHitCount() {
+        return getStats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return getStats().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return getStats().hitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return getStats().evictionCount();
+    }
+
+    private CacheStats getStats() {
+        CacheStats stats = service.getObjectCacheStats();
+        return stats != null ? stats : EMPTY_STATS;
+    }
+}
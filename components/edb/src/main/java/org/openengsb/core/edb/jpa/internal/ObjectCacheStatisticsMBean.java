@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+/**
+ * Management interface of the EDB object cache, which exposes how effective the cache is. All counters are reset when
+ * the size of the cache is changed. If the cache is disabled, all counters are 0.
+ */
+public interface ObjectCacheStatisticsMBean {
+
+    /**
+     * Returns true if the object cache is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the number of lookups of object versions in the cache.
+     */
+    long getRequestCount();
+
+    /**
+     * Returns the number of lookups which were answered from the cache.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups which had to load the object from the database.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the ratio of the lookups which were answered from the cache, or 1.0 if there were none.
+     */
+    double getHitRate();
+
+    /**
+     * Returns the number of entries which were evicted because the cache was full.
+     */
+    long getEvictionCount();
+}
@@ -27,6 +27,7 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
@@ -34,18 +35,31 @@ import javax.persistence.criteria.Subquery;
 import org.openengsb.core.api.model.CommitMetaInfo;
 import org.openengsb.core.api.model.CommitQueryRequest;
 import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.jpa.internal.JPACommit;
+import org.openengsb.core.edb.jpa.internal.JPAEntry;
 import org.openengsb.core.edb.jpa.internal.JPAHead;
 import org.openengsb.core.edb.jpa.internal.JPAObject;
+import org.openengsb.core.edb.jpa.internal.JPAObjectHead;
 import org.openengsb.core.edb.jpa.internal.util.QueryRequestCriteriaBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
+/**
+ * The default implementation of the JPADao. The DAO doesn't synchronize the access to the entity manager, so it relies
+ * on a managed entity manager which is bound to the calling thread or transaction (like the one injected through the
+ * jpa:context of the blueprint container). This way read operations of different threads don't block each other.
+ */
 public class DefaultJPADao implements JPADao {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultJPADao.class);
+    /**
+     * The maximum number of OIDs in the IN list of a query. Longer lists are split into several queries.
+     */
+    private static final int IN_LIST_CHUNK_SIZE = 500;
     private EntityManager entityManager;
 
     public DefaultJPADao() {
@@ -55,310 +69,346 @@ public class DefaultJPADao implements JPADao {
         this.entityManager = entityManager;
     }
 
+    @Override
+    public JPAHead getJPAHead() throws EDBException {
+        LOGGER.debug("Loading current head");
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root<JPAObjectHead> from = query.from(JPAObjectHead.class);
+        query.select(from.<JPAObject> get("object"));
+        query.where(criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        List<JPAObject> resultList = typedQuery.getResultList();
+
+        JPAHead head = new JPAHead();
+        head.setJPAObjects(resultList);
+        head.setTimestamp(System.currentTimeMillis());
+        return head;
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public JPAHead getJPAHead(long timestamp) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading head for timestamp {}", timestamp);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root<JPAObject> from = query.from(JPAObject.class);
-
-            query.select(from);
-
-            Subquery<Number> subquery = query.subquery(Number.class);
-            Root maxTime = subquery.from(JPAObject.class);
-            subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
-            Predicate subPredicate1 = criteriaBuilder.le(maxTime.get("timestamp"), timestamp);
-            Predicate subPredicate2 = criteriaBuilder.equal(maxTime.get("oid"), from.get("oid"));
-            subquery.where(criteriaBuilder.and(subPredicate1, subPredicate2));
-
-            Predicate predicate1 = criteriaBuilder.equal(from.get("timestamp"), subquery);
-            Predicate predicate2 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
-            query.where(criteriaBuilder.and(predicate1, predicate2));
-
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            List<JPAObject> resultList = typedQuery.getResultList();
-
-            JPAHead head = new JPAHead();
-            head.setJPAObjects(resultList);
+        if (isCurrentState(timestamp)) {
+            JPAHead head = getJPAHead();
             head.setTimestamp(timestamp);
             return head;
         }
+        LOGGER.debug("Loading head for timestamp {}", timestamp);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+
+        query.select(from);
+
+        Subquery<Number> subquery = query.subquery(Number.class);
+        Root maxTime = subquery.from(JPAObject.class);
+        subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
+        Predicate subPredicate1 = criteriaBuilder.le(maxTime.get("timestamp"), timestamp);
+        Predicate subPredicate2 = criteriaBuilder.equal(maxTime.get("oid"), from.get("oid"));
+        subquery.where(criteriaBuilder.and(subPredicate1, subPredicate2));
+
+        Predicate predicate1 = criteriaBuilder.equal(from.get("timestamp"), subquery);
+        Predicate predicate2 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        List<JPAObject> resultList = typedQuery.getResultList();
+
+        JPAHead head = new JPAHead();
+        head.setJPAObjects(resultList);
+        head.setTimestamp(timestamp);
+        return head;
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<JPAObject> getJPAObjectHistory(String oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading the history for the object {}", oid);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root from = query.from(JPAObject.class);
-            query.select(from);
-            query.where(criteriaBuilder.equal(from.get("oid"), oid));
-            query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
-
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Loading the history for the object {}", oid);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root from = query.from(JPAObject.class);
+        query.select(from);
+        query.where(criteriaBuilder.equal(from.get("oid"), oid));
+        query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<JPAObject> getJPAObjectHistory(String oid, long from, long to) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading the history for the object {} from {} to {}", new Object[]{ oid, from, to });
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root f = query.from(JPAObject.class);
-            query.select(f);
-
-            Predicate predicate1 = criteriaBuilder.equal(f.get("oid"), oid);
-            Predicate predicate2 = criteriaBuilder.between(f.get("timestamp"), from, to);
-            query.where(criteriaBuilder.and(predicate1, predicate2));
-            query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
-
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Loading the history for the object {} from {} to {}", new Object[]{ oid, from, to });
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root f = query.from(JPAObject.class);
+        query.select(f);
+
+        Predicate predicate1 = criteriaBuilder.equal(f.get("oid"), oid);
+        Predicate predicate2 = criteriaBuilder.between(f.get("timestamp"), from, to);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+        query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public JPAObject getJPAObject(String oid, long timestamp) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading object {} for the time {}", oid, timestamp);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root from = query.from(JPAObject.class);
-
-            query.select(from);
+        LOGGER.debug("Loading object {} for the time {}", oid, timestamp);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root from = query.from(JPAObject.class);
 
-            Predicate predicate1 = criteriaBuilder.equal(from.get("oid"), oid);
-            Predicate predicate2 = criteriaBuilder.le(from.get("timestamp"), timestamp);
-            query.where(criteriaBuilder.and(predicate1, predicate2));
-            query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
+        query.select(from);
 
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query).setMaxResults(1);
-            List<JPAObject> resultList = typedQuery.getResultList();
+        Predicate predicate1 = criteriaBuilder.equal(from.get("oid"), oid);
+        Predicate predicate2 = criteriaBuilder.le(from.get("timestamp"), timestamp);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+        query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
 
-            if (resultList.size() < 1) {
-                throw new EDBException("Failed to query existing object");
-            } else if (resultList.size() > 1) {
-                throw new EDBException("Received more than 1 object which should not be possible!");
-            }
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query).setMaxResults(1);
+        List<JPAObject> resultList = typedQuery.getResultList();
 
-            return resultList.get(0);
+        if (resultList.size() < 1) {
+            throw new EDBException("Failed to query existing object");
+        } else if (resultList.size() > 1) {
+            throw new EDBException("Received more than 1 object which should not be possible!");
         }
+
+        return resultList.get(0);
+    }
+
+    @Override
+    public Long getNextVersionTimestamp(String oid, long timestamp) throws EDBException {
+        LOGGER.debug("Loading the timestamp of the version of object {} after the time {}", oid, timestamp);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+
+        query.select(criteriaBuilder.min(from.<Long> get("timestamp")));
+        query.where(criteriaBuilder.equal(from.get("oid"), oid),
+            criteriaBuilder.gt(from.<Long> get("timestamp"), timestamp));
+        return entityManager.createQuery(query).getSingleResult();
     }
 
     @Override
     public JPAObject getJPAObject(String oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading newest object {}", oid);
-            return getJPAObject(oid, System.currentTimeMillis());
+        LOGGER.debug("Loading newest object {}", oid);
+        JPAObjectHead head = entityManager.find(JPAObjectHead.class, oid);
+        if (head == null) {
+            throw new EDBException("Failed to query existing object");
         }
+        return head.getObject();
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<JPAObject> getJPAObjects(List<String> oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading newest object {}", oid);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        LOGGER.debug("Loading newest object {}", oid);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        List<JPAObject> resultList = new ArrayList<>();
+        for (List<String> chunk : Lists.partition(oid, IN_LIST_CHUNK_SIZE)) {
             CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root<JPAObject> from = query.from(JPAObject.class);
+            Root<JPAObjectHead> from = query.from(JPAObjectHead.class);
 
-            query.select(from);
+            query.select(from.<JPAObject> get("object"));
+            query.where(from.get("oid").in(chunk));
+
+            resultList.addAll(entityManager.createQuery(query).getResultList());
+        }
+        return resultList;
+    }
 
-            Subquery<Number> subquery = query.subquery(Number.class);
-            Root maxTime = subquery.from(JPAObject.class);
-            subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
-            subquery.where(criteriaBuilder.equal(from.get("oid"), maxTime.get("oid")));
+    @Override
+    public List<JPAObject> getJPAObjects(List<String> oids, long timestamp) throws EDBException {
+        LOGGER.debug("Loading objects {} for the time {}", oids, timestamp);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        List<JPAObject> resultList = new ArrayList<>();
+        for (List<String> chunk : Lists.partition(oids, IN_LIST_CHUNK_SIZE)) {
+            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+            Root<JPAObject> from = query.from(JPAObject.class);
 
-            Predicate predicate1 = criteriaBuilder.in(from.get("oid")).value(oid);
-            Predicate predicate2 = criteriaBuilder.equal(from.get("timestamp"), subquery);
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<JPAObject> subFrom = subquery.from(JPAObject.class);
+            subquery.select(criteriaBuilder.max(subFrom.<Long> get("timestamp")));
+            subquery.where(criteriaBuilder.equal(subFrom.get("oid"), from.get("oid")),
+                criteriaBuilder.le(subFrom.<Long> get("timestamp"), timestamp));
 
-            query.where(criteriaBuilder.and(predicate1, predicate2));
+            query.select(from);
+            query.where(from.get("oid").in(chunk), criteriaBuilder.equal(from.get("timestamp"), subquery));
 
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            List<JPAObject> resultList = typedQuery.getResultList();
-            return resultList;
+            resultList.addAll(entityManager.createQuery(query).getResultList());
         }
+        return resultList;
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<JPACommit> getJPACommit(String oid, long from, long to) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading all commits which involve object {} from {} to {}", new Object[]{ oid, from, to });
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> f = query.from(JPACommit.class);
-            query.select(f);
-
-            Subquery<JPAObject> subquery = query.subquery(JPAObject.class);
-            Root fromJPAObject = subquery.from(JPAObject.class);
-            subquery.select(fromJPAObject.get("timestamp"));
-            Predicate predicate1 = criteriaBuilder.equal(fromJPAObject.get("oid"), oid);
-            Predicate predicate2 = criteriaBuilder.between(fromJPAObject.get("timestamp"), from, to);
-            subquery.where(criteriaBuilder.and(predicate1, predicate2));
-
-            query.where(criteriaBuilder.in(f.get("timestamp")).value(subquery));
-            query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
-
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Loading all commits which involve object {} from {} to {}", new Object[]{ oid, from, to });
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> f = query.from(JPACommit.class);
+        query.select(f);
+
+        Subquery<JPAObject> subquery = query.subquery(JPAObject.class);
+        Root fromJPAObject = subquery.from(JPAObject.class);
+        subquery.select(fromJPAObject.get("timestamp"));
+        Predicate predicate1 = criteriaBuilder.equal(fromJPAObject.get("oid"), oid);
+        Predicate predicate2 = criteriaBuilder.between(fromJPAObject.get("timestamp"), from, to);
+        subquery.where(criteriaBuilder.and(predicate1, predicate2));
+
+        query.where(criteriaBuilder.in(f.get("timestamp")).value(subquery));
+        query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
+
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<String> getResurrectedOIDs() throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("get resurrected JPA objects");
-
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
-            Root from = query.from(JPAObject.class);
-            query.select(from.get("oid"));
-
-            Subquery<JPAObject> sub = query.subquery(JPAObject.class);
-            Root f = sub.from(JPAObject.class);
-            sub.select(f);
-            Predicate subPredicate1 = criteriaBuilder.equal(from.get("oid"), f.get("oid"));
-            Predicate subPredicate2 = criteriaBuilder.equal(f.get("isDeleted"), Boolean.TRUE);
-            Predicate subPredicate3 = criteriaBuilder.gt(from.get("timestamp"), f.get("timestamp"));
-            sub.where(criteriaBuilder.and(subPredicate1, subPredicate2, subPredicate3));
-
-            Predicate predicate1 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
-            Predicate predicate2 = criteriaBuilder.exists(sub);
-            query.where(predicate1, predicate2);
-
-            TypedQuery<String> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("get resurrected JPA objects");
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root from = query.from(JPAObject.class);
+        query.select(from.get("oid"));
+
+        Subquery<JPAObject> sub = query.subquery(JPAObject.class);
+        Root f = sub.from(JPAObject.class);
+        sub.select(f);
+        Predicate subPredicate1 = criteriaBuilder.equal(from.get("oid"), f.get("oid"));
+        Predicate subPredicate2 = criteriaBuilder.equal(f.get("isDeleted"), Boolean.TRUE);
+        Predicate subPredicate3 = criteriaBuilder.gt(from.get("timestamp"), f.get("timestamp"));
+        sub.where(criteriaBuilder.and(subPredicate1, subPredicate2, subPredicate3));
+
+        Predicate predicate1 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
+        Predicate predicate2 = criteriaBuilder.exists(sub);
+        query.where(predicate1, predicate2);
+
+        TypedQuery<String> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<JPACommit> getJPACommit(long timestamp) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Load the commit for the timestamp {}", timestamp);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
-            query.select(from);
-
-            Subquery<Number> subquery = query.subquery(Number.class);
-            Root maxTime = subquery.from(JPACommit.class);
-            subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
-            subquery.where(criteriaBuilder.le(maxTime.get("timestamp"), timestamp));
-
-            query.where(criteriaBuilder.equal(from.get("timestamp"), subquery));
-
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Load the commit for the timestamp {}", timestamp);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.select(from);
+        query.where(criteriaBuilder.le(from.<Long> get("timestamp"), timestamp));
+        query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
+
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query).setMaxResults(1);
+        return typedQuery.getResultList();
     }
 
     @Override
     public JPACommit getJPACommit(String revision) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get commit for the revision {}", revision);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
-            query.select(from).where(criteriaBuilder.equal(from.get("revision"), revision));
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            List<JPACommit> result = typedQuery.getResultList();
-            switch (result.size()) {
-                case 0:
-                    throw new EDBException("There is no commit with the given revision " + revision);
-                case 1:
-                    return result.get(0);
-                default:
-                    throw new EDBException("More than one commit with the given revision found!");
-            }
+        LOGGER.debug("Get commit for the revision {}", revision);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.select(from).where(criteriaBuilder.equal(from.get("revision"), revision));
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
+        List<JPACommit> result = typedQuery.getResultList();
+        switch (result.size()) {
+            case 0:
+                throw new EDBException("There is no commit with the given revision " + revision);
+            case 1:
+                return result.get(0);
+            default:
+                throw new EDBException("More than one commit with the given revision found!");
         }
     }
 
     @Override
     public List<JPACommit> getCommits(Map<String, Object> param) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get commits which are given to a param map with {} elements", param.size());
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
+        LOGGER.debug("Get commits which are given to a param map with {} elements", param.size());
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
 
-            query.select(from);
-            Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
-            query.where(criteriaBuilder.and(predicates));
+        query.select(from);
+        Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
+        query.where(criteriaBuilder.and(predicates));
 
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     public JPACommit getLastCommit(Map<String, Object> param) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get last commit which are given to a param map with {} elements", param.size());
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
-
-            query.select(from);
-            Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
-            query.where(criteriaBuilder.and(predicates));
-            query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
-
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query).setMaxResults(1);
-            try {
-                return typedQuery.getSingleResult();
-            } catch (NoResultException ex) {
-                throw new EDBException("there was no Object found with the given query parameters", ex);
-            }
+        LOGGER.debug("Get last commit which are given to a param map with {} elements", param.size());
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+
+        query.select(from);
+        Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
+        query.where(criteriaBuilder.and(predicates));
+        query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
+
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query).setMaxResults(1);
+        try {
+            return typedQuery.getSingleResult();
+        } catch (NoResultException ex) {
+            throw new EDBException("there was no Object found with the given query parameters", ex);
         }
     }
 
+    @Override
+    public List<String> getContextIds() throws EDBException {
+        LOGGER.debug("Get the contexts of all commits");
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.select(from.<String> get("context")).distinct(true);
+        return entityManager.createQuery(query).getResultList();
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<CommitMetaInfo> getRevisionsOfMatchingCommits(CommitQueryRequest request) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get matching revisions for the request {}", request);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery query = criteriaBuilder.createQuery();
-            Root<JPACommit> from = query.from(JPACommit.class);
-            query.multiselect(from.get("committer"), from.get("timestamp"), from.get("context"), from.get("comment"),
-                from.get("revision"), from.get("parent"), from.get("domainId"), from.get("connectorId"),
-                from.get("instanceId"));
-
-            Predicate[] predicates = convertCommitRequestToPredicates(criteriaBuilder, from, request);
-            query.where(criteriaBuilder.and(predicates));
-            query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
-            TypedQuery<Object[]> typedQuery = entityManager.createQuery(query);
-            List<CommitMetaInfo> infos = new ArrayList<>();
-            for (Object[] row : typedQuery.getResultList()) {
-                CommitMetaInfo info = new CommitMetaInfo();
-                info.setCommitter(row[0] != null ? row[0].toString() : null);
-                info.setTimestamp(row[1] != null ? Long.valueOf(row[1].toString()) : null);
-                info.setContext(row[2] != null ? row[2].toString() : null);
-                info.setComment(row[3] != null ? row[3].toString() : null);
-                info.setRevision(row[4] != null ? row[4].toString() : null);
-                info.setParent(row[5] != null ? row[5].toString() : null);
-                info.setDomainId(row[6] != null ? row[6].toString() : null);
-                info.setConnectorId(row[7] != null ? row[7].toString() : null);
-                info.setInstanceId(row[8] != null ? row[8].toString() : null);
-                infos.add(info);
-            }
-            return infos;
+        LOGGER.debug("Get matching revisions for the request {}", request);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery query = criteriaBuilder.createQuery();
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.multiselect(from.get("committer"), from.get("timestamp"), from.get("context"), from.get("comment"),
+            from.get("revision"), from.get("parent"), from.get("domainId"), from.get("connectorId"),
+            from.get("instanceId"));
+
+        Predicate[] predicates = convertCommitRequestToPredicates(criteriaBuilder, query, from, request);
+        query.where(criteriaBuilder.and(predicates));
+        query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
+        TypedQuery<Object[]> typedQuery = entityManager.createQuery(query);
+        if (request.getMaxResults() != null) {
+            typedQuery.setMaxResults(request.getMaxResults());
+        }
+        List<CommitMetaInfo> infos = new ArrayList<>();
+        for (Object[] row : typedQuery.getResultList()) {
+            CommitMetaInfo info = new CommitMetaInfo();
+            info.setCommitter(row[0] != null ? row[0].toString() : null);
+            info.setTimestamp(row[1] != null ? Long.valueOf(row[1].toString()) : null);
+            info.setContext(row[2] != null ? row[2].toString() : null);
+            info.setComment(row[3] != null ? row[3].toString() : null);
+            info.setRevision(row[4] != null ? row[4].toString() : null);
+            info.setParent(row[5] != null ? row[5].toString() : null);
+            info.setDomainId(row[6] != null ? row[6].toString() : null);
+            info.setConnectorId(row[7] != null ? row[7].toString() : null);
+            info.setInstanceId(row[8] != null ? row[8].toString() : null);
+            infos.add(info);
         }
+        return infos;
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private Predicate[] convertCommitRequestToPredicates(CriteriaBuilder builder, Root from,
+    private Predicate[] convertCommitRequestToPredicates(CriteriaBuilder builder, CriteriaQuery<?> query, Root from,
             CommitQueryRequest request) {
         List<Predicate> predicates = new ArrayList<>();
         if (request.getCommitter() != null) {
@@ -367,11 +417,48 @@ public class DefaultJPADao implements JPADao {
         if (request.getContext() != null) {
             predicates.add(builder.equal(from.get("context"), request.getContext()));
         }
+        if (request.getModelTypes() != null) {
+            predicates.add(builder.or(
+                builder.exists(buildModifiedObjectsQuery(builder, query, from, request.getModelTypes())),
+                builder.exists(buildDeletedObjectsQuery(builder, query, from, request.getModelTypes()))));
+        }
         predicates
             .add(builder.between(from.get("timestamp"), request.getStartTimestamp(), request.getEndTimestamp()));
         return Iterables.toArray(predicates, Predicate.class);
     }
 
+    /**
+     * Builds a subquery for the objects of one of the given model types which are inserted or updated by the commit.
+     * The versions of a commit have the timestamp of the commit.
+     */
+    private Subquery<Long> buildModifiedObjectsQuery(CriteriaBuilder builder, CriteriaQuery<?> query,
+            Root<JPACommit> commit, List<String> modelTypes) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<JPAObject> object = subquery.from(JPAObject.class);
+        Join<JPAObject, JPAEntry> entry = object.join("entries");
+        subquery.select(object.<Long> get("id"));
+        subquery.where(builder.equal(object.get("timestamp"), commit.get("timestamp")),
+            builder.equal(entry.get("key"), EDBConstants.MODEL_TYPE), entry.get("value").in(modelTypes));
+        return subquery;
+    }
+
+    /**
+     * Builds a subquery for the objects of one of the given model types which are deleted by the commit. The deleted
+     * versions have no entries, so the model type is taken from the other versions of their OIDs.
+     */
+    private Subquery<Long> buildDeletedObjectsQuery(CriteriaBuilder builder, CriteriaQuery<?> query,
+            Root<JPACommit> commit, List<String> modelTypes) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<JPAObject> deleted = subquery.from(JPAObject.class);
+        Root<JPAObject> version = subquery.from(JPAObject.class);
+        Join<JPAObject, JPAEntry> entry = version.join("entries");
+        subquery.select(deleted.<Long> get("id"));
+        subquery.where(builder.equal(deleted.get("timestamp"), commit.get("timestamp")),
+            builder.isTrue(deleted.<Boolean> get("isDeleted")), builder.equal(version.get("oid"), deleted.get("oid")),
+            builder.equal(entry.get("key"), EDBConstants.MODEL_TYPE), entry.get("value").in(modelTypes));
+        return subquery;
+    }
+
     /**
      * Analyzes the map and filters the values which are used for query
      */
@@ -400,35 +487,59 @@ public class DefaultJPADao implements JPADao {
 
     @Override
     public Integer getVersionOfOid(String oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("loading version of model under the oid {}", oid);
-
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
-            Root<JPAObject> from = query.from(JPAObject.class);
-            Expression<Long> maxExpression = criteriaBuilder.count(from.get("oid"));
-            query.select(maxExpression);
-            query.where(criteriaBuilder.equal(from.get("oid"), oid));
-
-            TypedQuery<Long> typedQuery = entityManager.createQuery(query);
-            try {
-                return (int) typedQuery.getSingleResult().longValue();
-            } catch (NoResultException ex) {
-                LOGGER.debug("no model under the oid {}. Returning 0", oid);
-                return 0;
-            }
+        LOGGER.debug("loading version of model under the oid {}", oid);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+        Expression<Long> maxExpression = criteriaBuilder.count(from.get("oid"));
+        query.select(maxExpression);
+        query.where(criteriaBuilder.equal(from.get("oid"), oid));
+
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query);
+        try {
+            return (int) typedQuery.getSingleResult().longValue();
+        } catch (NoResultException ex) {
+            LOGGER.debug("no model under the oid {}. Returning 0", oid);
+            return 0;
         }
     }
 
     @Override
     public List<JPAObject> query(QueryRequest request) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Perform query with the query object: {}", request);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            QueryRequestCriteriaBuilder builder = new QueryRequestCriteriaBuilder(request, criteriaBuilder);
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(builder.buildQuery());
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Perform query with the query object: {}", request);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        QueryRequestCriteriaBuilder builder = new QueryRequestCriteriaBuilder(request, criteriaBuilder);
+        CriteriaQuery<JPAObject> criteriaQuery = isCurrentState(request.getTimestamp())
+            ? builder.buildHeadQuery() : builder.buildQuery();
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(criteriaQuery);
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<JPAObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException {
+        LOGGER.debug("Perform query for {} objects after the oid {} with the query object: {}",
+            new Object[]{ maxResults, afterOid, request });
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        QueryRequestCriteriaBuilder builder = new QueryRequestCriteriaBuilder(request, criteriaBuilder);
+        CriteriaQuery<JPAObject> criteriaQuery = isCurrentState(request.getTimestamp())
+            ? builder.buildHeadQuery() : builder.buildQuery();
+        builder.restrictToPage(criteriaQuery, afterOid);
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(criteriaQuery).setMaxResults(maxResults);
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * Returns true if no commit happened after the given timestamp, which means that the state at this timestamp can
+     * be loaded from the head table instead of the history.
+     */
+    private boolean isCurrentState(long timestamp) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.select(criteriaBuilder.max(from.<Long> get("timestamp")));
+        Long lastTimestamp = entityManager.createQuery(query).getSingleResult();
+        return lastTimestamp == null || lastTimestamp <= timestamp;
     }
 
     public void setEntityManager(EntityManager entityManager) {
@@ -34,7 +34,13 @@ import org.openengsb.core.edb.jpa.internal.JPAObject;
 public interface JPADao {
 
     /**
-     * Loads the JPAHead with the given timestamp.
+     * Loads the JPAHead of the current state out of the head table.
+     */
+    JPAHead getJPAHead() throws EDBException;
+
+    /**
+     * Loads the JPAHead with the given timestamp. If there was no commit after the timestamp, the head is loaded out
+     * of the head table instead of the history.
      */
     JPAHead getJPAHead(long timestamp) throws EDBException;
 
@@ -53,6 +59,11 @@ public interface JPADao {
      */
     JPAObject getJPAObject(String oid, long timestamp) throws EDBException;
 
+    /**
+     * Returns the timestamp of the first version of the given oid after the given timestamp, or null if there is none
+     */
+    Long getNextVersionTimestamp(String oid, long timestamp) throws EDBException;
+
     /**
      * Returns the newest JPAObject with the given oid
      */
@@ -63,6 +74,11 @@ public interface JPADao {
      */
     List<JPAObject> getJPAObjects(List<String> oids) throws EDBException;
 
+    /**
+     * Returns the JPAObjects with the given oids in the versions which were active at the given timestamp
+     */
+    List<JPAObject> getJPAObjects(List<String> oids, long timestamp) throws EDBException;
+
     /**
      * Returns all commits which are involved with the given oid which are between from and to
      */
@@ -80,7 +96,8 @@ public interface JPADao {
     List<String> getResurrectedOIDs() throws EDBException;
 
     /**
-     * Loads a JPACommit with the given timestamp
+     * Loads the newest JPACommit which happened at or before the given timestamp. Since commit timestamps are unique,
+     * the resulting list contains at most one commit.
      */
     List<JPACommit> getJPACommit(long timestamp) throws EDBException;
 
@@ -99,12 +116,23 @@ public interface JPADao {
      * like getCommits, but it returns only the newest commit
      */
     JPACommit getLastCommit(Map<String, Object> param) throws EDBException;
+
+    /**
+     * Returns the distinct contexts of all commits.
+     */
+    List<String> getContextIds() throws EDBException;
     
     /**
      * Returns a list of JPAObjects which match to the parameters in the given query request
      */
     List<JPAObject> query(QueryRequest request) throws EDBException;
 
+    /**
+     * Returns at most maxResults JPAObjects which match to the parameters in the given query request, ordered by their
+     * OIDs and starting after the given OID. If afterOid is null, the first page of the result is returned.
+     */
+    List<JPAObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException;
+
     /**
      * Returns the version of the element under the given oid. If oid isn't existing, 0 is returned.
      */
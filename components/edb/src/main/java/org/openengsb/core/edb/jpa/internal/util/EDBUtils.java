@@ -20,6 +20,8 @@ package org.openengsb.core.edb.jpa.internal.util;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EDBObjectEntry;
@@ -35,6 +37,8 @@ public final class EDBUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(EDBUtils.class);
     private static List<EDBConverterStep> steps = new ArrayList<EDBConverterStep>(Arrays.asList(
         new StringConverterStep(), new DateConverterStep(), new DefaultConverterStep()));
+    private static ConcurrentMap<String, EDBConverterStep> stepCache =
+        new ConcurrentHashMap<String, EDBConverterStep>();
 
     private EDBUtils() {
     }
@@ -46,27 +50,45 @@ public final class EDBUtils {
      * object with a string parameter is used. If that didn't work either, the simple string will be set in the entry.
      */
     public static EDBObjectEntry convertJPAEntryToEDBObjectEntry(JPAEntry entry) {
-        for (EDBConverterStep step : steps) {
-            if (step.doesStepFit(entry.getType())) {
-                LOGGER.debug("EDBConverterStep {} fit for type {}", step.getClass().getName(), entry.getType());
-                return step.convertToEDBObjectEntry(entry);
-            }
+        EDBConverterStep step = getConverterStep(entry.getType());
+        if (step == null) {
+            LOGGER.error("No EDBConverterStep fit for JPAEntry {}", entry);
+            return null;
         }
-        LOGGER.error("No EDBConverterStep fit for JPAEntry {}", entry);
-        return null;
+        return step.convertToEDBObjectEntry(entry);
     }
 
     /**
-     * Converts a JPAEntry object into an EDBObjectEntry.
+     * Converts an EDBObjectEntry into a JPAEntry. Next to the string representation, the typed value columns of the
+     * JPAEntry are filled.
      */
     public static JPAEntry convertEDBObjectEntryToJPAEntry(EDBObjectEntry entry, JPAObject owner) {
+        EDBConverterStep step = getConverterStep(entry.getType());
+        if (step == null) {
+            LOGGER.error("No EDBConverterStep fit for EDBObjectEntry {}", entry);
+            return null;
+        }
+        JPAEntry result = step.convertToJPAEntry(entry, owner);
+        result.setTypedValue(entry.getValue());
+        return result;
+    }
+
+    /**
+     * Returns the first converter step which fits for the given type. The step is cached per type, so the step list
+     * is only walked once for every type.
+     */
+    private static EDBConverterStep getConverterStep(String type) {
+        EDBConverterStep cached = stepCache.get(type);
+        if (cached != null) {
+            return cached;
+        }
         for (EDBConverterStep step : steps) {
-            if (step.doesStepFit(entry.getType())) {
-                LOGGER.debug("EDBConverterStep {} fit for type {}", step.getClass().getName(), entry.getType());
-                return step.convertToJPAEntry(entry, owner);
+            if (step.doesStepFit(type)) {
+                LOGGER.debug("EDBConverterStep {} fit for type {}", step.getClass().getName(), type);
+                stepCache.putIfAbsent(type, step);
+                return step;
             }
         }
-        LOGGER.error("No EDBConverterStep fit for EDBObjectEntry {}", entry);
         return null;
     }
 
@@ -18,6 +18,7 @@
 package org.openengsb.core.edb.jpa.internal.util;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -25,6 +26,9 @@ import java.util.Set;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
@@ -33,13 +37,15 @@ import org.openengsb.core.api.model.QueryRequest;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.jpa.internal.JPAEntry;
 import org.openengsb.core.edb.jpa.internal.JPAObject;
+import org.openengsb.core.edb.jpa.internal.JPAObjectHead;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 /**
- * Converts a QueryRequest into a CriteriaQuery.
- * 
+ * Converts a QueryRequest into a CriteriaQuery. Every parameter and range of the request is checked through an EXISTS
+ * subquery on the entries of the object, which compares the key and the (typed) value of the entry with equality or
+ * range predicates, so that the indexes of the entry table can be used.
  */
 public class QueryRequestCriteriaBuilder {
 
@@ -51,11 +57,15 @@ public class QueryRequestCriteriaBuilder {
         this.request = request;
     }
 
+    /**
+     * Builds a query which searches the history for the objects which were active at the timestamp of the request.
+     */
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public CriteriaQuery<JPAObject> buildQuery() {
         CriteriaQuery<JPAObject> criteriaQuery = builder.createQuery(JPAObject.class);
         criteriaQuery.distinct(!request.isAndJoined());
         Root from = criteriaQuery.from(JPAObject.class);
+        criteriaQuery.select(from);
 
         Subquery<Long> subquery = criteriaQuery.subquery(Long.class);
         Root subFrom = subquery.from(JPAObject.class);
@@ -65,20 +75,65 @@ public class QueryRequestCriteriaBuilder {
         Predicate p2 = builder.le(subFrom.get("timestamp"), request.getTimestamp());
         subquery.where(builder.and(p1, p2));
 
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.notEqual(from.get("isDeleted"), !request.isDeleted()));
+        predicates.add(builder.equal(from.get("timestamp"), subquery));
+        predicates.addAll(buildObjectPredicates(from, criteriaQuery));
+        criteriaQuery.where(Iterables.toArray(predicates, Predicate.class));
+        return criteriaQuery;
+    }
+
+    /**
+     * Builds a query which searches the head table for the objects of the current state. This query is only valid if
+     * there was no commit after the timestamp of the request.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public CriteriaQuery<JPAObject> buildHeadQuery() {
+        CriteriaQuery<JPAObject> criteriaQuery = builder.createQuery(JPAObject.class);
+        criteriaQuery.distinct(!request.isAndJoined());
+        Root head = criteriaQuery.from(JPAObjectHead.class);
+        Join from = head.join("object");
+        criteriaQuery.select(from);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.notEqual(head.get("isDeleted"), !request.isDeleted()));
+        predicates.addAll(buildObjectPredicates(from, criteriaQuery));
+        criteriaQuery.where(Iterables.toArray(predicates, Predicate.class));
+        return criteriaQuery;
+    }
+
+    /**
+     * Restricts the given query (created by buildQuery or buildHeadQuery) to the objects with an OID greater than the
+     * given one and orders the result by the OIDs. This way the result of a request can be loaded page by page (keyset
+     * pagination), where the OID of the last object of one page is the start of the next page. If afterOid is null,
+     * the query starts with the first object.
+     */
+    @SuppressWarnings("unchecked")
+    public CriteriaQuery<JPAObject> restrictToPage(CriteriaQuery<JPAObject> criteriaQuery, String afterOid) {
+        Path<String> oid = ((Path<JPAObject>) criteriaQuery.getSelection()).get("oid");
+        if (afterOid != null) {
+            criteriaQuery.where(builder.and(criteriaQuery.getRestriction(), builder.greaterThan(oid, afterOid)));
+        }
+        criteriaQuery.orderBy(builder.asc(oid));
+        return criteriaQuery;
+    }
+
+    /**
+     * Converts the context, the model class and the parameters of the request into predicates on the given JPAObject.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private List<Predicate> buildObjectPredicates(From from, CriteriaQuery<?> criteriaQuery) {
         List<Predicate> predicates = new ArrayList<>();
         if (request.getContextId() != null) {
             predicates.add(builder.like(from.get("oid"), request.getContextId() + "/%"));
         }
-        predicates.add(builder.notEqual(from.get("isDeleted"), !request.isDeleted()));
-        predicates.add(builder.equal(from.get("timestamp"), subquery));
         if (request.getModelClassName() != null) {
-            Subquery<JPAEntry> subquery2 =
+            Subquery<JPAEntry> subquery =
                 buildJPAEntrySubquery(EDBConstants.MODEL_TYPE, request.getModelClassName(), from, criteriaQuery);
-            predicates.add(builder.exists(subquery2));
+            predicates.add(builder.exists(subquery));
         }
         predicates.add(convertParametersToPredicate(from, criteriaQuery));
-        criteriaQuery.where(Iterables.toArray(predicates, Predicate.class));
-        return criteriaQuery;
+        return predicates;
     }
 
     /**
@@ -86,12 +141,16 @@ public class QueryRequestCriteriaBuilder {
      * the criteria query.
      */
     @SuppressWarnings({ "unchecked" })
-    private Predicate convertParametersToPredicate(Root<?> from, CriteriaQuery<?> query) {
+    private Predicate convertParametersToPredicate(From<?, ?> from, CriteriaQuery<?> query) {
         List<Predicate> predicates = new ArrayList<>();
         for (Map.Entry<String, Set<Object>> value : request.getParameters().entrySet()) {
             Subquery<JPAEntry> subquery = buildJPAEntrySubquery(value.getKey(), value.getValue(), from, query);
             predicates.add(builder.exists(subquery));
         }
+        for (Map.Entry<String, QueryRequest.Range> range : request.getRanges().entrySet()) {
+            Subquery<JPAEntry> subquery = buildJPAEntryRangeSubquery(range.getKey(), range.getValue(), from, query);
+            predicates.add(builder.exists(subquery));
+        }
         if (request.isAndJoined()) {
             return builder.and(Iterables.toArray(predicates, Predicate.class));
         } else {
@@ -100,12 +159,12 @@ public class QueryRequestCriteriaBuilder {
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private Subquery buildJPAEntrySubquery(String key, Object value, Root<?> from, CriteriaQuery<?> query) {
+    private Subquery buildJPAEntrySubquery(String key, Object value, From<?, ?> from, CriteriaQuery<?> query) {
         Subquery<JPAEntry> subquery = query.subquery(JPAEntry.class);
         Root subFrom = subquery.from(JPAEntry.class);
         subquery.select(subFrom);
         Predicate ownerPredicate = builder.equal(from, subFrom.get("owner"));
-        Predicate keyPredicate = builder.like(subFrom.get("key"), key);
+        Predicate keyPredicate = buildKeyPredicate(key, subFrom);
         Predicate valuePredicate =
             value instanceof Set ? buildValuePredicate((Set<Object>) value, subFrom) : builder.equal(
                 subFrom.get("value"),
@@ -114,6 +173,133 @@ public class QueryRequestCriteriaBuilder {
         return subquery;
     }
 
+    /**
+     * Builds a subquery which checks if the entry with the given key lies within the given range. Numbers and dates are
+     * compared through the typed value columns of the entries, all other bounds through the string values.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Subquery buildJPAEntryRangeSubquery(String key, QueryRequest.Range range, From<?, ?> from,
+            CriteriaQuery<?> query) {
+        Subquery<JPAEntry> subquery = query.subquery(JPAEntry.class);
+        Root subFrom = subquery.from(JPAEntry.class);
+        subquery.select(subFrom);
+        Predicate ownerPredicate = builder.equal(from, subFrom.get("owner"));
+        Predicate keyPredicate = buildKeyPredicate(key, subFrom);
+        subquery.where(ownerPredicate, keyPredicate, buildRangePredicate(range, subFrom));
+        return subquery;
+    }
+
+    /**
+     * Builds the predicate which checks if the value of an entry lies within the given range. Since integral and
+     * floating point numbers are stored in different columns, a range with numeric bounds is checked against both of
+     * them, with the bounds converted to the type of the column.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate buildRangePredicate(QueryRequest.Range range, Root subFrom) {
+        Object lowerBound = range.getLowerBound();
+        Object upperBound = range.getUpperBound();
+        if (isNumericBound(lowerBound) && isNumericBound(upperBound)) {
+            Number lower = (Number) lowerBound;
+            Number upper = (Number) upperBound;
+            Predicate longRange = buildBoundsPredicate(subFrom.get("longValue"), toLongBound(lower, true),
+                toLongBound(upper, false));
+            Predicate doubleRange = buildBoundsPredicate(subFrom.get("doubleValue"),
+                lower != null ? lower.doubleValue() : null, upper != null ? upper.doubleValue() : null);
+            return builder.or(longRange, doubleRange);
+        }
+        List<Predicate> predicates = new ArrayList<>();
+        if (lowerBound != null) {
+            predicates.add(builder.greaterThanOrEqualTo(subFrom.get(getTypedColumn(lowerBound)),
+                getTypedValue(lowerBound)));
+        }
+        if (upperBound != null) {
+            predicates.add(builder.lessThanOrEqualTo(subFrom.get(getTypedColumn(upperBound)),
+                getTypedValue(upperBound)));
+        }
+        return builder.and(Iterables.toArray(predicates, Predicate.class));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate buildBoundsPredicate(Expression expression, Comparable lowerBound, Comparable upperBound) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (lowerBound != null) {
+            predicates.add(builder.greaterThanOrEqualTo(expression, lowerBound));
+        }
+        if (upperBound != null) {
+            predicates.add(builder.lessThanOrEqualTo(expression, upperBound));
+        }
+        return builder.and(Iterables.toArray(predicates, Predicate.class));
+    }
+
+    private static boolean isNumericBound(Object bound) {
+        return bound == null || bound instanceof Number;
+    }
+
+    /**
+     * Converts the given bound for the comparison with the long column. Fractional lower bounds are rounded up and
+     * fractional upper bounds are rounded down, so that the range of integral values stays the same.
+     */
+    private static Long toLongBound(Number bound, boolean lower) {
+        if (bound == null) {
+            return null;
+        }
+        if (bound instanceof Long || bound instanceof Integer || bound instanceof Short || bound instanceof Byte) {
+            return bound.longValue();
+        }
+        double value = bound.doubleValue();
+        return (long) (lower ? Math.ceil(value) : Math.floor(value));
+    }
+
+    /**
+     * Builds the predicate for the key of an entry. Keys containing a '%' wildcard (e.g. the reference lookups of the
+     * EKB) are matched with LIKE, all other keys with equality, so that the index on the key column can be used.
+     */
+    private Predicate buildKeyPredicate(String key, Root<?> subFrom) {
+        Expression<String> expression = subFrom.get("key");
+        return key.contains("%") ? builder.like(expression, key) : builder.equal(expression, key);
+    }
+
+    /**
+     * Returns the name of the JPAEntry column which is used to compare the given value.
+     */
+    private String getTypedColumn(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return "doubleValue";
+        } else if (value instanceof Number || value instanceof Date) {
+            return "longValue";
+        } else if (value instanceof Boolean) {
+            return "booleanValue";
+        }
+        return "value";
+    }
+
+    /**
+     * Returns the given value in the form in which it is stored in the column returned by getTypedColumn.
+     */
+    @SuppressWarnings("rawtypes")
+    private Comparable getTypedValue(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value.toString();
+    }
+
+    /**
+     * Returns true if entries with a value like the given one have it stored in a typed column (see
+     * JPAEntry#setTypedValue), so that equality is checked against that column and its index.
+     */
+    private static boolean isStoredTyped(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte
+                || value instanceof Double || value instanceof Float || value instanceof Boolean
+                || value instanceof Date;
+    }
+
     private Predicate buildValuePredicate(Set<Object> values, Root<?> subFrom) {
         Expression<String> expression = subFrom.get("value");
 
@@ -123,6 +309,10 @@ public class QueryRequestCriteriaBuilder {
 
         List<Predicate> valuePredicates = Lists.newArrayList();
         for (Object obj : values) {
+            if (isStoredTyped(obj)) {
+                valuePredicates.add(builder.equal(subFrom.get(getTypedColumn(obj)), getTypedValue(obj)));
+                continue;
+            }
             String caseCheckedValue = getCaseCheckedValue(obj, request.isCaseSensitive());
             valuePredicates.add(request.isWildcardAware() ? builder.like(expression, caseCheckedValue) : builder
                 .equal(expression, caseCheckedValue));
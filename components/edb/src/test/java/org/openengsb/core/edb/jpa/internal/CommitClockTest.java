@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class CommitClockTest {
+
+    @Test
+    public void testManyTimestampsWithinOneMillisecond_shouldBeConsecutiveWithoutWaiting() throws Exception {
+        CommitClock clock = new CommitClock();
+        long start = System.currentTimeMillis();
+        long first = clock.next();
+        long previous = first;
+        for (int i = 1; i < 1000; i++) {
+            long next = clock.next();
+            assertThat(next, greaterThan(previous));
+            previous = next;
+        }
+        assertThat(first, greaterThanOrEqualTo(start));
+        assertThat(System.currentTimeMillis() - start < 500, is(true));
+    }
+
+    @Test
+    public void testUpdateWithFutureTimestamp_shouldHandOutBiggerTimestamps() throws Exception {
+        CommitClock clock = new CommitClock();
+        long future = System.currentTimeMillis() + 60000;
+        clock.update(future);
+        assertThat(clock.isInitialized(), is(true));
+        assertThat(clock.next(), is(future + 1));
+        assertThat(clock.next(), is(future + 2));
+    }
+}
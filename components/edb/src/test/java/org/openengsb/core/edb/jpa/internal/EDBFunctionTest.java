@@ -20,18 +20,34 @@ package org.openengsb.core.edb.jpa.internal;
 import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.junit.Test;
 import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.edb.api.EDBCheckException;
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBException;
@@ -497,6 +513,304 @@ public class EDBFunctionTest extends AbstractEDBTest {
         assertThat(result.size(), is(0));
     }
 
+    @Test
+    public void testGetHeadAfterUpdateAndDelete_shouldReturnNewestVersions() throws Exception {
+        EDBObject eo1 = new EDBObject("headTest/1");
+        eo1.putEDBObjectEntry("value", "first");
+        EDBObject eo2 = new EDBObject("headTest/2");
+        eo2.putEDBObjectEntry("value", "first");
+        long time1 = commitObjects(Lists.newArrayList(eo1, eo2), null, null);
+
+        EDBObject update = db.getObject("headTest/1");
+        update.putEDBObjectEntry("value", "second");
+        commitObjects(null, Lists.newArrayList(update), Lists.newArrayList(eo2));
+
+        List<EDBObject> head = db.getHead();
+        EDBObject current = getEDBObjectOutOfList(head, "headTest/1");
+        assertThat(current.getString("value"), is("second"));
+        assertThat(getEDBObjectOutOfList(head, "headTest/2"), nullValue());
+        assertThat(db.getObject("headTest/2").isDeleted(), is(true));
+
+        List<EDBObject> oldHead = db.getHead(time1);
+        assertThat(getEDBObjectOutOfList(oldHead, "headTest/1").getString("value"), is("first"));
+        assertThat(getEDBObjectOutOfList(oldHead, "headTest/2"), notNullValue());
+    }
+
+    @Test
+    public void testStartWithHistoryWithoutHeads_shouldFillHeadTable() throws Exception {
+        EDBObject eo1 = new EDBObject("headFillTest/1");
+        eo1.putEDBObjectEntry("value", "first");
+        EDBObject eo2 = new EDBObject("headFillTest/2");
+        eo2.putEDBObjectEntry("value", "first");
+        commitObjects(Lists.newArrayList(eo1, eo2), null, null);
+        EDBObject update = db.getObject("headFillTest/1");
+        update.putEDBObjectEntry("value", "second");
+        commitObjects(null, Lists.newArrayList(update), Lists.newArrayList(eo2));
+        removeObjectHeads();
+
+        db.start();
+
+        assertThat(db.getObject("headFillTest/1").getString("value"), is("second"));
+        assertThat(db.getObject("headFillTest/2").isDeleted(), is(true));
+        List<EDBObject> head = db.getHead();
+        assertThat(getEDBObjectOutOfList(head, "headFillTest/1"), notNullValue());
+        assertThat(getEDBObjectOutOfList(head, "headFillTest/2"), nullValue());
+        assertThat(db.query(QueryRequest.query("value", "second")).size(), is(1));
+    }
+
+    @Test
+    public void testConcurrentCommitAfterCommitReturned_shouldNotWaitAndFailOnHeadRevision() throws Exception {
+        EDBObject object = new EDBObject("lockTest/1");
+        object.putEDBObjectEntry("value", "first");
+        commitObjects(Lists.newArrayList(object), null, null);
+        EDBObject update1 = db.getObject("lockTest/1");
+        update1.putEDBObjectEntry("value", "second");
+        EDBObject update2 = db.getObject("lockTest/1");
+        update2.putEDBObjectEntry("value", "third");
+        EDBCommit commit1 = db.createEDBCommit(null, Lists.newArrayList(update1), null);
+        final EDBCommit commit2 = db.createEDBCommit(null, Lists.newArrayList(update2), null);
+
+        db.commit(commit1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> second = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return db.commit(commit2);
+                }
+            });
+            try {
+                second.get(10, TimeUnit.SECONDS);
+                fail("the second commit has passed the head revision check");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(EDBException.class));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(db.getObject("lockTest/1").getString("value"), is("second"));
+    }
+
+    @Test
+    public void testFailingWriteTransaction_shouldReleaseTheCommitLock() throws Exception {
+        db.setFailWriteTransactions(true);
+        try {
+            commitObjects(Lists.newArrayList(new EDBObject("lockTest/failing")), null, null);
+            fail("the commit of a failing write transaction succeeded");
+        } catch (EDBException e) {
+            // expected, the write transaction failed
+        } finally {
+            db.setFailWriteTransactions(false);
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> retry = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return commitObjects(Lists.newArrayList(new EDBObject("lockTest/failing")), null, null);
+                }
+            });
+            assertThat(retry.get(10, TimeUnit.SECONDS), notNullValue());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(db.getHistory("lockTest/failing").size(), is(1));
+    }
+
+    @Test
+    public void testStartWithEntriesWithoutTypedValues_shouldFillTypedValues() throws Exception {
+        EDBObject eo = new EDBObject("typedFillTest/1");
+        eo.putEDBObjectEntry("typedFillSize", 7);
+        eo.putEDBObjectEntry("typedFillPrice", 2.5);
+        eo.putEDBObjectEntry("typedFillName", "seven");
+        commitObjects(Lists.newArrayList(eo), null, null);
+        removeTypedValues();
+        assertThat(db.query(QueryRequest.create().addRange("typedFillSize", 5, 10)).size(), is(0));
+
+        db.start();
+
+        assertThat(db.query(QueryRequest.create().addRange("typedFillSize", 5, 10)).size(), is(1));
+        assertThat(db.query(QueryRequest.create().addRange("typedFillPrice", 2.0, 3.0)).size(), is(1));
+        assertThat(db.getObject("typedFillTest/1").getString("typedFillName"), is("seven"));
+    }
+
+    @Test
+    public void testFillMissingTypedValuesAfterStart_shouldNotSearchTheEntriesAgain() throws Exception {
+        EDBObject eo = new EDBObject("typedFillOnceTest/1");
+        eo.putEDBObjectEntry("typedFillOnceSize", 7);
+        commitObjects(Lists.newArrayList(eo), null, null);
+        removeTypedValues();
+        db.start();
+        removeTypedValues();
+
+        assertThat(db.fillMissingTypedValues(), is(0));
+        assertThat(db.query(QueryRequest.create().addRange("typedFillOnceSize", 5, 10)).size(), is(0));
+    }
+
+    @Test
+    public void testCommitInGroupCommitMode_shouldWork() throws Exception {
+        db.setGroupCommitEnabled(true);
+        db.setGroupCommitWindow(0L);
+        EDBObject eo1 = new EDBObject("groupCommitTest/1");
+        eo1.putEDBObjectEntry("value", "first");
+        long time1 = commitObjects(Lists.newArrayList(eo1), null, null);
+
+        EDBObject update = db.getObject("groupCommitTest/1");
+        update.putEDBObjectEntry("value", "second");
+        EDBObject eo2 = new EDBObject("groupCommitTest/2");
+        long time2 = commitObjects(Lists.newArrayList(eo2), Lists.newArrayList(update), null);
+
+        assertThat(time2 > time1, is(true));
+        assertThat(db.getObject("groupCommitTest/1").getString("value"), is("second"));
+        assertThat(db.getObject("groupCommitTest/1").getObject(EDBConstants.MODEL_VERSION, Integer.class), is(2));
+        assertThat(db.getCommit(time2).getInserts().size(), is(1));
+        assertThat(db.getHistory("groupCommitTest/1").size(), is(2));
+    }
+
+    @Test
+    public void testConcurrentCommitsInOneGroup_shouldGetOwnTimestamps() throws Exception {
+        db.setGroupCommitEnabled(true);
+        db.setGroupCommitWindow(200L);
+        List<Future<Long>> results = commitConcurrently(createGroupCommits("groupCommitTest/concurrent", 5, null));
+
+        List<Long> timestamps = new ArrayList<>();
+        for (Future<Long> result : results) {
+            timestamps.add(result.get(10, TimeUnit.SECONDS));
+        }
+        assertThat(new HashSet<>(timestamps).size(), is(5));
+        for (int i = 0; i < timestamps.size(); i++) {
+            EDBCommit commit = db.getCommit(timestamps.get(i));
+            assertThat(commit.getInserts().get(0).getOID(), is("groupCommitTest/concurrent/" + i));
+        }
+    }
+
+    @Test
+    public void testFailingGroupCommit_shouldFailAllCommitsOfTheGroup() throws Exception {
+        db.setGroupCommitEnabled(true);
+        db.setGroupCommitWindow(200L);
+        db.setFailWriteTransactions(true);
+        List<Future<Long>> results = commitConcurrently(createGroupCommits("groupCommitTest/failing", 3, null));
+
+        for (Future<Long> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                fail("The commit of a failing group succeeded");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(EDBException.class));
+            }
+        }
+        db.setFailWriteTransactions(false);
+        for (int i = 0; i < 3; i++) {
+            assertThat(db.getHistory("groupCommitTest/failing/" + i).size(), is(0));
+        }
+        EDBObject retry = new EDBObject("groupCommitTest/failing/0");
+        commitObjects(Lists.newArrayList(retry), null, null);
+        assertThat(db.getHistory("groupCommitTest/failing/0").size(), is(1));
+    }
+
+    @Test
+    public void testRevisionConflictInOneGroup_shouldOnlyFailTheConflictingCommit() throws Exception {
+        commitObjects(Lists.newArrayList(new EDBObject("groupCommitTest/conflict/base")), null, null);
+        db.setGroupCommitEnabled(true);
+        db.setGroupCommitWindow(200L);
+        UUID head = db.getCurrentRevisionNumber();
+        List<Future<Long>> results = commitConcurrently(createGroupCommits("groupCommitTest/conflict", 2, head));
+
+        int succeeded = 0;
+        for (Future<Long> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(EDBException.class));
+            }
+        }
+        assertThat(succeeded, is(1));
+        int written = db.getHistory("groupCommitTest/conflict/0").size()
+                + db.getHistory("groupCommitTest/conflict/1").size();
+        assertThat(written, is(1));
+    }
+
+    /**
+     * Creates commits which insert one object each. The commits have the given parent revision, so a parent revision
+     * of null disables the revision check for them.
+     */
+    private List<EDBCommit> createGroupCommits(String prefix, int count, UUID parentRevision) {
+        List<EDBCommit> commits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EDBCommit commit = db.createEDBCommit(Lists.newArrayList(new EDBObject(prefix + "/" + i)), null, null);
+            commit.setHeadRevisionNumber(parentRevision);
+            commits.add(commit);
+        }
+        return commits;
+    }
+
+    /**
+     * Commits each of the given commits in its own thread. All threads start at the same time.
+     */
+    private List<Future<Long>> commitConcurrently(List<EDBCommit> commits) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(commits.size());
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        try {
+            for (final EDBCommit commit : commits) {
+                results.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        start.await();
+                        return db.commit(commit);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Long> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    // checked by the caller
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    @Test
+    public void testFastSubsequentCommits_shouldGetUniqueTimestamps() throws Exception {
+        List<Long> timestamps = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            timestamps.add(commitObjects(Lists.newArrayList(new EDBObject("clockTest/" + i)), null, null));
+        }
+        for (int i = 1; i < timestamps.size(); i++) {
+            assertThat(timestamps.get(i) > timestamps.get(i - 1), is(true));
+        }
+        for (int i = 0; i < timestamps.size(); i++) {
+            EDBCommit commit = db.getCommit(timestamps.get(i));
+            assertThat(commit.getInserts().get(0).getOID(), is("clockTest/" + i));
+        }
+    }
+
+    @Test
+    public void testFastSubsequentCommits_shouldBeVisibleAtTheCurrentTime() throws Exception {
+        db.setObjectCacheSize(0L);
+        EDBObject object = new EDBObject("clockReadTest/1");
+        object.putEDBObjectEntry("value", "0");
+        Long timestamp = commitObjects(Lists.newArrayList(object), null, null);
+        for (int i = 1; i < 10; i++) {
+            object.putEDBObjectEntry("value", String.valueOf(i));
+            timestamp = commitObjects(null, Lists.newArrayList(object), null);
+        }
+        long now = System.currentTimeMillis();
+        QueryRequest request = QueryRequest.query("value", "9");
+
+        assertThat(timestamp <= now, is(true));
+        assertThat(db.getObject("clockReadTest/1", now).getString("value"), is("9"));
+        assertThat(db.getHead(now).size(), is(db.getHead().size()));
+        assertThat(db.query(request).size(), is(1));
+        assertThat(db.query(request.setTimestamp(now)).size(), is(1));
+    }
+
     @Test(expected = EDBException.class)
     public void testDeleteWithNullRevision_shouldThrowException() {
         db.deleteCommit(null);
@@ -506,4 +820,137 @@ public class EDBFunctionTest extends AbstractEDBTest {
     public void testDeleteCommitWithWrongRevision_shouldThrowException() {
         db.deleteCommit(UUID.randomUUID());
     }
+
+    @Test
+    public void testImportCommit_shouldPersistAllObjectsInOneRevision() throws Exception {
+        commitObjects(Lists.newArrayList(new EDBObject("importTest/deleted")), null, null);
+        commitObjects(null, null, Lists.newArrayList(new EDBObject("importTest/deleted")));
+        List<EDBObject> inserts = Lists.newArrayList(new EDBObject("importTest/deleted"));
+        for (int i = 0; i < 10; i++) {
+            EDBObject object = new EDBObject("importTest/" + i);
+            object.putEDBObjectEntry("value", "import " + i);
+            inserts.add(object);
+        }
+        long timestamp = db.importCommit(db.createEDBCommit(inserts, null, null));
+
+        assertThat(db.getCommit(timestamp).getInserts().size(), is(11));
+        assertThat(db.getObject("importTest/3").getString("value"), is("import 3"));
+        assertThat(db.getObject("importTest/3").getObject(EDBConstants.MODEL_VERSION, Integer.class), is(1));
+        assertThat(db.getObject("importTest/deleted").isDeleted(), is(false));
+        assertThat(db.query(QueryRequest.query("value", "import 7")).size(), is(1));
+    }
+
+    @Test(expected = EDBCheckException.class)
+    public void testImportCommitWithExistingObject_shouldThrowException() throws Exception {
+        commitObjects(Lists.newArrayList(new EDBObject("importTest/existing")), null, null);
+        List<EDBObject> inserts = Lists.newArrayList(new EDBObject("importTest/new"),
+            new EDBObject("importTest/existing"));
+        db.importCommit(db.createEDBCommit(inserts, null, null));
+    }
+
+    @Test
+    public void testStart_shouldRegisterObjectCacheStatisticsAsMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ObjectCacheStatistics.OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        EDBObject object = new EDBObject("cacheStatsTest/1");
+        object.putEDBObjectEntry("value", "first");
+        commitObjects(Lists.newArrayList(object), null, null);
+
+        db.start();
+        try {
+            db.getObject("cacheStatsTest/1");
+            long hits = (Long) server.getAttribute(name, "HitCount");
+            db.getObject("cacheStatsTest/1");
+            assertThat((Long) server.getAttribute(name, "HitCount") > hits, is(true));
+            assertThat((Boolean) server.getAttribute(name, "Enabled"), is(true));
+        } finally {
+            db.stop();
+        }
+        assertThat(server.isRegistered(name), is(false));
+    }
+
+    @Test
+    public void testGetObjectsForTimestamp_shouldReturnTheVersionsActiveAtThatTime() throws Exception {
+        db.setObjectCacheSize(0L);
+        EDBObject first = new EDBObject("historicalBatchTest/1");
+        first.putEDBObjectEntry("value", "old");
+        EDBObject second = new EDBObject("historicalBatchTest/2");
+        second.putEDBObjectEntry("value", "unchanged");
+        Long timestamp = commitObjects(Lists.newArrayList(first, second), null, null);
+        first.putEDBObjectEntry("value", "new");
+        commitObjects(null, Lists.newArrayList(first), null);
+        commitObjects(Lists.newArrayList(new EDBObject("historicalBatchTest/3")), null, null);
+
+        List<EDBObject> result = db.getObjects(
+            Arrays.asList("historicalBatchTest/1", "historicalBatchTest/2", "historicalBatchTest/3"), timestamp);
+
+        assertThat(result.size(), is(2));
+        Map<String, String> values = new HashMap<String, String>();
+        for (EDBObject object : result) {
+            values.put(object.getOID(), object.getString("value"));
+        }
+        assertThat(values.get("historicalBatchTest/1"), is("old"));
+        assertThat(values.get("historicalBatchTest/2"), is("unchanged"));
+    }
+
+    @Test
+    public void testGetObjectTwice_shouldBeServedFromCacheAndInvalidatedByCommits() throws Exception {
+        EDBObject object = new EDBObject("cacheTest/1");
+        object.putEDBObjectEntry("value", "first");
+        commitObjects(Lists.newArrayList(object), null, null);
+
+        long hits = db.getObjectCacheStats().hitCount();
+        EDBObject first = db.getObject("cacheTest/1");
+        first.putEDBObjectEntry("value", "modified");
+        EDBObject second = db.getObject("cacheTest/1");
+        assertThat(db.getObjectCacheStats().hitCount() > hits, is(true));
+        assertThat(second.getString("value"), is("first"));
+        assertThat(db.getObject("cacheTest/1", System.currentTimeMillis()).getString("value"), is("first"));
+
+        second.putEDBObjectEntry("value", "second");
+        commitObjects(null, Lists.newArrayList(second), null);
+        assertThat(db.getObject("cacheTest/1").getString("value"), is("second"));
+    }
+
+    @Test
+    public void testGetHistoricalObjectTwice_shouldBeServedFromCacheWithinItsValidity() throws Exception {
+        EDBObject object = new EDBObject("historyCacheTest/1");
+        object.putEDBObjectEntry("value", "first");
+        Long first = commitObjects(Lists.newArrayList(object), null, null);
+        object = db.getObject("historyCacheTest/1");
+        object.putEDBObjectEntry("value", "second");
+        Long second = commitObjects(null, Lists.newArrayList(object), null);
+
+        assertThat(db.getObject("historyCacheTest/1", first).getString("value"), is("first"));
+        long hits = db.getObjectCacheStats().hitCount();
+        EDBObject cached = db.getObject("historyCacheTest/1", second - 1);
+        assertThat(db.getObjectCacheStats().hitCount() > hits, is(true));
+        assertThat(cached.getString("value"), is("first"));
+        assertThat(db.getObject("historyCacheTest/1", second).getString("value"), is("second"));
+    }
+
+    /**
+     * Clears the typed values of all entries, as in databases written before the typed value columns existed
+     */
+    private void removeTypedValues() {
+        db.entityManager.getTransaction().begin();
+        db.entityManager.createQuery(
+            "UPDATE JPAEntry e SET e.longValue = NULL, e.doubleValue = NULL, e.booleanValue = NULL").executeUpdate();
+        db.entityManager.getTransaction().commit();
+        db.entityManager.clear();
+    }
+
+    /**
+     * Removes all head entries, so that only the history is left as in databases written before the head table existed
+     */
+    private void removeObjectHeads() {
+        db.entityManager.getTransaction().begin();
+        db.entityManager.createQuery("DELETE FROM JPAObjectHead h").executeUpdate();
+        db.entityManager.getTransaction().commit();
+        db.entityManager.clear();
+        db.setObjectCacheSize(0L);
+    }
 }
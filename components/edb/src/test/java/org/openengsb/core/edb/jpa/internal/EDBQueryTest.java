@@ -21,19 +21,29 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.transaction.Status;
+import javax.transaction.TransactionManager;
+
 import org.junit.Test;
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.model.CommitMetaInfo;
 import org.openengsb.core.api.model.CommitQueryRequest;
 import org.openengsb.core.api.model.QueryRequest;
 import org.openengsb.core.edb.api.EDBCommit;
+import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EDBObjectEntry;
@@ -413,6 +423,42 @@ public class EDBQueryTest extends AbstractEDBTest {
         assertThat(revisions.get(0).getComment(), is("this is a comment"));
     }
 
+    @Test
+    public void testIfRetrievingCommitRevisionsByModelType_shouldReturnCommitsOfThisTypeByPages() throws Exception {
+        EDBObject a = new EDBObject("/test/query/modeltype/a");
+        a.putEDBObjectEntry(EDBConstants.MODEL_TYPE, "test.ModelA");
+        EDBObject b = new EDBObject("/test/query/modeltype/b");
+        b.putEDBObjectEntry(EDBConstants.MODEL_TYPE, "test.ModelB");
+        EDBCommit ci = getEDBCommit();
+        ci.insert(a);
+        Long timestamp1 = db.commit(ci);
+        String revision1 = ci.getRevisionNumber().toString();
+        ci = getEDBCommit();
+        ci.insert(b);
+        db.commit(ci);
+        ci = getEDBCommit();
+        ci.delete(a.getOID());
+        db.commit(ci);
+        String revision3 = ci.getRevisionNumber().toString();
+
+        CommitQueryRequest request = new CommitQueryRequest();
+        request.setStartTimestamp(timestamp1);
+        request.setModelTypes(Arrays.asList("test.ModelA"));
+        List<CommitMetaInfo> revisions = db.getRevisionsOfMatchingCommits(request);
+        assertThat(revisions.size(), is(2));
+        assertThat(revisions.get(0).getRevision(), is(revision1));
+        assertThat(revisions.get(1).getRevision(), is(revision3));
+
+        request.setMaxResults(1);
+        revisions = db.getRevisionsOfMatchingCommits(request);
+        assertThat(revisions.size(), is(1));
+        assertThat(revisions.get(0).getRevision(), is(revision1));
+
+        request.setMaxResults(null);
+        request.setModelTypes(Arrays.asList("test.ModelA", "test.ModelB"));
+        assertThat(db.getRevisionsOfMatchingCommits(request).size(), is(3));
+    }
+
     @Test
     public void testIfQueryingWithCaseInsensitivity_shouldWork() throws Exception {
         Map<String, EDBObjectEntry> data1 = new HashMap<String, EDBObjectEntry>();
@@ -579,4 +625,137 @@ public class EDBQueryTest extends AbstractEDBTest {
         result = db.query(request.deleted());
         assertThat(result.size(), is(1));
     }
+
+    @Test
+    public void testIfQueryingWithRanges_shouldWork() throws Exception {
+        Map<String, EDBObjectEntry> data1 = new HashMap<String, EDBObjectEntry>();
+        putValue("size", 5, data1);
+        putValue("price", 10.5, data1);
+        EDBObject v1 = new EDBObject("/test/range/1", data1);
+        Map<String, EDBObjectEntry> data2 = new HashMap<String, EDBObjectEntry>();
+        putValue("size", 42, data2);
+        putValue("price", 99.9, data2);
+        EDBObject v2 = new EDBObject("/test/range/2", data2);
+        commitObjects(Lists.newArrayList(v1, v2), null, null);
+
+        List<EDBObject> result = db.query(QueryRequest.create().addRange("size", 1, 10));
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/range/1"));
+        result = db.query(QueryRequest.create().addRange("size", 5, null));
+        assertThat(result.size(), is(2));
+        result = db.query(QueryRequest.create().addRange("price", 50.0, 100.0));
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/range/2"));
+        result = db.query(QueryRequest.query("size", 42).addRange("price", null, 50.0));
+        assertThat(result.size(), is(0));
+    }
+
+    @Test
+    public void testIfQueryingRangesWithIntegralBoundsOnFloatingPointValues_shouldWork() throws Exception {
+        Map<String, EDBObjectEntry> data1 = new HashMap<String, EDBObjectEntry>();
+        putValue("weight", 10.5, data1);
+        EDBObject v1 = new EDBObject("/test/mixedrange/1", data1);
+        Map<String, EDBObjectEntry> data2 = new HashMap<String, EDBObjectEntry>();
+        putValue("weight", 3, data2);
+        EDBObject v2 = new EDBObject("/test/mixedrange/2", data2);
+        commitObjects(Lists.newArrayList(v1, v2), null, null);
+
+        List<EDBObject> result = db.query(QueryRequest.create().addRange("weight", 1, 10));
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/mixedrange/2"));
+        result = db.query(QueryRequest.create().addRange("weight", 1, 11));
+        assertThat(result.size(), is(2));
+        result = db.query(QueryRequest.create().addRange("weight", 2.5, 3.5));
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/mixedrange/2"));
+        result = db.query(QueryRequest.create().addRange("weight", 10L, null));
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/mixedrange/1"));
+    }
+
+    @Test
+    public void testIfQueryingTypedValuesForEquality_shouldCompareTheTypedValues() throws Exception {
+        Map<String, EDBObjectEntry> data1 = new HashMap<String, EDBObjectEntry>();
+        putValue("amount", 7, data1);
+        putValue("active", true, data1);
+        EDBObject v1 = new EDBObject("/test/typedequal/1", data1);
+        Map<String, EDBObjectEntry> data2 = new HashMap<String, EDBObjectEntry>();
+        putValue("amount", 7.5, data2);
+        putValue("active", false, data2);
+        EDBObject v2 = new EDBObject("/test/typedequal/2", data2);
+        commitObjects(Lists.newArrayList(v1, v2), null, null);
+
+        List<EDBObject> result = db.query(QueryRequest.query("amount", 7L));
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/typedequal/1"));
+        result = db.query(QueryRequest.query("amount", 7.5f));
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/typedequal/2"));
+        result = db.query(QueryRequest.query("active", false).wildcardUnaware().caseInsensitive());
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getOID(), is("/test/typedequal/2"));
+    }
+
+    @Test
+    public void testIfQueryingWithWildcardKey_shouldWork() throws Exception {
+        Map<String, EDBObjectEntry> data = new HashMap<String, EDBObjectEntry>();
+        putValue("wildcardkey.first", "wildcardvalue", data);
+        EDBObject v1 = new EDBObject("/test/wildcardkey/1", data);
+        commitObjects(Lists.newArrayList(v1), null, null);
+
+        List<EDBObject> result = db.query(QueryRequest.query("wildcardkey.%", "wildcardvalue"));
+        assertThat(result.size(), is(1));
+        result = db.query(QueryRequest.query("wildcardkey.", "wildcardvalue"));
+        assertThat(result.size(), is(0));
+    }
+
+    @Test
+    public void testIfQueryingIteratively_shouldReturnAllObjectsInPages() throws Exception {
+        List<EDBObject> inserts = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            Map<String, EDBObjectEntry> data = new HashMap<String, EDBObjectEntry>();
+            putValue("pagingkey", "pagingvalue", data);
+            inserts.add(new EDBObject("/test/paging/" + i, data));
+        }
+        commitObjects(inserts, null, null);
+
+        QueryRequest request = QueryRequest.query("pagingkey", "pagingvalue");
+        List<EDBObject> page = db.query(request, null, 2);
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).getOID(), is("/test/paging/0"));
+        page = db.query(request, page.get(1).getOID(), 2);
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).getOID(), is("/test/paging/2"));
+
+        Iterator<EDBObject> iterator = db.queryIterator(request, 2);
+        for (int i = 0; i < 5; i++) {
+            assertThat(iterator.next().getOID(), is("/test/paging/" + i));
+        }
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void testIfQueryingIterativelyOutsideOfATransaction_shouldLoadEveryPageInItsOwnTransaction()
+        throws Exception {
+        List<EDBObject> inserts = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            Map<String, EDBObjectEntry> data = new HashMap<String, EDBObjectEntry>();
+            putValue("pagingtxkey", "pagingtxvalue", data);
+            inserts.add(new EDBObject("/test/pagingtx/" + i, data));
+        }
+        commitObjects(inserts, null, null);
+        TransactionManager transactionManager = mock(TransactionManager.class);
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        db.setTransactionManager(transactionManager);
+
+        Iterator<EDBObject> iterator = db.queryIterator(QueryRequest.query("pagingtxkey", "pagingtxvalue"), 2);
+        verify(transactionManager, never()).begin();
+        for (int i = 0; i < 5; i++) {
+            assertThat(iterator.next().getOID(), is("/test/pagingtx/" + i));
+        }
+        assertThat(iterator.hasNext(), is(false));
+
+        verify(transactionManager, times(3)).begin();
+        verify(transactionManager, times(3)).commit();
+    }
 }
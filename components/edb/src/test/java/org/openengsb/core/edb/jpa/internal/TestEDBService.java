@@ -36,6 +36,7 @@ import org.openengsb.core.edb.jpa.internal.dao.JPADao;
  */
 public class TestEDBService extends EDBService {
     private EntityTransaction utx;
+    private volatile boolean failWriteTransactions;
 
     public TestEDBService(JPADao dao, AuthenticationContext authenticationContext,
             List<EDBBeginCommitHook> beginCommitHooks, List<EDBPreCommitHook> preCommitHooks,
@@ -78,4 +79,19 @@ public class TestEDBService extends EDBService {
     protected void rollbackTransaction() {
         utx.rollback();
     }
+
+    /**
+     * Lets the write transactions of the EDB fail on commit.
+     */
+    public void setFailWriteTransactions(boolean failWriteTransactions) {
+        this.failWriteTransactions = failWriteTransactions;
+    }
+
+    @Override
+    protected void commitWriteTransaction() {
+        if (failWriteTransactions) {
+            throw new EDBException("Simulated failure of a write transaction");
+        }
+        super.commitWriteTransaction();
+    }
 }
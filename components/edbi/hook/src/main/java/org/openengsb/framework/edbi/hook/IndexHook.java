@@ -19,22 +19,22 @@ package org.openengsb.framework.edbi.hook;
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.security.AuthenticationContext;
 import org.openengsb.core.edbi.api.IndexCommit;
-import org.openengsb.core.edbi.api.IndexEngine;
 import org.openengsb.core.ekb.api.EKBCommit;
 import org.openengsb.core.ekb.api.hooks.EKBPostCommitHook;
 import org.openengsb.framework.edbi.hook.internal.CommitConverter;
+import org.openengsb.framework.edbi.hook.internal.IndexQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * EKBPostCommitHook implementation responsible for extracting model information and calling {@code IndexService} to
- * create indices for model types.
+ * EKBPostCommitHook implementation responsible for extracting model information and passing it to the
+ * {@code IndexQueue}, which merges it asynchronously into the {@code IndexEngine}.
  */
 public class IndexHook implements EKBPostCommitHook {
 
     private static final Logger LOG = LoggerFactory.getLogger(IndexHook.class);
 
-    private IndexEngine indexEngine;
+    private IndexQueue indexQueue;
     private AuthenticationContext authenticationContext;
 
     @Override
@@ -45,7 +45,7 @@ public class IndexHook implements EKBPostCommitHook {
 
         IndexCommit commit = commitConverter.convert(ekbCommit);
 
-        indexEngine.commit(commit);
+        indexQueue.enqueue(commit);
     }
 
     public ContextHolder getContextHolder() {
@@ -60,11 +60,11 @@ public class IndexHook implements EKBPostCommitHook {
         this.authenticationContext = authenticationContext;
     }
 
-    public IndexEngine getIndexEngine() {
-        return indexEngine;
+    public IndexQueue getIndexQueue() {
+        return indexQueue;
     }
 
-    public void setIndexEngine(IndexEngine indexEngine) {
-        this.indexEngine = indexEngine;
+    public void setIndexQueue(IndexQueue indexQueue) {
+        this.indexQueue = indexQueue;
     }
 }
@@ -27,6 +27,7 @@ import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.openengsb.core.api.context.ContextHolder;
+import org.openengsb.core.api.model.CommitMetaInfo;
 import org.openengsb.core.api.model.OpenEngSBModel;
 import org.openengsb.core.api.security.AuthenticationContext;
 import org.openengsb.core.edbi.api.IndexCommit;
@@ -58,6 +59,22 @@ public class CommitConverter {
      * @return a new IndexCommit instance representing the given EKBCommit
      */
     public IndexCommit convert(EKBCommit ekbCommit) {
+        return convert(ekbCommit, getUser(), getContextId(), new Date());
+    }
+
+    /**
+     * Convert the given EKBCommit that was committed earlier to an IndexCommit, using the meta data of the original
+     * commit instead of the current user and context.
+     * 
+     * @param ekbCommit the commit to convert
+     * @param metaInfo the meta data of the commit
+     * @return a new IndexCommit instance representing the given EKBCommit
+     */
+    public IndexCommit convert(EKBCommit ekbCommit, CommitMetaInfo metaInfo) {
+        return convert(ekbCommit, metaInfo.getCommitter(), metaInfo.getContext(), new Date(metaInfo.getTimestamp()));
+    }
+
+    protected IndexCommit convert(EKBCommit ekbCommit, String user, String contextId, Date timestamp) {
         IndexCommit commit = new IndexCommit();
 
         commit.setCommitId(ekbCommit.getRevisionNumber());
@@ -65,10 +82,10 @@ public class CommitConverter {
         commit.setConnectorId(ekbCommit.getConnectorId());
         commit.setDomainId(ekbCommit.getDomainId());
         commit.setInstanceId(ekbCommit.getInstanceId());
-        commit.setTimestamp(new Date());
+        commit.setTimestamp(timestamp);
 
-        commit.setUser(getUser());
-        commit.setContextId(getContextId());
+        commit.setUser(user);
+        commit.setContextId(contextId);
 
         List<OpenEngSBModel> inserts = ekbCommit.getInserts();
         List<OpenEngSBModel> updates = ekbCommit.getUpdates();
@@ -0,0 +1,387 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openengsb.core.api.model.CommitMetaInfo;
+import org.openengsb.core.api.model.CommitQueryRequest;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexNotFoundException;
+import org.openengsb.core.edbi.api.IndexRebuilder;
+import org.openengsb.core.ekb.api.EKBCommit;
+import org.openengsb.core.ekb.api.EKBException;
+import org.openengsb.core.ekb.api.QueryInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Rebuilds Indexes from the commit history of the EKB. The commits of the rebuilt model classes are queried page by
+ * page, loaded and converted into IndexCommits by a pool of workers, which load up to {@link #setPrefetch(int)
+ * prefetch} commits ahead, while the IndexEngine merges the converted commits in the order of their timestamps. Once all
+ * commits of the history are merged, the commits that were made in the meantime are merged as well, before the
+ * IndexEngine replaces the indexes. Afterwards the indexes are not considered stale by the IndexQueue anymore.
+ * <p/>
+ * The IndexQueue is paused for the model classes before the last commits are merged, and resumed once the indexes are
+ * replaced, so that no commit is merged into the old tables after the rebuilt index caught up with them, or into the
+ * tables while they are replaced. The queue does not merge the commits again that are part of the rebuilt indexes.
+ */
+public class HistoryIndexRebuilder implements IndexRebuilder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HistoryIndexRebuilder.class);
+
+    private IndexEngine indexEngine;
+    private QueryInterface queryService;
+    private IndexQueue indexQueue;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int prefetch = 100;
+    private int pageSize = 1000;
+
+    public HistoryIndexRebuilder() {
+    }
+
+    public HistoryIndexRebuilder(IndexEngine indexEngine, QueryInterface queryService) {
+        this.indexEngine = indexEngine;
+        this.queryService = queryService;
+    }
+
+    @Override
+    public Index<?> rebuild(String modelClassName) throws EDBIndexException {
+        return rebuild(Collections.singletonList(modelClassName)).get(0);
+    }
+
+    @Override
+    public List<Index<?>> rebuild(List<String> modelClassNames) throws EDBIndexException {
+        LOG.info("Rebuilding indexes of {} from the commit history", modelClassNames);
+
+        List<Class<?>> modelClasses = new ArrayList<>(modelClassNames.size());
+        for (String modelClassName : modelClassNames) {
+            modelClasses.add(getModelClass(modelClassName));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+            .setNameFormat("edbi-rebuild-%d").setDaemon(true).build());
+        HistoryIterator history = null;
+        Set<String> rebuiltRevisions = null;
+        try {
+            history = new HistoryIterator(executor, modelClassNames);
+
+            List<Index<?>> indexes;
+            if (modelClasses.size() == 1) {
+                indexes = Collections.<Index<?>> singletonList(indexEngine.rebuildIndex(modelClasses.get(0), history));
+            } else {
+                indexes = indexEngine.rebuildIndexes(modelClasses, history);
+            }
+            if (indexQueue != null) {
+                for (String modelClassName : modelClassNames) {
+                    indexQueue.clearStale(modelClassName);
+                }
+            }
+            rebuiltRevisions = history.getRevisionsSincePause();
+            return indexes;
+        } finally {
+            if (history != null && history.isPaused()) {
+                for (String modelClassName : modelClassNames) {
+                    indexQueue.resume(modelClassName, rebuiltRevisions);
+                }
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads the class of the given name from the first commit of the history that contains models of this class.
+     */
+    private Class<?> getModelClass(String modelClassName) {
+        for (CommitMetaInfo info : queryCommits(Collections.singletonList(modelClassName), null, 1)) {
+            for (Class<?> modelClass : getModelClasses(loadCommit(info.getRevision()))) {
+                if (modelClassName.equals(modelClass.getCanonicalName())) {
+                    return modelClass;
+                }
+            }
+        }
+        throw new IndexNotFoundException("There are no commits of models of class " + modelClassName);
+    }
+
+    private static Set<Class<?>> getModelClasses(EKBCommit commit) {
+        Set<Class<?>> modelClasses = new HashSet<>();
+        for (List<OpenEngSBModel> models : Arrays.asList(commit.getInserts(), commit.getUpdates(),
+            commit.getDeletes())) {
+            for (OpenEngSBModel model : models) {
+                modelClasses.add(model.getClass());
+            }
+        }
+        return modelClasses;
+    }
+
+    private static boolean containsModelOf(EKBCommit commit, List<String> modelClassNames) {
+        for (Class<?> modelClass : getModelClasses(commit)) {
+            if (modelClassNames.contains(modelClass.getCanonicalName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private EKBCommit loadCommit(String revision) {
+        try {
+            return queryService.loadCommit(revision);
+        } catch (EKBException e) {
+            throw new EDBIndexException("Could not load the commit " + revision + " of the history", e);
+        }
+    }
+
+    /**
+     * Returns the meta data of at most maxResults commits of models of the given classes made at or after the given
+     * timestamp, ordered by their timestamp.
+     */
+    private List<CommitMetaInfo> queryCommits(List<String> modelClassNames, Long startTimestamp, int maxResults) {
+        CommitQueryRequest request = new CommitQueryRequest();
+        if (startTimestamp != null) {
+            request.setStartTimestamp(startTimestamp);
+        }
+        request.setModelTypes(modelClassNames);
+        request.setMaxResults(maxResults);
+
+        return queryService.queryForCommits(request);
+    }
+
+    public IndexEngine getIndexEngine() {
+        return indexEngine;
+    }
+
+    public void setIndexEngine(IndexEngine indexEngine) {
+        this.indexEngine = indexEngine;
+    }
+
+    public QueryInterface getQueryService() {
+        return queryService;
+    }
+
+    public void setQueryService(QueryInterface queryService) {
+        this.queryService = queryService;
+    }
+
+    public IndexQueue getIndexQueue() {
+        return indexQueue;
+    }
+
+    /**
+     * Sets the IndexQueue which is paused while the index of a model class is replaced, and whose stale mark of the
+     * model class is cleared once its index is rebuilt.
+     * 
+     * @param indexQueue the queue or null
+     */
+    public void setIndexQueue(IndexQueue indexQueue) {
+        this.indexQueue = indexQueue;
+    }
+
+    /**
+     * Sets the number of workers that load and convert commits in parallel.
+     * 
+     * @param threads the number of workers
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the maximum number of commits that are loaded ahead of the commit that is merged.
+     * 
+     * @param prefetch the number of commits
+     */
+    public void setPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Sets the maximum number of commits whose meta data is queried at once.
+     * 
+     * @param pageSize the number of commits
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Iterates over the converted commits of the history that contain models of the given classes. The commits are
+     * queried page by page and loaded in parallel, but returned in the order of their timestamps. Once the history is
+     * exhausted, it is queried again for commits that were made in the meantime. Once there are none, the IndexQueue
+     * is paused and the history is queried a last time, the revisions of the commits returned from then on are
+     * recorded.
+     */
+    private final class HistoryIterator extends AbstractIterator<IndexCommit> {
+        private final ExecutorService executor;
+        private final List<String> modelClassNames;
+        private final CommitConverter converter = new CommitConverter(null, null);
+
+        private final Deque<Future<IndexCommit>> loading = new ArrayDeque<>();
+        private Iterator<CommitMetaInfo> pending = Collections.emptyIterator();
+        private boolean morePages = true;
+
+        private Long lastTimestamp;
+        private final Set<String> lastRevisions = new HashSet<>();
+
+        private boolean paused;
+        private final Set<String> revisionsSincePause = new HashSet<>();
+
+        private HistoryIterator(ExecutorService executor, List<String> modelClassNames) {
+            this.executor = executor;
+            this.modelClassNames = modelClassNames;
+        }
+
+        @Override
+        protected IndexCommit computeNext() {
+            while (true) {
+                fill();
+                if (loading.isEmpty()) {
+                    if (nextPage() || pauseQueue()) {
+                        continue;
+                    }
+                    return endOfData();
+                }
+
+                IndexCommit commit = await(loading.poll());
+                if (commit != null) {
+                    if (paused) {
+                        revisionsSincePause.add(commit.getCommitId().toString());
+                    }
+                    return commit;
+                }
+            }
+        }
+
+        public boolean isPaused() {
+            return paused;
+        }
+
+        public Set<String> getRevisionsSincePause() {
+            return revisionsSincePause;
+        }
+
+        /**
+         * Pauses the IndexQueue for the model classes, unless there is none or it is paused already. Returns true if
+         * the history has to be queried once more.
+         */
+        private boolean pauseQueue() {
+            if (indexQueue == null || paused || lastTimestamp == null) {
+                return false;
+            }
+            try {
+                for (String modelClassName : modelClassNames) {
+                    indexQueue.pause(modelClassName);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EDBIndexException("Interrupted while pausing the index queue", e);
+            } finally {
+                paused = true;
+            }
+            return true;
+        }
+
+        /**
+         * Submits the pending commits for loading, querying the next page of the history once the pending commits are
+         * exhausted, as long as the previous page was full.
+         */
+        private void fill() {
+            while (loading.size() < prefetch) {
+                if (!pending.hasNext() && !(morePages && nextPage())) {
+                    return;
+                }
+                final CommitMetaInfo info = pending.next();
+
+                if (!info.getTimestamp().equals(lastTimestamp)) {
+                    lastTimestamp = info.getTimestamp();
+                    lastRevisions.clear();
+                }
+                lastRevisions.add(info.getRevision());
+
+                loading.add(executor.submit(new Callable<IndexCommit>() {
+                    @Override
+                    public IndexCommit call() throws Exception {
+                        return load(info);
+                    }
+                }));
+            }
+        }
+
+        /**
+         * Queries the next page of commits, starting at the last loaded commit. The page is enlarged by the commits
+         * already loaded at the last timestamp, which are skipped. Returns false if there are no further commits.
+         */
+        private boolean nextPage() {
+            int maxResults = pageSize + lastRevisions.size();
+            List<CommitMetaInfo> page = queryCommits(modelClassNames, lastTimestamp, maxResults);
+            morePages = page.size() >= maxResults;
+
+            List<CommitMetaInfo> commits = new ArrayList<>();
+            for (CommitMetaInfo info : page) {
+                if (!(info.getTimestamp().equals(lastTimestamp) && lastRevisions.contains(info.getRevision()))) {
+                    commits.add(info);
+                }
+            }
+            if (commits.isEmpty()) {
+                return false;
+            }
+
+            pending = commits.iterator();
+            return true;
+        }
+
+        private IndexCommit load(CommitMetaInfo info) {
+            EKBCommit commit = queryService.loadCommit(info.getRevision());
+
+            if (!containsModelOf(commit, modelClassNames)) {
+                return null;
+            }
+            return converter.convert(commit, info);
+        }
+
+        private IndexCommit await(Future<IndexCommit> future) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw new EDBIndexException("Could not load a commit of the history", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EDBIndexException("Interrupted while loading the history", e);
+            }
+        }
+    }
+}
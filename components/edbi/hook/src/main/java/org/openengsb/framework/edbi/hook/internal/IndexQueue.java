@@ -0,0 +1,986 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.api.model.CommitMetaInfo;
+import org.openengsb.core.api.model.CommitQueryRequest;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexStatus;
+import org.openengsb.core.ekb.api.EKBCommit;
+import org.openengsb.core.ekb.api.QueryInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Decouples the EKB commits from the index writes. IndexCommits are queued and merged into the IndexEngine by a single
+ * background worker in the order in which they were queued, so the committing thread does not have to wait for the
+ * index. Consecutive commits of the same model classes are merged together in one transaction. Failing commits are
+ * retried with an increasing delay before they are given up.
+ * <p/>
+ * Every queued commit is recorded in a journal directory as a file named by its commit id, which holds the meta data
+ * of the commit and is removed once the commit is indexed. Commits which are still journaled when the queue is
+ * started, e.g. after a crash, are loaded again from the EKB through the QueryInterface and indexed before any new
+ * commit. Commits that were given up remain in the journal with the suffix {@value #FAILED_SUFFIX}. The indexes of
+ * their model classes are stale from then on: the models of these classes in later commits are not merged anymore,
+ * until the index is rebuilt and {@link #clearStale(String)} is called.
+ * <p/>
+ * Commits are journaled by the post-commit hook, i.e. after they were written to the EDB. To cover commits which were
+ * written but never journaled, e.g. because the system stopped in between, the timestamp of the last journaled commit
+ * is kept in a checkpoint file next to the journal directory. When the queue is started, the commits of the EKB made
+ * since the checkpoint which are neither journaled nor recorded with the checkpoint are journaled and indexed as well.
+ * <p/>
+ * While an index is replaced by a rebuilt one, the queue is {@link #pause(String) paused} for its model class: the
+ * worker waits before it merges a commit with models of this class, and so do all commits queued after it. When the
+ * queue is {@link #resume(String, Set) resumed}, the models of this class are not merged for the commits that are
+ * already part of the rebuilt index.
+ * <p/>
+ * The queue counts the commits that are queued but not indexed yet per model class, so that it can tell whether an
+ * index is {@link #isUpToDate(String) up to date}.
+ * <p/>
+ * The queue is registered as MBean under {@value #OBJECT_NAME}, which exposes the lag and failure counters.
+ */
+public class IndexQueue implements IndexQueueMBean, IndexStatus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexQueue.class);
+
+    public static final String FAILED_SUFFIX = ".failed";
+    public static final String OBJECT_NAME = "org.openengsb.edbi:type=IndexQueue";
+
+    private static final String KEY_USER = "user";
+    private static final String KEY_CONTEXT = "context";
+    private static final String KEY_TIMESTAMP = "timestamp";
+    private static final String KEY_QUEUED_AT = "queuedAt";
+    private static final String KEY_MODEL_CLASSES = "modelClasses";
+    private static final String KEY_REVISIONS = "revisions";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private static final long POLL_TIMEOUT = 1000;
+    private static final long SHUTDOWN_TIMEOUT = 10000;
+
+    private IndexEngine indexEngine;
+    private QueryInterface queryService;
+    private File journalDirectory;
+
+    private int capacity = 10000;
+    private int batchSize = 100;
+    private int maxRetries = 5;
+    private long retryDelay = 1000;
+    private long reconcileWindow = 60000;
+
+    private BlockingQueue<PendingCommit> queue;
+    private ExecutorService executor;
+    private volatile boolean running;
+    private volatile PendingCommit current;
+    private ObjectName objectName;
+    private final AtomicInteger inProgressCount = new AtomicInteger();
+
+    private final Set<String> staleModelClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Map<String, Set<String>> rebuiltCommits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> pendingCounts = new ConcurrentHashMap<>();
+
+    private final Object pauseLock = new Object();
+    private final Map<String, Set<String>> pausedModelClasses = new HashMap<>();
+    private Set<String> indexingModelClasses = Collections.emptySet();
+
+    private final Object checkpointLock = new Object();
+    private long checkpointTimestamp;
+    private final Map<String, Long> checkpointRevisions = new HashMap<>();
+
+    private final AtomicLong indexedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    public IndexQueue() {
+    }
+
+    public IndexQueue(IndexEngine indexEngine, File journalDirectory) {
+        this.indexEngine = indexEngine;
+        this.journalDirectory = journalDirectory;
+    }
+
+    /**
+     * Starts the background worker. Commits that are still journaled as pending from a previous run are queued before
+     * any new commit, the model classes of commits journaled as failed are marked as stale.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (journalDirectory == null) {
+            journalDirectory = new File(System.getProperty("karaf.data"), "edbi/queue");
+        }
+        if (!journalDirectory.isDirectory() && !journalDirectory.mkdirs()) {
+            LOG.warn("Unable to create the index queue journal directory {}", journalDirectory);
+        }
+        List<PendingCommit> replayed = readJournal();
+        replayed.addAll(reconcile());
+
+        queue = new LinkedBlockingQueue<>(Math.max(capacity, replayed.size()));
+        for (PendingCommit pending : replayed) {
+            countPending(pending, 1);
+        }
+        queue.addAll(replayed);
+        executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("edbi-index-queue-%d").setDaemon(true).build());
+        running = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        });
+        registerMBean();
+        LOG.info("Started index queue with journal {}, replaying {} pending commits", journalDirectory,
+            replayed.size());
+    }
+
+    /**
+     * Stops the background worker once the queued commits are indexed, but waits at most {@value #SHUTDOWN_TIMEOUT}
+     * ms. Commits which are still queued remain journaled and are replayed on the next start.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        unregisterMBean();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            LOG.warn("Index queue stopped with {} commits which are replayed on the next start", queue.size());
+        }
+        queue.clear();
+        pendingCounts.clear();
+    }
+
+    /**
+     * Queues the given commit for indexing. Blocks if the queue is full until the worker caught up.
+     *
+     * @param commit the commit to index
+     * @throws IllegalStateException if the queue is not started
+     */
+    public void enqueue(IndexCommit commit) {
+        if (!running) {
+            throw new IllegalStateException("The index queue is not started");
+        }
+        PendingCommit pending = new PendingCommit(commit);
+        countPending(pending, 1);
+        journal(pending);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            staleModelClasses.addAll(pending.getModelClassNames());
+            markAsFailed(pending);
+            throw new IllegalStateException("Interrupted while queueing commit " + pending.getId(), e);
+        }
+    }
+
+    /**
+     * Returns false while there are commits with models of the given class which are queued or currently indexed, if
+     * the index of the class is stale, or if the queue is not started.
+     */
+    @Override
+    public boolean isUpToDate(String modelClassName) {
+        if (!running || staleModelClasses.contains(modelClassName)) {
+            return false;
+        }
+        AtomicInteger count = pendingCounts.get(modelClassName);
+        return count == null || count.get() == 0;
+    }
+
+    @Override
+    public int getPendingCount() {
+        int count = queue == null ? 0 : queue.size();
+        return count + inProgressCount.get();
+    }
+
+    @Override
+    public long getLag() {
+        PendingCommit oldest = current;
+        if (oldest == null && queue != null) {
+            oldest = queue.peek();
+        }
+        return oldest == null ? 0 : System.currentTimeMillis() - oldest.getQueuedAt();
+    }
+
+    @Override
+    public long getIndexedCount() {
+        return indexedCount.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    @Override
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    @Override
+    public List<String> getFailedCommits() {
+        List<String> result = new ArrayList<>();
+        for (File file : listJournal(true)) {
+            String name = file.getName();
+            result.add(name.substring(0, name.length() - FAILED_SUFFIX.length()));
+        }
+        return result;
+    }
+
+    @Override
+    public Set<String> getStaleModelClasses() {
+        return new TreeSet<>(staleModelClasses);
+    }
+
+    /**
+     * Returns true if the index of the given model class is stale, since a commit with models of this class was given
+     * up.
+     */
+    public boolean isStale(String modelClassName) {
+        return staleModelClasses.contains(modelClassName);
+    }
+
+    /**
+     * Marks the index of the given model class as up to date again, e.g. after it has been rebuilt. The model class is
+     * removed from the commits journaled as failed, commits without any other stale model class are removed from the
+     * journal.
+     *
+     * @param modelClassName the canonical name of the model class
+     */
+    public void clearStale(String modelClassName) {
+        if (!staleModelClasses.remove(modelClassName)) {
+            return;
+        }
+        for (File file : listJournal(true)) {
+            Properties properties = readJournalFile(file);
+            Set<String> modelClasses = getModelClassNames(properties);
+            if (!modelClasses.remove(modelClassName)) {
+                continue;
+            }
+            if (modelClasses.isEmpty()) {
+                deleteJournalFile(file);
+            } else {
+                properties.setProperty(KEY_MODEL_CLASSES, StringUtils.join(modelClasses, ','));
+                writeJournalFile(file, properties);
+            }
+        }
+        LOG.info("Index of {} is not stale anymore", modelClassName);
+    }
+
+    /**
+     * Keeps the worker from merging commits with models of the given class until {@link #resume(String, Set)} is
+     * called. Blocks until a commit with models of this class that is currently merged is done.
+     *
+     * @param modelClassName the canonical name of the model class
+     * @throws InterruptedException if interrupted while waiting for the worker
+     */
+    public void pause(String modelClassName) throws InterruptedException {
+        synchronized (pauseLock) {
+            pausedModelClasses.put(modelClassName, null);
+            while (indexingModelClasses.contains(modelClassName)) {
+                pauseLock.wait();
+            }
+            pausedModelClasses.put(modelClassName, getJournaledRevisions(modelClassName));
+        }
+        LOG.info("Paused indexing the models of {}", modelClassName);
+    }
+
+    /**
+     * Lets the worker merge commits with models of the given class again. If the index of the class was rebuilt in the
+     * meantime, it contains every commit that was queued before the queue was paused, so the models of this class are
+     * not merged for these commits, nor for the given revisions that were merged into the rebuilt index after the queue
+     * was paused.
+     *
+     * @param modelClassName the canonical name of the model class
+     * @param rebuiltRevisions the revisions merged into the rebuilt index after pausing, or null if it was not rebuilt
+     */
+    public void resume(String modelClassName, Set<String> rebuiltRevisions) {
+        synchronized (pauseLock) {
+            Set<String> journaled = pausedModelClasses.remove(modelClassName);
+            if (rebuiltRevisions != null) {
+                Set<String> revisions = new HashSet<>(rebuiltRevisions);
+                if (journaled != null) {
+                    revisions.addAll(journaled);
+                }
+                rebuiltCommits.put(modelClassName, revisions);
+            }
+            pauseLock.notifyAll();
+        }
+        LOG.info("Resumed indexing the models of {}", modelClassName);
+    }
+
+    protected void work() {
+        List<PendingCommit> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCommit first = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                inProgressCount.set(batch.size());
+                current = first;
+                LOG.debug("Indexing {} queued commits, lag {} ms", batch.size(), getLag());
+                for (List<PendingCommit> group : coalesce(batch)) {
+                    current = group.get(0);
+                    if (!beginIndexing(group)) {
+                        LOG.info("Index queue stopped while paused, the remaining commits are replayed on the next "
+                                + "start");
+                        return;
+                    }
+                    try {
+                        index(group);
+                    } finally {
+                        endIndexing();
+                    }
+                }
+            } catch (InterruptedException e) {
+                LOG.warn("Index queue worker interrupted, the remaining commits are replayed on the next start");
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+                inProgressCount.set(0);
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Waits until none of the model classes of the given group is paused anymore and marks them as being indexed.
+     * Returns false if the queue was stopped in the meantime.
+     */
+    private boolean beginIndexing(List<PendingCommit> group) throws InterruptedException {
+        Set<String> modelClasses = group.get(0).getModelClassNames();
+        synchronized (pauseLock) {
+            while (!Collections.disjoint(pausedModelClasses.keySet(), modelClasses)) {
+                if (!running) {
+                    return false;
+                }
+                pauseLock.wait(POLL_TIMEOUT);
+            }
+            indexingModelClasses = modelClasses;
+        }
+        return true;
+    }
+
+    private void endIndexing() {
+        synchronized (pauseLock) {
+            indexingModelClasses = Collections.emptySet();
+            pauseLock.notifyAll();
+        }
+    }
+
+    /**
+     * Splits the given batch into groups of consecutive commits with the same model classes.
+     */
+    private static List<List<PendingCommit>> coalesce(List<PendingCommit> batch) {
+        List<List<PendingCommit>> groups = new ArrayList<>();
+        List<PendingCommit> group = null;
+        for (PendingCommit pending : batch) {
+            if (group == null || !group.get(0).getModelClassNames().equals(pending.getModelClassNames())) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(pending);
+        }
+        return groups;
+    }
+
+    /**
+     * Merges a group of commits in one transaction. If this fails, the commits are merged one by one with retries,
+     * so that only the failing commit is given up.
+     */
+    private void index(List<PendingCommit> group) throws InterruptedException {
+        if (group.size() > 1) {
+            try {
+                List<IndexCommit> commits = new ArrayList<>(group.size());
+                List<PendingCommit> merged = new ArrayList<>(group.size());
+                for (PendingCommit pending : group) {
+                    IndexCommit commit = prepare(pending);
+                    if (commit != null) {
+                        commits.add(commit);
+                        merged.add(pending);
+                    }
+                }
+                if (!commits.isEmpty()) {
+                    indexEngine.commit(commits);
+                }
+                for (PendingCommit pending : group) {
+                    if (merged.contains(pending)) {
+                        indexed(pending);
+                    } else {
+                        skipped(pending);
+                    }
+                }
+                return;
+            } catch (RuntimeException e) {
+                LOG.warn("Indexing {} coalesced commits failed, indexing them one by one: {}", group.size(),
+                    e.getMessage());
+            }
+        }
+        for (PendingCommit pending : group) {
+            index(pending);
+        }
+    }
+
+    private void index(PendingCommit pending) throws InterruptedException {
+        for (int attempt = 0;; attempt++) {
+            try {
+                IndexCommit commit = prepare(pending);
+                if (commit == null) {
+                    skipped(pending);
+                } else {
+                    indexEngine.commit(Collections.singletonList(commit));
+                    indexed(pending);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    LOG.error("Giving up indexing commit " + pending.getId() + " after " + attempt
+                            + " retries, the indexes of " + pending.getModelClassNames() + " need to be rebuilt", e);
+                    staleModelClasses.addAll(pending.getModelClassNames());
+                    inProgressCount.decrementAndGet();
+                    markAsFailed(pending);
+                    return;
+                }
+                LOG.warn("Indexing commit {} failed, retrying: {}", pending.getId(), e.getMessage());
+                Thread.sleep(retryDelay * (attempt + 1));
+            }
+        }
+    }
+
+    /**
+     * Returns the commit to merge for the given pending commit, which is loaded from the EKB if it is replayed from
+     * the journal. The models of stale model classes, and of model classes whose rebuilt index already contains the
+     * commit, are removed, null is returned if none are left.
+     */
+    private IndexCommit prepare(PendingCommit pending) {
+        if (pending.getCommit() == null) {
+            pending.setCommit(load(pending));
+        }
+        IndexCommit commit = pending.getCommit();
+        Set<Class<?>> stale = new LinkedHashSet<>();
+        Set<Class<?>> rebuilt = new LinkedHashSet<>();
+        if (commit.getModelClasses() != null) {
+            for (Class<?> modelClass : commit.getModelClasses()) {
+                String modelClassName = modelClass.getCanonicalName();
+                if (staleModelClasses.contains(modelClassName)) {
+                    stale.add(modelClass);
+                } else if (isRebuiltWith(modelClassName, pending)) {
+                    rebuilt.add(modelClass);
+                }
+            }
+        }
+        if (stale.isEmpty() && rebuilt.isEmpty()) {
+            return commit;
+        }
+        if (!stale.isEmpty()) {
+            LOG.warn("Not indexing the models of {} of commit {}, since their indexes are stale", stale,
+                pending.getId());
+        }
+        if (!rebuilt.isEmpty()) {
+            LOG.info("Not indexing the models of {} of commit {}, since their rebuilt indexes contain it", rebuilt,
+                pending.getId());
+        }
+        Set<Class<?>> removed = new LinkedHashSet<>(stale);
+        removed.addAll(rebuilt);
+        if (removed.size() == commit.getModelClasses().size()) {
+            return null;
+        }
+        return withoutModelClasses(commit, removed);
+    }
+
+    private boolean isRebuiltWith(String modelClassName, PendingCommit pending) {
+        Set<String> revisions = rebuiltCommits.get(modelClassName);
+        return revisions != null && revisions.contains(pending.getId());
+    }
+
+    private IndexCommit load(PendingCommit pending) {
+        if (queryService == null) {
+            throw new IllegalStateException("No QueryInterface to load journaled commit " + pending.getId());
+        }
+        EKBCommit ekbCommit = queryService.loadCommit(pending.getId());
+        return new CommitConverter(null, null).convert(ekbCommit, pending.getMetaInfo());
+    }
+
+    private static IndexCommit withoutModelClasses(IndexCommit commit, Set<Class<?>> removed) {
+        IndexCommit result = new IndexCommit();
+        result.setCommitId(commit.getCommitId());
+        result.setParentCommitId(commit.getParentCommitId());
+        result.setTimestamp(commit.getTimestamp());
+        result.setUser(commit.getUser());
+        result.setContextId(commit.getContextId());
+        result.setConnectorId(commit.getConnectorId());
+        result.setDomainId(commit.getDomainId());
+        result.setInstanceId(commit.getInstanceId());
+
+        Set<Class<?>> modelClasses = new LinkedHashSet<>(commit.getModelClasses());
+        modelClasses.removeAll(removed);
+        result.setModelClasses(modelClasses);
+        result.setInserts(withoutKeys(commit.getInserts(), removed));
+        result.setUpdates(withoutKeys(commit.getUpdates(), removed));
+        result.setDeletes(withoutKeys(commit.getDeletes(), removed));
+        return result;
+    }
+
+    private static Map<Class<?>, List<OpenEngSBModel>> withoutKeys(Map<Class<?>, List<OpenEngSBModel>> models,
+            Set<Class<?>> removed) {
+        if (models == null) {
+            return null;
+        }
+        Map<Class<?>, List<OpenEngSBModel>> result = new HashMap<>(models);
+        result.keySet().removeAll(removed);
+        return result;
+    }
+
+    private void indexed(PendingCommit pending) {
+        indexedCount.incrementAndGet();
+        countPending(pending, -1);
+        inProgressCount.decrementAndGet();
+        unjournal(pending);
+    }
+
+    private void skipped(PendingCommit pending) {
+        skippedCount.incrementAndGet();
+        countPending(pending, -1);
+        inProgressCount.decrementAndGet();
+        unjournal(pending);
+    }
+
+    private void countPending(PendingCommit pending, int delta) {
+        for (String modelClassName : pending.getModelClassNames()) {
+            AtomicInteger count = pendingCounts.get(modelClassName);
+            if (count == null) {
+                AtomicInteger created = new AtomicInteger();
+                count = pendingCounts.putIfAbsent(modelClassName, created);
+                if (count == null) {
+                    count = created;
+                }
+            }
+            count.addAndGet(delta);
+        }
+    }
+
+    private void journal(PendingCommit pending) {
+        File file = getJournalFile(pending);
+        if (file.exists()) {
+            LOG.warn("Commit {} is already journaled", pending.getId());
+        }
+        Properties properties = new Properties();
+        IndexCommit commit = pending.getCommit();
+        if (commit.getUser() != null) {
+            properties.setProperty(KEY_USER, commit.getUser());
+        }
+        if (commit.getContextId() != null) {
+            properties.setProperty(KEY_CONTEXT, commit.getContextId());
+        }
+        if (commit.getTimestamp() != null) {
+            properties.setProperty(KEY_TIMESTAMP, String.valueOf(commit.getTimestamp().getTime()));
+        }
+        properties.setProperty(KEY_QUEUED_AT, String.valueOf(pending.getQueuedAt()));
+        properties.setProperty(KEY_MODEL_CLASSES, StringUtils.join(pending.getModelClassNames(), ','));
+        writeJournalFile(file, properties);
+        checkpoint(pending);
+    }
+
+    /**
+     * Records the given commit with the checkpoint. The checkpoint holds the timestamp of the latest journaled commit,
+     * and the revisions of the commits journaled within the {@link #setReconcileWindow(long) reconcile window} before
+     * it, since the post-commit hooks of concurrent commits may journal them in a different order than they were made.
+     */
+    private void checkpoint(PendingCommit pending) {
+        IndexCommit commit = pending.getCommit();
+        if (commit == null || commit.getTimestamp() == null) {
+            return;
+        }
+        synchronized (checkpointLock) {
+            long timestamp = commit.getTimestamp().getTime();
+            checkpointTimestamp = Math.max(checkpointTimestamp, timestamp);
+            checkpointRevisions.put(pending.getId(), timestamp);
+            Iterator<Long> timestamps = checkpointRevisions.values().iterator();
+            while (timestamps.hasNext()) {
+                if (timestamps.next() < checkpointTimestamp - reconcileWindow) {
+                    timestamps.remove();
+                }
+            }
+            writeCheckpoint();
+        }
+    }
+
+    private void writeCheckpoint() {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_TIMESTAMP, String.valueOf(checkpointTimestamp));
+        properties.setProperty(KEY_REVISIONS, StringUtils.join(checkpointRevisions.keySet(), ','));
+        writeJournalFile(getCheckpointFile(), properties);
+    }
+
+    /**
+     * Journals the commits of the EKB which were made since the checkpoint of the previous run, but are neither
+     * journaled nor recorded with the checkpoint, and returns them ordered by their timestamps. If there is no
+     * checkpoint yet, it is created with the current time, so that only commits made from now on are reconciled.
+     */
+    private List<PendingCommit> reconcile() {
+        List<PendingCommit> result = new ArrayList<>();
+        File file = getCheckpointFile();
+        synchronized (checkpointLock) {
+            if (!file.isFile()) {
+                checkpointTimestamp = System.currentTimeMillis();
+                writeCheckpoint();
+                return result;
+            }
+            Properties properties = readJournalFile(file);
+            checkpointTimestamp = Long.parseLong(properties.getProperty(KEY_TIMESTAMP, "0"));
+            for (String revision : StringUtils.split(properties.getProperty(KEY_REVISIONS, ""), ',')) {
+                checkpointRevisions.put(revision, checkpointTimestamp);
+            }
+        }
+        if (queryService == null) {
+            LOG.warn("No QueryInterface to reconcile the commits made since the last checkpoint");
+            return result;
+        }
+
+        Set<String> known = new HashSet<>(checkpointRevisions.keySet());
+        for (File journaled : listJournal(false)) {
+            known.add(journaled.getName());
+        }
+        known.addAll(getFailedCommits());
+
+        CommitQueryRequest request = new CommitQueryRequest();
+        request.setStartTimestamp(Math.max(0, checkpointTimestamp - reconcileWindow));
+        for (CommitMetaInfo info : queryService.queryForCommits(request)) {
+            if (known.contains(info.getRevision())) {
+                continue;
+            }
+            try {
+                EKBCommit ekbCommit = queryService.loadCommit(info.getRevision());
+                PendingCommit pending = new PendingCommit(new CommitConverter(null, null).convert(ekbCommit, info));
+                journal(pending);
+                result.add(pending);
+            } catch (RuntimeException e) {
+                LOG.error("Unable to reconcile commit " + info.getRevision() + " which was not journaled, the "
+                        + "indexes of its models need to be rebuilt", e);
+            }
+        }
+        if (!result.isEmpty()) {
+            LOG.warn("Reconciled {} commits which were not journaled before the last shutdown", result.size());
+        }
+        return result;
+    }
+
+    private File getCheckpointFile() {
+        return new File(journalDirectory.getParentFile(), journalDirectory.getName() + CHECKPOINT_SUFFIX);
+    }
+
+    private void unjournal(PendingCommit pending) {
+        deleteJournalFile(getJournalFile(pending));
+    }
+
+    private void markAsFailed(PendingCommit pending) {
+        failedCount.incrementAndGet();
+        countPending(pending, -1);
+        File file = getJournalFile(pending);
+        File failed = new File(journalDirectory, file.getName() + FAILED_SUFFIX);
+        if (!file.renameTo(failed)) {
+            LOG.warn("Unable to journal commit {} as failed", pending.getId());
+        }
+    }
+
+    /**
+     * Reads the journal of a previous run. Returns the pending commits ordered by the time they were queued and marks
+     * the model classes of failed commits as stale. Pending commits which were journaled without their meta data can
+     * not be replayed and are marked as failed.
+     */
+    private List<PendingCommit> readJournal() {
+        for (File file : listJournal(true)) {
+            staleModelClasses.addAll(getModelClassNames(readJournalFile(file)));
+        }
+        if (!staleModelClasses.isEmpty()) {
+            LOG.error("The indexes of {} are stale and need to be rebuilt", staleModelClasses);
+        }
+
+        List<PendingCommit> pending = new ArrayList<>();
+        for (File file : listJournal(false)) {
+            Properties properties = readJournalFile(file);
+            if (properties.getProperty(KEY_QUEUED_AT) == null) {
+                LOG.error("Commit {} was not indexed before the last shutdown and can not be replayed, the index "
+                        + "needs to be rebuilt", file.getName());
+                if (!file.renameTo(new File(journalDirectory, file.getName() + FAILED_SUFFIX))) {
+                    LOG.warn("Unable to journal commit {} as failed", file.getName());
+                }
+                continue;
+            }
+            pending.add(new PendingCommit(file.getName(), properties));
+        }
+        Collections.sort(pending, new Comparator<PendingCommit>() {
+            @Override
+            public int compare(PendingCommit o1, PendingCommit o2) {
+                return Long.compare(o1.getQueuedAt(), o2.getQueuedAt());
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Returns the ids of the pending commits in the journal which contain models of the given class.
+     */
+    private Set<String> getJournaledRevisions(String modelClassName) {
+        Set<String> result = new HashSet<>();
+        for (File file : listJournal(false)) {
+            if (getModelClassNames(readJournalFile(file)).contains(modelClassName)) {
+                result.add(file.getName());
+            }
+        }
+        return result;
+    }
+
+    private List<File> listJournal(boolean failed) {
+        List<File> result = new ArrayList<>();
+        File[] files = journalDirectory == null ? null : journalDirectory.listFiles();
+        if (files == null) {
+            return result;
+        }
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(FAILED_SUFFIX) == failed) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    private static Properties readJournalFile(File file) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            LOG.warn("Unable to read journal file " + file, e);
+        }
+        return properties;
+    }
+
+    private static void writeJournalFile(File file, Properties properties) {
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, null);
+        } catch (IOException e) {
+            LOG.warn("Unable to write journal file " + file, e);
+        }
+    }
+
+    private static void deleteJournalFile(File file) {
+        if (file.exists() && !file.delete()) {
+            LOG.warn("Unable to remove {} from the journal", file.getName());
+        }
+    }
+
+    private static Set<String> getModelClassNames(Properties properties) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String name : StringUtils.split(properties.getProperty(KEY_MODEL_CLASSES, ""), ',')) {
+            result.add(name);
+        }
+        return result;
+    }
+
+    private File getJournalFile(PendingCommit pending) {
+        return new File(journalDirectory, pending.getId());
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                objectName = name;
+            }
+        } catch (JMException e) {
+            LOG.warn("Unable to register the index queue MBean", e);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOG.warn("Unable to unregister the index queue MBean", e);
+        }
+        objectName = null;
+    }
+
+    public IndexEngine getIndexEngine() {
+        return indexEngine;
+    }
+
+    public void setIndexEngine(IndexEngine indexEngine) {
+        this.indexEngine = indexEngine;
+    }
+
+    public QueryInterface getQueryService() {
+        return queryService;
+    }
+
+    /**
+     * Sets the QueryInterface through which commits that are replayed from the journal are loaded.
+     */
+    public void setQueryService(QueryInterface queryService) {
+        this.queryService = queryService;
+    }
+
+    public File getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public void setJournalDirectory(File journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Sets the time in milliseconds before the checkpoint from which the commits of the EKB are reconciled on start.
+     * It has to cover the time by which the post-commit hooks of concurrent commits may be delayed.
+     */
+    public void setReconcileWindow(long reconcileWindow) {
+        this.reconcileWindow = reconcileWindow;
+    }
+
+    /**
+     * A queued IndexCommit. Commits which are replayed from the journal are loaded when they are indexed.
+     */
+    private static final class PendingCommit {
+        private final String id;
+        private final long queuedAt;
+        private final Set<String> modelClassNames;
+        private final CommitMetaInfo metaInfo;
+        private IndexCommit commit;
+
+        private PendingCommit(IndexCommit commit) {
+            this.commit = commit;
+            UUID commitId = commit.getCommitId();
+            this.id = commitId != null ? commitId.toString() : UUID.randomUUID().toString();
+            this.queuedAt = System.currentTimeMillis();
+            this.modelClassNames = new TreeSet<>();
+            if (commit.getModelClasses() != null) {
+                for (Class<?> modelClass : commit.getModelClasses()) {
+                    modelClassNames.add(modelClass.getCanonicalName());
+                }
+            }
+            this.metaInfo = null;
+        }
+
+        private PendingCommit(String id, Properties properties) {
+            this.id = id;
+            this.queuedAt = Long.parseLong(properties.getProperty(KEY_QUEUED_AT));
+            this.modelClassNames = new TreeSet<>(getModelClassNames(properties));
+            this.metaInfo = new CommitMetaInfo();
+            metaInfo.setRevision(id);
+            metaInfo.setCommitter(properties.getProperty(KEY_USER));
+            metaInfo.setContext(properties.getProperty(KEY_CONTEXT));
+            String timestamp = properties.getProperty(KEY_TIMESTAMP);
+            metaInfo.setTimestamp(timestamp != null ? Long.valueOf(timestamp) : queuedAt);
+        }
+
+        public IndexCommit getCommit() {
+            return commit;
+        }
+
+        public void setCommit(IndexCommit commit) {
+            this.commit = commit;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getQueuedAt() {
+            return queuedAt;
+        }
+
+        public Set<String> getModelClassNames() {
+            return modelClassNames;
+        }
+
+        public CommitMetaInfo getMetaInfo() {
+            return metaInfo;
+        }
+    }
+}
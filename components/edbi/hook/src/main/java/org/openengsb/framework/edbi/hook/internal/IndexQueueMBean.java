@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Management interface of the IndexQueue, which exposes how far the EDB index lags behind the EKB commits and which
+ * indexes diverged from the EKB.
+ */
+public interface IndexQueueMBean {
+
+    /**
+     * Returns the number of commits which are queued or currently indexed.
+     */
+    int getPendingCount();
+
+    /**
+     * Returns the time in milliseconds since the oldest commit which is not indexed yet has been queued, or 0 if the
+     * index is up to date.
+     */
+    long getLag();
+
+    /**
+     * Returns the number of commits which have been indexed since the queue was started.
+     */
+    long getIndexedCount();
+
+    /**
+     * Returns the number of commits which have been given up since the queue was started.
+     */
+    long getFailedCount();
+
+    /**
+     * Returns the number of commits which have not been indexed since all their model classes are stale.
+     */
+    long getSkippedCount();
+
+    /**
+     * Returns the ids of all journaled commits which could not be indexed.
+     */
+    List<String> getFailedCommits();
+
+    /**
+     * Returns the names of the model classes whose indexes are stale and need to be rebuilt.
+     */
+    Set<String> getStaleModelClasses();
+}
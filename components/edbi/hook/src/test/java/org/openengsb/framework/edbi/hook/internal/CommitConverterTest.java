@@ -33,7 +33,6 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.model.OpenEngSBModel;
-import org.openengsb.core.api.model.OpenEngSBModelEntry;
 import org.openengsb.core.api.security.AuthenticationContext;
 import org.openengsb.core.edbi.api.IndexCommit;
 import org.openengsb.core.ekb.api.EKBCommit;
@@ -135,67 +134,4 @@ public class CommitConverterTest {
     private static class TestModelB extends OpenEngSBModelStub {
 
     }
-
-    private abstract static class OpenEngSBModelStub implements OpenEngSBModel {
-
-        @Override
-        public List<OpenEngSBModelEntry> toOpenEngSBModelValues() {
-            return null;
-        }
-
-        @Override
-        public List<OpenEngSBModelEntry> toOpenEngSBModelEntries() {
-            return null;
-        }
-
-        @Override
-        public Object retrieveInternalModelId() {
-            return null;
-        }
-
-        @Override
-        public String retrieveInternalModelIdName() {
-            return null;
-        }
-
-        @Override
-        public Long retrieveInternalModelTimestamp() {
-            return null;
-        }
-
-        @Override
-        public Integer retrieveInternalModelVersion() {
-            return null;
-        }
-
-        @Override
-        public void addOpenEngSBModelEntry(OpenEngSBModelEntry entry) {
-
-        }
-
-        @Override
-        public void removeOpenEngSBModelEntry(String key) {
-
-        }
-
-        @Override
-        public List<OpenEngSBModelEntry> getOpenEngSBModelTail() {
-            return null;
-        }
-
-        @Override
-        public void setOpenEngSBModelTail(List<OpenEngSBModelEntry> entries) {
-
-        }
-
-        @Override
-        public String retrieveModelName() {
-            return null;
-        }
-
-        @Override
-        public String retrieveModelVersion() {
-            return null;
-        }
-    }
 }
@@ -0,0 +1,319 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openengsb.core.api.model.CommitMetaInfo;
+import org.openengsb.core.api.model.CommitQueryRequest;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexNotFoundException;
+import org.openengsb.core.ekb.api.EKBCommit;
+import org.openengsb.core.ekb.api.EKBException;
+import org.openengsb.core.ekb.api.QueryInterface;
+
+public class HistoryIndexRebuilderTest {
+
+    private IndexEngine indexEngine;
+    private QueryInterface queryService;
+    private HistoryIndexRebuilder rebuilder;
+
+    private List<CommitMetaInfo> history;
+    private Map<String, EKBCommit> commitsByRevision;
+    private List<IndexCommit> merged;
+    private Runnable onMerge;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        indexEngine = mock(IndexEngine.class);
+        queryService = mock(QueryInterface.class);
+
+        history = new ArrayList<>();
+        commitsByRevision = new HashMap<>();
+        merged = new ArrayList<>();
+
+        Answer<List<CommitMetaInfo>> queryHistory = new Answer<List<CommitMetaInfo>>() {
+            @Override
+            public List<CommitMetaInfo> answer(InvocationOnMock invocation) throws Throwable {
+                CommitQueryRequest request = (CommitQueryRequest) invocation.getArguments()[0];
+                List<CommitMetaInfo> result = new ArrayList<>();
+                for (CommitMetaInfo info : history) {
+                    if (info.getTimestamp() >= request.getStartTimestamp()
+                            && containsModelOf(commitsByRevision.get(info.getRevision()), request.getModelTypes())) {
+                        result.add(info);
+                    }
+                }
+                Collections.sort(result, new Comparator<CommitMetaInfo>() {
+                    @Override
+                    public int compare(CommitMetaInfo o1, CommitMetaInfo o2) {
+                        return o1.getTimestamp().compareTo(o2.getTimestamp());
+                    }
+                });
+                if (request.getMaxResults() != null && result.size() > request.getMaxResults()) {
+                    return new ArrayList<>(result.subList(0, request.getMaxResults()));
+                }
+                return result;
+            }
+        };
+        when(queryService.queryForCommits(any(CommitQueryRequest.class))).thenAnswer(queryHistory);
+
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Iterator<IndexCommit> commits = (Iterator<IndexCommit>) invocation.getArguments()[1];
+                while (commits.hasNext()) {
+                    merged.add(commits.next());
+                    if (onMerge != null) {
+                        onMerge.run();
+                        onMerge = null;
+                    }
+                }
+                return null;
+            }
+        }).when(indexEngine).rebuildIndex(any(Class.class), any(Iterator.class));
+
+        rebuilder = new HistoryIndexRebuilder(indexEngine, queryService);
+        rebuilder.setThreads(2);
+        rebuilder.setPrefetch(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebuild_mergesCommitsOfModelInOrderOfTimestamps() throws Exception {
+        EKBCommit update = commit(3L).addUpdate(new TestModelA());
+        EKBCommit insert = commit(1L).addInsert(new TestModelA());
+        commit(2L).addInsert(new TestModelB());
+
+        rebuilder.rebuild(TestModelA.class.getCanonicalName());
+
+        verify(indexEngine).rebuildIndex(eq(TestModelA.class), any(Iterator.class));
+        assertEquals(2, merged.size());
+        assertEquals(insert.getRevisionNumber(), merged.get(0).getCommitId());
+        assertEquals(update.getRevisionNumber(), merged.get(1).getCommitId());
+        assertEquals(1L, merged.get(0).getTimestamp().getTime());
+        assertEquals("testUser", merged.get(0).getUser());
+        assertEquals("testContext", merged.get(0).getContextId());
+    }
+
+    @Test
+    public void rebuild_mergesCommitsMadeDuringRebuild() throws Exception {
+        final EKBCommit first = commit(1L).addInsert(new TestModelA());
+        final List<EKBCommit> later = new ArrayList<>();
+        onMerge = new Runnable() {
+            @Override
+            public void run() {
+                later.add(commit(1L).addUpdate(new TestModelA()));
+                later.add(commit(2L).addDelete(new TestModelA()));
+            }
+        };
+
+        rebuilder.rebuild(TestModelA.class.getCanonicalName());
+
+        assertEquals(3, merged.size());
+        assertEquals(first.getRevisionNumber(), merged.get(0).getCommitId());
+        assertEquals(later.get(0).getRevisionNumber(), merged.get(1).getCommitId());
+        assertEquals(later.get(1).getRevisionNumber(), merged.get(2).getCommitId());
+    }
+
+    @Test(expected = IndexNotFoundException.class)
+    public void rebuild_withoutCommitsOfModel_throwsException() throws Exception {
+        commit(1L).addInsert(new TestModelB());
+
+        rebuilder.rebuild(TestModelA.class.getCanonicalName());
+    }
+
+    @Test(expected = EDBIndexException.class)
+    public void rebuild_withFailingCommitLoad_throwsException() throws Exception {
+        commit(1L).addInsert(new TestModelA());
+        when(queryService.loadCommit(anyString())).thenThrow(new EKBException("test"));
+
+        rebuilder.rebuild(TestModelA.class.getCanonicalName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebuild_pausesIndexQueueUntilIndexIsReplaced() throws Exception {
+        final String modelClassName = TestModelA.class.getCanonicalName();
+        IndexQueue indexQueue = mock(IndexQueue.class);
+        rebuilder.setIndexQueue(indexQueue);
+        commit(1L).addInsert(new TestModelA());
+        final List<EKBCommit> duringPause = new ArrayList<>();
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                duringPause.add(commit(2L).addUpdate(new TestModelA()));
+                return null;
+            }
+        }).when(indexQueue).pause(modelClassName);
+
+        rebuilder.rebuild(modelClassName);
+
+        assertEquals(2, merged.size());
+        assertEquals(duringPause.get(0).getRevisionNumber(), merged.get(1).getCommitId());
+        ArgumentCaptor<Set> revisions = ArgumentCaptor.forClass(Set.class);
+        InOrder inOrder = inOrder(indexQueue, indexEngine);
+        inOrder.verify(indexQueue).pause(modelClassName);
+        inOrder.verify(indexEngine).rebuildIndex(eq(TestModelA.class), any(Iterator.class));
+        inOrder.verify(indexQueue).clearStale(modelClassName);
+        inOrder.verify(indexQueue).resume(eq(modelClassName), revisions.capture());
+        assertEquals(1, revisions.getValue().size());
+        assertTrue(revisions.getValue().contains(duringPause.get(0).getRevisionNumber().toString()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebuild_withFailingReplace_resumesIndexQueueWithoutRevisions() throws Exception {
+        String modelClassName = TestModelA.class.getCanonicalName();
+        IndexQueue indexQueue = mock(IndexQueue.class);
+        rebuilder.setIndexQueue(indexQueue);
+        commit(1L).addInsert(new TestModelA());
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Iterator<IndexCommit> commits = (Iterator<IndexCommit>) invocation.getArguments()[1];
+                while (commits.hasNext()) {
+                    commits.next();
+                }
+                throw new EDBIndexException("test");
+            }
+        }).when(indexEngine).rebuildIndex(any(Class.class), any(Iterator.class));
+
+        try {
+            rebuilder.rebuild(modelClassName);
+            fail("Expected an EDBIndexException");
+        } catch (EDBIndexException e) {
+            // expected
+        }
+
+        verify(indexQueue).pause(modelClassName);
+        verify(indexQueue).resume(eq(modelClassName), (Set<String>) isNull());
+    }
+
+    @Test
+    public void rebuild_queriesOnlyCommitsOfModelPageByPage() throws Exception {
+        rebuilder.setPageSize(2);
+        List<EKBCommit> expected = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            expected.add(commit(i).addInsert(new TestModelA()));
+            commit(i * 10).addInsert(new TestModelB());
+        }
+
+        rebuilder.rebuild(TestModelA.class.getCanonicalName());
+
+        assertEquals(5, merged.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected.get(i).getRevisionNumber(), merged.get(i).getCommitId());
+        }
+        verify(queryService, never()).loadCommit(history.get(3).getRevision());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebuild_withSeveralModels_rebuildsThemInOnePass() throws Exception {
+        commit(1L).addInsert(new TestModelA());
+        commit(2L).addInsert(new TestModelB());
+        final List<Integer> passes = new ArrayList<>();
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                passes.add(1);
+                Iterator<IndexCommit> commits = (Iterator<IndexCommit>) invocation.getArguments()[1];
+                while (commits.hasNext()) {
+                    merged.add(commits.next());
+                }
+                return new ArrayList<Index<?>>();
+            }
+        }).when(indexEngine).rebuildIndexes(any(List.class), any(Iterator.class));
+
+        rebuilder.rebuild(Arrays.asList(TestModelA.class.getCanonicalName(), TestModelB.class.getCanonicalName()));
+
+        verify(indexEngine).rebuildIndexes(eq(Arrays.<Class<?>> asList(TestModelA.class, TestModelB.class)),
+            any(Iterator.class));
+        assertEquals(1, passes.size());
+        assertEquals(2, merged.size());
+    }
+
+    private EKBCommit commit(long timestamp) {
+        EKBCommit commit = new EKBCommit();
+        commit.setRevisionNumber(UUID.randomUUID());
+
+        CommitMetaInfo info = new CommitMetaInfo();
+        info.setRevision(commit.getRevisionNumber().toString());
+        info.setTimestamp(timestamp);
+        info.setCommitter("testUser");
+        info.setContext("testContext");
+        history.add(info);
+
+        when(queryService.loadCommit(info.getRevision())).thenReturn(commit);
+        commitsByRevision.put(info.getRevision(), commit);
+        return commit;
+    }
+
+    private static boolean containsModelOf(EKBCommit commit, List<String> modelClassNames) {
+        List<OpenEngSBModel> models = new ArrayList<>(commit.getInserts());
+        models.addAll(commit.getUpdates());
+        models.addAll(commit.getDeletes());
+        for (OpenEngSBModel model : models) {
+            if (modelClassNames == null || modelClassNames.contains(model.getClass().getCanonicalName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class TestModelA extends OpenEngSBModelStub {
+
+    }
+
+    private static class TestModelB extends OpenEngSBModelStub {
+
+    }
+}
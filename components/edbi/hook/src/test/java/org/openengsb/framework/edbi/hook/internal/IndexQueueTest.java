@@ -0,0 +1,512 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openengsb.core.api.model.CommitMetaInfo;
+import org.openengsb.core.api.model.CommitQueryRequest;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.ekb.api.EKBCommit;
+import org.openengsb.core.ekb.api.QueryInterface;
+
+public class IndexQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IndexEngine indexEngine;
+    private File journal;
+    private IndexQueue queue;
+    private IndexQueue otherQueue;
+
+    @Before
+    public void setUp() throws Exception {
+        indexEngine = mock(IndexEngine.class);
+        journal = folder.newFolder("queue");
+
+        queue = new IndexQueue(indexEngine, journal);
+        queue.setRetryDelay(10);
+        queue.setMaxRetries(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        if (otherQueue != null) {
+            otherQueue.stop();
+        }
+    }
+
+    @Test
+    public void enqueue_commitsAreIndexedInOrder() throws Exception {
+        queue.start();
+
+        IndexCommit commit1 = createCommit();
+        IndexCommit commit2 = createCommit();
+        queue.enqueue(commit1);
+        queue.enqueue(commit2);
+
+        waitForQueue();
+        List<IndexCommit> indexed = getIndexedCommits();
+        assertEquals(2, indexed.size());
+        assertEquals(commit1, indexed.get(0));
+        assertEquals(commit2, indexed.get(1));
+        assertEquals(2, queue.getIndexedCount());
+        assertEquals(0, queue.getFailedCount());
+        assertEquals(0, journal.list().length);
+    }
+
+    @Test
+    public void enqueue_consecutiveCommitsOfSameModelClassAreCoalesced() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final IndexCommit first = createCommit(TestModelB.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                blocked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(indexEngine).commit(Collections.singletonList(first));
+        queue.start();
+
+        queue.enqueue(first);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        IndexCommit commit1 = createCommit(TestModelA.class);
+        IndexCommit commit2 = createCommit(TestModelA.class);
+        IndexCommit commit3 = createCommit(TestModelB.class);
+        queue.enqueue(commit1);
+        queue.enqueue(commit2);
+        queue.enqueue(commit3);
+        release.countDown();
+
+        waitForQueue();
+        verify(indexEngine).commit(Arrays.asList(commit1, commit2));
+        verify(indexEngine).commit(Collections.singletonList(commit3));
+        assertEquals(4, queue.getIndexedCount());
+    }
+
+    @Test
+    public void enqueue_failingCommitIsRetried() throws Exception {
+        IndexCommit commit = createCommit();
+        doThrow(new EDBIndexException("test")).doNothing().when(indexEngine)
+            .commit(Collections.singletonList(commit));
+        queue.start();
+
+        queue.enqueue(commit);
+
+        verify(indexEngine, timeout(5000).times(2)).commit(Collections.singletonList(commit));
+        waitForQueue();
+        assertEquals(1, queue.getIndexedCount());
+        assertEquals(0, queue.getFailedCount());
+    }
+
+    @Test
+    public void enqueue_commitIsJournaledAsFailedAfterRetries() throws Exception {
+        IndexCommit failing = createCommit();
+        IndexCommit next = createCommit();
+        failOn(failing);
+        queue.start();
+
+        queue.enqueue(failing);
+        queue.enqueue(next);
+
+        waitForQueue();
+        assertTrue(getIndexedCommits().contains(next));
+        verify(indexEngine, times(3)).commit(Collections.singletonList(failing));
+        assertEquals(1, queue.getFailedCount());
+        assertEquals(1, queue.getFailedCommits().size());
+        assertEquals(failing.getCommitId().toString(), queue.getFailedCommits().get(0));
+    }
+
+    @Test
+    public void enqueue_afterFailedCommit_skipsModelsOfStaleModelClass() throws Exception {
+        IndexCommit failing = createCommit(TestModelA.class);
+        failOn(failing);
+        queue.start();
+
+        queue.enqueue(failing);
+        waitForQueue();
+        IndexCommit onlyStale = createCommit(TestModelA.class);
+        IndexCommit mixed = createCommit(TestModelA.class, TestModelB.class);
+        queue.enqueue(onlyStale);
+        queue.enqueue(mixed);
+
+        waitForQueue();
+        List<IndexCommit> indexed = getIndexedCommits();
+        assertEquals(1, indexed.size());
+        assertEquals(mixed.getCommitId(), indexed.get(0).getCommitId());
+        assertEquals(Collections.<Class<?>> singleton(TestModelB.class), indexed.get(0).getModelClasses());
+        assertFalse(indexed.get(0).getInserts().containsKey(TestModelA.class));
+        assertEquals(1, queue.getSkippedCount());
+        assertTrue(queue.isStale(TestModelA.class.getCanonicalName()));
+    }
+
+    @Test
+    public void clearStale_modelClassIsIndexedAgain() throws Exception {
+        IndexCommit failing = createCommit(TestModelA.class);
+        failOn(failing);
+        queue.start();
+        queue.enqueue(failing);
+        waitForQueue();
+
+        queue.clearStale(TestModelA.class.getCanonicalName());
+        IndexCommit next = createCommit(TestModelA.class);
+        queue.enqueue(next);
+
+        waitForQueue();
+        verify(indexEngine).commit(Collections.singletonList(next));
+        assertTrue(queue.getFailedCommits().isEmpty());
+        assertTrue(queue.getStaleModelClasses().isEmpty());
+    }
+
+    @Test
+    public void start_marksModelClassesOfFailedCommitsFromPreviousRunAsStale() throws Exception {
+        IndexCommit failing = createCommit(TestModelA.class);
+        failOn(failing);
+        queue.start();
+        queue.enqueue(failing);
+        waitForQueue();
+        queue.stop();
+
+        otherQueue = new IndexQueue(indexEngine, journal);
+        otherQueue.start();
+
+        assertTrue(otherQueue.isStale(TestModelA.class.getCanonicalName()));
+        assertEquals(failing.getCommitId().toString(), otherQueue.getFailedCommits().get(0));
+    }
+
+    @Test
+    public void start_replaysCommitsPendingFromPreviousRun() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        IndexEngine blockingEngine = mock(IndexEngine.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(blockingEngine).commit(anyListOf(IndexCommit.class));
+        otherQueue = new IndexQueue(blockingEngine, journal);
+        otherQueue.start();
+        IndexCommit commit1 = createCommit(TestModelA.class);
+        IndexCommit commit2 = createCommit(TestModelA.class);
+        otherQueue.enqueue(commit1);
+        otherQueue.enqueue(commit2);
+
+        QueryInterface queryService = mock(QueryInterface.class);
+        when(queryService.loadCommit(commit1.getCommitId().toString())).thenReturn(loadedCommit(commit1));
+        when(queryService.loadCommit(commit2.getCommitId().toString())).thenReturn(loadedCommit(commit2));
+        queue.setQueryService(queryService);
+        queue.start();
+
+        waitForQueue();
+        release.countDown();
+        List<IndexCommit> indexed = getIndexedCommits();
+        assertEquals(2, indexed.size());
+        assertEquals(commit1.getCommitId(), indexed.get(0).getCommitId());
+        assertEquals(commit2.getCommitId(), indexed.get(1).getCommitId());
+        assertEquals("testUser", indexed.get(0).getUser());
+        assertEquals("testContext", indexed.get(0).getContextId());
+        assertEquals(commit1.getTimestamp(), indexed.get(0).getTimestamp());
+        assertEquals(Collections.<Class<?>> singleton(TestModelA.class), indexed.get(0).getModelClasses());
+    }
+
+    @Test
+    public void start_journalsCommitsSinceCheckpointWhichWereNotJournaled() throws Exception {
+        otherQueue = new IndexQueue(mock(IndexEngine.class), journal);
+        otherQueue.start();
+        IndexCommit journaled = createCommit(TestModelA.class);
+        otherQueue.enqueue(journaled);
+        otherQueue.stop();
+        IndexCommit missing = createCommit(TestModelB.class);
+
+        QueryInterface queryService = mock(QueryInterface.class);
+        when(queryService.queryForCommits(any(CommitQueryRequest.class))).thenReturn(
+            Arrays.asList(metaInfo(journaled), metaInfo(missing)));
+        when(queryService.loadCommit(missing.getCommitId().toString())).thenReturn(loadedCommit(missing));
+        queue.setQueryService(queryService);
+        queue.start();
+
+        waitForQueue();
+        List<IndexCommit> indexed = getIndexedCommits();
+        assertEquals(1, indexed.size());
+        assertEquals(missing.getCommitId(), indexed.get(0).getCommitId());
+        assertEquals(Collections.<Class<?>> singleton(TestModelB.class), indexed.get(0).getModelClasses());
+        verify(queryService, never()).loadCommit(journaled.getCommitId().toString());
+    }
+
+    @Test
+    public void start_withoutCheckpoint_doesNotReconcileHistory() throws Exception {
+        QueryInterface queryService = mock(QueryInterface.class);
+        queue.setQueryService(queryService);
+
+        queue.start();
+
+        verify(queryService, never()).queryForCommits(any(CommitQueryRequest.class));
+    }
+
+    @Test
+    public void start_marksCommitsPendingFromPreviousRunWithoutMetaDataAsFailed() throws Exception {
+        String id = UUID.randomUUID().toString();
+        assertTrue(new File(journal, id).createNewFile());
+
+        queue.start();
+
+        assertEquals(1, queue.getFailedCommits().size());
+        assertEquals(id, queue.getFailedCommits().get(0));
+        verify(indexEngine, times(0)).commit(any(IndexCommit.class));
+        verify(indexEngine, times(0)).commit(anyListOf(IndexCommit.class));
+    }
+
+    @Test
+    public void start_registersMBean() throws Exception {
+        queue.start();
+
+        ObjectName name = new ObjectName(IndexQueue.OBJECT_NAME);
+        assertEquals(0L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FailedCount"));
+        queue.stop();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    public void pause_commitsOfPausedModelClassAreIndexedAfterResume() throws Exception {
+        queue.start();
+        queue.pause(TestModelA.class.getCanonicalName());
+
+        IndexCommit paused = createCommit(TestModelA.class);
+        queue.enqueue(paused);
+        Thread.sleep(100);
+        verify(indexEngine, times(0)).commit(anyListOf(IndexCommit.class));
+        assertEquals(1, queue.getPendingCount());
+
+        queue.resume(TestModelA.class.getCanonicalName(), null);
+
+        waitForQueue();
+        verify(indexEngine).commit(Collections.singletonList(paused));
+    }
+
+    @Test
+    public void isUpToDate_whileCommitOfModelClassIsPending_returnsFalse() throws Exception {
+        String modelClassName = TestModelA.class.getCanonicalName();
+        assertFalse(queue.isUpToDate(modelClassName));
+        queue.start();
+        queue.pause(modelClassName);
+
+        queue.enqueue(createCommit(TestModelA.class));
+        assertFalse(queue.isUpToDate(modelClassName));
+        assertTrue(queue.isUpToDate(TestModelB.class.getCanonicalName()));
+
+        queue.resume(modelClassName, null);
+        waitForQueue();
+        assertTrue(queue.isUpToDate(modelClassName));
+    }
+
+    @Test
+    public void isUpToDate_withStaleModelClass_returnsFalse() throws Exception {
+        IndexCommit failing = createCommit(TestModelA.class);
+        failOn(failing);
+        queue.start();
+
+        queue.enqueue(failing);
+        waitForQueue();
+
+        assertFalse(queue.isUpToDate(TestModelA.class.getCanonicalName()));
+    }
+
+    @Test
+    public void resume_afterRebuild_skipsModelsOfRebuiltCommits() throws Exception {
+        queue.start();
+        queue.pause(TestModelA.class.getCanonicalName());
+
+        IndexCommit rebuilt = createCommit(TestModelA.class, TestModelB.class);
+        IndexCommit notRebuilt = createCommit(TestModelA.class);
+        queue.enqueue(rebuilt);
+        queue.enqueue(notRebuilt);
+        queue.resume(TestModelA.class.getCanonicalName(), Collections.singleton(rebuilt.getCommitId().toString()));
+
+        waitForQueue();
+        List<IndexCommit> indexed = getIndexedCommits();
+        assertEquals(2, indexed.size());
+        assertEquals(rebuilt.getCommitId(), indexed.get(0).getCommitId());
+        assertEquals(Collections.<Class<?>> singleton(TestModelB.class), indexed.get(0).getModelClasses());
+        assertEquals(notRebuilt, indexed.get(1));
+    }
+
+    @Test
+    public void resume_afterRebuild_skipsCommitsQueuedBeforePause() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        IndexCommit first = createCommit(TestModelB.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                blocked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(indexEngine).commit(Collections.singletonList(first));
+        queue.start();
+        queue.enqueue(first);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        IndexCommit queued = createCommit(TestModelA.class);
+        queue.enqueue(queued);
+
+        queue.pause(TestModelA.class.getCanonicalName());
+        release.countDown();
+        queue.resume(TestModelA.class.getCanonicalName(), Collections.<String> emptySet());
+
+        waitForQueue();
+        verify(indexEngine, times(0)).commit(Collections.singletonList(queued));
+        assertEquals(1, queue.getIndexedCount());
+        assertEquals(1, queue.getSkippedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void enqueue_withoutStart_throwsException() throws Exception {
+        queue.enqueue(createCommit());
+    }
+
+    private void waitForQueue() throws InterruptedException {
+        for (int i = 0; i < 500 && queue.getPendingCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(0, queue.getLag());
+    }
+
+    private void failOn(final IndexCommit failing) {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                if (((List<?>) invocation.getArguments()[0]).contains(failing)) {
+                    throw new EDBIndexException("test");
+                }
+                return null;
+            }
+        }).when(indexEngine).commit(anyListOf(IndexCommit.class));
+    }
+
+    /**
+     * Returns the commits which have been merged successfully into the index engine mock, in the order of the calls.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<IndexCommit> getIndexedCommits() {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(indexEngine, atLeastOnce()).commit(captor.capture());
+        List<IndexCommit> result = new ArrayList<>();
+        for (List commits : captor.getAllValues()) {
+            result.addAll(commits);
+        }
+        for (String failed : queue.getFailedCommits()) {
+            for (IndexCommit commit : new ArrayList<>(result)) {
+                if (failed.equals(commit.getCommitId().toString())) {
+                    result.remove(commit);
+                }
+            }
+        }
+        return result;
+    }
+
+    private IndexCommit createCommit(Class<?>... modelClasses) throws Exception {
+        IndexCommit commit = new IndexCommit();
+        commit.setCommitId(UUID.randomUUID());
+        commit.setTimestamp(new Date());
+        commit.setUser("testUser");
+        commit.setContextId("testContext");
+        Set<Class<?>> classes = new HashSet<>();
+        Map<Class<?>, List<OpenEngSBModel>> inserts = new HashMap<>();
+        for (Class<?> modelClass : modelClasses) {
+            classes.add(modelClass);
+            inserts.put(modelClass, Collections.singletonList((OpenEngSBModel) modelClass.newInstance()));
+        }
+        commit.setModelClasses(classes);
+        commit.setInserts(inserts);
+        commit.setUpdates(new HashMap<Class<?>, List<OpenEngSBModel>>());
+        commit.setDeletes(new HashMap<Class<?>, List<OpenEngSBModel>>());
+        return commit;
+    }
+
+    private CommitMetaInfo metaInfo(IndexCommit commit) {
+        CommitMetaInfo info = new CommitMetaInfo();
+        info.setRevision(commit.getCommitId().toString());
+        info.setTimestamp(commit.getTimestamp().getTime());
+        info.setCommitter(commit.getUser());
+        info.setContext(commit.getContextId());
+        return info;
+    }
+
+    private EKBCommit loadedCommit(IndexCommit commit) {
+        EKBCommit result = new EKBCommit();
+        result.setRevisionNumber(commit.getCommitId());
+        for (List<OpenEngSBModel> models : commit.getInserts().values()) {
+            result.addInserts(models);
+        }
+        return result;
+    }
+
+    public static class TestModelA extends OpenEngSBModelStub {
+
+    }
+
+    public static class TestModelB extends OpenEngSBModelStub {
+
+    }
+}
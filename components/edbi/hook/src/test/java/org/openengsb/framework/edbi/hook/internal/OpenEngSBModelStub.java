@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import java.util.List;
+
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.api.model.OpenEngSBModelEntry;
+
+abstract class OpenEngSBModelStub implements OpenEngSBModel {
+
+    @Override
+    public List<OpenEngSBModelEntry> toOpenEngSBModelValues() {
+        return null;
+    }
+
+    @Override
+    public List<OpenEngSBModelEntry> toOpenEngSBModelEntries() {
+        return null;
+    }
+
+    @Override
+    public Object retrieveInternalModelId() {
+        return null;
+    }
+
+    @Override
+    public String retrieveInternalModelIdName() {
+        return null;
+    }
+
+    @Override
+    public Long retrieveInternalModelTimestamp() {
+        return null;
+    }
+
+    @Override
+    public Integer retrieveInternalModelVersion() {
+        return null;
+    }
+
+    @Override
+    public void addOpenEngSBModelEntry(OpenEngSBModelEntry entry) {
+
+    }
+
+    @Override
+    public void removeOpenEngSBModelEntry(String key) {
+
+    }
+
+    @Override
+    public List<OpenEngSBModelEntry> getOpenEngSBModelTail() {
+        return null;
+    }
+
+    @Override
+    public void setOpenEngSBModelTail(List<OpenEngSBModelEntry> entries) {
+
+    }
+
+    @Override
+    public String retrieveModelName() {
+        return null;
+    }
+
+    @Override
+    public String retrieveModelVersion() {
+        return null;
+    }
+}
@@ -17,9 +17,13 @@
 package org.openengsb.core.edbi.jdbc;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.sql.DataSource;
 
@@ -38,13 +42,21 @@ import org.openengsb.core.edbi.jdbc.operation.InsertOperation;
 import org.openengsb.core.edbi.jdbc.operation.Operation;
 import org.openengsb.core.edbi.jdbc.operation.OperationExecutor;
 import org.openengsb.core.edbi.jdbc.operation.UpdateOperation;
+import org.openengsb.core.edbi.jdbc.sql.SecondaryIndex;
 import org.openengsb.core.edbi.jdbc.sql.Table;
 import org.openengsb.core.edbi.jdbc.sql.TableElementCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * AbstractTableEngine
+ * <p/>
+ * Tables are cached by the name of their index once they were created or looked up, and the names of tables known to
+ * exist are remembered, so that operations on existing tables don't query the database schema. Tables that are dropped
+ * or renamed within a transaction are only updated in these caches once the transaction was committed.
  */
 public abstract class AbstractTableEngine extends JdbcService implements TableEngine, OperationExecutor {
 
@@ -54,7 +66,8 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
     private NameTranslator<Index<?>> tableNameTranslator;
     private NameTranslator<IndexField<?>> columnNameTranslator;
 
-    private Map<JdbcIndex<?>, Table> registry;
+    private ConcurrentMap<String, Table> registry;
+    private Set<String> existingTables;
 
     protected AbstractTableEngine(DataSource dataSource, TypeMap typeMap, NameTranslator<Index<?>> tableNameTranslator,
             NameTranslator<IndexField<?>> columnNameTranslator) {
@@ -64,18 +77,27 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
         this.tableNameTranslator = tableNameTranslator;
         this.columnNameTranslator = columnNameTranslator;
 
-        this.registry = new HashMap<>();
+        this.registry = new ConcurrentHashMap<>();
+        this.existingTables = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     }
 
     @Override
     public boolean exists(JdbcIndex<?> index) {
-        if (registry.containsKey(index)) {
+        if (registry.containsKey(index.getName())) {
             return true;
         }
         String tableName = getTableNameTranslator().translate(index);
 
-        // TODO: sql independence
-        return count("`INFORMATION_SCHEMA`.`TABLES`", "TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ?", tableName) > 0;
+        if (existingTables.contains(tableName)) {
+            return true;
+        }
+
+        if (getDialect().tableExists(jdbc(), tableName)) {
+            existingTables.add(tableName);
+            return true;
+        }
+
+        return false;
     }
 
     @Override
@@ -84,39 +106,44 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
             throw new NoSuchTableException("Table for index " + index.getName() + " does not exist");
         }
 
-        Table table = registry.get(index);
+        Table table = registry.get(index.getName());
 
         if (table == null) {
             table = getTableFactory().create(index); // TODO: proper load function
-            registry.put(index, table);
+            registry.put(index.getName(), table);
         }
 
         return table;
     }
 
     @Override
-    public Table create(JdbcIndex<?> index) {
+    public synchronized Table create(JdbcIndex<?> index) {
         Table table = getTableFactory().create(index);
 
         if (exists(index)) {
             throw new TableExistsException("Table for index " + index.getName() + " exists");
         }
 
-        // TODO: sql independence
-        String sql =
-            String.format("CREATE TABLE `%s` ( %s );", table.getName(), new TableElementCompiler(table).toSql());
+        String sql = String.format("CREATE TABLE %s ( %s );", quote(table.getName()),
+            new TableElementCompiler(table, getDialect()).toSql());
 
         LOG.info("Creating table for Index {}. SQL is: {}", index.getName(), sql);
 
         jdbc().execute(sql);
 
-        registry.put(index, table);
+        for (SecondaryIndex secondaryIndex : table.getIndexes()) {
+            LOG.info("Creating secondary index {} on table {}", secondaryIndex.getName(), table.getName());
+            createIndex(table, secondaryIndex);
+        }
+
+        registry.put(index.getName(), table);
+        existingTables.add(table.getName());
 
         return table;
     }
 
     @Override
-    public void drop(JdbcIndex<?> index) {
+    public synchronized void drop(JdbcIndex<?> index) {
         if (!exists(index)) {
             throw new NoSuchTableException("Table for index " + index.getName() + " does not exist");
         }
@@ -127,8 +154,103 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
             throw new NoSuchTableException("Table name for index " + index + " could not be resolved. Can not drop.");
         }
 
-        jdbc().update("DROP TABLE " + tableName);
-        registry.remove(index);
+        jdbc().update("DROP TABLE " + quote(tableName));
+
+        final String indexName = index.getName();
+        final String droppedName = tableName;
+        final Table dropped = registry.remove(indexName);
+        existingTables.remove(droppedName);
+
+        onCompletion(new Runnable() {
+            @Override
+            public void run() {
+                registry.remove(indexName);
+                existingTables.remove(droppedName);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                if (dropped != null) {
+                    registry.putIfAbsent(indexName, dropped);
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized Table rename(final JdbcIndex<?> index, final JdbcIndex<?> target) {
+        Table table = get(index);
+
+        if (exists(target)) {
+            throw new TableExistsException("Table for index " + target.getName() + " exists");
+        }
+
+        final String tableName = table.getName();
+        final String newName = getTableNameTranslator().translate(target);
+
+        LOG.info("Renaming table {} to {}", tableName, newName);
+        renameTable(tableName, newName);
+
+        final Table renamed = new Table(newName, new ArrayList<>(table.getElements()));
+        for (SecondaryIndex secondaryIndex : table.getIndexes()) {
+            String newIndexName = secondaryIndex.getNameFor(tableName, newName);
+            if (!newIndexName.equals(secondaryIndex.getName())) {
+                renameIndex(table, secondaryIndex, newIndexName);
+            }
+            renamed.addIndex(new SecondaryIndex(newIndexName, secondaryIndex.getColumns()));
+        }
+
+        onCompletion(new Runnable() {
+            @Override
+            public void run() {
+                registry.remove(index.getName());
+                existingTables.remove(tableName);
+                registry.put(target.getName(), renamed);
+                existingTables.add(newName);
+            }
+        }, null);
+
+        return renamed;
+    }
+
+    @Override
+    public synchronized boolean createIndex(JdbcIndex<?> index, String fieldName) {
+        Table table = get(index);
+
+        String column = null;
+        for (IndexField<?> field : index.getFields()) {
+            if (field.getName().equals(fieldName)) {
+                column = getColumnNameTranslator().translate(field);
+                break;
+            }
+        }
+        if (column == null || !table.getColumns().contains(column)) {
+            throw new IllegalArgumentException("Index " + index.getName() + " has no column for field " + fieldName);
+        }
+
+        if (table.getIndexFor(column) != null || isIndexed(table, column)) {
+            return false;
+        }
+
+        SecondaryIndex secondaryIndex = SecondaryIndex.on(table, fieldName, Arrays.asList(column));
+
+        LOG.info("Creating secondary index {} on table {}", secondaryIndex.getName(), table.getName());
+        createIndex(table, secondaryIndex);
+        table.addIndex(secondaryIndex);
+
+        return true;
+    }
+
+    /**
+     * Checks whether the given column is the leading column of any index of the table in the database, including the
+     * primary key.
+     * 
+     * @param table the table
+     * @param column the column name
+     * @return true if an index starts with the column
+     */
+    protected boolean isIndexed(Table table, String column) {
+        return getDialect().isIndexed(jdbc(), table.getName(), column);
     }
 
     @Override
@@ -182,7 +304,7 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
 
     protected abstract TableFactory getTableFactory();
 
-    protected Map<JdbcIndex<?>, Table> getRegistry() {
+    protected Map<String, Table> getRegistry() {
         return registry;
     }
 
@@ -209,4 +331,29 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
     public void setColumnNameTranslator(NameTranslator<IndexField<?>> columnNameTranslator) {
         this.columnNameTranslator = columnNameTranslator;
     }
+
+    /**
+     * Runs the given callbacks once the transaction of the current thread was committed or rolled back. If no
+     * transaction is active, the changes are already permanent and the committed callback runs right away.
+     *
+     * @param committed run after a commit, or immediately outside of a transaction
+     * @param rolledBack run after a rollback, may be null
+     */
+    private void onCompletion(final Runnable committed, final Runnable rolledBack) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    committed.run();
+                } else if (rolledBack != null) {
+                    rolledBack.run();
+                }
+            }
+        });
+    }
 }
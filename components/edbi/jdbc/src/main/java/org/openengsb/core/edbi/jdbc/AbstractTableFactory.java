@@ -17,6 +17,9 @@
 package org.openengsb.core.edbi.jdbc;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.openengsb.core.edbi.api.Index;
 import org.openengsb.core.edbi.api.IndexField;
@@ -25,7 +28,9 @@ import org.openengsb.core.edbi.api.NameTranslator;
 import org.openengsb.core.edbi.jdbc.api.TableFactory;
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
 import org.openengsb.core.edbi.jdbc.sql.Column;
+import org.openengsb.core.edbi.jdbc.sql.ColumnSet;
 import org.openengsb.core.edbi.jdbc.sql.DataType;
+import org.openengsb.core.edbi.jdbc.sql.SecondaryIndex;
 import org.openengsb.core.edbi.jdbc.sql.Table;
 import org.openengsb.core.edbi.jdbc.util.Introspector;
 import org.slf4j.Logger;
@@ -84,6 +89,8 @@ public abstract class AbstractTableFactory implements TableFactory {
             }
         });
 
+        addSecondaryIndexes(table, index);
+
         onAfterCreate(table, index);
 
         return table;
@@ -122,6 +129,51 @@ public abstract class AbstractTableFactory implements TableFactory {
         onAfterFieldVisit(table, column, field);
     }
 
+    /**
+     * Adds a SecondaryIndex to the table for each group of model fields annotated with {@code IndexedModelField}.
+     * Groups that contain a field without a column are skipped.
+     * 
+     * @param table the table being created
+     * @param index the source index
+     */
+    protected void addSecondaryIndexes(Table table, JdbcIndex<?> index) {
+        if (index.getModelClass() == null) {
+            return;
+        }
+
+        ColumnSet columns = table.getColumns();
+        Map<String, List<String>> groups = Introspector.getIndexedFieldGroups(index.getModelClass());
+
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            List<String> indexColumns = new ArrayList<>(group.getValue().size());
+
+            for (String fieldName : group.getValue()) {
+                String column = getColumnName(index, fieldName);
+                if (column == null || !columns.contains(column)) {
+                    LOG.warn("Field {} has no column, skipping secondary index {}", fieldName, group.getKey());
+                    indexColumns = null;
+                    break;
+                }
+                indexColumns.add(column);
+            }
+
+            if (indexColumns != null) {
+                SecondaryIndex secondaryIndex = SecondaryIndex.on(table, group.getKey(), indexColumns);
+                LOG.info("Adding secondary index {} on columns {}", secondaryIndex.getName(), indexColumns);
+                table.addIndex(secondaryIndex);
+            }
+        }
+    }
+
+    private String getColumnName(JdbcIndex<?> index, String fieldName) {
+        for (IndexField<?> field : index.getFields()) {
+            if (field.getName().equals(fieldName)) {
+                return getColumnNameTranslator().translate(field);
+            }
+        }
+        return null;
+    }
+
     /**
      * Called directly after the (empty) Table object was instantiated.
      * 
@@ -81,6 +81,20 @@ public class DefaultSchemaMapper implements SchemaMapper, OperationExecutor {
         historyTableEngine.drop(index);
     }
 
+    @Override
+    public void rename(JdbcIndex<?> index, JdbcIndex<?> target) {
+        Table headTable = headTableEngine.rename(index, target);
+        Table histTable = historyTableEngine.rename(index, target);
+
+        index.setHeadTableName(headTable.getName());
+        index.setHistoryTableName(histTable.getName());
+    }
+
+    @Override
+    public boolean createIndex(JdbcIndex<?> index, String fieldName) {
+        return headTableEngine.createIndex(index, fieldName);
+    }
+
     @Override
     public void execute(Operation operation) {
         operation.executeWith(this);
@@ -34,7 +34,6 @@ import org.openengsb.core.edbi.jdbc.operation.UpdateOperation;
 import org.openengsb.core.edbi.jdbc.sql.Column;
 import org.openengsb.core.edbi.jdbc.sql.PrimaryKeyConstraint;
 import org.openengsb.core.edbi.jdbc.sql.Table;
-import org.openengsb.core.edbi.jdbc.util.Introspector;
 
 /**
  * Implementation of a TableEngine, that manages the 'head' table of models (they contain the current state of each
@@ -118,13 +117,9 @@ public class HeadTableEngine extends AbstractTableEngine {
 
             index.setHeadTableName(table.getName());
 
-            String idProperty = Introspector.getOpenEngSBModelIdProperty(index.getModelClass());
-
-            for (IndexField<?> field : index.getFields()) {
-                if (field.getName().equals(idProperty)) {
-                    table.addElement(new PrimaryKeyConstraint(field.getMappedName()));
-                    break;
-                }
+            IndexField<?> idField = index.getModelIdField();
+            if (idField != null) {
+                table.addElement(new PrimaryKeyConstraint(idField.getMappedName()));
             }
         }
 
@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.IndexField;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexQuery.Condition;
+import org.openengsb.core.edbi.api.IndexQuery.Operator;
+import org.openengsb.core.edbi.api.IndexQuery.Ordering;
+import org.openengsb.core.edbi.jdbc.driver.Dialect;
+import org.openengsb.core.edbi.jdbc.sql.DataType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * Compiles an {@link IndexQuery} into an SQL <code>SELECT</code> statement with named parameters against the head
+ * table of a JdbcIndex. The parameters are registered with the SQL types of the mapped index fields.
+ */
+public class IndexQueryCompiler {
+
+    private Dialect dialect;
+    private JdbcIndex<?> index;
+    private IndexQuery<?> query;
+
+    private MapSqlParameterSource parameters;
+
+    public IndexQueryCompiler(Dialect dialect, JdbcIndex<?> index, IndexQuery<?> query) {
+        this.dialect = dialect;
+        this.index = index;
+        this.query = query;
+    }
+
+    /**
+     * Compiles the query. The parameters for the statement are available via {@link #getParameters()} afterwards.
+     *
+     * @return the SQL statement
+     * @throws EDBIndexException if the query refers to a field that is not part of the index
+     */
+    public synchronized String toSql() throws EDBIndexException {
+        parameters = new MapSqlParameterSource();
+
+        StringBuilder str = new StringBuilder();
+        str.append("SELECT * FROM ");
+        str.append(dialect.quote(index.getHeadTableName()));
+
+        List<String> predicates = new ArrayList<>();
+        for (Condition condition : query.getConditions()) {
+            predicates.add(compile(condition));
+        }
+        if (query.getAfterField() != null) {
+            predicates.add(compile(new Condition(query.getAfterField(), Operator.GREATER, query.getAfterValue())));
+        }
+        if (!predicates.isEmpty()) {
+            str.append(" WHERE ");
+            str.append(StringUtils.join(predicates, " AND "));
+        }
+
+        List<String> orderings = new ArrayList<>();
+        if (query.getAfterField() != null) {
+            orderings.add(getColumn(query.getAfterField()) + " ASC");
+        }
+        for (Ordering ordering : query.getOrderings()) {
+            orderings.add(getColumn(ordering.getField()) + (ordering.isAscending() ? " ASC" : " DESC"));
+        }
+        if (!orderings.isEmpty()) {
+            str.append(" ORDER BY ");
+            str.append(StringUtils.join(orderings, ","));
+        }
+
+        if (query.getLimit() != null) {
+            str.append(" LIMIT ");
+            str.append(query.getLimit());
+        }
+
+        return str.toString();
+    }
+
+    /**
+     * Returns the parameters of the statement that was compiled last.
+     *
+     * @return the named parameters
+     */
+    public SqlParameterSource getParameters() {
+        return parameters;
+    }
+
+    protected String compile(Condition condition) {
+        String column = getColumn(condition.getField());
+
+        if (condition.getOperator() == Operator.IS_NULL) {
+            return column + " IS NULL";
+        }
+
+        String parameter = "p" + parameters.getValues().size();
+        parameters.addValue(parameter, condition.getValue());
+
+        IndexField<?> field = getField(condition.getField());
+        if (field.getMappedType() instanceof DataType && condition.getOperator() != Operator.LIKE) {
+            parameters.registerSqlType(parameter, ((DataType) field.getMappedType()).getType());
+        }
+
+        return String.format("%s %s :%s", column, getOperator(condition.getOperator()), parameter);
+    }
+
+    protected String getOperator(Operator operator) {
+        switch (operator) {
+            case EQUAL:
+                return "=";
+            case NOT_EQUAL:
+                return "<>";
+            case LESS:
+                return "<";
+            case LESS_OR_EQUAL:
+                return "<=";
+            case GREATER:
+                return ">";
+            case GREATER_OR_EQUAL:
+                return ">=";
+            case LIKE:
+                return "LIKE";
+            default:
+                throw new IllegalArgumentException("Unsupported operator " + operator);
+        }
+    }
+
+    protected String getColumn(String fieldName) {
+        return getField(fieldName).getMappedName();
+    }
+
+    protected IndexField<?> getField(String fieldName) {
+        for (IndexField<?> field : index.getFields()) {
+            if (field.getName().equals(fieldName)) {
+                return field;
+            }
+        }
+
+        throw new EDBIndexException("Index " + index.getName() + " has no field " + fieldName);
+    }
+}
@@ -19,12 +19,16 @@ package org.openengsb.core.edbi.jdbc;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.openengsb.core.edbi.api.Index;
 import org.openengsb.core.edbi.api.IndexField;
 import org.openengsb.core.edbi.api.IndexFieldVisitor;
 import org.openengsb.core.edbi.api.UnavailableTypeInformationException;
+import org.openengsb.core.edbi.jdbc.util.Introspector;
 
 /**
  * Index implementation for the JDBC EBDI container.
@@ -38,6 +42,7 @@ public class JdbcIndex<T> implements Index<T> {
     private String headTableName;
     private String historyTableName;
     private List<IndexField<?>> fields;
+    private Set<String> indexedFields = new CopyOnWriteArraySet<>();
 
     private ClassLoader classLoader;
 
@@ -80,11 +85,39 @@ public class JdbcIndex<T> implements Index<T> {
         return fields;
     }
 
+    @Override
+    public IndexField<?> getModelIdField() throws UnavailableTypeInformationException {
+        String idProperty = Introspector.getOpenEngSBModelIdProperty(getModelClass());
+        if (idProperty == null) {
+            return null;
+        }
+        for (IndexField<?> field : getFields()) {
+            if (field.getName().equals(idProperty)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
     @Override
     public void setClassLoader(ClassLoader classLoader) {
         this.classLoader = classLoader;
     }
 
+    /**
+     * Returns the names of the fields for which a secondary index was created on the head table because they were
+     * queried frequently. The secondary indexes of annotated fields are not contained.
+     *
+     * @return the names of the fields
+     */
+    public Set<String> getIndexedFields() {
+        return Collections.unmodifiableSet(indexedFields);
+    }
+
+    void addIndexedField(String field) {
+        indexedFields.add(field);
+    }
+
     boolean hasTypeInformation() {
         return modelClass != null;
     }
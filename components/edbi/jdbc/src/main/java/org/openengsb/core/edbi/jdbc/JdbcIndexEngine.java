@@ -27,6 +27,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.sql.DataSource;
 
@@ -39,8 +41,9 @@ import org.openengsb.core.edbi.api.IndexEngine;
 import org.openengsb.core.edbi.api.IndexExistsException;
 import org.openengsb.core.edbi.api.IndexField;
 import org.openengsb.core.edbi.api.IndexNotFoundException;
+import org.openengsb.core.edbi.api.IndexQuery;
 import org.openengsb.core.edbi.jdbc.api.SchemaMapper;
-import org.openengsb.core.edbi.jdbc.driver.h2.SchemaCreateCommand;
+import org.openengsb.core.edbi.jdbc.driver.SchemaCreateCommand;
 import org.openengsb.core.edbi.jdbc.names.ClassNameIndexTranslator;
 import org.openengsb.core.edbi.jdbc.operation.DeleteOperation;
 import org.openengsb.core.edbi.jdbc.operation.InsertOperation;
@@ -48,33 +51,53 @@ import org.openengsb.core.edbi.jdbc.operation.UpdateOperation;
 import org.openengsb.core.edbi.jdbc.sql.DataType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 
 /**
  * IndexEngine implementation that uses JDBC as underlying persistence method. Manages Index objects and their
  * respective tables and data using a SchemaMapper.
+ * <p/>
+ * The meta data of all indexes is held in a registry, which is loaded once by {@link #install()} and kept up to date
+ * when indexes are created or removed by this engine. After that, looking up indexes does not query the database.
+ * Call {@link #reload()} if the meta data was changed by someone else.
  */
 public class JdbcIndexEngine extends JdbcService implements IndexEngine {
 
     private static final Logger LOG = LoggerFactory.getLogger(JdbcIndexEngine.class);
 
-    private Map<String, JdbcIndex<?>> registry;
+    /**
+     * Appended to the name of an index to name the index that is built by {@link #rebuildIndexes(List, Iterator)}.
+     */
+    public static final String REBUILD_SUFFIX = "$rebuild";
+
+    private ConcurrentMap<String, JdbcIndex<?>> registry;
+    private volatile boolean registryLoaded;
 
     private ClassNameTranslator translator;
     private SchemaMapper schemaMapper;
 
+    private QueryStatistics queryStatistics;
+    private boolean autoCreateIndexes;
+
+    private int rebuildBatchSize = 1000;
+
     public JdbcIndexEngine(DataSource dataSource, SchemaMapper schemaMapper) {
         super(dataSource);
 
         this.translator = new ClassNameIndexTranslator();
-        this.registry = new HashMap<>();
+        this.registry = new ConcurrentHashMap<>();
         this.schemaMapper = schemaMapper;
     }
 
     @Override
-    public <T> Index<T> createIndex(Class<T> model) throws IndexExistsException {
+    public synchronized <T> Index<T> createIndex(Class<T> model) throws IndexExistsException {
         LOG.info("Creating Index for Class {}", model);
 
         if (indexExists(model)) {
@@ -105,7 +128,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
 
     @Override
     public boolean indexExists(String name) {
-        return registry.containsKey(name) || existsInDb(name);
+        return registry.containsKey(name) || (!registryLoaded && existsInDb(name));
     }
 
     @SuppressWarnings("unchecked")
@@ -116,8 +139,8 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
         }
         String name = translator.translate(model);
 
-        if (registry.containsKey(name)) {
-            JdbcIndex cached = registry.get(name);
+        JdbcIndex cached = registry.get(name);
+        if (cached != null) {
             if (!cached.hasTypeInformation()) {
                 cached.setModelClass(model);
             }
@@ -125,8 +148,8 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
         }
 
         JdbcIndex<T> index = load(model);
-        registry.put(name, index);
-        return index;
+        cached = registry.putIfAbsent(name, index);
+        return (cached != null) ? cached : index;
     }
 
     @Override
@@ -134,15 +157,15 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
         if (!indexExists(name)) {
             throw new IndexNotFoundException("Index " + name + " does not exist");
         }
-        if (registry.containsKey(name)) {
-            return registry.get(name);
+        JdbcIndex<?> cached = registry.get(name);
+        if (cached != null) {
+            return cached;
         }
 
         JdbcIndex<?> index = load(name);
+        cached = registry.putIfAbsent(name, index);
 
-        registry.put(name, index);
-
-        return index;
+        return (cached != null) ? cached : index;
     }
 
     @Override
@@ -150,47 +173,369 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
         throw new UnsupportedOperationException("Custom ClassLoaders not yet supported");
     }
 
+    /**
+     * Merges the given IndexCommit into the head and history tables of the affected indexes. Missing indexes are
+     * created beforehand, since DDL statements can not be rolled back on every DBMS. All operations of the commit are
+     * then executed within a single local transaction on one connection, so that either the entire commit is visible
+     * in the index or none of it.
+     */
     @Override
     public void commit(IndexCommit commit) throws EDBIndexException {
-        // TODO: transactional!
-        LOG.info("Committing, id: {}", commit.getCommitId());
+        commit(Collections.singletonList(commit));
+    }
 
-        Set<Class<?>> modelClasses = commit.getModelClasses();
+    /**
+     * Merges the given IndexCommits like {@link #commit(IndexCommit)}, but executes the operations of all commits
+     * within the same transaction.
+     */
+    @Override
+    public void commit(final List<IndexCommit> commits) throws EDBIndexException {
+        for (IndexCommit commit : commits) {
+            LOG.info("Committing, id: {}", commit.getCommitId());
 
-        if (modelClasses == null) {
-            throw new IllegalArgumentException("Commit has no model class information");
-        }
+            Set<Class<?>> modelClasses = commit.getModelClasses();
 
-        LOG.debug("Checking if index exists for classes {}", modelClasses);
-        for (Class<?> modelClass : modelClasses) {
-            if (!indexExists(modelClass)) {
-                createIndex(modelClass);
+            if (modelClasses == null) {
+                throw new IllegalArgumentException("Commit has no model class information");
+            }
+
+            LOG.debug("Checking if index exists for classes {}", modelClasses);
+            for (Class<?> modelClass : modelClasses) {
+                if (!indexExists(modelClass)) {
+                    createIndex(modelClass);
+                }
             }
         }
 
         LOG.debug("Executing operations");
-        for (Class<?> modelClass : modelClasses) {
-            JdbcIndex<?> index = getIndex(modelClass);
+        try {
+            transaction().execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    for (IndexCommit commit : commits) {
+                        executeOperations(commit);
+                    }
+                }
+            });
+        } catch (DataAccessException | TransactionException e) {
+            throw new EDBIndexException("Could not merge commits " + getCommitIds(commits) + " into the index", e);
+        }
+    }
+
+    private static List<Object> getCommitIds(List<IndexCommit> commits) {
+        List<Object> ids = new ArrayList<>(commits.size());
+        for (IndexCommit commit : commits) {
+            ids.add(commit.getCommitId());
+        }
+        return ids;
+    }
+
+    /**
+     * Rebuilds the index of the given model in new tables, which are named after the index name with the
+     * {@link #REBUILD_SUFFIX}. Since the new tables are not visible to anyone else, the commits are merged in batches
+     * of {@link #getRebuildBatchSize()} commits per transaction. Once all commits are merged, the existing tables and
+     * meta data are replaced within a single transaction. Whether readers see either the old or the new tables at any
+     * time depends on whether the DBMS supports transactional DDL, like PostgreSQL, or not, like H2.
+     * <p/>
+     * Commits that are merged by {@link #commit(IndexCommit)} while the index is rebuilt are only part of the rebuilt
+     * index if they are returned by the given iterator as well. Callers have to keep commits with models of the
+     * rebuilt class from being merged once the iterator returned its last commit, until this method returns, since
+     * they would either be lost with the replaced tables or fail while the tables are replaced.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> JdbcIndex<T> rebuildIndex(Class<T> model, Iterator<IndexCommit> commits) throws EDBIndexException {
+        return (JdbcIndex<T>) rebuildIndexes(Collections.<Class<?>> singletonList(model), commits).get(0);
+    }
+
+    @Override
+    public List<Index<?>> rebuildIndexes(List<Class<?>> models, Iterator<IndexCommit> commits)
+        throws EDBIndexException {
+        List<JdbcIndex<?>> rebuilt = new ArrayList<>(models.size());
+
+        try {
+            for (Class<?> model : models) {
+                rebuilt.add(createRebuiltIndex(model));
+            }
+            long count = merge(rebuilt, commits);
+            LOG.info("Merged {} commits into the new tables of {} indexes, replacing the existing tables", count,
+                rebuilt.size());
+            replace(rebuilt);
+        } catch (RuntimeException e) {
+            for (JdbcIndex<?> index : rebuilt) {
+                discard(index);
+            }
+            if (e instanceof EDBIndexException) {
+                throw e;
+            }
+            throw new EDBIndexException("Could not rebuild the indexes of " + models, e);
+        }
+
+        return new ArrayList<Index<?>>(rebuilt);
+    }
+
+    /**
+     * Creates the new tables of the index of the given model that is rebuilt. The secondary indexes that were created
+     * for frequently queried fields of the existing index are created on the new tables as well.
+     *
+     * @param model the model type
+     * @return the index with the new tables, named with the {@link #REBUILD_SUFFIX}
+     */
+    private <T> JdbcIndex<T> createRebuiltIndex(Class<T> model) {
+        String name = translator.translate(model);
+        LOG.info("Rebuilding Index {}", name);
+
+        JdbcIndex<T> rebuilt = new IndexBuilder(translator).buildIndex(model);
+        rebuilt.setName(name + REBUILD_SUFFIX);
+
+        if (schemaMapper.exists(rebuilt)) {
+            LOG.warn("Dropping the tables of a previous, aborted rebuild of Index {}", name);
+            schemaMapper.drop(rebuilt);
+        }
+        schemaMapper.create(rebuilt);
+        removeUnmappedFields(rebuilt);
+
+        if (indexExists(name)) {
+            for (String field : getIndex(name).getIndexedFields()) {
+                try {
+                    if (schemaMapper.createIndex(rebuilt, field)) {
+                        rebuilt.addIndexedField(field);
+                    }
+                } catch (IllegalArgumentException e) {
+                    LOG.info("Not recreating the secondary index of field {} of Index {}, the field does not exist "
+                        + "anymore", field, name);
+                }
+            }
+        }
+
+        return rebuilt;
+    }
+
+    @Override
+    public List<Map<String, Object>> query(IndexQuery<?> query) throws EDBIndexException {
+        final JdbcIndex<?> index = getIndex(query.getIndex().getName());
+
+        IndexQueryCompiler compiler = new IndexQueryCompiler(getDialect(), index, query);
+        String sql = compiler.toSql();
+
+        if (queryStatistics != null) {
+            for (String field : queryStatistics.record(query)) {
+                onFrequentlyQueriedField(index, field);
+            }
+        }
+
+        LOG.debug("Querying index {}. SQL is: {}", index.getName(), sql);
+
+        try {
+            return jdbcn().query(sql, compiler.getParameters(), new RowMapper<Map<String, Object>>() {
+                @Override
+                public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+                    Map<String, Object> row = new HashMap<>();
+
+                    for (IndexField<?> field : index.getFields()) {
+                        row.put(field.getName(), rs.getObject(field.getMappedName()));
+                    }
+
+                    return row;
+                }
+            });
+        } catch (DataAccessException e) {
+            throw new EDBIndexException("Could not query index " + index.getName(), e);
+        }
+    }
+
+    /**
+     * Called once a field of the index was used in as many query predicates as the threshold of the QueryStatistics.
+     * Creates a secondary index for the field if indexes are created automatically, otherwise proposes it in the log.
+     * 
+     * @param index the queried index
+     * @param field the name of the frequently queried field
+     */
+    protected void onFrequentlyQueriedField(JdbcIndex<?> index, String field) {
+        if (!autoCreateIndexes) {
+            LOG.info("Field {} of index {} is frequently queried, consider annotating it with @IndexedModelField",
+                field, index.getName());
+            return;
+        }
+
+        try {
+            if (schemaMapper.createIndex(index, field)) {
+                persistIndexedField(index, field);
+                index.addIndexedField(field);
+                LOG.info("Created secondary index for frequently queried field {} of index {}", field, index.getName());
+            }
+        } catch (DataAccessException | IllegalArgumentException e) {
+            LOG.warn("Could not create secondary index for field " + field + " of index " + index.getName(), e);
+        }
+    }
+
+    /**
+     * Executes the insert, update and delete operations of the given commit for each of its model classes.
+     *
+     * @param commit the commit to execute
+     */
+    protected void executeOperations(IndexCommit commit) {
+        for (Class<?> modelClass : commit.getModelClasses()) {
+            executeOperations(commit, modelClass, getIndex(modelClass));
+        }
+    }
+
+    /**
+     * Executes the insert, update and delete operations of the given commit for the models of the given class on the
+     * given index.
+     *
+     * @param commit the commit to execute
+     * @param modelClass the model class whose models to merge
+     * @param index the index to merge the models into
+     */
+    protected void executeOperations(IndexCommit commit, Class<?> modelClass, JdbcIndex<?> index) {
+        List<OpenEngSBModel> inserts = commit.getInserts().get(modelClass);
+        if (!isEmpty(inserts)) {
+            schemaMapper.execute(new InsertOperation(commit, index, inserts));
+        }
+
+        List<OpenEngSBModel> updates = commit.getUpdates().get(modelClass);
+        if (!isEmpty(updates)) {
+            schemaMapper.execute(new UpdateOperation(commit, index, updates));
+        }
+
+        List<OpenEngSBModel> deletes = commit.getDeletes().get(modelClass);
+        if (!isEmpty(deletes)) {
+            schemaMapper.execute(new DeleteOperation(commit, index, deletes));
+        }
+    }
+
+    /**
+     * Merges the models of the given commits that belong to the model classes of the given indexes into these indexes,
+     * with one transaction per batch of commits.
+     *
+     * @param indexes the indexes to merge into
+     * @param commits the commits to merge
+     * @return the number of merged commits
+     */
+    protected long merge(List<JdbcIndex<?>> indexes, Iterator<IndexCommit> commits) {
+        List<IndexCommit> batch = new ArrayList<>(rebuildBatchSize);
+        long count = 0;
+
+        while (commits.hasNext()) {
+            IndexCommit commit = commits.next();
+            if (getIndexesOf(commit, indexes).isEmpty()) {
+                continue;
+            }
+
+            batch.add(commit);
+            if (batch.size() >= rebuildBatchSize) {
+                count += merge(indexes, batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            count += merge(indexes, batch);
+        }
+
+        return count;
+    }
+
+    private int merge(final List<JdbcIndex<?>> indexes, final List<IndexCommit> batch) {
+        transaction().execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (IndexCommit commit : batch) {
+                    for (JdbcIndex<?> index : getIndexesOf(commit, indexes)) {
+                        executeOperations(commit, index.getModelClass(), index);
+                    }
+                }
+            }
+        });
+
+        int count = batch.size();
+        LOG.debug("Merged {} commits into {} indexes", count, indexes.size());
+        batch.clear();
+
+        return count;
+    }
 
-            List<OpenEngSBModel> inserts = commit.getInserts().get(modelClass);
-            if (!isEmpty(inserts)) {
-                schemaMapper.execute(new InsertOperation(commit, index, inserts));
+    private static List<JdbcIndex<?>> getIndexesOf(IndexCommit commit, List<JdbcIndex<?>> indexes) {
+        List<JdbcIndex<?>> result = new ArrayList<>(indexes.size());
+        if (commit.getModelClasses() == null) {
+            return result;
+        }
+        for (JdbcIndex<?> index : indexes) {
+            if (commit.getModelClasses().contains(index.getModelClass())) {
+                result.add(index);
             }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the tables and meta data of the indexes by the ones of the given rebuilt indexes within a single
+     * transaction. Each rebuilt index takes over the name of the index it replaces, which is its own name without the
+     * {@link #REBUILD_SUFFIX}. The rebuilt indexes give their names back if the transaction is rolled back.
+     *
+     * @param rebuilt the rebuilt indexes
+     */
+    protected synchronized void replace(final List<JdbcIndex<?>> rebuilt) {
+        final List<String> names = new ArrayList<>(rebuilt.size());
+        List<String[]> rebuiltNames = new ArrayList<>(rebuilt.size());
+        for (JdbcIndex<?> index : rebuilt) {
+            String rebuiltName = index.getName();
+            names.add(rebuiltName.substring(0, rebuiltName.length() - REBUILD_SUFFIX.length()));
+            rebuiltNames.add(new String[]{ rebuiltName, index.getHeadTableName(), index.getHistoryTableName() });
+        }
 
-            List<OpenEngSBModel> updates = commit.getUpdates().get(modelClass);
-            if (!isEmpty(updates)) {
-                schemaMapper.execute(new UpdateOperation(commit, index, updates));
+        try {
+            transaction().execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    for (int i = 0; i < rebuilt.size(); i++) {
+                        replace(names.get(i), rebuilt.get(i));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            for (int i = 0; i < rebuilt.size(); i++) {
+                rebuilt.get(i).setName(rebuiltNames.get(i)[0]);
+                rebuilt.get(i).setHeadTableName(rebuiltNames.get(i)[1]);
+                rebuilt.get(i).setHistoryTableName(rebuiltNames.get(i)[2]);
             }
+            throw e;
+        }
+
+        for (int i = 0; i < rebuilt.size(); i++) {
+            registry.put(names.get(i), rebuilt.get(i));
+        }
+    }
 
-            List<OpenEngSBModel> deletes = commit.getDeletes().get(modelClass);
-            if (!isEmpty(deletes)) {
-                schemaMapper.execute(new DeleteOperation(commit, index, deletes));
+    private void replace(String name, JdbcIndex<?> rebuilt) {
+        JdbcIndex<?> target = new JdbcIndex<>();
+        target.setName(name);
+
+        if (indexExists(name)) {
+            schemaMapper.drop(target);
+            deleteIndeInformation(target);
+        }
+
+        schemaMapper.rename(rebuilt, target);
+        rebuilt.setName(name);
+        persist(rebuilt);
+    }
+
+    private void discard(JdbcIndex<?> rebuilt) {
+        try {
+            if (rebuilt.getName().endsWith(REBUILD_SUFFIX) && schemaMapper.exists(rebuilt)) {
+                schemaMapper.drop(rebuilt);
             }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not drop the tables of the aborted rebuild of Index " + rebuilt.getName(), e);
         }
     }
 
     @Override
     public List<Index<?>> getAll() {
+        if (registryLoaded) {
+            return new ArrayList<Index<?>>(registry.values());
+        }
+
         List<Index<?>> indexes = new ArrayList<>();
         for (String indexName : getAllIndexNames()) {
             indexes.add(getIndex(indexName));
@@ -199,7 +544,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     }
 
     @Override
-    public void removeIndex(Index<?> index) throws EDBIndexException {
+    public synchronized void removeIndex(Index<?> index) throws EDBIndexException {
         if (!indexExists(index.getName())) {
             throw new IndexNotFoundException("Index " + index.getName() + " does not exist");
         }
@@ -214,10 +559,26 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     }
 
     /**
-     * Creates the necessary relations to save Index and IndexField instances.
+     * Creates the necessary relations to save Index and IndexField instances and loads the meta data of the existing
+     * indexes.
      */
     public void install() {
-        new SchemaCreateCommand(getDataSource()).execute(); // TODO: sql independence
+        new SchemaCreateCommand(getDataSource(), getDialect().getSchemaResource()).execute();
+        reload();
+    }
+
+    /**
+     * Replaces the registry with the meta data of all indexes stored in the database. Afterwards the registry is
+     * considered complete, i.e. indexes that are not in the registry are not looked up in the database anymore.
+     */
+    public synchronized void reload() {
+        Map<String, JdbcIndex<?>> indexes = loadAll();
+
+        registry.clear();
+        registry.putAll(indexes);
+        registryLoaded = true;
+
+        LOG.info("Loaded meta data of {} indexes", indexes.size());
     }
 
     protected synchronized boolean existsInDb(String name) {
@@ -250,7 +611,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
             throw new IndexExistsException("Index " + index.getName() + " already exists");
         }
 
-        String sql = "INSERT INTO `INDEX_INFORMATION` VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO " + quote("INDEX_INFORMATION") + " VALUES (?, ?, ?, ?)";
         Object[] args = new Object[]{
             index.getName(),
             index.getModelClass().getCanonicalName(),
@@ -260,10 +621,25 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
 
         jdbc().update(sql, args);
         persistFields(index);
+        for (String field : index.getIndexedFields()) {
+            persistIndexedField(index, field);
+        }
+    }
+
+    /**
+     * Stores that a secondary index was created for the given field of the index, so that it is known after a restart
+     * and created again when the index is rebuilt.
+     * 
+     * @param index the index
+     * @param field the name of the field with the secondary index
+     */
+    protected void persistIndexedField(JdbcIndex<?> index, String field) {
+        String sql = "INSERT INTO " + quote("INDEX_SECONDARY_INFORMATION") + " VALUES (?, ?)";
+        jdbc().update(sql, index.getName(), field);
     }
 
     protected void persistFields(final JdbcIndex<?> index) {
-        String sql = "INSERT INTO `INDEX_FIELD_INFORMATION` VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO " + quote("INDEX_FIELD_INFORMATION") + " VALUES (?, ?, ?, ?, ?, ?, ?)";
         Collection<IndexField<?>> fields = index.getFields();
 
         jdbc().batchUpdate(sql, fields, fields.size(), new ParameterizedPreparedStatementSetter<IndexField<?>>() {
@@ -282,6 +658,61 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
         });
     }
 
+    /**
+     * Loads the meta data of all indexes with three queries.
+     * 
+     * @return a mapping between index names and indexes
+     */
+    protected Map<String, JdbcIndex<?>> loadAll() {
+        final Map<String, JdbcIndex<?>> indexes = new HashMap<>();
+        final Map<String, List<JdbcIndexField<?>>> fields = new HashMap<>();
+
+        String sql = "SELECT NAME, TABLE_HEAD, TABLE_HISTORY FROM " + quote("INDEX_INFORMATION");
+
+        jdbc().query(sql, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                JdbcIndex<?> index = new JdbcIndex<>();
+
+                index.setName(rs.getString("NAME"));
+                index.setHeadTableName(rs.getString("TABLE_HEAD"));
+                index.setHistoryTableName(rs.getString("TABLE_HISTORY"));
+
+                indexes.put(index.getName(), index);
+                fields.put(index.getName(), new ArrayList<JdbcIndexField<?>>());
+            }
+        });
+
+        jdbc().query("SELECT * FROM " + quote("INDEX_FIELD_INFORMATION"), new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                String indexName = rs.getString("INDEX_NAME");
+                JdbcIndex<?> index = indexes.get(indexName);
+
+                if (index != null) {
+                    fields.get(indexName).add(mapField(index, rs));
+                }
+            }
+        });
+
+        jdbc().query("SELECT * FROM " + quote("INDEX_SECONDARY_INFORMATION"), new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                JdbcIndex<?> index = indexes.get(rs.getString("INDEX_NAME"));
+
+                if (index != null) {
+                    index.addIndexedField(rs.getString("FIELD_NAME"));
+                }
+            }
+        });
+
+        for (JdbcIndex<?> index : indexes.values()) {
+            index.setFields(fields.get(index.getName()));
+        }
+
+        return indexes;
+    }
+
     protected JdbcIndex<?> load(final String name) {
         return load(name, null);
     }
@@ -293,7 +724,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     protected <T> JdbcIndex<T> load(final String name, final Class<T> modelClass) {
         LOG.info("Loading Index {} (with class {})", name, modelClass);
 
-        String sql = "SELECT TABLE_HEAD, TABLE_HISTORY FROM INDEX_INFORMATION WHERE NAME = ?";
+        String sql = "SELECT TABLE_HEAD, TABLE_HISTORY FROM " + quote("INDEX_INFORMATION") + " WHERE NAME = ?";
 
         try {
             return jdbc().queryForObject(sql, new RowMapper<JdbcIndex<T>>() {
@@ -308,6 +739,9 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
                     index.setHistoryTableName(rs.getString("TABLE_HISTORY"));
 
                     index.setFields(loadFields(index));
+                    for (String field : loadIndexedFields(index)) {
+                        index.addIndexedField(field);
+                    }
 
                     return index;
                 }
@@ -318,30 +752,14 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     }
 
     protected List<JdbcIndexField<?>> loadFields(final JdbcIndex<?> index) {
-        String sql = "SELECT * FROM INDEX_FIELD_INFORMATION WHERE INDEX_NAME = ?";
+        String sql = "SELECT * FROM " + quote("INDEX_FIELD_INFORMATION") + " WHERE INDEX_NAME = ?";
 
         try {
             return jdbc().query(sql, new RowMapper<JdbcIndexField<?>>() {
                 @Override
                 public JdbcIndexField<?> mapRow(ResultSet rs, int rowNum) throws SQLException {
-                    JdbcIndexField<?> field = new JdbcIndexField<>(index);
-
-                    field.setName(rs.getString("NAME"));
-                    field.setTypeName(rs.getString("TYPE"));
-                    field.setMappedName(rs.getString("MAPPED_NAME"));
-                    field.setMappedType(mapDataType(rs));
-
-                    return field;
+                    return mapField(index, rs);
                 }
-
-                private DataType mapDataType(ResultSet rs) throws SQLException {
-                    int type = rs.getInt("MAPPED_TYPE");
-                    String name = rs.getString("MAPPED_TYPE_NAME");
-                    int scale = rs.getInt("MAPPED_TYPE_SCALE");
-
-                    return new DataType(type, name, scale);
-                }
-
             }, index.getName());
         } catch (EmptyResultDataAccessException e) {
             LOG.warn("Could not find any fields for index {}", index.getName());
@@ -349,15 +767,80 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
         }
     }
 
+    protected List<String> loadIndexedFields(JdbcIndex<?> index) {
+        String sql = "SELECT FIELD_NAME FROM " + quote("INDEX_SECONDARY_INFORMATION") + " WHERE INDEX_NAME = ?";
+        return jdbc().queryForList(sql, String.class, index.getName());
+    }
+
+    private JdbcIndexField<?> mapField(JdbcIndex<?> index, ResultSet rs) throws SQLException {
+        JdbcIndexField<?> field = new JdbcIndexField<>(index);
+
+        field.setName(rs.getString("NAME"));
+        field.setTypeName(rs.getString("TYPE"));
+        field.setMappedName(rs.getString("MAPPED_NAME"));
+        field.setMappedType(mapDataType(rs));
+
+        return field;
+    }
+
+    private DataType mapDataType(ResultSet rs) throws SQLException {
+        int type = rs.getInt("MAPPED_TYPE");
+        String name = rs.getString("MAPPED_TYPE_NAME");
+        int scale = rs.getInt("MAPPED_TYPE_SCALE");
+
+        return new DataType(type, name, scale);
+    }
+
     protected List<String> getAllIndexNames() {
-        return jdbc().queryForList("SELECT NAME FROM INDEX_INFORMATION", String.class);
+        return jdbc().queryForList("SELECT NAME FROM " + quote("INDEX_INFORMATION"), String.class);
     }
 
     protected void deleteIndeInformation(Index<?> index) {
+        delete("INDEX_SECONDARY_INFORMATION", "INDEX_NAME = ?", index.getName());
         delete("INDEX_FIELD_INFORMATION", "INDEX_NAME = ?", index.getName());
         delete("INDEX_INFORMATION", "NAME = ?", index.getName());
     }
 
+    public QueryStatistics getQueryStatistics() {
+        return queryStatistics;
+    }
+
+    /**
+     * Sets the statistics that record the predicates of queries. Statistics are not recorded if null.
+     * 
+     * @param queryStatistics the statistics or null
+     */
+    public void setQueryStatistics(QueryStatistics queryStatistics) {
+        this.queryStatistics = queryStatistics;
+    }
+
+    public boolean isAutoCreateIndexes() {
+        return autoCreateIndexes;
+    }
+
+    /**
+     * Sets whether secondary indexes for frequently queried fields are created automatically, or only proposed in the
+     * log. Requires QueryStatistics.
+     * 
+     * @param autoCreateIndexes true to create indexes automatically
+     */
+    public void setAutoCreateIndexes(boolean autoCreateIndexes) {
+        this.autoCreateIndexes = autoCreateIndexes;
+    }
+
+    public int getRebuildBatchSize() {
+        return rebuildBatchSize;
+    }
+
+    /**
+     * Sets the number of commits that are merged within one transaction when an index is rebuilt.
+     * 
+     * @param rebuildBatchSize the number of commits per transaction
+     */
+    public void setRebuildBatchSize(int rebuildBatchSize) {
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
     private boolean isEmpty(Collection<?> collection) {
         return collection == null || collection.isEmpty();
     }
@@ -19,8 +19,8 @@ package org.openengsb.core.edbi.jdbc;
 import javax.sql.DataSource;
 
 import org.openengsb.core.edbi.jdbc.api.SchemaMapper;
-import org.openengsb.core.edbi.jdbc.api.TableEngine;
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.openengsb.core.edbi.jdbc.driver.Dialect;
 import org.openengsb.core.edbi.jdbc.driver.Driver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +34,9 @@ public class JdbcIndexEngineFactory {
 
     private Driver driver;
 
+    private long queryStatisticsThreshold;
+    private boolean autoCreateIndexes;
+
     public JdbcIndexEngineFactory(Driver driver) {
         this.driver = driver;
     }
@@ -42,13 +45,52 @@ public class JdbcIndexEngineFactory {
         LOG.info("Creating new JdbcIndexEngine with driver {}", driver.getClass());
 
         TypeMap typeMap = driver.getTypeMap();
+        Dialect dialect = driver.getDialect();
         DataSource dataSource = driver.getDataSource();
 
-        TableEngine headTableEngine = new HeadTableEngine(dataSource, typeMap);
-        TableEngine historyTableEngine = new HistoryTableEngine(dataSource, typeMap);
+        HeadTableEngine headTableEngine = new HeadTableEngine(dataSource, typeMap);
+        headTableEngine.setDialect(dialect);
+        HistoryTableEngine historyTableEngine = new HistoryTableEngine(dataSource, typeMap);
+        historyTableEngine.setDialect(dialect);
 
         SchemaMapper schemaMapper = new DefaultSchemaMapper(headTableEngine, historyTableEngine);
 
-        return new JdbcIndexEngine(dataSource, schemaMapper);
+        JdbcIndexEngine engine = new JdbcIndexEngine(dataSource, schemaMapper);
+        engine.setDialect(dialect);
+
+        if (queryStatisticsThreshold > 0) {
+            engine.setQueryStatistics(new QueryStatistics(queryStatisticsThreshold));
+        }
+        engine.setAutoCreateIndexes(autoCreateIndexes);
+
+        return engine;
+    }
+
+    public long getQueryStatisticsThreshold() {
+        return queryStatisticsThreshold;
+    }
+
+    /**
+     * Sets the number of query predicates on a field after which the created engines propose or create a secondary
+     * index for it. No query statistics are recorded if the threshold is 0.
+     * 
+     * @param queryStatisticsThreshold the threshold, or 0 to disable the statistics
+     */
+    public void setQueryStatisticsThreshold(long queryStatisticsThreshold) {
+        this.queryStatisticsThreshold = queryStatisticsThreshold;
+    }
+
+    public boolean isAutoCreateIndexes() {
+        return autoCreateIndexes;
+    }
+
+    /**
+     * Sets whether the created engines create secondary indexes for frequently queried fields themselves instead of
+     * only proposing them in the log. Requires a query statistics threshold.
+     * 
+     * @param autoCreateIndexes true to create indexes automatically
+     */
+    public void setAutoCreateIndexes(boolean autoCreateIndexes) {
+        this.autoCreateIndexes = autoCreateIndexes;
     }
 }
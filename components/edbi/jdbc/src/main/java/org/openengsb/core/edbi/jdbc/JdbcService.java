@@ -17,30 +17,47 @@
 
 package org.openengsb.core.edbi.jdbc;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.edbi.jdbc.driver.Dialect;
+import org.openengsb.core.edbi.jdbc.driver.h2.H2Dialect;
 import org.openengsb.core.edbi.jdbc.sql.PrimaryKeyConstraint;
+import org.openengsb.core.edbi.jdbc.sql.SecondaryIndex;
 import org.openengsb.core.edbi.jdbc.sql.Table;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
- * JdbcService holds a DataSource and provides several helper methods for spring-jdbc.
+ * JdbcService holds a DataSource and provides several helper methods for spring-jdbc. The SQL is generated for the
+ * Dialect of the service, which is h2 unless set otherwise.
  */
 public class JdbcService {
     private DataSource dataSource;
+    private Dialect dialect;
 
     private JdbcTemplate jdbc;
     private NamedParameterJdbcTemplate jdbcn;
+    private TransactionTemplate transaction;
 
     public JdbcService(DataSource dataSource) {
+        this(dataSource, new H2Dialect());
+    }
+
+    public JdbcService(DataSource dataSource, Dialect dialect) {
         this.dataSource = dataSource;
+        this.dialect = dialect;
     }
 
     public JdbcTemplate jdbc() {
@@ -59,10 +76,42 @@ public class JdbcService {
         return jdbcn;
     }
 
+    /**
+     * Returns a TransactionTemplate for local transactions on the DataSource. All JdbcTemplates of the same DataSource
+     * that are used within a callback of this template share the connection of the transaction.
+     *
+     * @return a TransactionTemplate for the DataSource
+     */
+    public TransactionTemplate transaction() {
+        if (transaction == null) {
+            transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        }
+
+        return transaction;
+    }
+
     public DataSource getDataSource() {
         return dataSource;
     }
 
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Quotes the given identifier according to the dialect.
+     * 
+     * @param identifier the identifier, e.g. a table name
+     * @return the quoted identifier
+     */
+    public String quote(String identifier) {
+        return dialect.quote(identifier);
+    }
+
     public <T> T queryForObject(String sql, Class<T> type) {
         return jdbc().queryForObject(sql, type);
     }
@@ -76,16 +125,16 @@ public class JdbcService {
     }
 
     public long count(String table) {
-        return queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return queryForObject("SELECT COUNT(*) FROM " + quote(table), Long.class);
     }
 
     public long count(String table, String where, Object... args) {
-        return queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + where, Long.class, args);
+        return queryForObject("SELECT COUNT(*) FROM " + quote(table) + " WHERE " + where, Long.class, args);
     }
 
     public int insert(String table, String columns, Object... args) {
         String sql =
-            String.format("INSERT INTO `%s` (%s) VALUES (%s)", table, columns,
+            String.format("INSERT INTO %s (%s) VALUES (%s)", quote(table), columns,
                 StringUtils.repeat("?", ",", args.length));
 
         return jdbc().update(sql, args);
@@ -96,17 +145,14 @@ public class JdbcService {
     }
 
     public int insert(String table, Object... args) {
-        String sql = String.format("INSERT INTO `%s` VALUES (%s)", table, StringUtils.repeat("?", ",", args.length));
+        String sql =
+            String.format("INSERT INTO %s VALUES (%s)", quote(table), StringUtils.repeat("?", ",", args.length));
 
         return jdbc().update(sql, args);
     }
 
     public int[] insert(String table, Collection<String> columns, SqlParameterSource[] records) {
-        String columnList = StringUtils.join(columns, ",");
-        String placeholders = ":" + StringUtils.join(columns, ",:");
-        String sql = String.format("INSERT INTO `%s` (%s) VALUES (%s)", table, columnList, placeholders);
-
-        return jdbcn().batchUpdate(sql, records);
+        return batchUpdate(dialect.insert(table, columns), records);
     }
 
     public int[] insert(Table table, List<IndexRecord> records) {
@@ -115,29 +161,73 @@ public class JdbcService {
         return insert(table.getName(), columns, toParameterSourceArray(records));
     }
 
+    /**
+     * Inserts the given records, or updates the existing rows with the same primary key.
+     * 
+     * @param table the table to insert into
+     * @param records the records to insert or update
+     * @return the number of rows affected by each record
+     */
+    public int[] upsert(Table table, List<IndexRecord> records) {
+        List<String> columns = table.getColumns().getColumnNames();
+        String sql = dialect.upsert(table.getName(), columns, table.getPrimaryKey().getColumns());
+
+        return batchUpdate(sql, toParameterSourceArray(records));
+    }
+
     public int[] update(String table, Collection<String> columns, String whereClause, SqlParameterSource[] records) {
         String setClauseList = makeNamedSetClauseList(columns);
-        String sql = String.format("UPDATE `%s` SET %s WHERE %s", table, setClauseList, whereClause);
+        String sql = String.format("UPDATE %s SET %s WHERE %s", quote(table), setClauseList, whereClause);
 
-        return jdbcn().batchUpdate(sql, records);
+        return batchUpdate(sql, records);
     }
 
+    /**
+     * Updates the rows of the given records. Since the records may carry values for different sets of columns, they
+     * are grouped by the columns they update and one batch is executed per group.
+     *
+     * @param table the table to update
+     * @param records the records to update
+     * @return the number of rows affected by each record, in the order of the given records
+     */
     public int[] update(Table table, List<IndexRecord> records) {
         List<String> columns = table.getColumns().getColumnNames();
         String whereClause = makeWhereClause(table.getPrimaryKey());
 
-        // FIXME: find an elegant solution for a dynamic SET clause within an UPDATE statement for batch updates
-        // either column exclusions or find subsets of columns within the list of IndexRecords
-        IndexRecord record = records.get(0);
-        columns.retainAll(record.getValues().keySet());
+        Map<List<String>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            List<String> recordColumns = new ArrayList<>(columns);
+            recordColumns.retainAll(records.get(i).getValues().keySet());
+
+            List<Integer> group = groups.get(recordColumns);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(recordColumns, group);
+            }
+            group.add(i);
+        }
+
+        int[] result = new int[records.size()];
+        for (Map.Entry<List<String>, List<Integer>> group : groups.entrySet()) {
+            List<Integer> positions = group.getValue();
+            SqlParameterSource[] batch = new SqlParameterSource[positions.size()];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = records.get(positions.get(i));
+            }
+
+            int[] counts = update(table.getName(), group.getKey(), whereClause, batch);
+            for (int i = 0; i < counts.length; i++) {
+                result[positions.get(i)] = counts[i];
+            }
+        }
 
-        return update(table.getName(), columns, whereClause, toParameterSourceArray(records));
+        return result;
     }
 
     public int[] delete(String table, String whereClause, SqlParameterSource[] records) {
-        String sql = String.format("DELETE FROM `%s` WHERE %s", table, whereClause);
+        String sql = String.format("DELETE FROM %s WHERE %s", quote(table), whereClause);
 
-        return jdbcn().batchUpdate(sql, records);
+        return batchUpdate(sql, records);
     }
 
     public int[] delete(Table table, List<IndexRecord> records) {
@@ -147,7 +237,44 @@ public class JdbcService {
     }
 
     public int delete(String table, String whereClause, Object... args) {
-        return jdbc().update(String.format("DELETE FROM `%s` WHERE %s", table, whereClause), args);
+        return jdbc().update(String.format("DELETE FROM %s WHERE %s", quote(table), whereClause), args);
+    }
+
+    public void createIndex(Table table, SecondaryIndex index) {
+        String columns = StringUtils.join(index.getColumns(), ",");
+
+        jdbc().execute(String.format("CREATE INDEX %s ON %s (%s)", quote(index.getName()), quote(table.getName()),
+            columns));
+    }
+
+    public void renameTable(String table, String newName) {
+        jdbc().execute(dialect.renameTable(table, newName));
+    }
+
+    public void renameIndex(Table table, SecondaryIndex index, String newName) {
+        jdbc().execute(dialect.renameIndex(table.getName(), index.getName(), newName));
+    }
+
+    /**
+     * Executes the given statement for all records, in batches of at most the batch size of the dialect.
+     * 
+     * @param sql the SQL statement with named parameters
+     * @param records the parameters of each execution
+     * @return the number of rows affected by each execution
+     */
+    protected int[] batchUpdate(String sql, SqlParameterSource[] records) {
+        int batchSize = dialect.getBatchSize();
+        if (records.length <= batchSize) {
+            return jdbcn().batchUpdate(sql, records);
+        }
+
+        int[] result = new int[records.length];
+        for (int from = 0; from < records.length; from += batchSize) {
+            int to = Math.min(from + batchSize, records.length);
+            int[] counts = jdbcn().batchUpdate(sql, Arrays.copyOfRange(records, from, to));
+            System.arraycopy(counts, 0, result, from, counts.length);
+        }
+        return result;
     }
 
     protected SqlParameterSource[] toParameterSourceArray(List<? extends SqlParameterSource> list) {
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexQuery.Condition;
+
+/**
+ * Counts how often the fields of an index are used in the predicates of IndexQueries. Fields that are filtered on at
+ * least as often as the given threshold are reported once, so that a secondary index can be proposed or created for
+ * them.
+ */
+public class QueryStatistics {
+
+    private final long threshold;
+
+    private final ConcurrentMap<List<String>, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    public QueryStatistics(long threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("The threshold has to be positive, but was " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Records the predicates of the given query.
+     * 
+     * @param query the executed query
+     * @return the names of the fields that reached the threshold with this query
+     */
+    public List<String> record(IndexQuery<?> query) {
+        String indexName = query.getIndex().getName();
+
+        Set<String> fields = new LinkedHashSet<>();
+        for (Condition condition : query.getConditions()) {
+            fields.add(condition.getField());
+        }
+        if (query.getAfterField() != null) {
+            fields.add(query.getAfterField());
+        }
+
+        List<String> result = new ArrayList<>();
+        for (String field : fields) {
+            if (increment(Arrays.asList(indexName, field)) == threshold) {
+                result.add(field);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of queries which filtered on each field of the given index.
+     * 
+     * @param indexName the name of the index
+     * @return a mapping between field names and the number of queries
+     */
+    public Map<String, Long> getCounts(String indexName) {
+        Map<String, Long> result = new HashMap<>();
+
+        for (Map.Entry<List<String>, AtomicLong> entry : counts.entrySet()) {
+            if (entry.getKey().get(0).equals(indexName)) {
+                result.put(entry.getKey().get(1), entry.getValue().get());
+            }
+        }
+
+        return result;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    private long increment(List<String> key) {
+        AtomicLong count = counts.get(key);
+        if (count == null) {
+            AtomicLong existing = counts.putIfAbsent(key, count = new AtomicLong());
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        return count.incrementAndGet();
+    }
+}
@@ -45,6 +45,25 @@ public interface SchemaMapper {
      */
     void drop(JdbcIndex<?> index);
 
+    /**
+     * Moves the data schema of the given index to the target index, whose schema must not exist. The table names of
+     * the given index are updated accordingly.
+     * 
+     * @param index the index whose schema to move
+     * @param target the index whose table names to use
+     */
+    void rename(JdbcIndex<?> index, JdbcIndex<?> target);
+
+    /**
+     * Creates a secondary index for the given field on the part of the schema that holds the current state of the
+     * models, if the field is not indexed yet.
+     * 
+     * @param index the index to extend
+     * @param fieldName the name of the index field
+     * @return true if a secondary index was created
+     */
+    boolean createIndex(JdbcIndex<?> index, String fieldName);
+
     /**
      * Executes the given operation of the schema.
      *
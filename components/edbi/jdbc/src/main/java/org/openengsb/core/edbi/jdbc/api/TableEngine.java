@@ -59,6 +59,29 @@ public interface TableEngine {
      */
     void drop(JdbcIndex<?> index) throws NoSuchTableException;
 
+    /**
+     * Renames the table mapped to the given index, together with its secondary indexes, to the name of the table of
+     * the target index. Afterwards the table is mapped to the target index.
+     * 
+     * @param index the index whose table to rename
+     * @param target the index whose table name to use
+     * @return the renamed table
+     * @throws NoSuchTableException if no table for the index exists
+     * @throws TableExistsException if the table for the target index already exists
+     */
+    Table rename(JdbcIndex<?> index, JdbcIndex<?> target) throws NoSuchTableException, TableExistsException;
+
+    /**
+     * Creates a secondary index on the column of the given field in the table mapped to the given index, unless the
+     * column already is the leading column of an index.
+     * 
+     * @param index the index whose table to extend
+     * @param fieldName the name of the index field
+     * @return true if a secondary index was created, false if the column was indexed already
+     * @throws NoSuchTableException if no table for the index exists
+     */
+    boolean createIndex(JdbcIndex<?> index, String fieldName) throws NoSuchTableException;
+
     /**
      * Executes an InsertOperation.
      * 
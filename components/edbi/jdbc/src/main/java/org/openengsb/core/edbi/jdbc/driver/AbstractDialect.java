@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+
+import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Abstract implementation of a Dialect that uses standard SQL syntax and introspects the schema via the JDBC
+ * DatabaseMetaData.
+ */
+public abstract class AbstractDialect implements Dialect {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private TypeMap typeMap;
+
+    protected AbstractDialect(TypeMap typeMap) {
+        this.typeMap = typeMap;
+    }
+
+    @Override
+    public TypeMap getTypeMap() {
+        return typeMap;
+    }
+
+    @Override
+    public String quote(String identifier) {
+        return "\"" + identifier + "\"";
+    }
+
+    @Override
+    public int getBatchSize() {
+        return DEFAULT_BATCH_SIZE;
+    }
+
+    @Override
+    public String insert(String table, Collection<String> columns) {
+        return String.format("INSERT INTO %s (%s) VALUES (%s)", quote(table), StringUtils.join(columns, ","),
+            makeParameterList(columns));
+    }
+
+    @Override
+    public String renameTable(String table, String newName) {
+        return String.format("ALTER TABLE %s RENAME TO %s", quote(table), quote(newName));
+    }
+
+    @Override
+    public String renameIndex(String table, String index, String newName) {
+        return String.format("ALTER INDEX %s RENAME TO %s", quote(index), quote(newName));
+    }
+
+    @Override
+    public boolean tableExists(JdbcTemplate jdbc, final String table) {
+        return jdbc.execute(new ConnectionCallback<Boolean>() {
+            @Override
+            public Boolean doInConnection(Connection connection) throws SQLException {
+                DatabaseMetaData metaData = connection.getMetaData();
+                String pattern = escapePattern(table, metaData.getSearchStringEscape());
+
+                try (ResultSet rs = metaData.getTables(null, null, pattern, new String[]{ "TABLE" })) {
+                    while (rs.next()) {
+                        if (table.equals(rs.getString("TABLE_NAME"))) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean isIndexed(JdbcTemplate jdbc, final String table, final String column) {
+        return jdbc.execute(new ConnectionCallback<Boolean>() {
+            @Override
+            public Boolean doInConnection(Connection connection) throws SQLException {
+                DatabaseMetaData metaData = connection.getMetaData();
+                String columnName = normalize(metaData, column);
+
+                try (ResultSet rs = metaData.getIndexInfo(null, null, table, false, true)) {
+                    while (rs.next()) {
+                        if (rs.getShort("ORDINAL_POSITION") == 1 && columnName.equals(rs.getString("COLUMN_NAME"))) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a comma separated list of named parameters for the given columns.
+     * 
+     * @param columns the column names
+     * @return SQL code
+     */
+    protected String makeParameterList(Collection<String> columns) {
+        return ":" + StringUtils.join(columns, ",:");
+    }
+
+    /**
+     * Converts an unquoted identifier into the case in which the database stores it.
+     */
+    private static String normalize(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase();
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase();
+        }
+        return identifier;
+    }
+
+    private static String escapePattern(String name, String escape) {
+        if (StringUtils.isEmpty(escape)) {
+            return name;
+        }
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver;
+
+import java.util.Collection;
+
+import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.openengsb.core.edbi.jdbc.sql.DataType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Encapsulates the SQL syntax and schema introspection of a specific DBMS. Table names are always quoted with
+ * {@link #quote(String)}, column names are used unquoted.
+ */
+public interface Dialect {
+
+    /**
+     * Returns the type map of the dbms.
+     * 
+     * @return the type map
+     */
+    TypeMap getTypeMap();
+
+    /**
+     * Quotes the given identifier, so that it is used case sensitive.
+     * 
+     * @param identifier the identifier to quote
+     * @return the quoted identifier
+     */
+    String quote(String identifier);
+
+    /**
+     * Returns the column type definition of an auto incremented column of the given type.
+     * 
+     * @param type the data type of the column
+     * @return the SQL type definition
+     */
+    String getAutoIncrementType(DataType type);
+
+    /**
+     * Returns the name of the class path resource of the script that creates the relations holding the Index meta
+     * data.
+     * 
+     * @return a resource name
+     */
+    String getSchemaResource();
+
+    /**
+     * Returns the maximum number of records that are sent to the database in a single batch.
+     * 
+     * @return the batch size
+     */
+    int getBatchSize();
+
+    /**
+     * Returns an <code>INSERT</code> statement for the given columns, with named parameters of the same name as the
+     * columns, that is suitable for batch execution.
+     * 
+     * @param table the unquoted table name
+     * @param columns the columns to insert
+     * @return SQL code
+     */
+    String insert(String table, Collection<String> columns);
+
+    /**
+     * Returns a statement that inserts a row or updates the row with the same key, with named parameters of the same
+     * name as the columns.
+     * 
+     * @param table the unquoted table name
+     * @param columns the columns to insert or update
+     * @param keyColumns the columns identifying the row, which have to be part of the columns
+     * @return SQL code
+     */
+    String upsert(String table, Collection<String> columns, Collection<String> keyColumns);
+
+    /**
+     * Returns a statement that renames the given table.
+     * 
+     * @param table the unquoted table name
+     * @param newName the unquoted new table name
+     * @return SQL code
+     */
+    String renameTable(String table, String newName);
+
+    /**
+     * Returns a statement that renames the given secondary index of the table.
+     * 
+     * @param table the unquoted name of the table the index belongs to
+     * @param index the unquoted index name
+     * @param newName the unquoted new index name
+     * @return SQL code
+     */
+    String renameIndex(String table, String index, String newName);
+
+    /**
+     * Checks whether the given table exists.
+     * 
+     * @param jdbc the template to access the database with
+     * @param table the unquoted table name
+     * @return true if the table exists
+     */
+    boolean tableExists(JdbcTemplate jdbc, String table);
+
+    /**
+     * Checks whether the given column is the leading column of an index of the table, including the primary key.
+     * 
+     * @param jdbc the template to access the database with
+     * @param table the unquoted table name
+     * @param column the unquoted column name
+     * @return true if an index starts with the column
+     */
+    boolean isIndexed(JdbcTemplate jdbc, String table, String column);
+}
@@ -38,4 +38,11 @@ public interface Driver {
      * @return the type map
      */
     TypeMap getTypeMap();
+
+    /**
+     * Returns the SQL dialect of the dbms.
+     * 
+     * @return the dialect
+     */
+    Dialect getDialect();
 }
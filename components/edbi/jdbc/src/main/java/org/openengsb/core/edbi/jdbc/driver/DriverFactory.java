@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+/**
+ * Creates the Driver for a DataSource, either by the name of the dbms or by the product name the database reports in
+ * its meta data.
+ */
+public final class DriverFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DriverFactory.class);
+
+    /**
+     * The driver name for detecting the dbms from the meta data of the DataSource.
+     */
+    public static final String AUTO = "auto";
+
+    private DriverFactory() {
+        // static class
+    }
+
+    /**
+     * Creates the Driver with the given name for the given DataSource. Supported names are "h2", "postgresql" and
+     * {@link #AUTO}, which detects the dbms from the database product name of the DataSource.
+     * 
+     * @param dataSource the data source of the index
+     * @param name the name of the dbms, or {@link #AUTO}
+     * @return a new driver
+     * @throws IllegalArgumentException if the dbms is not supported
+     */
+    public static Driver create(DataSource dataSource, String name) {
+        String dbms = AUTO.equalsIgnoreCase(name) ? detect(dataSource) : name;
+
+        LOG.info("Creating EDBI driver for dbms {}", dbms);
+
+        if ("h2".equalsIgnoreCase(dbms)) {
+            return new org.openengsb.core.edbi.jdbc.driver.h2.Driver(dataSource);
+        } else if ("postgresql".equalsIgnoreCase(dbms)) {
+            return new org.openengsb.core.edbi.jdbc.driver.postgresql.Driver(dataSource);
+        }
+
+        throw new IllegalArgumentException("There is no EDBI driver for dbms " + dbms);
+    }
+
+    private static String detect(DataSource dataSource) {
+        try {
+            return (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+        } catch (MetaDataAccessException e) {
+            throw new IllegalArgumentException("Could not detect the dbms of the data source", e);
+        }
+    }
+}
@@ -19,14 +19,15 @@ package org.openengsb.core.edbi.jdbc.driver.h2;
 import javax.sql.DataSource;
 
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.openengsb.core.edbi.jdbc.driver.Dialect;
 
 public class Driver implements org.openengsb.core.edbi.jdbc.driver.Driver {
 
-    private TypeMap typeMap;
+    private Dialect dialect;
     private DataSource dataSource;
 
     public Driver() {
-        this.typeMap = new H2TypeMap();
+        this.dialect = new H2Dialect();
     }
 
     public Driver(DataSource dataSource) {
@@ -41,7 +42,12 @@ public class Driver implements org.openengsb.core.edbi.jdbc.driver.Driver {
 
     @Override
     public TypeMap getTypeMap() {
-        return typeMap;
+        return dialect.getTypeMap();
+    }
+
+    @Override
+    public Dialect getDialect() {
+        return dialect;
     }
 
     public void setDataSource(DataSource dataSource) {
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver.h2;
+
+import java.util.Collection;
+
+import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.edbi.jdbc.driver.AbstractDialect;
+import org.openengsb.core.edbi.jdbc.sql.DataType;
+
+/**
+ * Dialect for the h2 database.
+ */
+public class H2Dialect extends AbstractDialect {
+
+    public static final String SCHEMA_RESOURCE = "index-schema.h2.sql";
+
+    public H2Dialect() {
+        super(new H2TypeMap());
+    }
+
+    @Override
+    public String quote(String identifier) {
+        return "`" + identifier + "`";
+    }
+
+    @Override
+    public String getAutoIncrementType(DataType type) {
+        return type.getName() + " AUTO_INCREMENT";
+    }
+
+    @Override
+    public String getSchemaResource() {
+        return SCHEMA_RESOURCE;
+    }
+
+    @Override
+    public String upsert(String table, Collection<String> columns, Collection<String> keyColumns) {
+        return String.format("MERGE INTO %s (%s) KEY (%s) VALUES (%s)", quote(table), StringUtils.join(columns, ","),
+            StringUtils.join(keyColumns, ","), makeParameterList(columns));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver.postgresql;
+
+import javax.sql.DataSource;
+
+import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.openengsb.core.edbi.jdbc.driver.Dialect;
+
+public class Driver implements org.openengsb.core.edbi.jdbc.driver.Driver {
+
+    private Dialect dialect;
+    private DataSource dataSource;
+
+    public Driver() {
+        this.dialect = new PostgreSQLDialect();
+    }
+
+    public Driver(DataSource dataSource) {
+        this();
+        setDataSource(dataSource);
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public TypeMap getTypeMap() {
+        return dialect.getTypeMap();
+    }
+
+    @Override
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+}
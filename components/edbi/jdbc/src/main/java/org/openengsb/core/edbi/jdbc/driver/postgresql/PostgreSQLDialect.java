@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver.postgresql;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.edbi.jdbc.driver.AbstractDialect;
+import org.openengsb.core.edbi.jdbc.sql.DataType;
+
+/**
+ * Dialect for PostgreSQL (9.5 or later, for the upsert syntax). Batches are sent as they are, enable the
+ * <code>reWriteBatchedInserts</code> property of the PostgreSQL JDBC driver to bulk load them as multi-row inserts.
+ */
+public class PostgreSQLDialect extends AbstractDialect {
+
+    public static final String SCHEMA_RESOURCE = "index-schema.postgresql.sql";
+
+    public PostgreSQLDialect() {
+        super(new PostgreSQLTypeMap());
+    }
+
+    @Override
+    public String getAutoIncrementType(DataType type) {
+        String name = type.getName().toUpperCase();
+
+        if (name.equals("BIGINT")) {
+            return "BIGSERIAL";
+        } else if (name.equals("SMALLINT")) {
+            return "SMALLSERIAL";
+        } else {
+            return "SERIAL";
+        }
+    }
+
+    @Override
+    public String getSchemaResource() {
+        return SCHEMA_RESOURCE;
+    }
+
+    @Override
+    public String upsert(String table, Collection<String> columns, Collection<String> keyColumns) {
+        List<String> updates = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            if (!keyColumns.contains(column)) {
+                updates.add(column + " = EXCLUDED." + column);
+            }
+        }
+
+        String action = updates.isEmpty() ? "NOTHING" : "UPDATE SET " + StringUtils.join(updates, ",");
+
+        return String.format("%s ON CONFLICT (%s) DO %s", insert(table, columns), StringUtils.join(keyColumns, ","),
+            action);
+    }
+}
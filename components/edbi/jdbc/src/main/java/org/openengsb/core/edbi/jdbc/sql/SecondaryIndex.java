@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A secondary index on one or more columns of a database table. Unlike constraints, secondary indexes are no part of
+ * the table definition and are created separately once the table exists.
+ */
+public class SecondaryIndex {
+
+    private String name;
+    private List<String> columns;
+
+    public SecondaryIndex(String name, String... columns) {
+        this(name, new ArrayList<>(Arrays.asList(columns)));
+    }
+
+    public SecondaryIndex(String name, List<String> columns) {
+        this.name = name;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a new SecondaryIndex for the given table, whose name is derived from the table name and the given name.
+     * 
+     * @param table the table the index belongs to
+     * @param name the name of the index within the table, e.g. the name of the indexed field
+     * @param columns the columns the index consists of
+     * @return a new SecondaryIndex
+     */
+    public static SecondaryIndex on(Table table, String name, List<String> columns) {
+        return new SecondaryIndex(getPrefix(table.getName()) + name.toUpperCase(), columns);
+    }
+
+    /**
+     * Returns the name of this index after its table was renamed. Names that were derived from the old table name by
+     * {@link #on(Table, String, List)} are derived from the new table name, all other names stay the same.
+     * 
+     * @param tableName the old table name
+     * @param newTableName the new table name
+     * @return the name of the index for the renamed table
+     */
+    public String getNameFor(String tableName, String newTableName) {
+        String prefix = getPrefix(tableName);
+
+        if (!name.startsWith(prefix)) {
+            return name;
+        }
+
+        return getPrefix(newTableName) + name.substring(prefix.length());
+    }
+
+    private static String getPrefix(String tableName) {
+        return "IDX_" + tableName + "_";
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+}
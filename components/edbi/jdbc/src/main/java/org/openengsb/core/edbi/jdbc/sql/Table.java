@@ -26,6 +26,7 @@ import java.util.List;
 public class Table {
     private String name;
     private List<TableElement> elements;
+    private List<SecondaryIndex> indexes = new ArrayList<>();
 
     public Table() {
         this(null);
@@ -64,6 +65,30 @@ public class Table {
         this.elements = elements;
     }
 
+    public void addIndex(SecondaryIndex index) {
+        this.indexes.add(index);
+    }
+
+    public List<SecondaryIndex> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Returns the secondary index whose first column is the given column, or null if no index starts with it.
+     * 
+     * @param column the column name
+     * @return a secondary index usable for lookups by the column, or null
+     */
+    public SecondaryIndex getIndexFor(String column) {
+        for (SecondaryIndex index : indexes) {
+            if (!index.getColumns().isEmpty() && index.getColumns().get(0).equals(column)) {
+                return index;
+            }
+        }
+
+        return null;
+    }
+
     public void accept(TableElementVisitor visitor) {
         for (TableElement element : elements) {
             element.accept(visitor);
@@ -21,6 +21,8 @@ import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.edbi.jdbc.driver.Dialect;
+import org.openengsb.core.edbi.jdbc.driver.h2.H2Dialect;
 
 /**
  * {@link TableElementVisitor} implementation that builds the table-element definition for an SQL <code>CREATE</code>
@@ -29,11 +31,17 @@ import org.apache.commons.lang.StringUtils;
 public class TableElementCompiler implements TableElementVisitor {
 
     private Table table;
+    private Dialect dialect;
 
     private List<String> elements;
 
     public TableElementCompiler(Table table) {
+        this(table, new H2Dialect());
+    }
+
+    public TableElementCompiler(Table table, Dialect dialect) {
         this.table = table;
+        this.dialect = dialect;
     }
 
     /**
@@ -84,20 +92,21 @@ public class TableElementCompiler implements TableElementVisitor {
         str.append(" ");
 
         DataType type = element.getType();
-        str.append(type.getName());
-
-        if (type.getScale() > 0) {
-            str.append("(");
-            str.append(Integer.toString(type.getScale()));
-            str.append(")");
+        if (element.hasOption(Column.Option.AUTO_INCREMENT)) {
+            str.append(dialect.getAutoIncrementType(type));
+        } else {
+            str.append(type.getName());
+
+            if (type.getScale() > 0) {
+                str.append("(");
+                str.append(Integer.toString(type.getScale()));
+                str.append(")");
+            }
         }
 
         if (element.hasOption(Column.Option.NOT_NULL)) {
             str.append(" NOT NULL");
         }
-        if (element.hasOption(Column.Option.AUTO_INCREMENT)) {
-            str.append(" AUTO_INCREMENT");
-        }
 
         return str.toString();
     }
@@ -25,10 +25,12 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.api.model.annotation.IndexedModelField;
 import org.openengsb.core.api.model.annotation.Model;
 import org.openengsb.core.api.model.annotation.OpenEngSBModelId;
 import org.slf4j.Logger;
@@ -170,6 +172,34 @@ public final class Introspector {
         return (field == null) ? null : field.getName();
     }
 
+    /**
+     * Uses {@link #getAnnotatedFields(Class, Class)} to look for fields annotated with the {@code IndexedModelField}
+     * annotation and groups their names by the secondary index they belong to. Fields without an index name form an
+     * index on their own, named by the field.
+     * 
+     * @param modelClass the class to introspect
+     * @return a mapping between index names and the names of the fields the index consists of, in declaration order
+     */
+    public static Map<String, List<String>> getIndexedFieldGroups(Class<?> modelClass) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+
+        for (Field field : getAnnotatedFields(modelClass, IndexedModelField.class)) {
+            String group = field.getAnnotation(IndexedModelField.class).value();
+            if (group.isEmpty()) {
+                group = field.getName();
+            }
+
+            List<String> fields = groups.get(group);
+            if (fields == null) {
+                fields = new ArrayList<>();
+                groups.put(group, fields);
+            }
+            fields.add(field.getName());
+        }
+
+        return groups;
+    }
+
     /**
      * Checks whether the given object is a OpenEngSBModel (i.e. is either assignable by OpenEngSBModel or has the Model
      * annotation.
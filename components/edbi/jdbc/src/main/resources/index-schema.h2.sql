@@ -33,3 +33,10 @@ CREATE TABLE IF NOT EXISTS `INDEX_FIELD_INFORMATION` (
 
   FOREIGN KEY (`INDEX_NAME`) REFERENCES `INDEX_INFORMATION` (`NAME`) ON DELETE CASCADE
 );
+
+CREATE TABLE IF NOT EXISTS `INDEX_SECONDARY_INFORMATION` (
+  `INDEX_NAME`  VARCHAR(500),
+  `FIELD_NAME`  VARCHAR(500),
+
+  FOREIGN KEY (`INDEX_NAME`) REFERENCES `INDEX_INFORMATION` (`NAME`) ON DELETE CASCADE
+);
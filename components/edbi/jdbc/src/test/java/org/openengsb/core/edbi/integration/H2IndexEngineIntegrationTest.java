@@ -18,9 +18,12 @@ package org.openengsb.core.edbi.integration;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Before;
@@ -28,10 +31,12 @@ import org.junit.Test;
 import org.openengsb.core.edbi.api.Index;
 import org.openengsb.core.edbi.api.IndexCommit;
 import org.openengsb.core.edbi.api.IndexCommitBuilder;
+import org.openengsb.core.edbi.api.IndexQuery;
 import org.openengsb.core.edbi.jdbc.AbstractH2DatabaseTest;
 import org.openengsb.core.edbi.jdbc.JdbcIndex;
 import org.openengsb.core.edbi.jdbc.JdbcIndexEngine;
 import org.openengsb.core.edbi.jdbc.JdbcIndexEngineFactory;
+import org.openengsb.core.edbi.jdbc.QueryStatistics;
 import org.openengsb.core.edbi.jdbc.driver.h2.Driver;
 import org.openengsb.core.edbi.models.PrimitivePropertyModel;
 import org.openengsb.core.edbi.models.SubTestModel;
@@ -246,6 +251,108 @@ public class H2IndexEngineIntegrationTest extends AbstractH2DatabaseTest {
         assertEquals(Short.MAX_VALUE, record.get("PRIMITIVESHORT"));
     }
 
+    @Test
+    public void rebuildIndex_replacesTablesWithMergedCommits() throws Exception {
+        TestModel entity = new TestModel("foo", 1);
+        IndexCommit insertCommit = newTestCommit().insert(entity).get();
+        engine.commit(insertCommit);
+
+        entity.setTestInteger(42);
+        IndexCommit updateCommit = newTestCommit().update(entity).get();
+        engine.commit(updateCommit);
+
+        Index<TestModel> index = engine.getIndex(TestModel.class);
+        jdbc().update("DELETE FROM " + index.getHeadTableName()); // let the index diverge
+        int tables = countTables();
+
+        Index<TestModel> rebuilt =
+            engine.rebuildIndex(TestModel.class, Arrays.asList(insertCommit, updateCommit).iterator());
+
+        assertSame(rebuilt, engine.getIndex(TestModel.class));
+        assertEquals(index.getHeadTableName(), rebuilt.getHeadTableName());
+        assertEquals(index.getHistoryTableName(), rebuilt.getHistoryTableName());
+        assertEquals(tables, countTables());
+        assertEquals(1, jdbc().queryForInt("SELECT COUNT(*) FROM INDEX_INFORMATION"));
+
+        assertEquals(1, jdbc().queryForInt("SELECT COUNT(*) FROM " + rebuilt.getHeadTableName()));
+        assertEquals(2, jdbc().queryForInt("SELECT COUNT(*) FROM " + rebuilt.getHistoryTableName()));
+        assertEquals(42, jdbc().queryForInt("SELECT TESTINTEGER FROM " + rebuilt.getHeadTableName()));
+    }
+
+    @Test
+    public void rebuildIndex_twice_rebuildsIndexWithSecondaryIndexes() throws Exception {
+        IndexCommit commit = newTestCommit().insert(new TestModel("foo", 1)).get();
+
+        engine.rebuildIndex(TestModel.class, Arrays.asList(commit).iterator());
+        Index<TestModel> rebuilt = engine.rebuildIndex(TestModel.class, Arrays.asList(commit).iterator());
+
+        assertEquals(1, jdbc().queryForInt("SELECT COUNT(*) FROM " + rebuilt.getHeadTableName()));
+
+        String sql = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = ? AND COLUMN_NAME = ?";
+        assertEquals(1, jdbc().queryForInt(sql, rebuilt.getHeadTableName(), "TESTINTEGER"));
+    }
+
+    @Test
+    public void rebuildIndex_recreatesSecondaryIndexesOfFrequentlyQueriedFields() throws Exception {
+        IndexCommit commit = newTestCommit().insert(new TestModel("foo", 1)).get();
+        engine.commit(commit);
+        engine.setQueryStatistics(new QueryStatistics(1));
+        engine.setAutoCreateIndexes(true);
+        engine.query(IndexQuery.on(engine.getIndex(TestModel.class)).equal("testId", "foo"));
+
+        Index<TestModel> rebuilt = engine.rebuildIndex(TestModel.class, Arrays.asList(commit).iterator());
+
+        String sql = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = ? AND COLUMN_NAME = ?";
+        assertEquals(1, jdbc().queryForInt(sql, rebuilt.getHeadTableName(), "TESTID"));
+        assertTrue(engine.getIndex(TestModel.class).getIndexedFields().contains("testId"));
+    }
+
+    @Test
+    public void loadIndex_afterSecondaryIndexWasCreated_keepsTheIndexedFields() throws Exception {
+        engine.commit(newTestCommit().insert(new TestModel("foo", 1)).get());
+        engine.setQueryStatistics(new QueryStatistics(1));
+        engine.setAutoCreateIndexes(true);
+        engine.query(IndexQuery.on(engine.getIndex(TestModel.class)).equal("testId", "foo"));
+
+        JdbcIndexEngine restarted = new JdbcIndexEngineFactory(driver).create();
+        assertTrue(restarted.getIndex(TestModel.class).getIndexedFields().contains("testId"));
+
+        restarted.reload();
+        assertTrue(restarted.getIndex(TestModel.class).getIndexedFields().contains("testId"));
+    }
+
+    @Test
+    public void rebuildIndexes_rebuildsAllIndexesInOnePass() throws Exception {
+        SubTestModel submodel = new SubTestModel(11);
+        IndexCommit commit = newTestCommit().insert(submodel).insert(new TestModel("foo", 1, submodel)).get();
+        engine.commit(commit);
+        jdbc().update("DELETE FROM " + engine.getIndex(TestModel.class).getHeadTableName());
+
+        List<Index<?>> rebuilt = engine.rebuildIndexes(
+            Arrays.<Class<?>> asList(TestModel.class, SubTestModel.class), Arrays.asList(commit).iterator());
+
+        assertEquals(2, rebuilt.size());
+        assertSame(rebuilt.get(0), engine.getIndex(TestModel.class));
+        assertSame(rebuilt.get(1), engine.getIndex(SubTestModel.class));
+        assertEquals(1, jdbc().queryForInt("SELECT COUNT(*) FROM " + rebuilt.get(0).getHeadTableName()));
+        assertEquals(1, jdbc().queryForInt("SELECT COUNT(*) FROM " + rebuilt.get(1).getHeadTableName()));
+        assertEquals(2, jdbc().queryForInt("SELECT COUNT(*) FROM INDEX_INFORMATION"));
+    }
+
+    @Test
+    public void rebuildIndex_ignoresCommitsOfOtherModels() throws Exception {
+        IndexCommit commit = newTestCommit().insert(new SubTestModel(11)).get();
+
+        Index<TestModel> rebuilt = engine.rebuildIndex(TestModel.class, Arrays.asList(commit).iterator());
+
+        assertEquals(0, jdbc().queryForInt("SELECT COUNT(*) FROM " + rebuilt.getHeadTableName()));
+        assertEquals(0, jdbc().queryForInt("SELECT COUNT(*) FROM " + rebuilt.getHistoryTableName()));
+    }
+
+    private int countTables() {
+        return jdbc().queryForInt("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC'");
+    }
+
     private IndexCommitBuilder newTestCommit() {
         return IndexCommitBuilder.create()
             .context("testContext")
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexCommitBuilder;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexQuery.Operator;
+import org.openengsb.core.edbi.jdbc.AbstractH2DatabaseTest;
+import org.openengsb.core.edbi.jdbc.JdbcIndexEngine;
+import org.openengsb.core.edbi.jdbc.JdbcIndexEngineFactory;
+import org.openengsb.core.edbi.jdbc.driver.Dialect;
+import org.openengsb.core.edbi.jdbc.driver.postgresql.Driver;
+import org.openengsb.core.edbi.models.TestModel;
+
+/**
+ * Runs the index engine with the PostgreSQL dialect against h2 in its PostgreSQL compatibility mode.
+ */
+public class PostgreSQLIndexEngineIntegrationTest extends AbstractH2DatabaseTest {
+
+    Driver driver;
+    JdbcIndexEngine engine;
+
+    @Override
+    protected DataSource createDataSource() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+
+        dataSource.setURL("jdbc:h2:mem:postgresql;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("");
+        dataSource.setPassword("");
+
+        return dataSource;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        driver = new Driver(getDataSource());
+        engine = new JdbcIndexEngineFactory(driver).create();
+        engine.install();
+    }
+
+    @Test
+    public void commit_insertsRecordsThatCanBeQueried() throws Exception {
+        engine.commit(newTestCommit().insert(new TestModel("foo", 1)).insert(new TestModel("bar", 2)).get());
+
+        Index<TestModel> index = engine.getIndex(TestModel.class);
+        List<Map<String, Object>> rows = engine.query(IndexQuery.on(index).where("testInteger", Operator.GREATER, 1));
+
+        assertEquals(1, rows.size());
+        assertEquals("bar", rows.get(0).get("testId"));
+        assertEquals(2L, count(index.getHistoryTableName()));
+    }
+
+    @Test
+    public void commit_update_updatesHeadTable() throws Exception {
+        TestModel model = new TestModel("foo", 1);
+        engine.commit(newTestCommit().insert(model).get());
+
+        model.setTestInteger(42);
+        engine.commit(newTestCommit().update(model).get());
+
+        Index<TestModel> index = engine.getIndex(TestModel.class);
+        List<Map<String, Object>> rows = engine.query(IndexQuery.on(index).equal("testId", "foo"));
+
+        assertEquals(1, rows.size());
+        assertEquals(42, rows.get(0).get("testInteger"));
+        assertEquals(1L, count(index.getHeadTableName()));
+        assertEquals(2L, count(index.getHistoryTableName()));
+    }
+
+    @Test
+    public void dialect_introspectsCreatedTables() throws Exception {
+        Index<TestModel> index = engine.createIndex(TestModel.class);
+        Dialect dialect = driver.getDialect();
+
+        assertTrue(dialect.tableExists(jdbc(), index.getHeadTableName()));
+        assertFalse(dialect.tableExists(jdbc(), "HEAD_UNKNOWN"));
+
+        assertTrue(dialect.isIndexed(jdbc(), index.getHeadTableName(), "TESTID"));
+        assertTrue(dialect.isIndexed(jdbc(), index.getHeadTableName(), "TESTINTEGER"));
+        assertFalse(dialect.isIndexed(jdbc(), index.getHeadTableName(), "SUBMODEL"));
+    }
+
+    @Test
+    public void upsert_returnsInsertOnConflictStatement() throws Exception {
+        String sql = driver.getDialect().upsert("T", Arrays.asList("ID", "NAME"), Arrays.asList("ID"));
+
+        assertEquals("INSERT INTO \"T\" (ID,NAME) VALUES (:ID,:NAME) "
+            + "ON CONFLICT (ID) DO UPDATE SET NAME = EXCLUDED.NAME", sql);
+    }
+
+    private long count(String table) throws SQLException {
+        return jdbc().queryForObject("SELECT COUNT(*) FROM \"" + table + "\"", Long.class);
+    }
+
+    private IndexCommitBuilder newTestCommit() {
+        return IndexCommitBuilder.create()
+            .context("testContext")
+            .user("testUser")
+            .domain("testDomain")
+            .connector("testConnector")
+            .instance("testInstance");
+    }
+}
@@ -46,13 +46,20 @@ import org.openengsb.core.edbi.jdbc.api.TypeMap;
 import org.openengsb.core.edbi.jdbc.operation.DeleteOperation;
 import org.openengsb.core.edbi.jdbc.operation.InsertOperation;
 import org.openengsb.core.edbi.jdbc.operation.UpdateOperation;
+import org.openengsb.core.edbi.jdbc.sql.Table;
 import org.openengsb.core.edbi.models.TestModel;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class HeadTableEngineTest extends AbstractTableEngineTest {
 
     private Connection connection;
 
+    private JdbcIndex<TestModel> renamedIndex;
+
     @Before
     public void setUp() throws Exception {
         connection = getDataSource().getConnection();
@@ -64,7 +71,10 @@ public class HeadTableEngineTest extends AbstractTableEngineTest {
         IndexNameTranslator indexNameTranslatorStub = new IndexNameTranslator() {
             @Override
             public String translate(Index<?> index) {
-                return (index == testIndex) ? "HEAD_TABLE" : null;
+                if (index == testIndex) {
+                    return "HEAD_TABLE";
+                }
+                return (index == renamedIndex) ? "RENAMED_TABLE" : null;
             }
         };
 
@@ -221,4 +231,58 @@ public class HeadTableEngineTest extends AbstractTableEngineTest {
             assertFalse(rs.next());
         }
     }
+
+    @Test
+    public void create_withIndexedField_createsSecondaryIndex() throws Exception {
+        Table table = engine.create(testIndex);
+
+        assertEquals(1, table.getIndexes().size());
+        assertEquals("IDX_HEAD_TABLE_TESTINTEGER", table.getIndexes().get(0).getName());
+        assertEquals(1, countIndexes("IDX_HEAD_TABLE_TESTINTEGER"));
+    }
+
+    @Test
+    public void createIndex_onUnindexedField_createsSecondaryIndexOnce() throws Exception {
+        engine.create(testIndex);
+
+        assertTrue(engine.createIndex(testIndex, "subModel"));
+        assertFalse(engine.createIndex(testIndex, "subModel"));
+        assertEquals(1, countIndexes("IDX_HEAD_TABLE_SUBMODEL"));
+    }
+
+    @Test
+    public void createIndex_onIndexedField_returnsFalse() throws Exception {
+        engine.create(testIndex);
+
+        assertFalse(engine.createIndex(testIndex, "testId"));
+        assertFalse(engine.createIndex(testIndex, "testInteger"));
+    }
+
+    @Test
+    public void rename_withinTransaction_updatesTablesOnCommit() throws Exception {
+        engine.create(testIndex);
+        renamedIndex = new JdbcIndex<>();
+        renamedIndex.setName("renamed");
+
+        new TransactionTemplate(new DataSourceTransactionManager(getDataSource())).execute(
+            new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    Table renamed = engine.rename(testIndex, renamedIndex);
+
+                    assertEquals("RENAMED_TABLE", renamed.getName());
+                    assertEquals("HEAD_TABLE", engine.get(testIndex).getName());
+                }
+            });
+
+        assertFalse(engine.exists(testIndex));
+        Table table = engine.get(renamedIndex);
+        assertEquals("RENAMED_TABLE", table.getName());
+        assertEquals("IDX_RENAMED_TABLE_TESTINTEGER", table.getIndexes().get(0).getName());
+        assertEquals(1, countIndexes("IDX_RENAMED_TABLE_TESTINTEGER"));
+    }
+
+    private long countIndexes(String name) throws Exception {
+        return jdbc().queryForLong("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = ?", name);
+    }
 }
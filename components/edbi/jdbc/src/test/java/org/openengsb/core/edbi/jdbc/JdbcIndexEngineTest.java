@@ -30,19 +30,25 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.edbi.api.EDBIndexException;
 import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexCommit;
 import org.openengsb.core.edbi.api.IndexExistsException;
 import org.openengsb.core.edbi.api.IndexField;
 import org.openengsb.core.edbi.api.IndexFieldNameTranslator;
 import org.openengsb.core.edbi.api.IndexNameTranslator;
 import org.openengsb.core.edbi.api.IndexNotFoundException;
+import org.openengsb.core.edbi.api.IndexQuery;
 import org.openengsb.core.edbi.jdbc.api.SchemaMapper;
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
 import org.openengsb.core.edbi.jdbc.sql.DataType;
@@ -125,6 +131,7 @@ public class JdbcIndexEngineTest extends AbstractH2DatabaseTest {
         assertEquals("INDEX_HISTORY", index.getHistoryTableName());
 
         assertEquals(3, index.getFields().size());
+        assertEquals("testId", index.getModelIdField().getName());
     }
 
     @Test(expected = IndexExistsException.class)
@@ -251,6 +258,61 @@ public class JdbcIndexEngineTest extends AbstractH2DatabaseTest {
         assertTrue(all.contains(i2));
     }
 
+    @Test
+    public void commit_insertsIntoHeadAndHistory() throws Exception {
+        indexEngine.commit(createInsertCommit(new TestModel("A", 1), new TestModel("B", 2)));
+
+        assertEquals(2, jdbc().queryForObject("SELECT COUNT(*) FROM INDEX_HEAD", Long.class).longValue());
+        assertEquals(2, jdbc().queryForObject("SELECT COUNT(*) FROM INDEX_HISTORY", Long.class).longValue());
+    }
+
+    @Test
+    public void commit_failingOperation_rollsBackEntireCommit() throws Exception {
+        indexEngine.commit(createInsertCommit(new TestModel("A", 1)));
+
+        try {
+            indexEngine.commit(createInsertCommit(new TestModel("B", 2), new TestModel("A", 3)));
+            fail("Commit with a duplicate id did not fail");
+        } catch (EDBIndexException e) {
+            // expected
+        }
+
+        assertEquals(1, jdbc().queryForObject("SELECT COUNT(*) FROM INDEX_HEAD", Long.class).longValue());
+        assertEquals(1, jdbc().queryForObject("SELECT COUNT(*) FROM INDEX_HISTORY", Long.class).longValue());
+    }
+
+    @Test
+    public void query_withConditionAndOrdering_returnsMatchingRows() throws Exception {
+        indexEngine.commit(createInsertCommit(new TestModel("A", 1), new TestModel("B", 2), new TestModel("C", 3)));
+        Index<TestModel> index = indexEngine.getIndex(TestModel.class);
+
+        List<Map<String, Object>> rows =
+            indexEngine.query(IndexQuery.on(index).between("testInteger", 2, null).orderBy("testInteger", false));
+
+        assertEquals(2, rows.size());
+        assertEquals("C", rows.get(0).get("testId"));
+        assertEquals(3, rows.get(0).get("testInteger"));
+        assertEquals("B", rows.get(1).get("testId"));
+    }
+
+    @Test
+    public void query_withKeyset_returnsNextPage() throws Exception {
+        indexEngine.commit(createInsertCommit(new TestModel("A", 1), new TestModel("B", 2), new TestModel("C", 3)));
+        Index<TestModel> index = indexEngine.getIndex(TestModel.class);
+
+        List<Map<String, Object>> rows = indexEngine.query(IndexQuery.on(index).after("testId", "A").limit(1));
+
+        assertEquals(1, rows.size());
+        assertEquals("B", rows.get(0).get("testId"));
+    }
+
+    @Test(expected = EDBIndexException.class)
+    public void query_withUnknownField_throwsException() throws Exception {
+        Index<TestModel> index = indexEngine.createIndex(TestModel.class);
+
+        indexEngine.query(IndexQuery.on(index).equal("unknown", 42));
+    }
+
     @Test
     public void load_works() throws Exception {
         Method loadIndex = JdbcIndexEngine.class.getDeclaredMethod("load", String.class);
@@ -283,4 +345,51 @@ public class JdbcIndexEngineTest extends AbstractH2DatabaseTest {
         }
     }
 
+    @Test
+    public void reload_loadsPersistedIndexes() throws Exception {
+        indexEngine.createIndex(TestModel.class);
+
+        JdbcIndexEngine otherEngine = new JdbcIndexEngine(getDataSource(), schemaMapper);
+        otherEngine.reload();
+
+        assertTrue(otherEngine.indexExists("org.openengsb.core.edbi.models.TestModel"));
+        assertFalse(otherEngine.indexExists(SubTestModel.class));
+        assertEquals(1, otherEngine.getAll().size());
+
+        Index<TestModel> index = otherEngine.getIndex(TestModel.class);
+        assertEquals("INDEX_HEAD", index.getHeadTableName());
+        assertEquals("INDEX_HISTORY", index.getHistoryTableName());
+        assertEquals(3, index.getFields().size());
+    }
+
+    @Test
+    public void removeIndex_afterReload_removesIndexFromRegistry() throws Exception {
+        indexEngine.reload();
+        Index<TestModel> index = indexEngine.createIndex(TestModel.class);
+
+        indexEngine.removeIndex(index);
+
+        assertFalse(indexEngine.indexExists(TestModel.class));
+        assertTrue(indexEngine.getAll().isEmpty());
+    }
+
+    private IndexCommit createInsertCommit(TestModel... models) {
+        IndexCommit commit = new IndexCommit();
+        commit.setCommitId(UUID.randomUUID());
+        commit.setTimestamp(new Date());
+        commit.setModelClasses(Collections.<Class<?>> singleton(TestModel.class));
+
+        Map<Class<?>, List<OpenEngSBModel>> inserts = new HashMap<>();
+        List<OpenEngSBModel> insertedModels = new ArrayList<>();
+        for (TestModel model : models) {
+            insertedModels.add((OpenEngSBModel) model);
+        }
+        inserts.put(TestModel.class, insertedModels);
+        commit.setInserts(inserts);
+        commit.setUpdates(new HashMap<Class<?>, List<OpenEngSBModel>>());
+        commit.setDeletes(new HashMap<Class<?>, List<OpenEngSBModel>>());
+
+        return commit;
+    }
+
 }
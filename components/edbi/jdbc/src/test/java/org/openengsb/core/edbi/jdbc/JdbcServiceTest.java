@@ -16,12 +16,14 @@
  */
 package org.openengsb.core.edbi.jdbc;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
 
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -117,6 +119,71 @@ public class JdbcServiceTest extends AbstractH2DatabaseTest {
         assertEquals(44, row.get("AGE"));
     }
 
+    @Test
+    public void update_withDifferentColumnsPerRecord_updatesOnlyGivenColumns() throws Exception {
+        List<IndexRecord> records = getRecords();
+        service.insert(table, records);
+
+        JdbcIndex<?> index = mock(JdbcIndex.class);
+
+        IndexRecord record1 = new IndexRecord(index);
+        record1.addValue("ID", 1L, Types.BIGINT);
+        record1.addValue("AGE", 43, Types.INTEGER);
+
+        IndexRecord record2 = new IndexRecord(index);
+        record2.addValue("ID", 2L, Types.BIGINT);
+        record2.addValue("NAME", "Trillian", Types.VARCHAR);
+
+        IndexRecord record3 = new IndexRecord(index);
+        record3.addValue("ID", 3L, Types.BIGINT);
+        record3.addValue("AGE", 21, Types.INTEGER);
+
+        int[] counts = service.update(table, Arrays.asList(record1, record2, record3));
+
+        assertArrayEquals(new int[]{1, 1, 0}, counts);
+
+        List<Map<String, Object>> rows = jdbc.queryForList("SELECT * FROM `TEST`");
+        Map<String, Object> row;
+
+        row = rows.get(0);
+        assertEquals(1L, row.get("ID"));
+        assertEquals("Arthur", row.get("NAME"));
+        assertEquals(43, row.get("AGE"));
+
+        row = rows.get(1);
+        assertEquals(2L, row.get("ID"));
+        assertEquals("Trillian", row.get("NAME"));
+        assertNull(row.get("AGE"));
+    }
+
+    @Test
+    public void upsert_insertsNewAndUpdatesExistingRecords() throws Exception {
+        service.insert(table, getRecords());
+
+        JdbcIndex<?> index = mock(JdbcIndex.class);
+
+        IndexRecord record1 = new IndexRecord(index);
+        record1.addValue("ID", 1L, Types.BIGINT);
+        record1.addValue("NAME", "Zaphod", Types.VARCHAR);
+        record1.addValue("AGE", 43, Types.INTEGER);
+
+        IndexRecord record2 = new IndexRecord(index);
+        record2.addValue("ID", 3L, Types.BIGINT);
+        record2.addValue("NAME", "Trillian", Types.VARCHAR);
+        record2.addValue("AGE", 30, Types.INTEGER);
+
+        service.upsert(table, Arrays.asList(record1, record2));
+
+        List<Map<String, Object>> rows = jdbc.queryForList("SELECT * FROM `TEST` ORDER BY ID");
+        assertEquals(3, rows.size());
+
+        assertEquals("Zaphod", rows.get(0).get("NAME"));
+        assertEquals(43, rows.get(0).get("AGE"));
+        assertEquals("Ford", rows.get(1).get("NAME"));
+        assertEquals(3L, rows.get(2).get("ID"));
+        assertEquals("Trillian", rows.get(2).get("NAME"));
+    }
+
     private List<IndexRecord> getRecords() {
         JdbcIndex<?> index = mock(JdbcIndex.class);
 
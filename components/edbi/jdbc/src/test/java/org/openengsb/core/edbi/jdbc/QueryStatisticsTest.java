@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.models.TestModel;
+
+public class QueryStatisticsTest {
+
+    private JdbcIndex<TestModel> index;
+    private QueryStatistics statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new JdbcIndex<>();
+        index.setName("testIndex");
+
+        statistics = new QueryStatistics(2);
+    }
+
+    @Test
+    public void record_reportsFieldOnceWhenThresholdIsReached() throws Exception {
+        IndexQuery<TestModel> query = IndexQuery.on(index).equal("testInteger", 42).between("testInteger", 1, 100);
+
+        assertTrue(statistics.record(query).isEmpty());
+        assertEquals(Arrays.asList("testInteger"), statistics.record(query));
+        assertTrue(statistics.record(query).isEmpty());
+    }
+
+    @Test
+    public void getCounts_returnsCountsPerField() throws Exception {
+        statistics.record(IndexQuery.on(index).equal("testId", "A").after("testInteger", 42));
+        statistics.record(IndexQuery.on(index).equal("testId", "B"));
+
+        Map<String, Long> counts = statistics.getCounts("testIndex");
+
+        assertEquals(2, counts.size());
+        assertEquals(Long.valueOf(2), counts.get("testId"));
+        assertEquals(Long.valueOf(1), counts.get("testInteger"));
+        assertTrue(statistics.getCounts("otherIndex").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_withInvalidThreshold_throwsException() throws Exception {
+        new QueryStatistics(0);
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openengsb.core.edbi.jdbc.AbstractH2DatabaseTest;
+import org.openengsb.core.edbi.jdbc.driver.h2.H2Dialect;
+
+public class DriverFactoryTest extends AbstractH2DatabaseTest {
+
+    @Test
+    public void create_withAuto_detectsTheDbmsOfTheDataSource() throws Exception {
+        Driver driver = DriverFactory.create(getDataSource(), DriverFactory.AUTO);
+
+        assertTrue(driver instanceof org.openengsb.core.edbi.jdbc.driver.h2.Driver);
+        assertTrue(driver.getDialect() instanceof H2Dialect);
+        assertSame(getDataSource(), driver.getDataSource());
+    }
+
+    @Test
+    public void create_withName_returnsTheDriverOfThatDbms() throws Exception {
+        Driver driver = DriverFactory.create(getDataSource(), "PostgreSQL");
+
+        assertTrue(driver instanceof org.openengsb.core.edbi.jdbc.driver.postgresql.Driver);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_withUnknownName_throwsException() throws Exception {
+        DriverFactory.create(getDataSource(), "oracle");
+    }
+}
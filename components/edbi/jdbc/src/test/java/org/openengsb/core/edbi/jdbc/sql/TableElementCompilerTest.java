@@ -17,10 +17,12 @@
 package org.openengsb.core.edbi.jdbc.sql;
 
 import static org.junit.Assert.assertEquals;
+import static org.openengsb.core.edbi.jdbc.sql.Column.Option.AUTO_INCREMENT;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.openengsb.core.edbi.jdbc.driver.postgresql.PostgreSQLDialect;
 
 import java.sql.Types;
 
@@ -102,6 +104,13 @@ public class TableElementCompilerTest {
         compileAndAssert("A INT,(A) REFERENCES R (B)", table);
     }
 
+    @Test
+    public void toSql_withAutoIncrementColumnForPostgreSQL_returnsSerialType() throws Exception {
+        Table table = new Table("FOO", new Column("A", new DataType(Types.BIGINT, "BIGINT"), AUTO_INCREMENT));
+
+        assertEquals("A BIGSERIAL", new TableElementCompiler(table, new PostgreSQLDialect()).toSql());
+    }
+
     public static void compileAndAssert(String expected, Table table) {
         assertEquals(expected, new TableElementCompiler(table).toSql());
     }
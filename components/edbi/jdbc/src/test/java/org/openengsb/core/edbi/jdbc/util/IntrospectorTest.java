@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -66,4 +67,13 @@ public class IntrospectorTest {
         assertEquals("testId", Introspector.getOpenEngSBModelIdProperty(TestModel.class));
         assertEquals("testId", Introspector.getOpenEngSBModelIdProperty(SubTestModel.class));
     }
+
+    @Test
+    public void getIndexedFieldGroups_returnsAnnotatedFields() throws Exception {
+        Map<String, List<String>> groups = Introspector.getIndexedFieldGroups(TestModel.class);
+
+        assertEquals(1, groups.size());
+        assertEquals(Arrays.asList("testInteger"), groups.get("testInteger"));
+        assertTrue(Introspector.getIndexedFieldGroups(SubTestModel.class).isEmpty());
+    }
 }
@@ -16,6 +16,7 @@
  */
 package org.openengsb.core.edbi.models;
 
+import org.openengsb.core.api.model.annotation.IndexedModelField;
 import org.openengsb.core.api.model.annotation.Model;
 import org.openengsb.core.api.model.annotation.OpenEngSBModelId;
 
@@ -24,6 +25,7 @@ public class TestModel {
 
     @OpenEngSBModelId
     private String testId;
+    @IndexedModelField
     private Integer testInteger;
 
     private SubTestModel subModel;
@@ -17,27 +17,20 @@
 
 package org.openengsb.core.ekb.common;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.lang.ClassUtils;
-import org.apache.commons.lang.reflect.FieldUtils;
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.model.FileWrapper;
 import org.openengsb.core.api.model.ModelWrapper;
@@ -55,7 +48,9 @@ import org.openengsb.core.util.ModelUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Lists;
+import com.google.common.base.Function;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterators;
 
 /**
  * The EDBConverter class responsibility is the converting between EDBObjects and models and the vice-versa.
@@ -76,16 +71,20 @@ public class EDBConverter {
      */
     @SuppressWarnings("unchecked")
     public <T> T convertEDBObjectToModel(Class<T> model, EDBObject object) {
-        return (T) convertEDBObjectToUncheckedModel(model, object);
+        ReferencedObjects references = loadReferencedObjects(model, Collections.singletonList(object));
+        return (T) convertEDBObjectToUncheckedModel(model, object, references);
     }
 
     /**
-     * Converts a list of EDBObjects to a list of models of the given model type.
+     * Converts a list of EDBObjects to a list of models of the given model type. The objects referenced by the models
+     * are loaded in one batch per reference level before the models are created.
      */
+    @SuppressWarnings("unchecked")
     public <T> List<T> convertEDBObjectsToModelObjects(Class<T> model, List<EDBObject> objects) {
+        ReferencedObjects references = loadReferencedObjects(model, objects);
         List<T> models = new ArrayList<>();
         for (EDBObject object : objects) {
-            T instance = convertEDBObjectToModel(model, object);
+            T instance = (T) convertEDBObjectToUncheckedModel(model, object, references);
             if (instance != null) {
                 models.add(instance);
             }
@@ -93,6 +92,164 @@ public class EDBConverter {
         return models;
     }
 
+    /**
+     * Converts the EDBObjects of the given iterator lazily to models of the given model type. Every object is converted
+     * when it is retrieved from the returned iterator, so only the current object has to be held in memory.
+     */
+    public <T> Iterator<T> convertEDBObjectsToModelObjects(final Class<T> model, Iterator<EDBObject> objects) {
+        Iterator<T> models = Iterators.transform(objects, new Function<EDBObject, T>() {
+            @Override
+            public T apply(EDBObject object) {
+                return convertEDBObjectToModel(model, object);
+            }
+        });
+        return Iterators.filter(models, Predicates.notNull());
+    }
+
+    /**
+     * Loads all objects which are referenced by the given objects, level by level. The current versions of every level
+     * are loaded with one getObjects call. Single model references are resolved in the version at the model timestamp
+     * of the referencing object, so the references whose current version is newer than that are loaded with one
+     * getObjects call per timestamp afterwards. The loaded objects are then analyzed for the references of the next
+     * level.
+     */
+    private ReferencedObjects loadReferencedObjects(Class<?> model, List<EDBObject> objects) {
+        ReferencedObjects references = new ReferencedObjects();
+        Map<Class<?>, List<EDBObject>> level = new HashMap<>();
+        level.put(model, objects);
+        while (!level.isEmpty()) {
+            Map<String, Class<?>> referencedOids = new LinkedHashMap<>();
+            Map<Long, Map<String, Class<?>>> historicalOids = new HashMap<>();
+            for (Map.Entry<Class<?>, List<EDBObject>> entry : level.entrySet()) {
+                for (EDBObject object : entry.getValue()) {
+                    collectReferencedOids(entry.getKey(), object, referencedOids, historicalOids);
+                }
+            }
+            referencedOids.keySet().removeAll(references.current.keySet());
+            level = new HashMap<>();
+            if (!referencedOids.isEmpty()) {
+                for (EDBObject object : edbService.getObjects(new ArrayList<>(referencedOids.keySet()))) {
+                    Class<?> type = referencedOids.get(object.getOID());
+                    if (type != null) {
+                        references.current.put(object.getOID(), object);
+                        addToLevel(level, type, object);
+                    }
+                }
+            }
+            for (Map.Entry<Long, Map<String, Class<?>>> entry : historicalOids.entrySet()) {
+                loadHistoricalObjects(entry.getKey(), entry.getValue(), references, level);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Loads the versions at the given timestamp of those of the given OIDs whose current version is not the one at
+     * that time and which have not been loaded for this timestamp yet.
+     */
+    private void loadHistoricalObjects(Long timestamp, Map<String, Class<?>> oids, ReferencedObjects references,
+            Map<Class<?>, List<EDBObject>> level) {
+        List<String> outdated = new ArrayList<>();
+        for (String oid : oids.keySet()) {
+            EDBObject current = references.current.get(oid);
+            if ((current == null || current.getTimestamp() == null || current.getTimestamp() > timestamp)
+                    && !references.historical.containsKey(Arrays.<Object> asList(oid, timestamp))) {
+                outdated.add(oid);
+            }
+        }
+        if (outdated.isEmpty()) {
+            return;
+        }
+        for (EDBObject object : edbService.getObjects(outdated, timestamp)) {
+            Class<?> type = oids.get(object.getOID());
+            if (type != null) {
+                references.historical.put(Arrays.<Object> asList(object.getOID(), timestamp), object);
+                addToLevel(level, type, object);
+            }
+        }
+    }
+
+    private static void addToLevel(Map<Class<?>, List<EDBObject>> level, Class<?> type, EDBObject object) {
+        if (!level.containsKey(type)) {
+            level.put(type, new ArrayList<EDBObject>());
+        }
+        level.get(type).add(object);
+    }
+
+    /**
+     * Adds the OIDs of all models which are referenced by the model properties of the given object to the given map,
+     * together with the model class of the property. The OIDs of single model properties are also added to the
+     * historical OIDs of the model timestamp of the object, if it has one.
+     */
+    private void collectReferencedOids(Class<?> model, EDBObject object, Map<String, Class<?>> oids,
+            Map<Long, Map<String, Class<?>>> historicalOids) {
+        Long timestamp = getModelTimestamp(object);
+        for (ModelConversionPlan.Property property : ModelConversionPlan.forClass(model).getProperties()) {
+            String propertyName = property.getName();
+            Class<?> parameterType = property.getParameterType();
+            if (Map.class.isAssignableFrom(parameterType)) {
+                for (int i = 0; object.containsKey(getEntryNameForMapKey(propertyName, i)); i++) {
+                    addReferencedOid(property.getKeyType(),
+                        object.getObject(getEntryNameForMapKey(propertyName, i)), oids);
+                    addReferencedOid(property.getElementType(),
+                        object.getObject(getEntryNameForMapValue(propertyName, i)), oids);
+                }
+            } else if (List.class.isAssignableFrom(parameterType) || parameterType.isArray()) {
+                for (int i = 0; object.containsKey(getEntryNameForList(propertyName, i)); i++) {
+                    addReferencedOid(property.getElementType(),
+                        object.getObject(getEntryNameForList(propertyName, i)), oids);
+                }
+            } else {
+                addReferencedOid(parameterType, object.getObject(propertyName), oids);
+                if (timestamp != null && OpenEngSBModel.class.isAssignableFrom(parameterType)) {
+                    if (!historicalOids.containsKey(timestamp)) {
+                        historicalOids.put(timestamp, new LinkedHashMap<String, Class<?>>());
+                    }
+                    addReferencedOid(parameterType, object.getObject(propertyName), historicalOids.get(timestamp));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the model timestamp of the given object, or null if it has none or it is invalid.
+     */
+    private static Long getModelTimestamp(EDBObject object) {
+        Object timestamp = object.getObject(EDBConstants.MODEL_TIMESTAMP);
+        if (timestamp == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(timestamp.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void addReferencedOid(Class<?> type, Object value, Map<String, Class<?>> oids) {
+        if (value != null && OpenEngSBModel.class.isAssignableFrom(type)) {
+            oids.put(value.toString(), type);
+        }
+    }
+
+    /**
+     * Returns the object with the given OID in the version which was active at the given timestamp. If this version
+     * has already been loaded by loadReferencedObjects, a copy of the loaded object is returned, otherwise the object
+     * is loaded from the EDB. A timestamp of null stands for the current version.
+     */
+    private EDBObject getReferencedObject(String oid, Long timestamp, ReferencedObjects references) {
+        EDBObject object = references.current.get(oid);
+        if (object != null
+                && (timestamp == null || object.getTimestamp() != null && object.getTimestamp() <= timestamp)) {
+            return new EDBObject(oid, object);
+        }
+        object = timestamp == null ? null : references.historical.get(Arrays.<Object> asList(oid, timestamp));
+        if (object != null) {
+            return new EDBObject(oid, object);
+        }
+        return timestamp == null ? edbService.getObject(oid) : edbService.getObject(oid, timestamp);
+    }
+
     /**
      * Tests if an EDBObject has the correct model class in which it should be converted. Returns false if the model
      * type is not fitting, returns true if the model type is fitting or model type is unknown.
@@ -113,25 +270,16 @@ public class EDBConverter {
      * Converts an EDBObject to a model by analyzing the object and trying to call the corresponding setters of the
      * model.
      */
-    private Object convertEDBObjectToUncheckedModel(Class<?> model, EDBObject object) {
+    private Object convertEDBObjectToUncheckedModel(Class<?> model, EDBObject object,
+            ReferencedObjects references) {
         if (!checkEDBObjectModelType(object, model)) {
             return null;
         }
         filterEngineeringObjectInformation(object, model);
         List<OpenEngSBModelEntry> entries = new ArrayList<>();
-        for (PropertyDescriptor propertyDescriptor : getPropertyDescriptorsForClass(model)) {
-            if (propertyDescriptor.getWriteMethod() == null
-                    || propertyDescriptor.getName().equals(ModelUtils.MODEL_TAIL_FIELD_NAME)) {
-                continue;
-            }
-            Object value = getValueForProperty(propertyDescriptor, object);
-            Class<?> propertyClass = propertyDescriptor.getPropertyType();
-            if (propertyClass.isPrimitive()) {
-                entries.add(new OpenEngSBModelEntry(propertyDescriptor.getName(), value, ClassUtils
-                    .primitiveToWrapper(propertyClass)));
-            } else {
-                entries.add(new OpenEngSBModelEntry(propertyDescriptor.getName(), value, propertyClass));
-            }
+        for (ModelConversionPlan.Property property : ModelConversionPlan.forClass(model).getProperties()) {
+            Object value = getValueForProperty(property, object, references);
+            entries.add(new OpenEngSBModelEntry(property.getName(), value, property.getEntryType()));
         }
 
         for (Map.Entry<String, EDBObjectEntry> objectEntry : object.entrySet()) {
@@ -147,38 +295,22 @@ public class EDBConverter {
         return ModelUtils.createModel(model, entries);
     }
 
-    /**
-     * Returns all property descriptors for a given class.
-     */
-    private List<PropertyDescriptor> getPropertyDescriptorsForClass(Class<?> clasz) {
-        try {
-            BeanInfo beanInfo = Introspector.getBeanInfo(clasz);
-            return Arrays.asList(beanInfo.getPropertyDescriptors());
-        } catch (IntrospectionException e) {
-            LOGGER.error("instantiation exception while trying to create instance of class {}", clasz.getName());
-        }
-        return Lists.newArrayList();
-    }
-
     /**
      * Generate the value for a specific property of a model out of an EDBObject.
      */
-    private Object getValueForProperty(PropertyDescriptor propertyDescriptor, EDBObject object) {
-        Method setterMethod = propertyDescriptor.getWriteMethod();
-        String propertyName = propertyDescriptor.getName();
+    private Object getValueForProperty(ModelConversionPlan.Property property, EDBObject object,
+            ReferencedObjects references) {
+        String propertyName = property.getName();
         Object value = object.getObject(propertyName);
-        Class<?> parameterType = setterMethod.getParameterTypes()[0];
+        Class<?> parameterType = property.getParameterType();
 
         // TODO: OPENENGSB-2719 do that in a better way than just an if-else series
         if (Map.class.isAssignableFrom(parameterType)) {
-            List<Class<?>> classes = getGenericMapParameterClasses(setterMethod);
-            value = getMapValue(classes.get(0), classes.get(1), propertyName, object);
+            value = getMapValue(property.getKeyType(), property.getElementType(), propertyName, object, references);
         } else if (List.class.isAssignableFrom(parameterType)) {
-            Class<?> clazz = getGenericListParameterClass(setterMethod);
-            value = getListValue(clazz, propertyName, object);
+            value = getListValue(property.getElementType(), propertyName, object, references);
         } else if (parameterType.isArray()) {
-            Class<?> clazz = parameterType.getComponentType();
-            value = getArrayValue(clazz, propertyName, object);
+            value = getArrayValue(property.getElementType(), propertyName, object, references);
         } else if (value == null) {
             return null;
         } else if (OpenEngSBModel.class.isAssignableFrom(parameterType)) {
@@ -191,8 +323,8 @@ public class EDBConverter {
                     LOGGER.warn("The model with the oid {} has an invalid timestamp.", object.getOID());
                 }
             }
-            EDBObject obj = edbService.getObject((String) value, time);
-            value = convertEDBObjectToUncheckedModel(parameterType, obj);
+            EDBObject obj = getReferencedObject((String) value, time, references);
+            value = convertEDBObjectToUncheckedModel(parameterType, obj, references);
             object.remove(propertyName);
         } else if (parameterType.equals(FileWrapper.class)) {
             FileWrapper wrapper = new FileWrapper();
@@ -213,38 +345,12 @@ public class EDBConverter {
         return value;
     }
 
-    /**
-     * Get the type of the list parameter of a setter.
-     */
-    private Class<?> getGenericListParameterClass(Method setterMethod) {
-        return getGenericParameterClasses(setterMethod, 1).get(0);
-    }
-
-    /**
-     * Get the type of the map parameter of a setter
-     */
-    private List<Class<?>> getGenericMapParameterClasses(Method setterMethod) {
-        return getGenericParameterClasses(setterMethod, 2);
-    }
-
-    /**
-     * Loads the generic parameter classes up to the given depth (1 for lists, 2 for maps)
-     */
-    private List<Class<?>> getGenericParameterClasses(Method setterMethod, int depth) {
-        Type t = setterMethod.getGenericParameterTypes()[0];
-        ParameterizedType pType = (ParameterizedType) t;
-        List<Class<?>> classes = new ArrayList<>();
-        for (int i = 0; i < depth; i++) {
-            classes.add((Class<?>) pType.getActualTypeArguments()[i]);
-        }
-        return classes;
-    }
-
     /**
      * Gets a list object out of an EDBObject.
      */
     @SuppressWarnings("unchecked")
-    private <T> List<T> getListValue(Class<T> type, String propertyName, EDBObject object) {
+    private <T> List<T> getListValue(Class<T> type, String propertyName, EDBObject object,
+            ReferencedObjects references) {
         List<T> temp = new ArrayList<>();
         for (int i = 0;; i++) {
             String property = getEntryNameForList(propertyName, i);
@@ -253,7 +359,8 @@ public class EDBConverter {
                 break;
             }
             if (OpenEngSBModel.class.isAssignableFrom(type)) {
-                obj = convertEDBObjectToUncheckedModel(type, edbService.getObject(object.getString(property)));
+                EDBObject referenced = getReferencedObject(object.getString(property), null, references);
+                obj = convertEDBObjectToUncheckedModel(type, referenced, references);
             }
             temp.add((T) obj);
             object.remove(property);
@@ -265,8 +372,9 @@ public class EDBConverter {
      * Gets an array object out of an EDBObject.
      */
     @SuppressWarnings("unchecked")
-    private <T> T[] getArrayValue(Class<T> type, String propertyName, EDBObject object) {
-        List<T> elements = getListValue(type, propertyName, object);
+    private <T> T[] getArrayValue(Class<T> type, String propertyName, EDBObject object,
+            ReferencedObjects references) {
+        List<T> elements = getListValue(type, propertyName, object, references);
         T[] ar = (T[]) Array.newInstance(type, elements.size());
         return elements.toArray(ar);
     }
@@ -274,7 +382,8 @@ public class EDBConverter {
     /**
      * Gets a map object out of an EDBObject.
      */
-    private Object getMapValue(Class<?> keyType, Class<?> valueType, String propertyName, EDBObject object) {
+    private Object getMapValue(Class<?> keyType, Class<?> valueType, String propertyName, EDBObject object,
+            ReferencedObjects references) {
         Map<Object, Object> temp = new HashMap<>();
         for (int i = 0;; i++) {
             String keyProperty = getEntryNameForMapKey(propertyName, i);
@@ -285,10 +394,12 @@ public class EDBConverter {
             Object key = object.getObject(keyProperty);
             Object value = object.getObject(valueProperty);
             if (OpenEngSBModel.class.isAssignableFrom(keyType)) {
-                key = convertEDBObjectToUncheckedModel(keyType, edbService.getObject(key.toString()));
+                key = convertEDBObjectToUncheckedModel(keyType,
+                    getReferencedObject(key.toString(), null, references), references);
             }
             if (OpenEngSBModel.class.isAssignableFrom(valueType)) {
-                value = convertEDBObjectToUncheckedModel(valueType, edbService.getObject(value.toString()));
+                value = convertEDBObjectToUncheckedModel(valueType,
+                    getReferencedObject(value.toString(), null, references), references);
             }
             temp.put(key, value);
             object.remove(keyProperty);
@@ -467,12 +578,9 @@ public class EDBConverter {
         if (!new AdvancedModelWrapper(model).isEngineeringObject()) {
             return;
         }
-        for (Field field : model.getClass().getDeclaredFields()) {
+        for (Field field : ModelConversionPlan.forClass(model.getClass()).getForeignKeyFields()) {
             OpenEngSBForeignKey annotation = field.getAnnotation(OpenEngSBForeignKey.class);
-            if (annotation == null) {
-                continue;
-            }
-            String value = (String) FieldUtils.readField(field, model, true);
+            String value = (String) field.get(model);
             if (value == null) {
                 continue;
             }
@@ -536,4 +644,13 @@ public class EDBConverter {
     public static String getEOReferenceStringFromAnnotation(OpenEngSBForeignKey key) {
         return String.format("%s%s:%s", REFERENCE_PREFIX, key.modelType(), key.modelVersion().toString());
     }
+
+    /**
+     * The objects loaded by loadReferencedObjects: the current versions by their OIDs and the historical versions by
+     * their OIDs and the timestamps they were loaded for.
+     */
+    private static final class ReferencedObjects {
+        private final Map<String, EDBObject> current = new HashMap<>();
+        private final Map<List<Object>, EDBObject> historical = new HashMap<>();
+    }
 }
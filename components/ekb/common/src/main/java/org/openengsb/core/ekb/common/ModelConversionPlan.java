@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.common;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.ClassUtils;
+import org.openengsb.core.api.model.annotation.OpenEngSBForeignKey;
+import org.openengsb.core.util.ModelUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Contains everything the EDBConverter needs to know about a model class: the writable properties together with their
+ * parameter and generic types and the fields annotated with OpenEngSBForeignKey. The plan is analyzed once per model
+ * class and cached, so that the conversions don't have to use the Introspector and the generic type information of
+ * the setters for every converted object. The plans are attached to the classes with a ClassValue, so they don't keep
+ * the classes of uninstalled model bundles alive.
+ */
+final class ModelConversionPlan {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelConversionPlan.class);
+
+    private static final ClassValue<ModelConversionPlan> PLANS = new ClassValue<ModelConversionPlan>() {
+        @Override
+        protected ModelConversionPlan computeValue(Class<?> model) {
+            return new ModelConversionPlan(model);
+        }
+    };
+
+    private final List<Property> properties;
+    private final List<Field> foreignKeyFields;
+
+    private ModelConversionPlan(Class<?> model) {
+        properties = Collections.unmodifiableList(analyzeProperties(model));
+        foreignKeyFields = Collections.unmodifiableList(analyzeForeignKeyFields(model));
+    }
+
+    /**
+     * Returns the conversion plan of the given model class.
+     */
+    static ModelConversionPlan forClass(Class<?> model) {
+        return PLANS.get(model);
+    }
+
+    /**
+     * Returns the writable properties of the model, without the model tail.
+     */
+    List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the declared fields of the model which are annotated with OpenEngSBForeignKey. The fields are already
+     * accessible.
+     */
+    List<Field> getForeignKeyFields() {
+        return foreignKeyFields;
+    }
+
+    private static List<Property> analyzeProperties(Class<?> model) {
+        List<Property> result = new ArrayList<>();
+        for (PropertyDescriptor propertyDescriptor : getPropertyDescriptorsForClass(model)) {
+            Method setterMethod = propertyDescriptor.getWriteMethod();
+            if (setterMethod == null || propertyDescriptor.getName().equals(ModelUtils.MODEL_TAIL_FIELD_NAME)) {
+                continue;
+            }
+            result.add(new Property(propertyDescriptor, setterMethod));
+        }
+        return result;
+    }
+
+    private static List<Field> analyzeForeignKeyFields(Class<?> model) {
+        List<Field> result = new ArrayList<>();
+        for (Field field : model.getDeclaredFields()) {
+            if (field.getAnnotation(OpenEngSBForeignKey.class) != null) {
+                field.setAccessible(true);
+                result.add(field);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all property descriptors for a given class.
+     */
+    private static List<PropertyDescriptor> getPropertyDescriptorsForClass(Class<?> clasz) {
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(clasz);
+            return Arrays.asList(beanInfo.getPropertyDescriptors());
+        } catch (IntrospectionException e) {
+            LOGGER.error("instantiation exception while trying to create instance of class {}", clasz.getName());
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Loads the generic parameter classes up to the given depth (1 for lists, 2 for maps)
+     */
+    private static List<Class<?>> getGenericParameterClasses(Method setterMethod, int depth) {
+        Type t = setterMethod.getGenericParameterTypes()[0];
+        ParameterizedType pType = (ParameterizedType) t;
+        List<Class<?>> classes = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            classes.add((Class<?>) pType.getActualTypeArguments()[i]);
+        }
+        return classes;
+    }
+
+    /**
+     * A writable property of a model class.
+     */
+    static final class Property {
+        private final String name;
+        private final Class<?> parameterType;
+        private final Class<?> entryType;
+        private final Class<?> keyType;
+        private final Class<?> elementType;
+
+        private Property(PropertyDescriptor propertyDescriptor, Method setterMethod) {
+            name = propertyDescriptor.getName();
+            parameterType = setterMethod.getParameterTypes()[0];
+            Class<?> propertyClass = propertyDescriptor.getPropertyType();
+            entryType = propertyClass.isPrimitive() ? ClassUtils.primitiveToWrapper(propertyClass) : propertyClass;
+            if (Map.class.isAssignableFrom(parameterType)) {
+                List<Class<?>> classes = getGenericParameterClasses(setterMethod, 2);
+                keyType = classes.get(0);
+                elementType = classes.get(1);
+            } else if (List.class.isAssignableFrom(parameterType)) {
+                keyType = null;
+                elementType = getGenericParameterClasses(setterMethod, 1).get(0);
+            } else if (parameterType.isArray()) {
+                keyType = null;
+                elementType = parameterType.getComponentType();
+            } else {
+                keyType = null;
+                elementType = null;
+            }
+        }
+
+        /**
+         * Returns the name of the property.
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the parameter type of the setter of the property.
+         */
+        Class<?> getParameterType() {
+            return parameterType;
+        }
+
+        /**
+         * Returns the type of the property which is used for model entries, i.e. primitives are replaced by their
+         * wrapper classes.
+         */
+        Class<?> getEntryType() {
+            return entryType;
+        }
+
+        /**
+         * Returns the key type of a map property or null if the property is no map.
+         */
+        Class<?> getKeyType() {
+            return keyType;
+        }
+
+        /**
+         * Returns the value type of a map property, the element type of a list or array property or null if the
+         * property is neither of them.
+         */
+        Class<?> getElementType() {
+            return elementType;
+        }
+    }
+}
@@ -22,8 +22,11 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -614,4 +617,86 @@ public class EDBConverterTest {
     private ConnectorInformation getTestConnectorInformation() {
         return new ConnectorInformation("testdomain", "testconnector", "testinstance");
     }
+
+    @Test
+    public void testEDBObjectsToRecursiveModelsConversion_shouldLoadReferencesInBatches() throws Exception {
+        // prepare
+        EDBObject root = new EDBObject("root");
+        root.putEDBObjectEntry(EDBConstants.MODEL_TYPE, RecursiveModel.class.getName());
+        root.putEDBObjectEntry("id", "root");
+        root.putEDBObjectEntry("children.0", "child1");
+        root.putEDBObjectEntry("children.1", "child2");
+
+        EDBObject child1 = new EDBObject("child1");
+        child1.putEDBObjectEntry(EDBConstants.MODEL_TYPE, RecursiveModel.class.getName());
+        child1.putEDBObjectEntry("id", "child1");
+        child1.putEDBObjectEntry("children.0", "child3");
+
+        EDBObject child2 = new EDBObject("child2");
+        child2.putEDBObjectEntry(EDBConstants.MODEL_TYPE, RecursiveModel.class.getName());
+        child2.putEDBObjectEntry("id", "child2");
+
+        EDBObject child3 = new EDBObject("child3");
+        child3.putEDBObjectEntry(EDBConstants.MODEL_TYPE, RecursiveModel.class.getName());
+        child3.putEDBObjectEntry("id", "child3");
+
+        when(mockedService.getObjects(Arrays.asList("child1", "child2"))).thenReturn(Arrays.asList(child1, child2));
+        when(mockedService.getObjects(Arrays.asList("child3"))).thenReturn(Arrays.asList(child3));
+
+        // test
+        List<RecursiveModel> models = converter.convertEDBObjectsToModelObjects(RecursiveModel.class,
+            Arrays.asList(root));
+
+        // assert
+        verify(mockedService, never()).getObject(anyString());
+        verify(mockedService, never()).getObject(anyString(), anyLong());
+        assertThat(models.size(), is(1));
+        List<RecursiveModel> children = models.get(0).getChildren();
+        assertThat(children.size(), is(2));
+        assertThat(children.get(0).getId(), is("child1"));
+        assertThat(children.get(1).getId(), is("child2"));
+        assertThat(children.get(0).getChildren().get(0).getId(), is("child3"));
+    }
+
+    @Test
+    public void testEDBObjectsWithOutdatedReferencesConversion_shouldLoadHistoricalVersionsInOneBatch()
+        throws Exception {
+        // prepare
+        List<EDBObject> roots = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            EDBObject root = new EDBObject("root" + i);
+            root.putEDBObjectEntry(EDBConstants.MODEL_TYPE, RecursiveModel.class.getName());
+            root.putEDBObjectEntry(EDBConstants.MODEL_TIMESTAMP, 100L);
+            root.putEDBObjectEntry("id", "root" + i);
+            root.putEDBObjectEntry("child", "child" + i);
+            roots.add(root);
+        }
+        List<EDBObject> currentChildren = new ArrayList<>();
+        List<EDBObject> historicalChildren = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            EDBObject current = new EDBObject("child" + i);
+            current.putEDBObjectEntry(EDBConstants.MODEL_TYPE, RecursiveModel.class.getName());
+            current.putEDBObjectEntry("id", "child" + i + "-current");
+            current.updateTimestamp(200L);
+            currentChildren.add(current);
+            EDBObject historical = new EDBObject("child" + i);
+            historical.putEDBObjectEntry(EDBConstants.MODEL_TYPE, RecursiveModel.class.getName());
+            historical.putEDBObjectEntry("id", "child" + i + "-old");
+            historical.updateTimestamp(50L);
+            historicalChildren.add(historical);
+        }
+
+        when(mockedService.getObjects(Arrays.asList("child1", "child2"))).thenReturn(currentChildren);
+        when(mockedService.getObjects(Arrays.asList("child1", "child2"), 100L)).thenReturn(historicalChildren);
+
+        // test
+        List<RecursiveModel> models = converter.convertEDBObjectsToModelObjects(RecursiveModel.class, roots);
+
+        // assert
+        verify(mockedService).getObjects(Arrays.asList("child1", "child2"), 100L);
+        verify(mockedService, never()).getObject(anyString(), anyLong());
+        assertThat(models.size(), is(2));
+        assertThat(models.get(0).getChild().getId(), is("child1-old"));
+        assertThat(models.get(1).getChild().getId(), is("child2-old"));
+    }
 }
@@ -17,19 +17,29 @@
 
 package org.openengsb.core.ekb.persistence.persist.edb.internal;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.openengsb.core.api.context.ContextHolder;
+import org.openengsb.core.api.model.OpenEngSBModel;
 import org.openengsb.core.edb.api.EDBCheckException;
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.ekb.api.ConnectorInformation;
 import org.openengsb.core.ekb.api.EKBCommit;
 import org.openengsb.core.ekb.api.EKBConcurrentException;
 import org.openengsb.core.ekb.api.EKBException;
@@ -42,10 +52,12 @@ import org.openengsb.core.ekb.api.hooks.EKBPostCommitHook;
 import org.openengsb.core.ekb.api.hooks.EKBPreCommitHook;
 import org.openengsb.core.ekb.common.ConvertedCommit;
 import org.openengsb.core.ekb.common.EDBConverter;
+import org.openengsb.core.util.ThreadLocalUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Objects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Implementation of the PersistInterface service. It's main responsibilities are the saving of models and the sanity
@@ -53,6 +65,8 @@ import com.google.common.base.Objects;
  */
 public class PersistInterfaceService implements PersistInterface {
     private static final Logger LOGGER = LoggerFactory.getLogger(PersistInterfaceService.class);
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final int MAX_PENDING_CONVERSIONS = 20;
     private final EngineeringDatabaseService edbService;
     private final EDBConverter edbConverter;
     private final List<EKBPreCommitHook> preCommitHooks;
@@ -60,6 +74,7 @@ public class PersistInterfaceService implements PersistInterface {
     private final List<EKBErrorHook> errorHooks;
     private ContextLockingMode mode;
     private final Set<String> activeWritingContexts;
+    private final ExecutorService importExecutor;
 
     public PersistInterfaceService(EngineeringDatabaseService edbService, EDBConverter edbConverter,
             List<EKBPreCommitHook> preCommitHooks, List<EKBPostCommitHook> postCommitHooks,
@@ -70,6 +85,9 @@ public class PersistInterfaceService implements PersistInterface {
         this.postCommitHooks = postCommitHooks;
         this.errorHooks = errorHooks;
         this.activeWritingContexts = new HashSet<String>();
+        this.importExecutor = ThreadLocalUtil.contextAwareExecutor(Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("ekb-import-%d").setDaemon(true).build()));
         try {
             this.mode = ContextLockingMode.valueOf(contextLockingMode);
         } catch (IllegalArgumentException e) {
@@ -108,6 +126,116 @@ public class PersistInterfaceService implements PersistInterface {
         LOGGER.debug("Force commit of models was successful");
     }
 
+    @Override
+    public void importModels(EKBCommit commit, Iterator<?> models) throws EKBException {
+        LOGGER.debug("Import of models was called");
+        String contextId = ContextHolder.get().getCurrentContextId();
+        Deque<PendingConversion> conversions = new ArrayDeque<>();
+        try {
+            lockContext(contextId);
+            EDBCommit ci = edbService.createEDBCommit(new ArrayList<EDBObject>(), new ArrayList<EDBObject>(),
+                new ArrayList<EDBObject>());
+            List<OpenEngSBModel> chunk = new ArrayList<>();
+            while (models.hasNext()) {
+                Object model = models.next();
+                if (model == null) {
+                    continue;
+                }
+                chunk.add((OpenEngSBModel) model);
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    conversions.add(submitConversion(chunk, commit.getConnectorInformation()));
+                    chunk = new ArrayList<>();
+                }
+                if (conversions.size() == MAX_PENDING_CONVERSIONS) {
+                    addConvertedModels(ci, commit, conversions);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                conversions.add(submitConversion(chunk, commit.getConnectorInformation()));
+            }
+            while (!conversions.isEmpty()) {
+                addConvertedModels(ci, commit, conversions);
+            }
+            ci.setHeadRevisionNumber(edbService.getCurrentRevisionNumber());
+            EKBException exception = null;
+            try {
+                persistCommit(ci, commit, true);
+                runEKBPostCommitHooks(commit);
+            } catch (EKBException e) {
+                exception = e;
+            }
+            runEKBErrorHooks(commit, exception);
+        } catch (EDBException e) {
+            throw new EKBException("Error while importing the models", e);
+        } finally {
+            for (PendingConversion conversion : conversions) {
+                conversion.getResult().cancel(true);
+            }
+            releaseContext(contextId);
+        }
+        LOGGER.debug("Import of models was successful");
+    }
+
+    /**
+     * Waits for the oldest of the given conversions and adds its models to the given EKBCommit and the resulting
+     * EDBObjects as inserts to the given EDBCommit.
+     */
+    private void addConvertedModels(EDBCommit ci, EKBCommit commit, Deque<PendingConversion> conversions)
+        throws EKBException {
+        PendingConversion conversion = conversions.peek();
+        try {
+            for (EDBObject insert : conversion.getResult().get()) {
+                ci.insert(insert);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EKBException("Interrupted while converting the imported models", e);
+        } catch (ExecutionException e) {
+            throw new EKBException("Unable to convert the imported models", e.getCause());
+        }
+        commit.addInserts(conversion.getModels());
+        conversions.poll();
+    }
+
+    private PendingConversion submitConversion(final List<OpenEngSBModel> models,
+            final ConnectorInformation information) {
+        Future<List<EDBObject>> result = importExecutor.submit(new Callable<List<EDBObject>>() {
+            @Override
+            public List<EDBObject> call() throws Exception {
+                return edbConverter.convertModelsToEDBObjects(models, information);
+            }
+        });
+        return new PendingConversion(models, result);
+    }
+
+    /**
+     * A chunk of imported models together with the result of their conversion into EDBObjects.
+     */
+    private static final class PendingConversion {
+        private final List<OpenEngSBModel> models;
+        private final Future<List<EDBObject>> result;
+
+        PendingConversion(List<OpenEngSBModel> models, Future<List<EDBObject>> result) {
+            this.models = models;
+            this.result = result;
+        }
+
+        List<OpenEngSBModel> getModels() {
+            return models;
+        }
+
+        Future<List<EDBObject>> getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * Stops the threads which are used to convert imported models.
+     */
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
     /**
      * Runs the logic of the PersistInterface. Does the sanity checks if check is set to true. Additionally tests if the
      * head revision of the context under which the commit is performed has the given revision number if the
@@ -288,13 +416,31 @@ public class PersistInterfaceService implements PersistInterface {
      * Performs the persisting of the models into the EDB.
      */
     private void performPersisting(ConvertedCommit commit, EKBCommit source) throws EKBException {
+        EDBCommit ci;
+        try {
+            ci = edbService.createEDBCommit(commit.getInserts(), commit.getUpdates(), commit.getDeletes());
+        } catch (EDBException e) {
+            throw new EKBException("Error while commiting EKBCommit", e);
+        }
+        persistCommit(ci, source, false);
+    }
+
+    /**
+     * Writes the given EDBCommit with the domain, connector, instance and comment of the given EKBCommit, which gets
+     * the revision numbers of the written commit. If importCommit is set, the commit is passed to the import of the
+     * EDB instead of the regular commit.
+     */
+    private void persistCommit(EDBCommit ci, EKBCommit source, boolean importCommit) throws EKBException {
         try {
-            EDBCommit ci = edbService.createEDBCommit(commit.getInserts(), commit.getUpdates(), commit.getDeletes());
             ci.setDomainId(source.getDomainId());
             ci.setConnectorId(source.getConnectorId());
             ci.setInstanceId(source.getInstanceId());
             ci.setComment(source.getComment());
-            edbService.commit(ci);
+            if (importCommit) {
+                edbService.importCommit(ci);
+            } else {
+                edbService.commit(ci);
+            }
             source.setRevisionNumber(ci.getRevisionNumber());
             source.setParentRevisionNumber(ci.getParentRevisionNumber());
         } catch (EDBCheckException e) {
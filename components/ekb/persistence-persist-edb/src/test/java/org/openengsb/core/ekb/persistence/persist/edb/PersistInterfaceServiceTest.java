@@ -19,21 +19,33 @@ package org.openengsb.core.ekb.persistence.persist.edb;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.model.ModelWrapper;
+import org.openengsb.core.edb.api.EDBCheckException;
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EngineeringDatabaseService;
 import org.openengsb.core.ekb.api.EKBCommit;
+import org.openengsb.core.ekb.api.EKBException;
+import org.openengsb.core.ekb.api.ModelPersistException;
 import org.openengsb.core.ekb.api.hooks.EKBErrorHook;
 import org.openengsb.core.ekb.api.hooks.EKBPostCommitHook;
 import org.openengsb.core.ekb.api.hooks.EKBPreCommitHook;
@@ -44,15 +56,21 @@ import org.openengsb.core.ekb.persistence.persist.edb.models.TestModel2;
 
 public class PersistInterfaceServiceTest {
     private PersistInterfaceService service;
+    private EngineeringDatabaseService edbService;
+    private EDBCommit result;
+    private EKBPostCommitHook postHook;
+    private EKBErrorHook errorHook;
 
     @Before
     public void setUp() {
-        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        edbService = mock(EngineeringDatabaseService.class);
         EDBConverter converter = new EDBConverter(edbService);
         List<EKBPreCommitHook> preHooks = new ArrayList<EKBPreCommitHook>();
-        List<EKBPostCommitHook> postHooks = new ArrayList<EKBPostCommitHook>();
-        List<EKBErrorHook> errorHooks = new ArrayList<EKBErrorHook>();
-        EDBCommit result = mock(EDBCommit.class);
+        postHook = mock(EKBPostCommitHook.class);
+        List<EKBPostCommitHook> postHooks = Arrays.asList(postHook);
+        errorHook = mock(EKBErrorHook.class);
+        List<EKBErrorHook> errorHooks = Arrays.asList(errorHook);
+        result = mock(EDBCommit.class);
         when(edbService.createEDBCommit(anyListOf(EDBObject.class), anyListOf(EDBObject.class),
             anyListOf(EDBObject.class))).thenReturn(result);
         this.service = new PersistInterfaceService(edbService, converter, preHooks, postHooks, errorHooks
@@ -74,4 +92,88 @@ public class PersistInterfaceServiceTest {
         commit.addInsert(new TestModel2());
         service.commit(commit);
     }
+
+    @Test
+    public void testImportModels_shouldImportAllModelsInOneCommit() throws Exception {
+        UUID revision = UUID.randomUUID();
+        when(result.getRevisionNumber()).thenReturn(revision);
+        EKBCommit commit = new EKBCommit();
+        commit.setDomainId("testdomain").setConnectorId("testconnector").setInstanceId("testinstance");
+
+        service.importModels(commit, createTestModels(3));
+
+        ArgumentCaptor<EKBCommit> imported = ArgumentCaptor.forClass(EKBCommit.class);
+        verify(edbService).importCommit(result);
+        verify(edbService, never()).commit(any(EDBCommit.class));
+        verify(postHook).onPostCommit(imported.capture());
+        assertThat(imported.getValue().getInserts().size(), is(3));
+        assertThat(imported.getValue().getDomainId(), is("testdomain"));
+        assertThat(commit.getRevisionNumber(), is(revision));
+    }
+
+    @Test
+    public void testImportManyModels_shouldImportThemInOneCommit() throws Exception {
+        EKBCommit commit = new EKBCommit();
+        commit.setDomainId("testdomain").setConnectorId("testconnector").setInstanceId("testinstance");
+
+        service.importModels(commit, createTestModels(10500));
+
+        verify(edbService, times(1)).createEDBCommit(anyListOf(EDBObject.class), anyListOf(EDBObject.class),
+            anyListOf(EDBObject.class));
+        verify(result, times(10500)).insert(any(EDBObject.class));
+        verify(edbService, times(1)).importCommit(result);
+        verify(postHook, times(1)).onPostCommit(commit);
+        assertThat(commit.getInserts().size(), is(10500));
+    }
+
+    @Test
+    public void testImportWithFailingConversion_shouldImportNothing() throws Exception {
+        EKBCommit commit = new EKBCommit();
+        commit.setDomainId("testdomain").setConnectorId("testconnector").setInstanceId("testinstance");
+        List<Object> models = new ArrayList<Object>();
+        Iterator<TestModel> valid = createTestModels(1000);
+        while (valid.hasNext()) {
+            models.add(valid.next());
+        }
+        models.add(new Object());
+
+        try {
+            service.importModels(commit, models.iterator());
+            fail("The import with a model which can not be converted succeeded");
+        } catch (ClassCastException e) {
+            // expected, the last object is no model
+        }
+        verify(edbService, never()).importCommit(any(EDBCommit.class));
+        verify(postHook, never()).onPostCommit(any(EKBCommit.class));
+    }
+
+    @Test
+    public void testImportOfExistingModels_shouldThrowModelPersistException() throws Exception {
+        EDBCheckException failure = new EDBCheckException("exists already");
+        failure.setFailedInserts(Arrays.asList(new EDBObject("test/model/0")));
+        failure.setFailedUpdates(new ArrayList<EDBObject>());
+        failure.setFailedDeletes(new ArrayList<String>());
+        when(edbService.importCommit(result)).thenThrow(failure);
+        EKBCommit commit = new EKBCommit();
+        commit.setDomainId("testdomain").setConnectorId("testconnector").setInstanceId("testinstance");
+
+        try {
+            service.importModels(commit, createTestModels(2));
+            fail("The import of existing models succeeded");
+        } catch (ModelPersistException e) {
+            assertThat(e.getFailedInserts(), is(Arrays.asList("test/model/0")));
+        }
+        verify(errorHook).onError(any(EKBCommit.class), any(EKBException.class));
+        verify(postHook, never()).onPostCommit(any(EKBCommit.class));
+    }
+
+    private Iterator<TestModel> createTestModels(int count) {
+        List<TestModel> models = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TestModel model = new TestModel();
+            model.setId("model/" + i);
+            models.add(model);
+        }
+        return models.iterator();
+    }
 }
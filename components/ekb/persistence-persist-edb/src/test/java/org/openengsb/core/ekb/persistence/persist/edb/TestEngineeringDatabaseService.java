@@ -19,6 +19,7 @@ package org.openengsb.core.ekb.persistence.persist.edb;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -118,11 +119,32 @@ public class TestEngineeringDatabaseService implements EngineeringDatabaseServic
         return new ArrayList<EDBObject>();
     }
 
+    @Override
+    public List<EDBObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException {
+        List<EDBObject> result = new ArrayList<EDBObject>();
+        for (EDBObject object : query(request)) {
+            if (result.size() < maxResults && (afterOid == null || object.getOID().compareTo(afterOid) > 0)) {
+                result.add(object);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<EDBObject> queryIterator(QueryRequest request, int fetchSize) throws EDBException {
+        return query(request).iterator();
+    }
+
     @Override
     public Long commit(EDBCommit arg0) throws EDBException {
         return null;
     }
 
+    @Override
+    public Long importCommit(EDBCommit arg0) throws EDBException {
+        return null;
+    }
+
     @Override
     public EDBCommit getCommit(Long arg0) throws EDBException {
         return null;
@@ -180,7 +202,12 @@ public class TestEngineeringDatabaseService implements EngineeringDatabaseServic
 
     @Override
     public List<EDBObject> getObjects(List<String> arg0) throws EDBException {
-        return null;
+        return new ArrayList<EDBObject>();
+    }
+
+    @Override
+    public List<EDBObject> getObjects(List<String> arg0, Long arg1) throws EDBException {
+        return new ArrayList<EDBObject>();
     }
 
     @Override
@@ -214,6 +241,11 @@ public class TestEngineeringDatabaseService implements EngineeringDatabaseServic
         return null;
     }
 
+    @Override
+    public List<String> getContextIds() throws EDBException {
+        return new ArrayList<>();
+    }
+
     @Override
     public EDBCommit getCommitByRevision(String revision) throws EDBException {
         return null;
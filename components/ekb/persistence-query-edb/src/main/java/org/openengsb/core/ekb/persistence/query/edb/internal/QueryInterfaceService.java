@@ -17,21 +17,33 @@
 
 package org.openengsb.core.ekb.persistence.query.edb.internal;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.openengsb.core.api.model.CommitMetaInfo;
 import org.openengsb.core.api.model.CommitQueryRequest;
 import org.openengsb.core.api.model.ModelDescription;
 import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.api.model.QueryRequest.Range;
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexField;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexStatus;
 import org.openengsb.core.ekb.api.EKBCommit;
 import org.openengsb.core.ekb.api.EKBException;
 import org.openengsb.core.ekb.api.ModelRegistry;
@@ -51,6 +63,14 @@ public class QueryInterfaceService implements QueryInterface {
     private EDBConverter edbConverter;
     private ModelRegistry modelRegistry;
     private List<QueryParser> queryParsers;
+    private volatile IndexEngine indexEngine;
+    private volatile IndexStatus indexStatus;
+    private boolean indexQueriesEnabled = false;
+    private long maxIndexQueryAge = 1000;
+    private long contextIdsCacheTime = 10000;
+    private volatile boolean multipleContexts = false;
+    private volatile List<String> contextIds;
+    private volatile long contextIdsLoadedAt;
 
     @Override
     public <T> T getModel(Class<T> model, String oid) {
@@ -77,7 +97,204 @@ public class QueryInterfaceService implements QueryInterface {
     public <T> List<T> query(Class<T> model, QueryRequest request) {
         LOGGER.debug("Query for model {} with the request {}", model.getName(), request);
         request.setModelClassName(model.getName());
-        return edbConverter.convertEDBObjectsToModelObjects(model, edbService.query(request));
+        List<EDBObject> objects = queryIndex(model, request);
+        if (objects == null) {
+            objects = edbService.query(request);
+        }
+        return edbConverter.convertEDBObjectsToModelObjects(model, objects);
+    }
+
+    /**
+     * Answers the request with the head table of the EDB index of the model and loads the matching objects from the
+     * EDB by their OIDs. This is only done if index queries are enabled and the request can be expressed as an index
+     * query: it has to be and-joined, case sensitive, restricted to a context, refer to the current state of the models
+     * and only contain properties which are part of the index. Since the head table contains the models of all
+     * contexts by their model id only, the index is not used as soon as there is more than one context in the EDB.
+     * The index is updated asynchronously, so it is not used while there are commits of the model which are not merged
+     * into it yet, and the loaded objects are checked against the request again. Returns null if the request has to
+     * be answered by the EDB instead.
+     */
+    private List<EDBObject> queryIndex(Class<?> model, QueryRequest request) {
+        IndexEngine indexEngine = this.indexEngine;
+        IndexStatus indexStatus = this.indexStatus;
+        if (!indexQueriesEnabled || indexEngine == null || indexStatus == null || !request.isAndJoined()
+                || !request.isCaseSensitive() || request.isDeleted() || request.getContextId() == null
+                || System.currentTimeMillis() - request.getTimestamp() > maxIndexQueryAge
+                || !indexStatus.isUpToDate(model.getCanonicalName()) || !isSingleContext(request.getContextId())) {
+            return null;
+        }
+        try {
+            if (!indexEngine.indexExists(model)) {
+                return null;
+            }
+            Index<?> index = indexEngine.getIndex(model);
+            IndexField<?> idField = index.getModelIdField();
+            if (idField == null) {
+                return null;
+            }
+            IndexQuery<?> query = createIndexQuery(index, request);
+            if (query == null) {
+                return null;
+            }
+            List<String> oids = new ArrayList<>();
+            for (Map<String, Object> row : indexEngine.query(query)) {
+                Object id = row.get(idField.getName());
+                if (id != null) {
+                    oids.add(String.format("%s/%s", request.getContextId(), id));
+                }
+            }
+            LOGGER.debug("Answered the request {} with the index of the model {}", request, model.getName());
+            List<EDBObject> result = new ArrayList<>();
+            if (!oids.isEmpty()) {
+                for (EDBObject object : edbService.getObjects(oids)) {
+                    if (!Boolean.TRUE.equals(object.isDeleted()) && matches(object, request)) {
+                        result.add(object);
+                    }
+                }
+            }
+            return result;
+        } catch (EDBIndexException e) {
+            LOGGER.warn("Unable to query the index of the model {}, querying the EDB instead", model.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the given context is the only context in the EDB. Since contexts are never removed, the result is
+     * remembered as soon as there is a second context. Until then, the context ids are loaded again at most every
+     * {@link #setContextIdsCacheTime(long) cache time} milliseconds, or if the given context is not known yet.
+     */
+    private boolean isSingleContext(String contextId) {
+        if (multipleContexts) {
+            return false;
+        }
+        List<String> contextIds = this.contextIds;
+        long now = System.currentTimeMillis();
+        if (contextIds == null || now - contextIdsLoadedAt > contextIdsCacheTime || !contextIds.contains(contextId)) {
+            contextIds = edbService.getContextIds();
+            this.contextIds = contextIds;
+            contextIdsLoadedAt = now;
+        }
+        if (contextIds.size() > 1) {
+            LOGGER.info("There is more than one context in the EDB, index queries are not used any more");
+            multipleContexts = true;
+            return false;
+        }
+        return contextIds.isEmpty() || contextIds.contains(contextId);
+    }
+
+    /**
+     * Checks if the given object fulfills all parameters and ranges of the given and-joined and case sensitive
+     * request, comparing the values the same way as the EDB does.
+     */
+    private boolean matches(EDBObject object, QueryRequest request) {
+        if (!request.getModelClassName().equals(object.getString(EDBConstants.MODEL_TYPE))) {
+            return false;
+        }
+        for (Map.Entry<String, Set<Object>> parameter : request.getParameters().entrySet()) {
+            Object value = object.getObject(parameter.getKey());
+            for (Object expected : parameter.getValue()) {
+                if (!matchesValue(value, expected, request.isWildcardAware())) {
+                    return false;
+                }
+            }
+        }
+        for (Map.Entry<String, Range> range : request.getRanges().entrySet()) {
+            Object value = object.getObject(range.getKey());
+            Object lowerBound = range.getValue().getLowerBound();
+            Object upperBound = range.getValue().getUpperBound();
+            if (value == null || lowerBound != null && compare(value, lowerBound) < 0
+                    || upperBound != null && compare(value, upperBound) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesValue(Object value, Object expected, boolean wildcardAware) {
+        if (value == null) {
+            return false;
+        }
+        if (expected instanceof Date) {
+            return value instanceof Date && ((Date) value).getTime() == ((Date) expected).getTime();
+        }
+        if (wildcardAware) {
+            return value.toString().matches(convertLikePattern(expected.toString()));
+        }
+        return value.toString().equals(expected.toString());
+    }
+
+    /**
+     * Converts a pattern with the wildcards of a LIKE expression into a regular expression.
+     */
+    private String convertLikePattern(String pattern) {
+        StringBuilder builder = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    builder.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                builder.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            builder.append(Pattern.quote(literal.toString()));
+        }
+        return builder.toString();
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private int compare(Object value, Object bound) {
+        if (value instanceof Number && bound instanceof Number) {
+            return Double.compare(((Number) value).doubleValue(), ((Number) bound).doubleValue());
+        } else if (value instanceof Date && bound instanceof Date) {
+            return ((Date) value).compareTo((Date) bound);
+        } else if (value instanceof Comparable && value.getClass().isInstance(bound)) {
+            return ((Comparable) value).compareTo(bound);
+        }
+        return value.toString().compareTo(bound.toString());
+    }
+
+    /**
+     * Converts the parameters and ranges of the request into an index query. Returns null if the request refers to a
+     * property which is not part of the index.
+     */
+    private IndexQuery<?> createIndexQuery(Index<?> index, QueryRequest request) {
+        Set<String> fields = new HashSet<>();
+        for (IndexField<?> field : index.getFields()) {
+            fields.add(field.getName());
+        }
+        IndexQuery<?> query = IndexQuery.on(index);
+        for (Map.Entry<String, Set<Object>> parameter : request.getParameters().entrySet()) {
+            if (!fields.contains(parameter.getKey())) {
+                return null;
+            }
+            for (Object value : parameter.getValue()) {
+                if (request.isWildcardAware() && value instanceof String) {
+                    query.like(parameter.getKey(), (String) value);
+                } else {
+                    query.equal(parameter.getKey(), value);
+                }
+            }
+        }
+        for (Map.Entry<String, Range> range : request.getRanges().entrySet()) {
+            if (!fields.contains(range.getKey())) {
+                return null;
+            }
+            query.between(range.getKey(), range.getValue().getLowerBound(), range.getValue().getUpperBound());
+        }
+        return query;
+    }
+
+    @Override
+    public <T> Iterator<T> queryIterator(Class<T> model, QueryRequest request, int fetchSize) {
+        LOGGER.debug("Query iteratively for model {} with the request {}", model.getName(), request);
+        request.setModelClassName(model.getName());
+        return edbConverter.convertEDBObjectsToModelObjects(model, edbService.queryIterator(request, fetchSize));
     }
 
     @Override
@@ -217,4 +434,51 @@ public class QueryInterfaceService implements QueryInterface {
     public void setQueryParsers(List<QueryParser> queryParsers) {
         this.queryParsers = queryParsers;
     }
+
+    /**
+     * Called when an index engine becomes available. Index queries are only answered while an index engine is bound.
+     */
+    public void bindIndexEngine(IndexEngine indexEngine) {
+        this.indexEngine = indexEngine;
+    }
+
+    public void unbindIndexEngine(IndexEngine indexEngine) {
+        this.indexEngine = null;
+    }
+
+    /**
+     * Called when the status of the indexes becomes available. Index queries are only answered while it is bound,
+     * since otherwise it is unknown whether an index is up to date.
+     */
+    public void bindIndexStatus(IndexStatus indexStatus) {
+        this.indexStatus = indexStatus;
+    }
+
+    public void unbindIndexStatus(IndexStatus indexStatus) {
+        this.indexStatus = null;
+    }
+
+    /**
+     * Enables answering suitable query requests with the EDB index. Since the index is updated asynchronously, it may
+     * lag behind the EDB shortly after a commit, which is why this is disabled by default.
+     */
+    public void setIndexQueriesEnabled(boolean indexQueriesEnabled) {
+        this.indexQueriesEnabled = indexQueriesEnabled;
+    }
+
+    /**
+     * Sets the maximum age in milliseconds of the timestamp of a request which is still considered to refer to the
+     * current state of the models and may therefore be answered by the index.
+     */
+    public void setMaxIndexQueryAge(long maxIndexQueryAge) {
+        this.maxIndexQueryAge = maxIndexQueryAge;
+    }
+
+    /**
+     * Sets the time in milliseconds for which the ids of the contexts in the EDB are cached while there is only one.
+     * A second context which is created in the meantime is only noticed once the cache expires.
+     */
+    public void setContextIdsCacheTime(long contextIdsCacheTime) {
+        this.contextIdsCacheTime = contextIdsCacheTime;
+    }
 }
@@ -22,22 +22,36 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.openengsb.core.api.model.ModelWrapper;
 import org.openengsb.core.api.model.OpenEngSBModelEntry;
+import org.openengsb.core.api.model.QueryRequest;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexField;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexStatus;
 import org.openengsb.core.ekb.api.QueryParser;
 import org.openengsb.core.ekb.common.EDBConverter;
 import org.openengsb.core.ekb.persistence.query.edb.internal.DefaultQueryParser;
@@ -366,4 +380,218 @@ public class QueryInterfaceServiceTest {
         assertThat(model.getMap().get("keyC").toString(), is("valueC"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueryWithEnabledIndexQueries_shouldLoadObjectsFoundInIndex() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        EDBObject object = new EDBObject("testcontext/testid");
+        object.putEDBObjectEntry("id", "testid");
+        object.putEDBObjectEntry("name", "testname");
+        object.putEDBObjectEntry(EDBConstants.MODEL_TYPE, TestModel.class.getName());
+        when(edbService.getObjects(Arrays.asList("testcontext/testid"))).thenReturn(Arrays.asList(object));
+        when(edbService.getContextIds()).thenReturn(Arrays.asList("testcontext"));
+
+        IndexField<?> idField = mock(IndexField.class);
+        when(idField.getName()).thenReturn("id");
+        IndexField<?> nameField = mock(IndexField.class);
+        when(nameField.getName()).thenReturn("name");
+        List<IndexField<?>> fields = Arrays.<IndexField<?>> asList(idField, nameField);
+        Index<TestModel> index = mock(Index.class);
+        when(index.getFields()).thenReturn(fields);
+        doReturn(idField).when(index).getModelIdField();
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", "testid");
+        row.put("name", "testname");
+        IndexEngine indexEngine = mock(IndexEngine.class);
+        when(indexEngine.indexExists(TestModel.class)).thenReturn(true);
+        when(indexEngine.getIndex(TestModel.class)).thenReturn(index);
+        when(indexEngine.query(any(IndexQuery.class))).thenReturn(Arrays.asList(row));
+
+        service.setEdbService(edbService);
+        service.setEdbConverter(new EDBConverter(edbService));
+        service.bindIndexEngine(indexEngine);
+        service.bindIndexStatus(createIndexStatus(true));
+        service.setIndexQueriesEnabled(true);
+
+        List<TestModel> result =
+            service.query(TestModel.class, QueryRequest.query("name", "testname").setContextId("testcontext"));
+
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getId(), is("testid"));
+        verify(edbService, never()).query(any(QueryRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueryWithUnindexedProperty_shouldQueryTheEDB() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        IndexField<?> idField = mock(IndexField.class);
+        when(idField.getName()).thenReturn("id");
+        List<IndexField<?>> fields = Arrays.<IndexField<?>> asList(idField);
+        Index<TestModel> index = mock(Index.class);
+        when(index.getFields()).thenReturn(fields);
+        doReturn(idField).when(index).getModelIdField();
+
+        IndexEngine indexEngine = mock(IndexEngine.class);
+        when(indexEngine.indexExists(TestModel.class)).thenReturn(true);
+        when(indexEngine.getIndex(TestModel.class)).thenReturn(index);
+
+        service.setEdbService(edbService);
+        service.bindIndexEngine(indexEngine);
+        service.bindIndexStatus(createIndexStatus(true));
+        service.setIndexQueriesEnabled(true);
+
+        QueryRequest request = QueryRequest.query("name", "testname").setContextId("testcontext");
+        service.query(TestModel.class, request);
+
+        verify(indexEngine, never()).query(any(IndexQuery.class));
+        verify(edbService).query(request);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueryWithOutdatedIndex_shouldOnlyReturnObjectsMatchingTheRequest() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        EDBObject object = new EDBObject("testcontext/testid");
+        object.putEDBObjectEntry("id", "testid");
+        object.putEDBObjectEntry("name", "othername");
+        object.putEDBObjectEntry(EDBConstants.MODEL_TYPE, TestModel.class.getName());
+        when(edbService.getObjects(Arrays.asList("testcontext/testid"))).thenReturn(Arrays.asList(object));
+        when(edbService.getContextIds()).thenReturn(Arrays.asList("testcontext"));
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", "testid");
+        row.put("name", "testname");
+        IndexEngine indexEngine = createIndexEngine(row);
+
+        service.setEdbService(edbService);
+        service.setEdbConverter(new EDBConverter(edbService));
+        service.bindIndexEngine(indexEngine);
+        service.bindIndexStatus(createIndexStatus(true));
+        service.setIndexQueriesEnabled(true);
+
+        List<TestModel> result =
+            service.query(TestModel.class, QueryRequest.query("name", "testname").setContextId("testcontext"));
+
+        assertThat(result.size(), is(0));
+        verify(edbService, never()).query(any(QueryRequest.class));
+    }
+
+    @Test
+    public void testQueryWithMoreThanOneContext_shouldQueryTheEDB() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        when(edbService.getContextIds()).thenReturn(Arrays.asList("testcontext", "othercontext"));
+        IndexEngine indexEngine = createIndexEngine(new HashMap<String, Object>());
+
+        service.setEdbService(edbService);
+        service.bindIndexEngine(indexEngine);
+        service.bindIndexStatus(createIndexStatus(true));
+        service.setIndexQueriesEnabled(true);
+
+        QueryRequest request = QueryRequest.query("name", "testname").setContextId("testcontext");
+        service.query(TestModel.class, request);
+
+        verify(indexEngine, never()).query(any(IndexQuery.class));
+        verify(edbService).query(request);
+    }
+
+    @Test
+    public void testQueryAfterIndexEngineIsUnbound_shouldQueryTheEDB() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        when(edbService.getContextIds()).thenReturn(Arrays.asList("testcontext"));
+        IndexEngine indexEngine = createIndexEngine(new HashMap<String, Object>());
+
+        service.setEdbService(edbService);
+        service.bindIndexEngine(indexEngine);
+        service.bindIndexStatus(createIndexStatus(true));
+        service.unbindIndexEngine(indexEngine);
+        service.setIndexQueriesEnabled(true);
+
+        QueryRequest request = QueryRequest.query("name", "testname").setContextId("testcontext");
+        service.query(TestModel.class, request);
+
+        verify(indexEngine, never()).query(any(IndexQuery.class));
+        verify(edbService).query(request);
+    }
+
+    @Test
+    public void testQueryWithPendingCommitsOfModel_shouldQueryTheEDB() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        when(edbService.getContextIds()).thenReturn(Arrays.asList("testcontext"));
+        IndexEngine indexEngine = createIndexEngine(new HashMap<String, Object>());
+
+        service.setEdbService(edbService);
+        service.bindIndexEngine(indexEngine);
+        service.bindIndexStatus(createIndexStatus(false));
+        service.setIndexQueriesEnabled(true);
+
+        QueryRequest request = QueryRequest.query("name", "testname").setContextId("testcontext");
+        service.query(TestModel.class, request);
+
+        verify(indexEngine, never()).query(any(IndexQuery.class));
+        verify(edbService).query(request);
+    }
+
+    @Test
+    public void testQueryWithoutIndexStatus_shouldQueryTheEDB() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        when(edbService.getContextIds()).thenReturn(Arrays.asList("testcontext"));
+        IndexEngine indexEngine = createIndexEngine(new HashMap<String, Object>());
+
+        service.setEdbService(edbService);
+        service.bindIndexEngine(indexEngine);
+        service.setIndexQueriesEnabled(true);
+
+        QueryRequest request = QueryRequest.query("name", "testname").setContextId("testcontext");
+        service.query(TestModel.class, request);
+
+        verify(indexEngine, never()).query(any(IndexQuery.class));
+        verify(edbService).query(request);
+    }
+
+    @Test
+    public void testRepeatedIndexQueries_shouldLoadContextIdsOnce() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        when(edbService.getContextIds()).thenReturn(Arrays.asList("testcontext"));
+        IndexEngine indexEngine = createIndexEngine(new HashMap<String, Object>());
+
+        service.setEdbService(edbService);
+        service.setEdbConverter(new EDBConverter(edbService));
+        service.bindIndexEngine(indexEngine);
+        service.bindIndexStatus(createIndexStatus(true));
+        service.setIndexQueriesEnabled(true);
+
+        service.query(TestModel.class, QueryRequest.query("name", "testname").setContextId("testcontext"));
+        service.query(TestModel.class, QueryRequest.query("name", "othername").setContextId("testcontext"));
+
+        verify(indexEngine, times(2)).query(any(IndexQuery.class));
+        verify(edbService, times(1)).getContextIds();
+        verify(edbService, never()).query(any(QueryRequest.class));
+    }
+
+    private IndexStatus createIndexStatus(boolean upToDate) {
+        IndexStatus indexStatus = mock(IndexStatus.class);
+        when(indexStatus.isUpToDate(any(String.class))).thenReturn(upToDate);
+        return indexStatus;
+    }
+
+    @SuppressWarnings("unchecked")
+    private IndexEngine createIndexEngine(Map<String, Object> row) throws Exception {
+        IndexField<?> idField = mock(IndexField.class);
+        when(idField.getName()).thenReturn("id");
+        IndexField<?> nameField = mock(IndexField.class);
+        when(nameField.getName()).thenReturn("name");
+        List<IndexField<?>> fields = Arrays.<IndexField<?>> asList(idField, nameField);
+        Index<TestModel> index = mock(Index.class);
+        when(index.getFields()).thenReturn(fields);
+        doReturn(idField).when(index).getModelIdField();
+
+        IndexEngine indexEngine = mock(IndexEngine.class);
+        when(indexEngine.indexExists(TestModel.class)).thenReturn(true);
+        when(indexEngine.getIndex(TestModel.class)).thenReturn(index);
+        when(indexEngine.query(any(IndexQuery.class))).thenReturn(Arrays.asList(row));
+        return indexEngine;
+    }
+
 }
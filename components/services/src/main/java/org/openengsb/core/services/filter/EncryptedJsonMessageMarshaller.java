@@ -26,11 +26,10 @@ import org.openengsb.core.api.remote.FilterConfigurationException;
 import org.openengsb.core.api.remote.FilterException;
 import org.openengsb.core.api.security.model.EncryptedMessage;
 import org.openengsb.core.common.remote.AbstractFilterChainElement;
+import org.openengsb.core.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 /**
  * This filter takes a {@link String} representing a JSON-encoded {@link EncryptedMessage} and parses it. The actual
  * decryption is left to the next filter. The next filter returns a byte[] with the result that has been encrypted with
@@ -53,14 +52,12 @@ public class EncryptedJsonMessageMarshaller extends AbstractFilterChainElement<S
 
     private FilterAction next;
 
-    private ObjectMapper objectMapper = new ObjectMapper();
-
     @Override
     protected String doFilter(String input, Map<String, Object> metaData) {
         EncryptedMessage message;
         try {
             LOGGER.debug("attempting to parse encrypted json message");
-            message = objectMapper.readValue(input, EncryptedMessage.class);
+            message = JsonUtils.getReader(EncryptedMessage.class).readValue(input);
         } catch (IOException e) {
             throw new FilterException(e);
         }
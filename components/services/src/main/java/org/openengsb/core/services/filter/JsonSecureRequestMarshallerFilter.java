@@ -23,6 +23,7 @@ import java.util.Map;
 import org.openengsb.core.api.remote.FilterAction;
 import org.openengsb.core.api.remote.FilterConfigurationException;
 import org.openengsb.core.api.remote.FilterException;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.common.remote.AbstractFilterChainElement;
@@ -30,8 +31,6 @@ import org.openengsb.core.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 /**
  * This filter takes a {@link String} representing a JSON-encoded {@link SecureRequest} and parses it. The next filter
  * returns a SecureResponse which is marshaled to JSON again.
@@ -53,14 +52,12 @@ public class JsonSecureRequestMarshallerFilter extends AbstractFilterChainElemen
 
     private FilterAction next;
 
-    private final ObjectMapper mapper = new ObjectMapper();
-
     @Override
     protected byte[] doFilter(byte[] input, Map<String, Object> metaData) {
         MethodCallMessage request;
         try {
             LOGGER.trace("attempt to read SecureRequest from inputData");
-            request = mapper.readValue(input, MethodCallMessage.class);
+            request = JsonUtils.getReader(MethodCallBatchMessage.class).readValue(input);
         } catch (IOException e) {
             throw new FilterException(e);
         }
@@ -73,7 +70,7 @@ public class JsonSecureRequestMarshallerFilter extends AbstractFilterChainElemen
         MethodResultMessage response = (MethodResultMessage) next.filter(request, metaData);
         LOGGER.debug("response received for callId {}: {}. serializing to json", callId, response);
         try {
-            return mapper.writeValueAsBytes(response);
+            return JsonUtils.getWriter().writeValueAsBytes(response);
         } catch (IOException e) {
             throw new FilterException(e);
         }
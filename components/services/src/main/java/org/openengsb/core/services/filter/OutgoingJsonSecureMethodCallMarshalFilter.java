@@ -18,6 +18,7 @@
 package org.openengsb.core.services.filter;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.openengsb.core.api.remote.FilterAction;
@@ -26,12 +27,11 @@ import org.openengsb.core.api.remote.FilterException;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResult.ReturnType;
+import org.openengsb.core.api.remote.MethodResultBatchMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.common.remote.AbstractFilterChainElement;
 import org.openengsb.core.util.JsonUtils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 /**
  * This filter takes a {@link MethodCallMessage} and serializes it to JSON. The String s then passed on to the next
  * filter. The returned JSON-String representing a {@link MethodResultMessage} is then deserialized and returned.
@@ -52,34 +52,41 @@ public class OutgoingJsonSecureMethodCallMarshalFilter extends
 
     @Override
     public MethodResultMessage doFilter(MethodCallMessage input, Map<String, Object> metadata) throws FilterException {
-
-        ObjectMapper objectMapper = JsonUtils.createObjectMapperWithIntroSpectors();
-        MethodResultMessage resultMessage;
+        MethodResultBatchMessage resultMessage;
         try {
-            String jsonString = objectMapper.writeValueAsString(input);
+            String jsonString = JsonUtils.getWriter().writeValueAsString(input);
             String resultString = (String) next.filter(jsonString, metadata);
             if (resultString == null) {
                 return null;
             }
-            resultMessage = objectMapper.readValue(resultString, MethodResultMessage.class);
+            resultMessage = JsonUtils.getReader(MethodResultBatchMessage.class).readValue(resultString);
         } catch (IOException e) {
             throw new FilterException(e);
         }
-        MethodResult result = resultMessage.getResult();
+        List<MethodResult> batch = resultMessage.getResults();
+        if (batch != null) {
+            for (MethodResult result : batch) {
+                convertResult(result);
+            }
+        } else {
+            convertResult(resultMessage.getResult());
+        }
+        return resultMessage;
+    }
 
+    private void convertResult(MethodResult result) {
         if (result.getType().equals(ReturnType.Void)) {
             result.setArg(null);
-        } else {
-            Class<?> resultType;
-            try {
-                resultType = Class.forName(result.getClassName());
-            } catch (ClassNotFoundException e) {
-                throw new FilterException(e);
-            }
-            Object convertedValue = objectMapper.convertValue(result.getArg(), resultType);
-            result.setArg(convertedValue);
+            return;
         }
-        return resultMessage;
+        Class<?> resultType;
+        try {
+            ClassLoader classLoader = OutgoingJsonSecureMethodCallMarshalFilter.class.getClassLoader();
+            resultType = JsonUtils.loadClass(result.getClassName(), classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new FilterException(e);
+        }
+        result.setArg(JsonUtils.convertValue(result.getArg(), resultType));
     }
 
     @Override
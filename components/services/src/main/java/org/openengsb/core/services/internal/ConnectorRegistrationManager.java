@@ -35,7 +35,6 @@ import org.openengsb.core.api.Domain;
 import org.openengsb.core.api.DomainProvider;
 import org.openengsb.core.api.MixinDomain;
 import org.openengsb.core.api.OpenEngSBService;
-import org.openengsb.core.api.OsgiUtilsService;
 import org.openengsb.core.api.model.ConnectorDescription;
 import org.openengsb.core.api.security.model.SecurityAttributeEntry;
 import org.openengsb.core.common.SecurityAttributeProviderImpl;
@@ -74,7 +73,7 @@ public class ConnectorRegistrationManager {
     private static final Class<?>[] CONNECTOR_INSTANCE_COMMON_INTERFACES =
             new Class<?>[]{ OpenEngSBService.class, Domain.class, Connector.class };
 
-    private OsgiUtilsService serviceUtils;
+    private DefaultOsgiUtilsService serviceUtils;
     private BundleContext bundleContext;
     private SecurityAttributeProviderImpl attributeStore;
 
@@ -297,6 +296,7 @@ public class ConnectorRegistrationManager {
 
     public void setBundleContext(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
+        serviceUtils.close();
         serviceUtils = new DefaultOsgiUtilsService(bundleContext);
     }
 
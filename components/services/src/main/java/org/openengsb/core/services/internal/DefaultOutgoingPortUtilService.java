@@ -17,22 +17,51 @@
 
 package org.openengsb.core.services.internal;
 
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.openengsb.core.api.OsgiServiceNotAvailableException;
 import org.openengsb.core.api.OsgiUtilsService;
 import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.api.remote.OutgoingPort;
 import org.openengsb.core.api.remote.OutgoingPortUtilService;
+import org.openengsb.core.api.remote.RemoteCommunicationException;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Sends method calls via the {@link OutgoingPort} with the given id.
+ *
+ * If a {@link #setBatchWindow(long) batch window} is configured, calls to the same destination which are made within
+ * this window are coalesced and sent as one {@link org.openengsb.core.api.remote.MethodCallBatchMessage}, which saves
+ * round trips and lets the remote side decrypt and authenticate all of them at once. Every remote side the calls are
+ * sent to has to support batches in this case, which the XML based ports don't. Batching is disabled by default.
+ */
 public class DefaultOutgoingPortUtilService implements OutgoingPortUtilService {
 
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    private static final long DEFAULT_BATCH_RESULT_TIMEOUT = 60000;
+
     private OsgiUtilsService utilsService;
 
+    private long batchWindow;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long batchResultTimeout = DEFAULT_BATCH_RESULT_TIMEOUT;
+    private volatile MethodCallBatcher batcher;
+    private ScheduledExecutorService scheduler;
+
     public DefaultOutgoingPortUtilService() {
     }
     
@@ -55,11 +84,15 @@ public class DefaultOutgoingPortUtilService implements OutgoingPortUtilService {
         }
     }
 
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
 
     @Override
     public void sendMethodCall(String portId, String destination, MethodCall call) {
         OutgoingPort port = getPort(portId);
+        if (batchWindow > 0) {
+            getBatcher().add(port, portId, destination, call, false);
+            return;
+        }
         MethodCallMessage request = new MethodCallMessage(call, false);
         request.setDestination(destination);
         Runnable callHandler = new SendMethodCallTask(port, request);
@@ -69,12 +102,73 @@ public class DefaultOutgoingPortUtilService implements OutgoingPortUtilService {
     @Override
     public MethodResult sendMethodCallWithResult(String portId, String destination, MethodCall call) {
         OutgoingPort port = getPort(portId);
+        if (batchWindow > 0) {
+            return waitForResult(getBatcher().add(port, portId, destination, call, true));
+        }
         MethodCallMessage request = new MethodCallMessage(call, true);
         request.setDestination(destination);
         MethodResultMessage requestResult = port.sendSync(request);
         return requestResult.getResult();
     }
 
+    @Override
+    public ListenableFuture<MethodResult> sendMethodCallWithResultAsync(String portId, String destination,
+            MethodCall call) {
+        final OutgoingPort port = getPort(portId);
+        if (batchWindow > 0) {
+            return getBatcher().add(port, portId, destination, call, true);
+        }
+        final MethodCallMessage request = new MethodCallMessage(call, true);
+        request.setDestination(destination);
+        return executor.submit(new Callable<MethodResult>() {
+            @Override
+            public MethodResult call() throws Exception {
+                return port.sendSync(request).getResult();
+            }
+        });
+    }
+
+    private MethodResult waitForResult(ListenableFuture<MethodResult> future) {
+        try {
+            return future.get(batchResultTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the result of a batched call", e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new RemoteCommunicationException("no result for batched call within " + batchResultTimeout + "ms",
+                e);
+        }
+    }
+
+    private MethodCallBatcher getBatcher() {
+        if (batcher == null) {
+            synchronized (this) {
+                if (batcher == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat("outgoing-batch-%d").setDaemon(true).build());
+                    batcher = new MethodCallBatcher(batchWindow, maxBatchSize, scheduler, executor);
+                }
+            }
+        }
+        return batcher;
+    }
+
+    /**
+     * Stops the scheduler of the batch windows. Calls which are still waiting in a window are not sent anymore and
+     * fail.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            batcher.close(new RemoteCommunicationException("the outgoing port util service has been stopped"));
+            batcher = null;
+        }
+    }
+
     private OutgoingPort getPort(String portId) throws OsgiServiceNotAvailableException {
         return utilsService.getServiceWithId(OutgoingPort.class, portId);
     }
@@ -83,4 +177,28 @@ public class DefaultOutgoingPortUtilService implements OutgoingPortUtilService {
         this.utilsService = utilsService;
     }
 
+    /**
+     * Sets the time in milliseconds during which calls are collected before they are sent as batch. 0 (the default)
+     * disables batching. Every remote side the calls are sent to has to support {@link MethodCallBatchMessage}s if
+     * batching is enabled.
+     */
+    public void setBatchWindow(long batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    /**
+     * Sets the maximum number of calls in a batch. A batch is sent as soon as it is full.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Sets the time in milliseconds a batched call waits for its result at most. Defaults to
+     * {@value #DEFAULT_BATCH_RESULT_TIMEOUT}.
+     */
+    public void setBatchResultTimeout(long batchResultTimeout) {
+        this.batchResultTimeout = batchResultTimeout;
+    }
+
 }
@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.services.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
+import org.openengsb.core.api.remote.MethodCallMessage;
+import org.openengsb.core.api.remote.MethodResult;
+import org.openengsb.core.api.remote.MethodResultBatchMessage;
+import org.openengsb.core.api.remote.MethodResultMessage;
+import org.openengsb.core.api.remote.OutgoingPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Coalesces the method calls which are sent to the same destination via the same port within a short window into a
+ * single {@link MethodCallBatchMessage}. A window is flushed when it expires or when it holds the maximum number of
+ * calls. A window containing only one call is sent as a plain {@link MethodCallMessage}, so remote sides that don't
+ * know about batches are still served as long as calls are not made concurrently.
+ */
+final class MethodCallBatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodCallBatcher.class);
+
+    private final long window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private final Map<List<Object>, PendingBatch> pending = new HashMap<>();
+    private boolean closed;
+
+    MethodCallBatcher(long window, int maxBatchSize, ScheduledExecutorService scheduler, Executor executor) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    /**
+     * Adds the call to the current window of the given port and destination. The returned future completes with the
+     * result of the call once the batch has been answered, or with null if no answer was requested.
+     */
+    ListenableFuture<MethodResult> add(OutgoingPort port, String portId, String destination, MethodCall call,
+            boolean answer) {
+        SettableFuture<MethodResult> future = SettableFuture.create();
+        List<Object> key = Arrays.<Object>asList(portId, destination, answer);
+        PendingBatch full = null;
+        synchronized (pending) {
+            if (closed) {
+                throw new IllegalStateException("the batcher has been closed");
+            }
+            PendingBatch batch = pending.get(key);
+            if (batch == null) {
+                batch = new PendingBatch(port, destination, answer);
+                pending.put(key, batch);
+                scheduler.schedule(new FlushTask(key, batch), window, TimeUnit.MILLISECONDS);
+            }
+            batch.calls.add(call);
+            batch.futures.add(future);
+            if (batch.calls.size() >= maxBatchSize) {
+                pending.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            executor.execute(full);
+        }
+        return future;
+    }
+
+    /**
+     * Fails the calls of all windows which have not been sent yet with the given exception. Calls added afterwards are
+     * rejected.
+     */
+    void close(Exception cause) {
+        List<PendingBatch> batches;
+        synchronized (pending) {
+            closed = true;
+            batches = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (PendingBatch batch : batches) {
+            for (SettableFuture<MethodResult> future : batch.futures) {
+                future.setException(cause);
+            }
+        }
+    }
+
+    private final class FlushTask implements Runnable {
+        private final List<Object> key;
+        private final PendingBatch batch;
+
+        private FlushTask(List<Object> key, PendingBatch batch) {
+            this.key = key;
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            synchronized (pending) {
+                if (pending.get(key) != batch) {
+                    // already flushed because it was full
+                    return;
+                }
+                pending.remove(key);
+            }
+            executor.execute(batch);
+        }
+    }
+
+    private static final class PendingBatch implements Runnable {
+        private final OutgoingPort port;
+        private final String destination;
+        private final boolean answer;
+        private final List<MethodCall> calls = new ArrayList<>();
+        private final List<SettableFuture<MethodResult>> futures = new ArrayList<>();
+
+        private PendingBatch(OutgoingPort port, String destination, boolean answer) {
+            this.port = port;
+            this.destination = destination;
+            this.answer = answer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (calls.size() == 1) {
+                    sendSingle();
+                } else {
+                    sendBatch();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("sending batch of {} calls to {} failed", calls.size(), destination, e);
+                for (SettableFuture<MethodResult> future : futures) {
+                    future.setException(e);
+                }
+            }
+        }
+
+        private void sendSingle() {
+            MethodCallMessage request = new MethodCallMessage(calls.get(0), answer);
+            request.setDestination(destination);
+            if (!answer) {
+                port.send(request);
+                futures.get(0).set(null);
+                return;
+            }
+            futures.get(0).set(port.sendSync(request).getResult());
+        }
+
+        private void sendBatch() {
+            MethodCallBatchMessage request = new MethodCallBatchMessage(calls, answer);
+            request.setDestination(destination);
+            LOGGER.debug("sending batch {} of {} calls to {}", request.getCallId(), calls.size(), destination);
+            if (!answer) {
+                port.send(request);
+                for (SettableFuture<MethodResult> future : futures) {
+                    future.set(null);
+                }
+                return;
+            }
+            MethodResultMessage response = port.sendSync(request);
+            List<MethodResult> results = null;
+            if (response instanceof MethodResultBatchMessage) {
+                results = ((MethodResultBatchMessage) response).getResults();
+            }
+            if (results == null || results.size() != calls.size()) {
+                throw new IllegalStateException("the answer to batch " + request.getCallId() + " to " + destination
+                        + " does not contain a result for each of the " + calls.size() + " calls");
+            }
+            for (int i = 0; i < results.size(); i++) {
+                futures.get(i).set(results.get(i));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.services.internal;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.openengsb.core.api.remote.CustomJsonMarshaller;
+import org.openengsb.core.api.remote.UseCustomJasonMarshaller;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Invokes a service method on behalf of remote calls. An invoker is created once per service class, method name and
+ * argument types and holds everything the invocation needs: a MethodHandle of the method, which takes the service and
+ * the arguments as array, and the constructor of the CustomJsonMarshaller of each parameter annotated with
+ * {@link UseCustomJasonMarshaller}. Marshallers are not required to be thread-safe, so every call gets its own
+ * instances.
+ */
+final class RemoteMethodInvoker {
+
+    private final Method method;
+    private final MethodHandle handle;
+    private final Constructor<?>[] marshallers;
+
+    RemoteMethodInvoker(Method method) {
+        this.method = method;
+        this.handle = createHandle(method);
+        this.marshallers = findMarshallerConstructors(method);
+    }
+
+    /**
+     * Returns the invoked method.
+     */
+    Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns true if the method does not return a value.
+     */
+    boolean isVoid() {
+        return method.getReturnType() == void.class;
+    }
+
+    /**
+     * Transforms the arguments of the parameters which use a custom marshaller. The given array is modified.
+     */
+    Object[] transformArguments(Object[] args) {
+        for (int i = 0; i < args.length && i < marshallers.length; i++) {
+            if (marshallers[i] != null) {
+                args[i] = createTransformationInstance(marshallers[i]).transformArg(args[i]);
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Invokes the method. Exceptions thrown by the method are thrown unwrapped.
+     */
+    Object invoke(Object service, Object[] args) throws Throwable {
+        return handle.invokeExact(service, args);
+    }
+
+    private static MethodHandle createHandle(Method method) {
+        MethodHandle result;
+        try {
+            result = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            method.setAccessible(true);
+            try {
+                result = MethodHandles.publicLookup().unreflect(method);
+            } catch (IllegalAccessException e1) {
+                throw new IllegalStateException("method " + method + " is not accessible", e1);
+            }
+        }
+        int parameterCount = method.getParameterTypes().length;
+        if (Modifier.isStatic(method.getModifiers())) {
+            result = MethodHandles.dropArguments(result, 0, Object.class);
+        }
+        return result.asType(MethodType.genericMethodType(parameterCount + 1))
+            .asSpreader(Object[].class, parameterCount);
+    }
+
+    private static Constructor<?>[] findMarshallerConstructors(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        Constructor<?>[] result = new Constructor<?>[parameterAnnotations.length];
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            Class<? extends CustomJsonMarshaller<?>> transformationAnnotation =
+                searchForTransformationAnnotation(parameterAnnotations[i]);
+            if (transformationAnnotation != null) {
+                try {
+                    result[i] = transformationAnnotation.getConstructor();
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException("It's not possible to create transformation because of "
+                            + Throwables.getStackTraceAsString(e));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static CustomJsonMarshaller<?> createTransformationInstance(Constructor<?> constructor) {
+        try {
+            return (CustomJsonMarshaller<?>) constructor.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("It's not possible to create transformation because of "
+                    + Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    private static Class<? extends CustomJsonMarshaller<?>> searchForTransformationAnnotation(
+            Annotation[] currentArgAnnotations) {
+        for (Annotation annotation : currentArgAnnotations) {
+            if (annotation instanceof UseCustomJasonMarshaller) {
+                return ((UseCustomJasonMarshaller) annotation).value();
+            }
+        }
+        return null;
+    }
+}
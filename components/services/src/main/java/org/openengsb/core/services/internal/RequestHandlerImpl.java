@@ -17,33 +17,60 @@
 
 package org.openengsb.core.services.internal;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.reflect.MethodUtils;
 import org.openengsb.core.api.OsgiUtilsService;
 import org.openengsb.core.api.context.ContextHolder;
-import org.openengsb.core.api.remote.CustomJsonMarshaller;
 import org.openengsb.core.api.remote.CustomMarshallerRealTypeAccess;
 import org.openengsb.core.api.remote.MethodCall;
 import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResult.ReturnType;
 import org.openengsb.core.api.remote.RequestHandler;
-import org.openengsb.core.api.remote.UseCustomJasonMarshaller;
+import org.openengsb.core.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 
+/**
+ * Invokes the services addressed by remote calls. The methods to invoke are looked up once per service class, method
+ * name and argument types and cached as {@link RemoteMethodInvoker}s together with the classes of the arguments, so
+ * repeated calls don't have to resolve them via reflection again. The invokers are attached to the service classes
+ * with a ClassValue, so they don't keep the classes of uninstalled service bundles alive.
+ */
 public class RequestHandlerImpl implements RequestHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestHandlerImpl.class);
+
+    private static final ClassValue<ConcurrentMap<List<Object>, RemoteMethodInvoker>> INVOKERS =
+        new ClassValue<ConcurrentMap<List<Object>, RemoteMethodInvoker>>() {
+            @Override
+            protected ConcurrentMap<List<Object>, RemoteMethodInvoker> computeValue(Class<?> serviceClass) {
+                return new ConcurrentHashMap<List<Object>, RemoteMethodInvoker>();
+            }
+        };
+
+    private static final ClassValue<Optional<Method>> REAL_TYPE_METHODS = new ClassValue<Optional<Method>>() {
+        @Override
+        protected Optional<Method> computeValue(Class<?> serviceClass) {
+            try {
+                return Optional.of(serviceClass.getMethod("getRealUnproxiedType"));
+            } catch (NoSuchMethodException e) {
+                // no problem this method does not have to exist
+                return Optional.absent();
+            }
+        }
+    };
+
     private OsgiUtilsService utilsService;
 
     @Override
@@ -54,49 +81,13 @@ public class RequestHandlerImpl implements RequestHandler {
             ContextHolder.get().setCurrentContextId(contextId);
         }
         Object service = retrieveOpenEngSBService(call);
-        Method method = findMethod(service, call.getMethodName(), getArgTypes(call));
-        Object[] args = retrieveArguments(call, method);
-        MethodResult methodResult = invokeMethod(service, method, args);
+        RemoteMethodInvoker invoker = findInvoker(service, call.getMethodName(), getArgTypes(call));
+        Object[] args = invoker.transformArguments(call.getArgs());
+        MethodResult methodResult = invokeMethod(service, invoker, args);
         methodResult.setMetaData(call.getMetaData());
         return methodResult;
     }
 
-    private Object[] retrieveArguments(MethodCall call, Method method) {
-        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-        Object[] originalArgs = call.getArgs();
-        for (int i = 0; i < originalArgs.length; i++) {
-            Annotation[] currentArgAnnotations = parameterAnnotations[i];
-            Class<? extends CustomJsonMarshaller<?>> transformationAnnotation =
-                searchForTransformationAnnotation(currentArgAnnotations);
-            if (transformationAnnotation == null) {
-                continue;
-            }
-            CustomJsonMarshaller<?> transformationInstance = createTransformationInstance(transformationAnnotation);
-            originalArgs[i] = transformationInstance.transformArg(originalArgs[i]);
-        }
-        return originalArgs;
-    }
-
-    private CustomJsonMarshaller<?> createTransformationInstance(
-            Class<? extends CustomJsonMarshaller<?>> transformationAnnotation) {
-        try {
-            return transformationAnnotation.newInstance();
-        } catch (Exception e) {
-            throw new IllegalStateException("It's not possible to create transformation because of "
-                    + Throwables.getStackTraceAsString(e));
-        }
-    }
-
-    private Class<? extends CustomJsonMarshaller<?>> searchForTransformationAnnotation(
-            Annotation[] currentArgAnnotations) {
-        for (Annotation annotation : currentArgAnnotations) {
-            if (annotation instanceof UseCustomJasonMarshaller) {
-                return ((UseCustomJasonMarshaller) annotation).value();
-            }
-        }
-        return null;
-    }
-
     private Object retrieveOpenEngSBService(MethodCall call) {
         Map<String, String> metaData = call.getMetaData();
         String serviceId = metaData.get("serviceId");
@@ -119,11 +110,12 @@ public class RequestHandlerImpl implements RequestHandler {
         }
     }
 
-    private MethodResult invokeMethod(Object service, Method method, Object[] args) {
+    private MethodResult invokeMethod(Object service, RemoteMethodInvoker invoker, Object[] args) {
         MethodResult returnTemplate = new MethodResult();
+        Method method = invoker.getMethod();
         try {
-            Object result = method.invoke(service, args);
-            if (method.getReturnType().getName().equals("void")) {
+            Object result = invoker.invoke(service, args);
+            if (invoker.isVoid()) {
                 returnTemplate.setType(ReturnType.Void);
             } else {
                 returnTemplate.setType(ReturnType.Object);
@@ -135,30 +127,35 @@ public class RequestHandlerImpl implements RequestHandler {
         } catch (Exception e) {
             LOGGER.warn("Exception in remote method invocation: ", e);
             returnTemplate.setType(ReturnType.Exception);
-            if (e.getClass().equals(InvocationTargetException.class)) {
-                e = (Exception) e.getCause();
-                // if it's not an Exception we are in REAL trouble anyway
-            }
             returnTemplate.setArg(e.getCause());
             returnTemplate.setClassName(e.getClass().getName());
+        } catch (Throwable e) {
+            // if it's not an Exception we are in REAL trouble anyway
+            throw Throwables.propagate(e);
         }
         return returnTemplate;
     }
 
-    private Method findMethod(Object service, String methodName, Class<?>[] argTypes) {
-        Method method;
-
+    private RemoteMethodInvoker findInvoker(Object service, String methodName, Class<?>[] argTypes) {
         Class<?> serviceClass = retrieveRealServiceClass(service);
         if (serviceClass.isInstance(CustomMarshallerRealTypeAccess.class)) {
             serviceClass = ((CustomMarshallerRealTypeAccess) service).getRealUnproxiedType();
         }
-        method = MethodUtils.getMatchingAccessibleMethod(serviceClass, methodName, argTypes);
+        ConcurrentMap<List<Object>, RemoteMethodInvoker> invokers = INVOKERS.get(serviceClass);
+        List<Object> signature = Lists.<Object>asList(methodName, argTypes);
+        RemoteMethodInvoker invoker = invokers.get(signature);
+        if (invoker != null) {
+            return invoker;
+        }
+
+        Method method = MethodUtils.getMatchingAccessibleMethod(serviceClass, methodName, argTypes);
         if (method == null) {
             throw new IllegalArgumentException(String.format("could not find method matching arguments \"%s(%s)\"",
                 methodName, ArrayUtils.toString(argTypes)));
         }
-
-        return method;
+        invoker = new RemoteMethodInvoker(method);
+        RemoteMethodInvoker existing = invokers.putIfAbsent(signature, invoker);
+        return existing != null ? existing : invoker;
     }
 
     /**
@@ -168,15 +165,10 @@ public class RequestHandlerImpl implements RequestHandler {
      */
     private Class<?> retrieveRealServiceClass(Object service) {
         Class<?> serviceClass = service.getClass();
-        Method realTypeMethod = null;
-        try {
-            realTypeMethod = serviceClass.getMethod("getRealUnproxiedType");
-        } catch (NoSuchMethodException e) {
-            // no problem this method does not have to exist
-        }
-        if (realTypeMethod != null) {
+        Optional<Method> realTypeMethod = REAL_TYPE_METHODS.get(serviceClass);
+        if (realTypeMethod.isPresent()) {
             try {
-                serviceClass = (Class<?>) realTypeMethod.invoke(service);
+                serviceClass = (Class<?>) realTypeMethod.get().invoke(service);
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -185,15 +177,26 @@ public class RequestHandlerImpl implements RequestHandler {
     }
 
     private Class<?>[] getArgTypes(MethodCall args) {
-        List<Class<?>> clazzes = new ArrayList<Class<?>>();
-        for (String clazz : args.getClasses()) {
+        List<String> classNames = args.getClasses();
+        Class<?>[] clazzes = new Class<?>[classNames.size()];
+        for (int i = 0; i < clazzes.length; i++) {
+            clazzes[i] = getArgType(classNames.get(i));
+        }
+        return clazzes;
+    }
+
+    private Class<?> getArgType(String className) {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        try {
             try {
-                clazzes.add(ClassUtils.getClass(this.getClass().getClassLoader(), clazz));
+                return JsonUtils.loadClass(className, classLoader);
             } catch (ClassNotFoundException e) {
-                throw new IllegalArgumentException("The classes defined could not be found", e);
+                // primitives and arrays in source notation are not known to the class loader
+                return ClassUtils.getClass(classLoader, className);
             }
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("The classes defined could not be found", e);
         }
-        return clazzes.toArray(new Class<?>[0]);
     }
 
     public void setUtilsService(OsgiUtilsService utilsService) {
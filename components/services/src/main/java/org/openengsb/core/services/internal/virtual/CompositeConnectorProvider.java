@@ -24,9 +24,12 @@ import org.openengsb.core.api.descriptor.ServiceDescriptor;
 import org.openengsb.core.api.descriptor.ServiceDescriptor.Builder;
 import org.openengsb.core.common.AbstractConnectorProvider;
 import org.openengsb.core.util.DefaultOsgiUtilsService;
+import org.osgi.framework.BundleContext;
 
 public class CompositeConnectorProvider extends AbstractConnectorProvider implements VirtualConnectorProvider {
-    
+
+    private DefaultOsgiUtilsService utilsService;
+
     @Override
     public ServiceDescriptor getDescriptor() {
         Builder builder = ServiceDescriptor.builder(strings);
@@ -45,7 +48,23 @@ public class CompositeConnectorProvider extends AbstractConnectorProvider implem
 
     @Override
     public ConnectorInstanceFactory createFactory(DomainProvider provider) {
-        return new CompositeConnectorFactory(provider, new DefaultOsgiUtilsService(bundleContext));
+        return new CompositeConnectorFactory(provider, utilsService);
+    }
+
+    /**
+     * The service trackers are shared by the factories of all domains.
+     */
+    @Override
+    public void setBundleContext(BundleContext bundleContext) {
+        super.setBundleContext(bundleContext);
+        close();
+        utilsService = new DefaultOsgiUtilsService(bundleContext);
+    }
+
+    public void close() {
+        if (utilsService != null) {
+            utilsService.close();
+        }
     }
 
 }
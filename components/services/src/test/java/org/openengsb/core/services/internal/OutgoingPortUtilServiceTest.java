@@ -19,6 +19,8 @@ package org.openengsb.core.services.internal;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -30,9 +32,12 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -42,16 +47,20 @@ import java.util.concurrent.TimeoutException;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.openengsb.core.api.OpenEngSBService;
 import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResult.ReturnType;
+import org.openengsb.core.api.remote.MethodResultBatchMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.api.remote.OutgoingPort;
 import org.openengsb.core.api.remote.OutgoingPortUtilService;
+import org.openengsb.core.api.remote.RemoteCommunicationException;
 import org.openengsb.core.test.AbstractOsgiMockServiceTest;
 import org.openengsb.core.util.DefaultOsgiUtilsService;
 
@@ -133,6 +142,97 @@ public class OutgoingPortUtilServiceTest extends AbstractOsgiMockServiceTest {
         assertThat(result, is(expectedResult));
     }
 
+    @Test(timeout = 10000)
+    public void testSendMethodCallAsync_shouldCompleteFutureWithResult() throws Exception {
+        MethodResult expectedResult = new MethodResult();
+        MethodResultMessage value = mock(MethodResultMessage.class);
+        when(value.getResult()).thenReturn(expectedResult);
+        when(outgoingPortMock.sendSync(any(MethodCallMessage.class))).thenReturn(value);
+        Future<MethodResult> result =
+            callrouter.sendMethodCallWithResultAsync("jms+json-out", "jms://localhost", methodCall);
+        assertThat(result.get(), is(expectedResult));
+    }
+
+    @Test(timeout = 10000)
+    public void testSendSyncMethodCallsWithBatchWindow_shouldSendOneBatch() throws Exception {
+        DefaultOutgoingPortUtilService batchingRouter =
+            new DefaultOutgoingPortUtilService(new DefaultOsgiUtilsService(bundleContext));
+        batchingRouter.setBatchWindow(200);
+        when(outgoingPortMock.sendSync(any(MethodCallMessage.class))).thenAnswer(new Answer<MethodResultMessage>() {
+            @Override
+            public MethodResultMessage answer(InvocationOnMock invocation) {
+                MethodCallBatchMessage request = (MethodCallBatchMessage) invocation.getArguments()[0];
+                List<MethodResult> results = new ArrayList<MethodResult>();
+                for (MethodCall call : request.getMethodCalls()) {
+                    results.add(new MethodResult(call.getMethodName()));
+                }
+                return new MethodResultBatchMessage(results, request.getCallId());
+            }
+        });
+        MethodCall call1 = new MethodCall("getAnswer", new Object[0], getMetadata("foo"));
+        MethodCall call2 = new MethodCall("getOtherAnswer", new Object[0], getMetadata("foo"));
+
+        ExecutorService threadPool = Executors.newCachedThreadPool();
+        Future<MethodResult> future1 = threadPool.submit(new SendCallable(batchingRouter, call1));
+        Future<MethodResult> future2 = threadPool.submit(new SendCallable(batchingRouter, call2));
+
+        assertThat((String) future1.get().getArg(), is("getAnswer"));
+        assertThat((String) future2.get().getArg(), is("getOtherAnswer"));
+        ArgumentCaptor<MethodCallMessage> captor = ArgumentCaptor.forClass(MethodCallMessage.class);
+        verify(outgoingPortMock).sendSync(captor.capture());
+        MethodCallBatchMessage batch = (MethodCallBatchMessage) captor.getValue();
+        assertThat(batch.getMethodCalls(), hasItems(call1, call2));
+        assertThat(batch.getDestination(), is(testURI));
+        batchingRouter.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void testStopWithCallsInBatchWindow_shouldFailTheCalls() throws Exception {
+        DefaultOutgoingPortUtilService batchingRouter =
+            new DefaultOutgoingPortUtilService(new DefaultOsgiUtilsService(bundleContext));
+        batchingRouter.setBatchWindow(60000);
+        Future<MethodResult> result =
+            batchingRouter.sendMethodCallWithResultAsync("jms+json-out", "jms://localhost", methodCall);
+
+        batchingRouter.stop();
+
+        try {
+            result.get();
+            fail("call in the batch window did not fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RemoteCommunicationException.class));
+        }
+        verify(outgoingPortMock, never()).sendSync(any(MethodCallMessage.class));
+    }
+
+    @Test(timeout = 10000, expected = RemoteCommunicationException.class)
+    public void testSendSyncMethodCallWithBatchWindowWithoutResult_shouldTimeOut() throws Exception {
+        DefaultOutgoingPortUtilService batchingRouter =
+            new DefaultOutgoingPortUtilService(new DefaultOsgiUtilsService(bundleContext));
+        batchingRouter.setBatchWindow(60000);
+        batchingRouter.setBatchResultTimeout(100);
+        try {
+            batchingRouter.sendMethodCallWithResult("jms+json-out", "jms://localhost", methodCall);
+        } finally {
+            batchingRouter.stop();
+        }
+    }
+
+    private static class SendCallable implements Callable<MethodResult> {
+        private final OutgoingPortUtilService router;
+        private final MethodCall call;
+
+        public SendCallable(OutgoingPortUtilService router, MethodCall call) {
+            this.router = router;
+            this.call = call;
+        }
+
+        @Override
+        public MethodResult call() throws Exception {
+            return router.sendMethodCallWithResult("jms+json-out", "jms://localhost", call);
+        }
+    }
+
     private class MethodCallable implements Callable<MethodResult> {
         private final MethodCall call;
 
@@ -30,12 +30,14 @@ import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.openengsb.core.api.remote.CustomJsonMarshaller;
 import org.openengsb.core.api.remote.MethodCall;
 import org.openengsb.core.api.remote.MethodResult;
+import org.openengsb.core.api.remote.MethodResult.ReturnType;
 import org.openengsb.core.api.remote.RequestHandler;
 import org.openengsb.core.api.remote.UseCustomJasonMarshaller;
 import org.openengsb.core.test.AbstractOsgiMockServiceTest;
@@ -64,6 +66,19 @@ public class RequestHandlerImplTest extends AbstractOsgiMockServiceTest {
 
     }
 
+    public static class CountingMarshaller implements CustomJsonMarshaller<Integer> {
+        private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public CountingMarshaller() {
+            INSTANCES.incrementAndGet();
+        }
+
+        @Override
+        public Integer transformArg(Object arg) {
+            return (Integer) arg * 2;
+        }
+    }
+
     @Before
     public void setup() throws Exception {
         RequestHandlerImpl requestHandlerImpl = new RequestHandlerImpl();
@@ -175,4 +190,37 @@ public class RequestHandlerImplTest extends AbstractOsgiMockServiceTest {
             verifyZeroInteractions(mockService);
         }
     }
+
+    @Test
+    public void testCallTwiceWithCustomMarshaller_shouldUseOwnMarshallerPerCall() throws Exception {
+        CountingMarshaller.INSTANCES.set(0);
+        Map<String, Object> propData = ImmutableMap.of(Constants.SERVICE_PID, (Object) "yyy");
+        TestInterface realObject = new TestInterface() {
+            @Override
+            public Integer test(@UseCustomJasonMarshaller(CountingMarshaller.class) Integer arg) {
+                return arg;
+            }
+        };
+        registerServiceWithProps(realObject, propData);
+
+        Map<String, String> metaData = ImmutableMap.of("serviceId", "yyy");
+        MethodResult result1 = requestHandler.handleCall(new MethodCall("test", new Object[]{ 21 }, metaData));
+        MethodResult result2 = requestHandler.handleCall(new MethodCall("test", new Object[]{ 42 }, metaData));
+
+        assertThat((Integer) result1.getArg(), is(42));
+        assertThat((Integer) result2.getArg(), is(84));
+        assertThat(CountingMarshaller.INSTANCES.get(), is(2));
+    }
+
+    @Test
+    public void testCallWithServiceThrowingException_shouldReturnException() throws Exception {
+        TestInterface mockService = mockService(TestInterface.class, "testid");
+        when(mockService.test(anyInt())).thenThrow(new IllegalStateException("test"));
+
+        Map<String, String> metaData = ImmutableMap.of("serviceId", "testid");
+        MethodResult result = requestHandler.handleCall(new MethodCall("test", new Object[]{ 42 }, metaData));
+
+        assertThat(result.getType(), is(ReturnType.Exception));
+        assertThat(result.getClassName(), is(IllegalStateException.class.getName()));
+    }
 }
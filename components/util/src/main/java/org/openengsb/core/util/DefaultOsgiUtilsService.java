@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.openengsb.core.api.OsgiServiceNotAvailableException;
@@ -42,9 +43,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 
+/**
+ * Resolves services with ServiceTrackers, which are cached per filter. A tracker is opened by the first lookup with its
+ * filter and kept current by the service events of the framework, so later lookups don't have to search the service
+ * registry again. Trackers which have not been used for {@value #TRACKER_EXPIRY_MINUTES} minutes or exceed the
+ * maximum of {@value #MAX_TRACKERS} trackers are closed.
+ */
 public class DefaultOsgiUtilsService implements OsgiUtilsService {
 
     /**
@@ -56,7 +68,7 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
      *
      */
     private final class ServiceTrackerInvocationHandler implements InvocationHandler {
-        private ServiceTracker tracker;
+        private final Filter filter;
         private Long timeout = -1L;
         private final String info;
 
@@ -66,7 +78,7 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
         }
 
         protected ServiceTrackerInvocationHandler(Filter filter) {
-            tracker = new ServiceTracker(bundleContext, filter, null);
+            this.filter = filter;
             info = filter.toString();
         }
 
@@ -76,7 +88,7 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
         }
 
         protected ServiceTrackerInvocationHandler(String className) {
-            tracker = new ServiceTracker(bundleContext, className, null);
+            filter = FilterUtils.makeFilterForClass(className);
             info = "Class: " + className;
         }
 
@@ -97,16 +109,12 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
             }
         }
 
-        private synchronized Object getService() throws InterruptedException {
-            tracker.open();
-            try {
-                if (timeout < 0) {
-                    return tracker.getService();
-                } else {
-                    return tracker.waitForService(timeout);
-                }
-            } finally {
-                tracker.close();
+        private Object getService() throws InterruptedException {
+            ServiceTracker tracker = getTracker(filter);
+            if (timeout < 0) {
+                return tracker.getService();
+            } else {
+                return tracker.waitForService(timeout);
             }
         }
     }
@@ -114,8 +122,13 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultOsgiUtilsService.class);
     private static final long DEFAULT_TIMEOUT = 30000L;
 
+    private static final int MAX_TRACKERS = 1000;
+    private static final int TRACKER_EXPIRY_MINUTES = 10;
+
     private BundleContext bundleContext;
 
+    private volatile LoadingCache<String, ServiceTracker> trackers;
+
     public DefaultOsgiUtilsService() {
     }
 
@@ -131,7 +144,7 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
     @Override
     @SuppressWarnings("unchecked")
     public <T> T getService(Class<T> clazz, long timeout) throws OsgiServiceNotAvailableException {
-        ServiceTracker tracker = new ServiceTracker(bundleContext, clazz.getName(), null);
+        ServiceTracker tracker = getTracker(FilterUtils.makeFilterForClass(clazz));
         Object result = waitForServiceFromTracker(tracker, timeout);
         if (result == null) {
             throw new OsgiServiceNotAvailableException(String.format("no service of type %s available at the time",
@@ -148,7 +161,7 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
 
     @Override
     public Object getService(Filter filter, long timeout) throws OsgiServiceNotAvailableException {
-        ServiceTracker t = new ServiceTracker(bundleContext, filter, null);
+        ServiceTracker t = getTracker(filter);
         LOGGER.debug("getting service for filter {} from tracker", filter);
         Object result = waitForServiceFromTracker(t, timeout);
         if (result == null) {
@@ -260,16 +273,60 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
      */
     private static Object waitForServiceFromTracker(ServiceTracker tracker, long timeout)
         throws OsgiServiceNotAvailableException {
-        synchronized (tracker) {
-            tracker.open();
-            try {
-                return tracker.waitForService(timeout);
-            } catch (InterruptedException e) {
-                throw new OsgiServiceNotAvailableException(e);
-            } finally {
-                tracker.close();
+        try {
+            return tracker.waitForService(timeout);
+        } catch (InterruptedException e) {
+            throw new OsgiServiceNotAvailableException(e);
+        }
+    }
+
+    /**
+     * returns the open tracker for the given filter from the cache, opening a new one if there is none yet.
+     */
+    private ServiceTracker getTracker(Filter filter) {
+        return getTrackers().getUnchecked(filter.toString());
+    }
+
+    private LoadingCache<String, ServiceTracker> getTrackers() {
+        LoadingCache<String, ServiceTracker> result = trackers;
+        if (result == null) {
+            synchronized (this) {
+                result = trackers;
+                if (result == null) {
+                    result = createTrackerCache(bundleContext);
+                    trackers = result;
+                }
             }
         }
+        return result;
+    }
+
+    private static LoadingCache<String, ServiceTracker> createTrackerCache(final BundleContext bundleContext) {
+        return CacheBuilder.newBuilder()
+            .maximumSize(MAX_TRACKERS)
+            .expireAfterAccess(TRACKER_EXPIRY_MINUTES, TimeUnit.MINUTES)
+            .removalListener(new RemovalListener<String, ServiceTracker>() {
+                @Override
+                public void onRemoval(RemovalNotification<String, ServiceTracker> notification) {
+                    closeTracker(notification.getValue());
+                }
+            })
+            .build(new CacheLoader<String, ServiceTracker>() {
+                @Override
+                public ServiceTracker load(String filter) {
+                    ServiceTracker tracker = new ServiceTracker(bundleContext, FilterUtils.createFilter(filter), null);
+                    tracker.open();
+                    return tracker;
+                }
+            });
+    }
+
+    private static void closeTracker(ServiceTracker tracker) {
+        try {
+            tracker.close();
+        } catch (IllegalStateException e) {
+            LOGGER.debug("bundle context of tracker is not valid anymore", e);
+        }
     }
 
     @Override
@@ -304,26 +361,22 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
 
     @Override
     public <T> List<T> listServices(Class<T> clazz) {
-        ServiceTracker tracker = new ServiceTracker(bundleContext, clazz.getName(), null);
-        return getListFromTracker(tracker);
+        return getListFromTracker(getTracker(FilterUtils.makeFilterForClass(clazz)));
     }
 
     private <T> List<T> getListFromTracker(ServiceTracker tracker) {
-        tracker.open();
         Object[] services = tracker.getServices();
         List<T> result = new ArrayList<T>();
         if (services != null) {
             CollectionUtils.addAll(result, services);
         }
-        tracker.close();
         return result;
     }
 
     @Override
     public <T> List<T> listServices(Class<T> clazz, String filterString) throws IllegalArgumentException {
         Filter filter = FilterUtils.makeFilter(clazz, filterString);
-        ServiceTracker tracker = new ServiceTracker(bundleContext, filter, null);
-        return getListFromTracker(tracker);
+        return getListFromTracker(getTracker(filter));
     }
 
     @Override
@@ -349,7 +402,19 @@ public class DefaultOsgiUtilsService implements OsgiUtilsService {
     /**
      * Any bundle-context is fine here, since it does not matter from which bundlecontext services are retrieved.
      */
-    public void setBundleContext(BundleContext bundleContext) {
+    public synchronized void setBundleContext(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
+        close();
+    }
+
+    /**
+     * Closes all open trackers. Should be called when the service is not needed anymore. Later lookups open new
+     * trackers again.
+     */
+    public synchronized void close() {
+        if (trackers != null) {
+            trackers.invalidateAll();
+            trackers = null;
+        }
     }
 }
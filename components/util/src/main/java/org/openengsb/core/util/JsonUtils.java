@@ -21,13 +21,17 @@ import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.reflect.MethodUtils;
 import org.openengsb.core.api.model.OpenEngSBModelEntry;
 import org.openengsb.core.api.model.annotation.Model;
 import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallBatchMessage;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
+import org.openengsb.core.api.remote.MethodResultBatchMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,25 +42,42 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.AnnotationIntrospector;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
 import com.fasterxml.jackson.databind.introspect.AnnotationIntrospectorPair;
 import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 public final class JsonUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonUtils.class);
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-    private static final ObjectMapper MODEL_MAPPER = new ObjectMapper();
+    /*
+     * Mapper, reader and writer instances are thread-safe once configured, so they are shared instead of creating a
+     * mapper per message. But each mapper caches the serializers, deserializers and types of all classes it has
+     * handled, which keeps the classes of other bundles and their class loaders reachable. Therefore the shared
+     * instances are replaced by new ones whenever a bundle is unresolved, see clearMappers.
+     */
+    private static volatile SharedMappers mappers = new SharedMappers();
 
-    static {
-        // adding the additional deserializer needed to deserialize models
-        MODEL_MAPPER.registerModule(new SimpleModule().addDeserializer(Object.class,
-            new OpenEngSBModelEntryDeserializer()));
-    }
+    /*
+     * The classes are held weakly, they stay loaded as long as their class loader anyway. The class loaders are held
+     * weakly as well, so that the cache does not keep uninstalled bundles alive.
+     */
+    private static final LoadingCache<ClassLoader, Cache<String, Class<?>>> CLASSES = CacheBuilder.newBuilder()
+        .weakKeys().build(new CacheLoader<ClassLoader, Cache<String, Class<?>>>() {
+            @Override
+            public Cache<String, Class<?>> load(ClassLoader classLoader) {
+                return CacheBuilder.newBuilder().weakValues().build();
+            }
+        });
 
     /**
      * Converts an object in JSON format to the given class. Throws an IOException if the conversion could not be
@@ -65,9 +86,9 @@ public final class JsonUtils {
     public static <T> T convertObject(String json, Class<T> clazz) throws IOException {
         try {
             if (clazz.isAnnotationPresent(Model.class)) {
-                return MODEL_MAPPER.readValue(json, clazz);
+                return mappers.modelMapper.readValue(json, clazz);
             }
-            return MAPPER.readValue(json, clazz);
+            return mappers.mapper.readValue(json, clazz);
         } catch (IOException e) {
             String error = String.format("Unable to parse given json '%s' into class '%s'.", json, clazz.getName());
             LOGGER.error(error, e);
@@ -79,9 +100,9 @@ public final class JsonUtils {
         try {
             Class<?> type = findType(className);
             if (type.isAnnotationPresent(Model.class)) {
-                return MODEL_MAPPER.convertValue(arg, type);
+                return mappers.modelMapper.convertValue(arg, type);
             }
-            return MAPPER.convertValue(arg, type);
+            return mappers.mapper.convertValue(arg, type);
         } catch (ClassNotFoundException e) {
             LOGGER.error("could not convert argument " + arg, e);
             return arg;
@@ -93,7 +114,63 @@ public final class JsonUtils {
             Class<?> componentType = findType(className.substring(2, className.length() - 1));
             return Array.newInstance(componentType, 0).getClass();
         }
-        return JsonUtils.class.getClassLoader().loadClass(className);
+        return loadClass(className, JsonUtils.class.getClassLoader());
+    }
+
+    /**
+     * Loads the class with the given name with the given class loader. The classes are cached per class loader, so
+     * that repeated lookups of the same argument or result types don't have to ask the class loader again.
+     */
+    public static Class<?> loadClass(String className, ClassLoader classLoader) throws ClassNotFoundException {
+        if (classLoader == null) {
+            return Class.forName(className, false, null);
+        }
+        Cache<String, Class<?>> classes = CLASSES.getUnchecked(classLoader);
+        Class<?> type = classes.getIfPresent(className);
+        if (type == null) {
+            type = Class.forName(className, false, classLoader);
+            classes.put(className, type);
+        }
+        return type;
+    }
+
+    /**
+     * Returns a shared reader for the given type, which is configured like the mapper returned by
+     * {@link #createObjectMapperWithIntroSpectors()}.
+     */
+    public static ObjectReader getReader(Class<?> type) {
+        SharedMappers current = mappers;
+        ObjectReader reader = current.remotingReaders.get(type);
+        if (reader == null) {
+            reader = current.remotingMapper.reader(type);
+            current.remotingReaders.putIfAbsent(type, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Returns a shared writer, which is configured like the mapper returned by
+     * {@link #createObjectMapperWithIntroSpectors()}.
+     */
+    public static ObjectWriter getWriter() {
+        return mappers.remotingWriter;
+    }
+
+    /**
+     * Converts the given value to the given type with a shared mapper, which is configured like the mapper returned
+     * by {@link #createObjectMapperWithIntroSpectors()}.
+     */
+    public static <T> T convertValue(Object value, Class<T> type) {
+        return mappers.remotingMapper.convertValue(value, type);
+    }
+
+    /**
+     * Discards the shared mappers, readers and writers together with everything they have cached about the classes
+     * they have handled. This is called when a bundle is unresolved, so that its classes are not kept loaded by the
+     * caches of the shared mappers. Readers and writers which are in use stay valid.
+     */
+    public static void clearMappers() {
+        mappers = new SharedMappers();
     }
 
     public static void convertAllArgs(MethodCall call) {
@@ -110,14 +187,36 @@ public final class JsonUtils {
         result.setArg(convertArgument);
     }
 
+    /**
+     * Converts the arguments of the call of the given message or, if it is a batch, of all its calls.
+     */
     public static void convertAllArgs(MethodCallMessage request) {
-        convertAllArgs(request.getMethodCall());
+        if (request instanceof MethodCallBatchMessage && ((MethodCallBatchMessage) request).getMethodCalls() != null) {
+            for (MethodCall call : ((MethodCallBatchMessage) request).getMethodCalls()) {
+                convertAllArgs(call);
+            }
+        } else {
+            convertAllArgs(request.getMethodCall());
+        }
     }
 
+    /**
+     * Converts the result of the given message or, if it is a batch, all its results.
+     */
     public static void convertResult(MethodResultMessage message) {
-        convertResult(message.getResult());
+        if (message instanceof MethodResultBatchMessage && ((MethodResultBatchMessage) message).getResults() != null) {
+            for (MethodResult result : ((MethodResultBatchMessage) message).getResults()) {
+                convertResult(result);
+            }
+        } else {
+            convertResult(message.getResult());
+        }
     }
 
+    /**
+     * Creates a new mapper. Prefer the shared {@link #getReader(Class)} and {@link #getWriter()}, which are configured
+     * the same way.
+     */
     public static ObjectMapper createObjectMapperWithIntroSpectors() {
         ObjectMapper mapper = new ObjectMapper();
         AnnotationIntrospector primaryIntrospector = new JacksonAnnotationIntrospector();
@@ -132,6 +231,23 @@ public final class JsonUtils {
     private JsonUtils() {
     }
 
+    /**
+     * The mappers, readers and writers which are shared until the next call of clearMappers.
+     */
+    private static final class SharedMappers {
+        private final ObjectMapper mapper = new ObjectMapper();
+        private final ObjectMapper modelMapper = new ObjectMapper();
+        private final ObjectMapper remotingMapper = createObjectMapperWithIntroSpectors();
+        private final ObjectWriter remotingWriter = remotingMapper.writer();
+        private final ConcurrentMap<Class<?>, ObjectReader> remotingReaders = new ConcurrentHashMap<>();
+
+        SharedMappers() {
+            // adding the additional deserializer needed to deserialize models
+            modelMapper.registerModule(new SimpleModule().addDeserializer(Object.class,
+                new OpenEngSBModelEntryDeserializer()));
+        }
+    }
+
     /**
      * The OpenEngSBModelEntryDeserializer class is needed in order to be able to transform the list of
      * OpenEngSBModelEntry elements, which is contained in every model tail, from a JSON string into a list of actual
@@ -20,7 +20,10 @@ package org.openengsb.core.util;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.openengsb.core.api.model.ModelWrapper;
 import org.openengsb.core.api.model.OpenEngSBModel;
@@ -28,6 +31,8 @@ import org.openengsb.core.api.model.OpenEngSBModelEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
+
 /**
  * This static utility class contains the logic for creating a model instance with a list of model entries which shall
  * be set in the model instance.
@@ -36,6 +41,13 @@ public final class ModelUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(ModelUtils.class);
     public static final String MODEL_TAIL_FIELD_NAME = "openEngSBModelTail";
 
+    private static final ClassValue<ModelAccessors> ACCESSORS = new ClassValue<ModelAccessors>() {
+        @Override
+        protected ModelAccessors computeValue(Class<?> model) {
+            return new ModelAccessors(model);
+        }
+    };
+
     private ModelUtils() {
     }
 
@@ -74,19 +86,14 @@ public final class ModelUtils {
      */
     private static boolean tryToSetValueThroughField(OpenEngSBModelEntry entry, Object instance)
         throws IllegalAccessException {
-        try {
-            Field field = instance.getClass().getDeclaredField(entry.getKey());
-            field.setAccessible(true);
-            field.set(instance, entry.getValue());
-            field.setAccessible(false);
-            return true;
-        } catch (NoSuchFieldException e) {
-            // if no field with this name exist, try to use the corresponding setter
-        } catch (SecurityException e) {
-            // if a security manager is installed which don't allow this change of a field value, try
-            // to use the corresponding setter
+        Field field = ACCESSORS.get(instance.getClass()).getField(entry.getKey());
+        if (field == null) {
+            // if no field with this name exist or if a security manager is installed which don't allow this change of
+            // a field value, try to use the corresponding setter
+            return false;
         }
-        return false;
+        field.set(instance, entry.getValue());
+        return true;
     }
 
     /**
@@ -95,13 +102,14 @@ public final class ModelUtils {
      */
     private static boolean tryToSetValueThroughSetter(OpenEngSBModelEntry entry, Object instance)
         throws IllegalAccessException {
+        Method method = ACCESSORS.get(instance.getClass()).getSetter(entry.getKey(), entry.getType());
+        if (method == null) {
+            // if there exist no such method, then it is an entry meant for the model tail
+            return false;
+        }
         try {
-            String setterName = getSetterName(entry.getKey());
-            Method method = instance.getClass().getMethod(setterName, entry.getType());
             method.invoke(instance, entry.getValue());
             return true;
-        } catch (NoSuchMethodException e) {
-            // if there exist no such method, then it is an entry meant for the model tail
         } catch (IllegalArgumentException e) {
             LOGGER.error("IllegalArgumentException while trying to set values for the new model.", e);
         } catch (InvocationTargetException e) {
@@ -113,4 +121,64 @@ public final class ModelUtils {
     private static String getSetterName(String propertyName) {
         return String.format("%s%s%s", "set", (propertyName.charAt(0) + "").toUpperCase(), propertyName.substring(1));
     }
+
+    /**
+     * The fields and setters of a model class. The lookups are done once per class and per property, including the
+     * negative ones, so that creating a model doesn't need any reflective lookup or the exceptions for missing members.
+     */
+    private static final class ModelAccessors {
+        private final Class<?> model;
+        private final ConcurrentMap<String, Optional<Field>> fields = new ConcurrentHashMap<>();
+        private final ConcurrentMap<List<Object>, Optional<Method>> setters = new ConcurrentHashMap<>();
+
+        private ModelAccessors(Class<?> model) {
+            this.model = model;
+        }
+
+        /**
+         * Returns the accessible declared field with the given name or null if there is no such field or it can't be
+         * made accessible.
+         */
+        private Field getField(String name) {
+            Optional<Field> field = fields.get(name);
+            if (field == null) {
+                field = Optional.fromNullable(lookupField(name));
+                fields.putIfAbsent(name, field);
+            }
+            return field.orNull();
+        }
+
+        /**
+         * Returns the public setter for the given property and parameter type or null if there is no such setter.
+         */
+        private Method getSetter(String propertyName, Class<?> type) {
+            List<Object> key = Arrays.<Object> asList(propertyName, type);
+            Optional<Method> setter = setters.get(key);
+            if (setter == null) {
+                setter = Optional.fromNullable(lookupSetter(propertyName, type));
+                setters.putIfAbsent(key, setter);
+            }
+            return setter.orNull();
+        }
+
+        private Field lookupField(String name) {
+            try {
+                Field field = model.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                return null;
+            } catch (SecurityException e) {
+                return null;
+            }
+        }
+
+        private Method lookupSetter(String propertyName, Class<?> type) {
+            try {
+                return model.getMethod(getSetterName(propertyName), type);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
 }
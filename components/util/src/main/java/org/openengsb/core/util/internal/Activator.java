@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.util.internal;
+
+import org.openengsb.core.util.JsonUtils;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Discards the shared JSON mappers of {@link JsonUtils} whenever a bundle is unresolved (uninstalled or refreshed),
+ * so that their caches do not keep the classes of the old bundle revision loaded.
+ */
+public class Activator implements BundleActivator {
+
+    private final SynchronousBundleListener listener = new SynchronousBundleListener() {
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            if (event.getType() == BundleEvent.UNRESOLVED) {
+                JsonUtils.clearMappers();
+            }
+        }
+    };
+
+    @Override
+    public void start(BundleContext context) throws Exception {
+        context.addBundleListener(listener);
+    }
+
+    @Override
+    public void stop(BundleContext context) throws Exception {
+        context.removeBundleListener(listener);
+        JsonUtils.clearMappers();
+    }
+
+}
@@ -18,6 +18,8 @@ package org.openengsb.core.util;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import java.util.Arrays;
@@ -27,6 +29,7 @@ import org.junit.Test;
 import org.openengsb.core.api.remote.MethodCall;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.collect.ImmutableMap;
 
 public class JsonUtilTest {
@@ -78,4 +81,36 @@ public class JsonUtilTest {
         TestBean[] arg = (TestBean[]) object;
         assertThat(arg[0].x, is("foo"));
     }
+
+    @Test
+    public void testLoadClass_shouldReturnCachedClass() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        Class<?> type = JsonUtils.loadClass(TestBean.class.getName(), classLoader);
+        assertThat(type, sameInstance((Object) TestBean.class));
+        assertThat(JsonUtils.loadClass(TestBean.class.getName(), classLoader), sameInstance((Object) type));
+        Class<?> arrayType = JsonUtils.loadClass(TestBean[].class.getName(), classLoader);
+        assertThat(arrayType, sameInstance((Object) TestBean[].class));
+    }
+
+    @Test
+    public void testGetReader_shouldReturnSharedReaderForType() throws Exception {
+        assertThat(JsonUtils.getReader(MethodCall.class), sameInstance(JsonUtils.getReader(MethodCall.class)));
+
+        MethodCall methodCall = new MethodCall("test", new Object[]{ "foo" });
+        String json = JsonUtils.getWriter().writeValueAsString(methodCall);
+        MethodCall result = JsonUtils.getReader(MethodCall.class).readValue(json);
+        assertThat(result.getMethodName(), is("test"));
+        assertThat(result.getArgs()[0], is((Object) "foo"));
+    }
+
+    @Test
+    public void testGetReaderAfterClearMappers_shouldReturnNewWorkingReader() throws Exception {
+        ObjectReader reader = JsonUtils.getReader(MethodCall.class);
+        JsonUtils.clearMappers();
+
+        assertThat(JsonUtils.getReader(MethodCall.class), not(sameInstance(reader)));
+        String json = JsonUtils.getWriter().writeValueAsString(new MethodCall("test", new Object[]{ "foo" }));
+        MethodCall result = JsonUtils.getReader(MethodCall.class).readValue(json);
+        assertThat(result.getMethodName(), is("test"));
+    }
 }
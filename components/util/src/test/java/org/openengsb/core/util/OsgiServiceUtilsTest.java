@@ -20,6 +20,12 @@ package org.openengsb.core.util;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Hashtable;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.FutureTask;
@@ -34,6 +40,8 @@ import org.openengsb.core.api.OsgiUtilsService;
 import org.openengsb.core.test.AbstractOsgiMockServiceTest;
 import org.openengsb.core.test.NullDomain;
 import org.openengsb.core.test.NullDomainImpl;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceRegistration;
 
 public class OsgiServiceUtilsTest extends AbstractOsgiMockServiceTest {
 
@@ -104,4 +112,47 @@ public class OsgiServiceUtilsTest extends AbstractOsgiMockServiceTest {
         Object blockingResult = blockingFuture.get();
         assertThat((Integer) blockingResult, is(42));
     }
+
+    @Test
+    public void testGetServiceTwice_shouldTrackServiceOnlyOnce() throws Exception {
+        NullDomainImpl service = new NullDomainImpl();
+        registerServiceViaId(service, "foo", NullDomain.class);
+
+        assertThat(utils.getService(NullDomain.class), is((Object) service));
+        assertThat(utils.getService(NullDomain.class), is((Object) service));
+
+        verify(bundleContext, times(1)).addServiceListener(any(ServiceListener.class), anyString());
+    }
+
+    @Test
+    public void testClose_shouldCloseTrackers() throws Exception {
+        NullDomainImpl service = new NullDomainImpl();
+        registerServiceViaId(service, "foo", NullDomain.class);
+        assertThat(utils.getService(NullDomain.class), is((Object) service));
+
+        ((DefaultOsgiUtilsService) utils).close();
+
+        verify(bundleContext, times(1)).removeServiceListener(any(ServiceListener.class));
+        assertThat(utils.getService(NullDomain.class), is((Object) service));
+    }
+
+    @Test
+    public void testGetServiceAfterUnregistering_shouldNotReturnUnregisteredService() throws Exception {
+        NullDomainImpl service = new NullDomainImpl();
+        ServiceRegistration<?> registration =
+            bundleContext.registerService(NullDomain.class.getName(), service, new Hashtable<String, Object>());
+        assertThat(utils.getService(NullDomain.class, 1), is((Object) service));
+
+        registration.unregister();
+        try {
+            utils.getService(NullDomain.class, 1);
+            fail("unregistered service was returned");
+        } catch (OsgiServiceNotAvailableException e) {
+            // expected
+        }
+
+        NullDomainImpl newService = new NullDomainImpl();
+        bundleContext.registerService(NullDomain.class.getName(), newService, new Hashtable<String, Object>());
+        assertThat(utils.getService(NullDomain.class, 1), is((Object) newService));
+    }
 }
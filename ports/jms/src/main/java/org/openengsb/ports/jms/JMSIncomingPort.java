@@ -18,6 +18,7 @@
 package org.openengsb.ports.jms;
 
 import java.util.HashMap;
+import java.util.concurrent.Executor;
 
 import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
@@ -30,10 +31,25 @@ import org.apache.commons.lang.exception.ExceptionUtils;
 import org.openengsb.core.common.remote.FilterChain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessagePostProcessor;
 import org.springframework.jms.listener.SimpleMessageListenerContainer;
 
+/**
+ * Receives remote calls from the {@link #setReceive(String) receive} queue, passes them through the filter chain and
+ * sends the result to the reply destination of the call.
+ *
+ * By default the queue is consumed by a single consumer, so the calls are processed in the order they were sent. It
+ * can be consumed by {@link #setConcurrentConsumers(int) several consumers} instead, so that a slow service call does
+ * not stall all other calls. Calls are then not necessarily processed in the order they were sent anymore, and clients
+ * which depend on the order of their calls have to send them within the same message group (i.e. with the same
+ * <code>JMSXGroupID</code>), which the broker dispatches to a single consumer. Optionally the calls can be dispatched
+ * to an {@link #setTaskExecutor(Executor) executor}, e.g. a bounded pool, instead of the receiving threads of the
+ * consumers, which does not preserve the order either.
+ *
+ * Replies are sent via sessions which are cached across calls.
+ */
 public class JMSIncomingPort {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JMSIncomingPort.class);
@@ -50,12 +66,26 @@ public class JMSIncomingPort {
 
     private String receive = "receive";
 
+    private int concurrentConsumers = 1;
+
+    private Executor taskExecutor;
+
+    private CachingConnectionFactory replyConnectionFactory;
+
+    private JmsTemplate replyTemplate;
+
     /*
      * TODO OPENENGSB-1575 this property is kind of a hack and should be replaced by proper dynamic port configuration
      */
     private FilterChain unsecureFilterChain;
 
     public void start() {
+        replyConnectionFactory = new CachingConnectionFactory(connectionFactory);
+        replyConnectionFactory.setSessionCacheSize(getConcurrentConsumers());
+        // reply destinations differ from call to call, so cached producers would never be reused
+        replyConnectionFactory.setCacheProducers(false);
+        replyTemplate = new JmsTemplate(replyConnectionFactory);
+
         simpleMessageListenerContainer = createListenerContainer(receive, new MessageListener() {
             @Override
             public void onMessage(Message message) {
@@ -94,7 +124,7 @@ public class JMSIncomingPort {
                     return;
                 }
 
-                new JmsTemplate(connectionFactory).convertAndSend(replyQueue, result, new MessagePostProcessor() {
+                replyTemplate.convertAndSend(replyQueue, result, new MessagePostProcessor() {
                     @Override
                     public Message postProcessMessage(Message message) throws JMSException {
                         message.setJMSCorrelationID(correlationID);
@@ -121,6 +151,10 @@ public class JMSIncomingPort {
         messageListenerContainer.setConnectionFactory(connectionFactory);
         messageListenerContainer.setDestinationName(destination);
         messageListenerContainer.setMessageListener(listener);
+        messageListenerContainer.setConcurrentConsumers(getConcurrentConsumers());
+        if (taskExecutor != null) {
+            messageListenerContainer.setTaskExecutor(taskExecutor);
+        }
         return messageListenerContainer;
     }
 
@@ -128,6 +162,17 @@ public class JMSIncomingPort {
         if (simpleMessageListenerContainer != null) {
             simpleMessageListenerContainer.stop();
         }
+        if (replyConnectionFactory != null) {
+            replyConnectionFactory.destroy();
+            replyConnectionFactory = null;
+        }
+    }
+
+    private int getConcurrentConsumers() {
+        if (concurrentConsumers <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return concurrentConsumers;
     }
 
     /*
@@ -160,4 +205,20 @@ public class JMSIncomingPort {
         this.receive = receive;
     }
 
+    /**
+     * Sets the number of consumers which process calls concurrently. Defaults to 1, which preserves the order of the
+     * calls. A value less than or equal to 0 uses one consumer per available processor.
+     */
+    public void setConcurrentConsumers(int concurrentConsumers) {
+        this.concurrentConsumers = concurrentConsumers;
+    }
+
+    /**
+     * Sets the executor the received calls are dispatched to. By default the calls are processed by the receiving
+     * threads of the consumers.
+     */
+    public void setTaskExecutor(Executor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
 }
@@ -17,50 +17,180 @@
 
 package org.openengsb.ports.jms;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
 import org.apache.commons.lang.ObjectUtils;
 import org.openengsb.core.common.remote.AbstractFilterAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jms.connection.SingleConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
 
+/**
+ * Sends calls to remote connectors via JMS and waits for their replies.
+ *
+ * By default the reply to a call is expected on a queue named by the id of the call, which is consumed by the calling
+ * thread. If the {@link #setReplyQueueEnabled(boolean) reply queue} is enabled, the calls are sent with a temporary
+ * queue of the port as <code>JMSReplyTo</code> and their id as <code>JMSCorrelationID</code> instead. The replies of
+ * all calls to a broker are then consumed by a single listener, which hands them to the waiting calls, so outstanding
+ * calls don't hold a consumer of their own. The remote side has to reply to the given destination with the given
+ * correlation id.
+ *
+ * The JmsTemplates are created once per destination and shared by all calls. If more than
+ * {@link #setMaxCachedTemplates(int) maxCachedTemplates} destinations are in use, the least recently used templates
+ * are dropped.
+ */
 public class JMSOutgoingPort extends AbstractFilterAction<String, String> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JMSOutgoingPort.class);
 
+    private static final int DEFAULT_MAX_CACHED_TEMPLATES = 100;
+
     private JMSTemplateFactory factory;
     private int timeout;
+    private boolean replyQueueEnabled;
+    private int maxCachedTemplates = DEFAULT_MAX_CACHED_TEMPLATES;
+
+    private final Map<String, JmsTemplate> templates = new LinkedHashMap<String, JmsTemplate>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JmsTemplate> eldest) {
+            return size() > maxCachedTemplates;
+        }
+    };
+    private final Map<String, ReplyDispatcher> dispatchers = new HashMap<String, ReplyDispatcher>();
 
     @Override
     protected String doFilter(String input, Map<String, Object> metaData) {
         String destination = (String) metaData.get("destination");
         String callId = (String) metaData.get("callId");
-        LOGGER.info("sending message with callId {} to destination {}", callId, destination);
-        sendMessage(destination, input);
-
         if (ObjectUtils.notEqual(metaData.get("answer"), true)) {
+            LOGGER.info("sending message with callId {} to destination {}", callId, destination);
+            sendMessage(destination, input);
             LOGGER.debug("no answer expected, just returning null");
             return null;
         }
-        LOGGER.info("waiting {}ms for response on call with id {}", timeout, callId);
-        JmsTemplate createJMSTemplate = createJMSTemplate(destination);
-        createJMSTemplate.setReceiveTimeout(timeout);
-        Object receiveAndConvert = createJMSTemplate.receiveAndConvert(callId);
-        if (receiveAndConvert == null) {
+        String result;
+        if (replyQueueEnabled) {
+            result = sendAndReceiveViaReplyQueue(destination, callId, input);
+        } else {
+            result = sendAndReceive(destination, callId, input);
+        }
+        if (result == null) {
             throw new RuntimeException("JMS Receive Timeout reached");
         }
         LOGGER.info("response for call with id {} received", callId);
-        return (String) receiveAndConvert;
+        return result;
     }
 
-    private JmsTemplate createJMSTemplate(String destination) {
-        return factory.createJMSTemplate(DestinationUrl.createDestinationUrl(destination));
+    private String sendAndReceive(String destination, String callId, String input) {
+        LOGGER.info("sending message with callId {} to destination {}", callId, destination);
+        sendMessage(destination, input);
+        LOGGER.info("waiting {}ms for response on call with id {}", timeout, callId);
+        JmsTemplate template = getJMSTemplate(destination);
+        template.setReceiveTimeout(timeout);
+        return (String) template.receiveAndConvert(callId);
+    }
+
+    private String sendAndReceiveViaReplyQueue(String destination, String callId, String input) {
+        ReplyDispatcher dispatcher = getDispatcher(destination);
+        dispatcher.register(callId);
+        LOGGER.info("sending message with callId {} to destination {}", callId, destination);
+        try {
+            sendMessage(destination, input, callId, dispatcher.getReplyQueue());
+        } catch (RuntimeException e) {
+            dispatcher.unregister(callId);
+            throw e;
+        }
+        LOGGER.info("waiting {}ms for response on call with id {}", timeout, callId);
+        try {
+            return dispatcher.awaitReply(callId, timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for response on call with id " + callId, e);
+        }
+    }
+
+    private JmsTemplate getJMSTemplate(String destination) {
+        synchronized (templates) {
+            JmsTemplate template = templates.get(destination);
+            if (template == null) {
+                template = factory.createJMSTemplate(DestinationUrl.createDestinationUrl(destination));
+                templates.put(destination, template);
+            }
+            return template;
+        }
+    }
+
+    private ReplyDispatcher getDispatcher(String destination) {
+        String host = DestinationUrl.createDestinationUrl(destination).getHost();
+        synchronized (dispatchers) {
+            ReplyDispatcher dispatcher = dispatchers.get(host);
+            if (dispatcher != null && dispatcher.isActive()) {
+                return dispatcher;
+            }
+            if (dispatcher != null) {
+                LOGGER.info("connection of the reply dispatcher for {} was lost, creating a new one", host);
+                dispatcher.stop();
+            }
+            dispatcher = new ReplyDispatcher(getDispatcherConnectionFactory(destination));
+            dispatcher.start();
+            LOGGER.info("listening for replies from {} on {}", host, dispatcher.getReplyQueue());
+            dispatchers.put(host, dispatcher);
+            return dispatcher;
+        }
+    }
+
+    /**
+     * The dispatcher needs a connection of its own, which is closed together with its temporary queue when it is
+     * stopped, so the shared connection of the templates is bypassed.
+     */
+    private ConnectionFactory getDispatcherConnectionFactory(String destination) {
+        ConnectionFactory connectionFactory = getJMSTemplate(destination).getConnectionFactory();
+        if (connectionFactory instanceof SingleConnectionFactory) {
+            return ((SingleConnectionFactory) connectionFactory).getTargetConnectionFactory();
+        }
+        return connectionFactory;
     }
 
     private void sendMessage(String destination, String message) {
-        JmsTemplate createJMSTemplate = createJMSTemplate(destination);
-        createJMSTemplate.convertAndSend(message);
+        getJMSTemplate(destination).convertAndSend(message);
+    }
+
+    private void sendMessage(String destination, final String message, final String correlationId,
+            final Destination replyTo) {
+        getJMSTemplate(destination).send(new MessageCreator() {
+            @Override
+            public Message createMessage(Session session) throws JMSException {
+                TextMessage textMessage = session.createTextMessage(message);
+                textMessage.setJMSCorrelationID(correlationId);
+                textMessage.setJMSReplyTo(replyTo);
+                return textMessage;
+            }
+        });
+    }
+
+    /**
+     * Stops listening for replies. Calls which are still waiting for a reply fail.
+     */
+    public void stop() {
+        synchronized (dispatchers) {
+            for (ReplyDispatcher dispatcher : dispatchers.values()) {
+                dispatcher.stop();
+            }
+            dispatchers.clear();
+        }
     }
 
     public void setFactory(JMSTemplateFactory factory) {
@@ -70,4 +200,20 @@ public class JMSOutgoingPort extends AbstractFilterAction<String, String> {
     public void setTimeout(int timeout) {
         this.timeout = timeout;
     }
+
+    /**
+     * Enables receiving the replies to all calls to a broker from a single temporary queue of this port. If disabled
+     * (the default), the replies are expected on a queue named by the id of the call.
+     */
+    public void setReplyQueueEnabled(boolean replyQueueEnabled) {
+        this.replyQueueEnabled = replyQueueEnabled;
+    }
+
+    /**
+     * Sets the maximum number of destinations whose JmsTemplates are cached. Defaults to
+     * {@value #DEFAULT_MAX_CACHED_TEMPLATES}.
+     */
+    public void setMaxCachedTemplates(int maxCachedTemplates) {
+        this.maxCachedTemplates = maxCachedTemplates;
+    }
 }
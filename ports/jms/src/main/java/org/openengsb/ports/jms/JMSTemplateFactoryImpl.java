@@ -23,7 +23,7 @@ import java.util.Map;
 import javax.jms.ConnectionFactory;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
-import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.SimpleMessageListenerContainer;
 
@@ -32,7 +32,11 @@ public class JMSTemplateFactoryImpl implements JMSTemplateFactory {
     /** This one can be overwritten whenever required */
     private static final Long DEFAULT_TIMEOUT = 3000L;
 
-    /** Shares single connection factories to avoid the extended effort of creating one */
+    /**
+     * Shares connection factories to avoid the extended effort of creating one. Besides the connection the factories
+     * cache sessions and producers. Consumers are not cached, since replies are received from a different queue for
+     * each call.
+     */
     private Map<String, ConnectionFactory> connections = new HashMap<String, ConnectionFactory>();
 
     @Override
@@ -44,7 +48,10 @@ public class JMSTemplateFactoryImpl implements JMSTemplateFactory {
 
     private synchronized ConnectionFactory retrieveJmsConnectionFactory(String host) {
         if (!connections.containsKey(host)) {
-            connections.put(host, new SingleConnectionFactory(new ActiveMQConnectionFactory(host)));
+            CachingConnectionFactory connectionFactory =
+                new CachingConnectionFactory(new ActiveMQConnectionFactory(host));
+            connectionFactory.setCacheConsumers(false);
+            connections.put(host, connectionFactory);
         }
         return connections.get(host);
     }
@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.ports.jms;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.support.JmsUtils;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Consumes the replies of all calls of a JMSOutgoingPort to one broker from a temporary queue and hands them to the
+ * waiting calls by their correlation id. The temporary queue belongs to the connection of the dispatcher, so it is
+ * never shared with other dispatchers or other OpenEngSB instances on the same broker and it is deleted by the broker
+ * when the dispatcher is stopped. Calls have to be {@link #register(String) registered} before they are sent, so that
+ * a fast reply is not discarded.
+ */
+class ReplyDispatcher implements MessageListener, ExceptionListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplyDispatcher.class);
+
+    private final ConcurrentMap<String, SettableFuture<String>> pendingReplies =
+        new ConcurrentHashMap<String, SettableFuture<String>>();
+
+    private final ConnectionFactory connectionFactory;
+
+    private Connection connection;
+    private Destination replyQueue;
+    private volatile boolean active;
+
+    ReplyDispatcher(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Opens a connection of its own, creates the temporary reply queue and starts listening on it.
+     */
+    public synchronized void start() {
+        try {
+            connection = connectionFactory.createConnection();
+            connection.setExceptionListener(this);
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            replyQueue = session.createTemporaryQueue();
+            session.createConsumer(replyQueue).setMessageListener(this);
+            connection.start();
+            active = true;
+        } catch (JMSException e) {
+            JmsUtils.closeConnection(connection);
+            connection = null;
+            throw JmsUtils.convertJmsAccessException(e);
+        }
+    }
+
+    /**
+     * Closes the connection, which deletes the temporary reply queue. Calls which are still waiting for a reply fail.
+     */
+    public synchronized void stop() {
+        active = false;
+        JmsUtils.closeConnection(connection);
+        connection = null;
+        if (!pendingReplies.isEmpty()) {
+            LOGGER.warn("reply dispatcher stopped while {} calls were waiting for a reply", pendingReplies.size());
+        }
+        IllegalStateException stopped = new IllegalStateException("stopped listening for replies");
+        for (String correlationId : pendingReplies.keySet()) {
+            SettableFuture<String> reply = pendingReplies.remove(correlationId);
+            if (reply != null) {
+                reply.setException(stopped);
+            }
+        }
+    }
+
+    /**
+     * Returns the temporary queue the replies have to be sent to.
+     */
+    public synchronized Destination getReplyQueue() {
+        return replyQueue;
+    }
+
+    /**
+     * Returns false once the dispatcher was stopped or its connection failed, e.g. because the broker was restarted.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public void onException(JMSException exception) {
+        LOGGER.warn("connection of the reply dispatcher failed", exception);
+        active = false;
+    }
+
+    /**
+     * Registers a call which is about to be sent with the given correlation id. The returned future completes with
+     * the reply to the call.
+     */
+    public ListenableFuture<String> register(String correlationId) {
+        SettableFuture<String> reply = SettableFuture.create();
+        pendingReplies.put(correlationId, reply);
+        return reply;
+    }
+
+    /**
+     * Waits for the reply to the call with the given correlation id, which has to be registered before. The call is
+     * unregistered afterwards, regardless of whether a reply arrived.
+     *
+     * @param timeout the time to wait in milliseconds, 0 to wait indefinitely
+     * @return the reply or null if no reply arrived within the timeout
+     */
+    public String awaitReply(String correlationId, long timeout) throws InterruptedException {
+        SettableFuture<String> reply = pendingReplies.get(correlationId);
+        if (reply == null) {
+            throw new IllegalStateException("no call with correlation id " + correlationId + " is registered");
+        }
+        try {
+            return timeout == 0 ? reply.get() : reply.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            unregister(correlationId);
+        }
+    }
+
+    /**
+     * Unregisters a call, e.g. because it could not be sent or is not waited for anymore.
+     */
+    public void unregister(String correlationId) {
+        SettableFuture<String> reply = pendingReplies.remove(correlationId);
+        if (reply != null) {
+            reply.cancel(false);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        if (!(message instanceof TextMessage)) {
+            LOGGER.warn("discarding reply which is not a text message");
+            return;
+        }
+        try {
+            String correlationId = message.getJMSCorrelationID();
+            SettableFuture<String> reply = correlationId == null ? null : pendingReplies.get(correlationId);
+            if (reply == null) {
+                LOGGER.warn("discarding reply with correlation id {}, no call is waiting for it", correlationId);
+                return;
+            }
+            reply.set(((TextMessage) message).getText());
+        } catch (JMSException e) {
+            LOGGER.error("unable to read reply", e);
+        }
+    }
+
+    int getPendingCount() {
+        return pendingReplies.size();
+    }
+}
@@ -19,7 +19,12 @@ package org.openengsb.ports.jms;
 
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.StringReader;
@@ -27,11 +32,21 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+import javax.jms.TextMessage;
+
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.openengsb.core.api.remote.MethodCall;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
@@ -41,6 +56,7 @@ import org.openengsb.core.common.remote.FilterChainFactory;
 import org.openengsb.core.services.filter.OutgoingJsonSecureMethodCallMarshalFilter;
 import org.openengsb.core.test.AbstractOsgiMockServiceTest;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
 import org.springframework.jms.listener.SimpleMessageListenerContainer;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -72,6 +88,8 @@ public class JMSOutgoingPortTest extends AbstractOsgiMockServiceTest {
 
     private OutgoingPort outgoingPort;
 
+    private JMSOutgoingPort jmsOutgoingPort;
+
     @Before
     public void setup() throws Exception {
         jmsTemplate = Mockito.mock(JmsTemplate.class);
@@ -90,7 +108,7 @@ public class JMSOutgoingPortTest extends AbstractOsgiMockServiceTest {
         call = new MethodCallMessage(methodCall, "123");
         call.setDestination("host?receive");
 
-        JMSOutgoingPort jmsOutgoingPort = new JMSOutgoingPort();
+        jmsOutgoingPort = new JMSOutgoingPort();
         jmsOutgoingPort.setFactory(jmsTemplateFactory);
 
         FilterChainFactory<MethodCallMessage, MethodResultMessage> factory =
@@ -134,4 +152,63 @@ public class JMSOutgoingPortTest extends AbstractOsgiMockServiceTest {
                 .asText();
         assertThat(destinationCaptor.getValue(), Matchers.equalTo(destination));
     }
+
+    @Test
+    public void testCallSendToMoreDestinationsThanCached_shouldRecreateEvictedTemplates() throws Exception {
+        jmsOutgoingPort.setMaxCachedTemplates(1);
+
+        outgoingPort.send(call);
+        outgoingPort.send(call);
+        verify(jmsTemplateFactory, times(1)).createJMSTemplate(any(DestinationUrl.class));
+
+        call.setDestination("host?other");
+        outgoingPort.send(call);
+        call.setDestination("host?receive");
+        outgoingPort.send(call);
+        verify(jmsTemplateFactory, times(3)).createJMSTemplate(any(DestinationUrl.class));
+    }
+
+    @Test(timeout = 10000)
+    public void testCallSendSyncWithReplyQueue_shouldReceiveReplyByCorrelationId() throws Exception {
+        jmsOutgoingPort.setReplyQueueEnabled(true);
+        jmsOutgoingPort.setTimeout(5000);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        Session replySession = mock(Session.class);
+        TemporaryQueue replyQueue = mock(TemporaryQueue.class);
+        final MessageConsumer consumer = mock(MessageConsumer.class);
+        when(jmsTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(replySession);
+        when(replySession.createTemporaryQueue()).thenReturn(replyQueue);
+        when(replySession.createConsumer(replyQueue)).thenReturn(consumer);
+        final Session session = mock(Session.class);
+        final TextMessage request = mock(TextMessage.class);
+        when(session.createTextMessage(anyString())).thenReturn(request);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((MessageCreator) invocation.getArguments()[0]).createMessage(session);
+                ArgumentCaptor<String> correlationId = ArgumentCaptor.forClass(String.class);
+                verify(request).setJMSCorrelationID(correlationId.capture());
+                TextMessage reply = mock(TextMessage.class);
+                when(reply.getJMSCorrelationID()).thenReturn(correlationId.getValue());
+                when(reply.getText()).thenReturn(METHOD_RESULT_MESSAGE);
+                ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+                verify(consumer).setMessageListener(listener.capture());
+                listener.getValue().onMessage(reply);
+                return null;
+            }
+        }).when(jmsTemplate).send(any(MessageCreator.class));
+
+        MethodResultMessage result = outgoingPort.sendSync(call);
+
+        assertThat(result.getResult().getArg(), Matchers.equalTo((Object) "42"));
+        verify(connection).start();
+        verify(request).setJMSReplyTo(replyQueue);
+        verify(jmsTemplate, never()).receiveAndConvert(anyString());
+
+        jmsOutgoingPort.stop();
+        verify(connection).close();
+    }
 }
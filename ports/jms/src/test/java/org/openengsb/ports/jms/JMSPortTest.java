@@ -23,6 +23,7 @@ import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -37,6 +38,12 @@ import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 import javax.jms.ConnectionFactory;
@@ -368,6 +375,40 @@ public class JMSPortTest extends AbstractOsgiMockServiceTest {
         assertThat(resultString, containsString("<test>test</test>"));
     }
 
+    @Test(timeout = 30000)
+    public void testStartWithConcurrentConsumers_shouldProcessCallsConcurrently() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        FilterChain filterChain = mock(FilterChain.class);
+        when(filterChain.filter(anyString(), anyMap())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                latch.countDown();
+                return String.valueOf(latch.await(10, TimeUnit.SECONDS));
+            }
+        });
+        incomingPort.setFilterChain(filterChain);
+        incomingPort.setConcurrentConsumers(2);
+        incomingPort.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<String> send = new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return sendWithTempQueue(METHOD_CALL_REQUEST);
+                }
+            };
+            Future<String> result1 = executor.submit(send);
+            Future<String> result2 = executor.submit(send);
+
+            assertThat(result1.get(), is("true"));
+            assertThat(result2.get(), is("true"));
+        } finally {
+            executor.shutdownNow();
+            incomingPort.stop();
+        }
+    }
+
     @Test
     public void testStop_shouldNotReactToIncomingCalls() throws Exception {
         SimpleMessageListenerContainer orig = simpleMessageListenerConainer;
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.ports.jms;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+import javax.jms.TextMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplyDispatcherTest {
+
+    private Connection connection;
+    private TemporaryQueue replyQueue;
+    private MessageConsumer consumer;
+    private ReplyDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        Session session = mock(Session.class);
+        replyQueue = mock(TemporaryQueue.class);
+        consumer = mock(MessageConsumer.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(session);
+        when(session.createTemporaryQueue()).thenReturn(replyQueue);
+        when(session.createConsumer(replyQueue)).thenReturn(consumer);
+        dispatcher = new ReplyDispatcher(connectionFactory);
+        dispatcher.start();
+    }
+
+    @Test
+    public void testStart_shouldListenToTemporaryReplyQueue() throws Exception {
+        verify(consumer).setMessageListener(dispatcher);
+        verify(connection).start();
+        assertThat(dispatcher.getReplyQueue(), is((Object) replyQueue));
+        assertThat(dispatcher.isActive(), is(true));
+    }
+
+    @Test
+    public void testStop_shouldCloseConnectionAndFailWaitingCalls() throws Exception {
+        Future<String> reply = dispatcher.register("1");
+
+        dispatcher.stop();
+
+        verify(connection).close();
+        assertThat(dispatcher.isActive(), is(false));
+        assertThat(dispatcher.getPendingCount(), is(0));
+        try {
+            reply.get();
+            fail("call waiting for a reply was not failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
+    @Test
+    public void testConnectionFailure_shouldDeactivateDispatcher() throws Exception {
+        dispatcher.onException(new JMSException("broker gone"));
+
+        assertThat(dispatcher.isActive(), is(false));
+    }
+
+    @Test
+    public void testRegister_shouldCompleteFutureWithReply() throws Exception {
+        Future<String> reply = dispatcher.register("1");
+
+        dispatcher.onMessage(createReply("1", "foo"));
+
+        assertThat(reply.get(), is("foo"));
+    }
+
+    @Test
+    public void testAwaitReply_shouldReturnReplyWithMatchingCorrelationId() throws Exception {
+        dispatcher.register("1");
+        dispatcher.register("2");
+
+        dispatcher.onMessage(createReply("2", "bar"));
+        dispatcher.onMessage(createReply("1", "foo"));
+
+        assertThat(dispatcher.awaitReply("1", 1000), is("foo"));
+        assertThat(dispatcher.awaitReply("2", 1000), is("bar"));
+        assertThat(dispatcher.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void testAwaitReply_withoutReply_shouldReturnNullAfterTimeout() throws Exception {
+        dispatcher.register("1");
+
+        assertThat(dispatcher.awaitReply("1", 10), nullValue());
+        assertThat(dispatcher.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void testOnMessage_withUnknownCorrelationId_shouldDiscardReply() throws Exception {
+        dispatcher.onMessage(createReply("1", "foo"));
+        dispatcher.register("1");
+
+        assertThat(dispatcher.awaitReply("1", 10), nullValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAwaitReply_withoutRegistration_shouldThrowException() throws Exception {
+        dispatcher.awaitReply("1", 10);
+    }
+
+    private TextMessage createReply(String correlationId, String text) throws Exception {
+        TextMessage message = mock(TextMessage.class);
+        when(message.getJMSCorrelationID()).thenReturn(correlationId);
+        when(message.getText()).thenReturn(text);
+        return message;
+    }
+}
@@ -17,57 +17,259 @@
 
 package org.openengsb.ports.ws;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import javax.xml.ws.WebServiceException;
+
 import org.apache.cxf.Bus;
 import org.apache.cxf.bus.spring.SpringBusFactory;
+import org.apache.cxf.frontend.ClientProxy;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.openengsb.core.common.remote.AbstractFilterAction;
 import org.osgi.framework.BundleContext;
-import org.springframework.context.ApplicationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.osgi.context.support.OsgiBundleXmlApplicationContext;
 
+/**
+ * Sends calls to the PortReceiver web service at the destination of the call.
+ *
+ * The CXF bus is created once for the port and the client proxies are cached per destination, so the WSDL of a
+ * destination is only fetched by the first call and the HTTP connections of a proxy are kept alive across calls. The
+ * proxies are thread-safe and shared by all calls to the same destination. A proxy is evicted if a call through it
+ * fails, e.g. because the remote service was redeployed, so the next call creates a fresh one. If more than
+ * {@link #setMaxCachedProxies(int) maxCachedProxies} destinations are in use, the least recently used proxies are
+ * evicted. Evicted proxies are destroyed as soon as no running call uses them anymore.
+ */
 public class WSOutgoingPort extends AbstractFilterAction<String, String> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(WSOutgoingPort.class);
+
     private static final String[] CXF_CONFIG = new String[]{
         "classpath:META-INF/cxf/cxf.xml",
     };
+
+    private static final int DEFAULT_MAX_CACHED_PROXIES = 100;
+
     private BundleContext bundleContext;
+    private int maxCachedProxies = DEFAULT_MAX_CACHED_PROXIES;
+
+    private ProxyFactory proxyFactory;
+
+    private final Map<String, CachedProxy> proxies = new LinkedHashMap<String, CachedProxy>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedProxy> eldest) {
+            if (size() <= maxCachedProxies) {
+                return false;
+            }
+            LOGGER.debug("evicting least recently used proxy for {}", eldest.getKey());
+            evict(eldest.getValue());
+            return true;
+        }
+    };
+
+    /**
+     * Creates and destroys the client proxies.
+     */
+    interface ProxyFactory {
+
+        PortReceiver createProxy(String destination);
+
+        void destroyProxy(PortReceiver proxy);
+
+        /**
+         * Releases the resources shared by all proxies.
+         */
+        void shutdown();
+    }
+
+    /**
+     * Creates the proxies with a CXF bus, which is created by the first proxy.
+     */
+    private static final class CxfProxyFactory implements ProxyFactory {
+        private final BundleContext bundleContext;
+        private OsgiBundleXmlApplicationContext cxfContext;
+        private Bus bus;
+
+        private CxfProxyFactory(BundleContext bundleContext) {
+            this.bundleContext = bundleContext;
+        }
+
+        @Override
+        public PortReceiver createProxy(String destination) {
+            LOGGER.debug("creating proxy for {}", destination);
+            JaxWsProxyFactoryBean jaxWsProxyFactoryBean = new JaxWsProxyFactoryBean();
+            jaxWsProxyFactoryBean.setBus(getCxfBus());
+            jaxWsProxyFactoryBean.setServiceClass(PortReceiver.class);
+            jaxWsProxyFactoryBean.setAddress(destination);
+            jaxWsProxyFactoryBean.setWsdlURL(destination + "?wsdl");
+            return jaxWsProxyFactoryBean.create(PortReceiver.class);
+        }
+
+        @Override
+        public void destroyProxy(PortReceiver proxy) {
+            ClientProxy.getClient(proxy).destroy();
+        }
+
+        private synchronized Bus getCxfBus() {
+            if (bus == null) {
+                cxfContext = createSpringCxfContext();
+                bus = new SpringBusFactory(cxfContext).createBus();
+            }
+            return bus;
+        }
+
+        private OsgiBundleXmlApplicationContext createSpringCxfContext() {
+            OsgiBundleXmlApplicationContext ctx = new OsgiBundleXmlApplicationContext(CXF_CONFIG);
+            ctx.setPublishContextAsService(false);
+            ctx.setBundleContext(bundleContext);
+            ctx.refresh();
+            return ctx;
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            if (bus != null) {
+                bus.shutdown(true);
+                bus = null;
+            }
+            if (cxfContext != null) {
+                cxfContext.close();
+                cxfContext = null;
+            }
+        }
+    }
+
+    /**
+     * A cached proxy together with the number of calls which are currently using it. Guarded by the lock of the
+     * proxies.
+     */
+    private static final class CachedProxy {
+        private final PortReceiver service;
+        private int calls;
+        private boolean evicted;
+
+        private CachedProxy(PortReceiver service) {
+            this.service = service;
+        }
+    }
 
     @Override
     protected String doFilter(String input, Map<String, Object> metaData) {
         String destination = (String) metaData.get("destination");
-        PortReceiver service = retrieveProxyReceiverForDestination(destination);
-        return service.receive(input);
+        CachedProxy proxy = acquireProxy(destination);
+        try {
+            return proxy.service.receive(input);
+        } catch (WebServiceException e) {
+            evictProxy(destination, proxy);
+            throw e;
+        } finally {
+            releaseProxy(proxy);
+        }
     }
 
-    private PortReceiver retrieveProxyReceiverForDestination(String destination) {
-        Bus bus = createCxfBus();
-        JaxWsProxyFactoryBean jaxWsProxyFactoryBean = new JaxWsProxyFactoryBean();
-        jaxWsProxyFactoryBean.setBus(bus);
-        jaxWsProxyFactoryBean.setServiceClass(PortReceiver.class);
-        jaxWsProxyFactoryBean.setAddress(destination);
-        jaxWsProxyFactoryBean.setWsdlURL(destination + "?wsdl");
-        PortReceiver service = jaxWsProxyFactoryBean.create(PortReceiver.class);
-        return service;
+    private CachedProxy acquireProxy(String destination) {
+        synchronized (proxies) {
+            CachedProxy proxy = proxies.get(destination);
+            if (proxy != null) {
+                proxy.calls++;
+                return proxy;
+            }
+        }
+        // created outside the lock, since fetching the WSDL must not hold up calls to other destinations
+        PortReceiver service = getProxyFactory().createProxy(destination);
+        synchronized (proxies) {
+            CachedProxy proxy = proxies.get(destination);
+            if (proxy != null) {
+                destroyProxy(service);
+            } else {
+                proxy = new CachedProxy(service);
+                proxies.put(destination, proxy);
+            }
+            proxy.calls++;
+            return proxy;
+        }
     }
 
-    private Bus createCxfBus() {
-        ApplicationContext ctx = createSpringCxfContext();
-        SpringBusFactory fact = new SpringBusFactory(ctx);
-        return fact.createBus();
+    private void releaseProxy(CachedProxy proxy) {
+        synchronized (proxies) {
+            proxy.calls--;
+            if (proxy.evicted && proxy.calls == 0) {
+                destroyProxy(proxy.service);
+            }
+        }
     }
 
-    private ApplicationContext createSpringCxfContext() {
-        OsgiBundleXmlApplicationContext ctx = new OsgiBundleXmlApplicationContext(CXF_CONFIG);
-        ctx.setPublishContextAsService(false);
-        ctx.setBundleContext(bundleContext);
-        ctx.refresh();
-        return ctx;
+    private void evictProxy(String destination, CachedProxy proxy) {
+        synchronized (proxies) {
+            if (proxies.get(destination) == proxy) {
+                LOGGER.info("call to {} failed, evicting its proxy", destination);
+                proxies.remove(destination);
+                evict(proxy);
+            }
+        }
+    }
+
+    /**
+     * Marks the proxy as evicted and destroys it right away if no call is using it. Has to be called with the lock of
+     * the proxies held.
+     */
+    private void evict(CachedProxy proxy) {
+        proxy.evicted = true;
+        if (proxy.calls == 0) {
+            destroyProxy(proxy.service);
+        }
+    }
+
+    private void destroyProxy(PortReceiver service) {
+        try {
+            getProxyFactory().destroyProxy(service);
+        } catch (RuntimeException e) {
+            LOGGER.warn("unable to destroy proxy", e);
+        }
+    }
+
+    private synchronized ProxyFactory getProxyFactory() {
+        if (proxyFactory == null) {
+            proxyFactory = new CxfProxyFactory(bundleContext);
+        }
+        return proxyFactory;
+    }
+
+    /**
+     * Destroys all cached proxies, as soon as no call is using them anymore, and shuts the CXF bus down.
+     */
+    public void stop() {
+        synchronized (proxies) {
+            for (CachedProxy proxy : proxies.values()) {
+                evict(proxy);
+            }
+            proxies.clear();
+        }
+        synchronized (this) {
+            if (proxyFactory != null) {
+                proxyFactory.shutdown();
+            }
+        }
     }
 
     public void setBundleContext(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
     }
 
+    synchronized void setProxyFactory(ProxyFactory proxyFactory) {
+        this.proxyFactory = proxyFactory;
+    }
+
+    /**
+     * Sets the maximum number of destinations whose proxies are cached. Defaults to
+     * {@value #DEFAULT_MAX_CACHED_PROXIES}.
+     */
+    public void setMaxCachedProxies(int maxCachedProxies) {
+        this.maxCachedProxies = maxCachedProxies;
+    }
+
 }
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.ports.ws;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.ws.WebServiceException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class WSOutgoingPortTest {
+
+    private WSOutgoingPort port;
+    private WSOutgoingPort.ProxyFactory proxyFactory;
+    private ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Before
+    public void setUp() throws Exception {
+        proxyFactory = mock(WSOutgoingPort.ProxyFactory.class);
+        port = new WSOutgoingPort();
+        port.setProxyFactory(proxyFactory);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCallsToSameDestination_shouldReuseProxy() throws Exception {
+        mockProxy("http://a", "foo");
+
+        assertThat(call("http://a"), is("foo"));
+        assertThat(call("http://a"), is("foo"));
+
+        verify(proxyFactory, times(1)).createProxy("http://a");
+    }
+
+    @Test
+    public void testCallsToMoreDestinationsThanCached_shouldDestroyLeastRecentlyUsedProxy() throws Exception {
+        port.setMaxCachedProxies(2);
+        PortReceiver proxyA = mockProxy("http://a", "a");
+        PortReceiver proxyB = mockProxy("http://b", "b");
+        mockProxy("http://c", "c");
+
+        call("http://a");
+        call("http://b");
+        call("http://a");
+        call("http://c");
+
+        verify(proxyFactory).destroyProxy(proxyB);
+        verify(proxyFactory, never()).destroyProxy(proxyA);
+        call("http://b");
+        verify(proxyFactory, times(2)).createProxy("http://b");
+    }
+
+    @Test
+    public void testFailingCall_shouldEvictAndDestroyProxy() throws Exception {
+        PortReceiver proxy = mockProxy("http://a", "foo");
+        when(proxy.receive(anyString())).thenThrow(new WebServiceException("redeployed"));
+
+        try {
+            call("http://a");
+            fail("exception of the proxy was not thrown");
+        } catch (WebServiceException e) {
+            // expected
+        }
+
+        verify(proxyFactory).destroyProxy(proxy);
+        mockProxy("http://a", "foo");
+        assertThat(call("http://a"), is("foo"));
+        verify(proxyFactory, times(2)).createProxy("http://a");
+    }
+
+    @Test(timeout = 10000)
+    public void testEvictionOfProxyInUse_shouldDestroyProxyAfterTheCall() throws Exception {
+        port.setMaxCachedProxies(1);
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch finishCall = new CountDownLatch(1);
+        PortReceiver proxyA = mock(PortReceiver.class);
+        when(proxyA.receive(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                callStarted.countDown();
+                finishCall.await();
+                return "a";
+            }
+        });
+        when(proxyFactory.createProxy("http://a")).thenReturn(proxyA);
+        mockProxy("http://b", "b");
+
+        Future<String> runningCall = executor.submit(new CallTask("http://a"));
+        callStarted.await();
+        call("http://b");
+        verify(proxyFactory, never()).destroyProxy(proxyA);
+
+        finishCall.countDown();
+        assertThat(runningCall.get(), is("a"));
+        verify(proxyFactory).destroyProxy(proxyA);
+    }
+
+    @Test
+    public void testStop_shouldDestroyProxiesAndShutDownFactory() throws Exception {
+        PortReceiver proxyA = mockProxy("http://a", "a");
+        PortReceiver proxyB = mockProxy("http://b", "b");
+        call("http://a");
+        call("http://b");
+
+        port.stop();
+
+        verify(proxyFactory).destroyProxy(proxyA);
+        verify(proxyFactory).destroyProxy(proxyB);
+        verify(proxyFactory).shutdown();
+    }
+
+    private PortReceiver mockProxy(String destination, String answer) {
+        PortReceiver proxy = mock(PortReceiver.class);
+        when(proxy.receive(anyString())).thenReturn(answer);
+        when(proxyFactory.createProxy(destination)).thenReturn(proxy);
+        return proxy;
+    }
+
+    private String call(String destination) {
+        Map<String, Object> metaData = new HashMap<String, Object>();
+        metaData.put("destination", destination);
+        return (String) port.filter("message", metaData);
+    }
+
+    private final class CallTask implements Callable<String> {
+        private final String destination;
+
+        private CallTask(String destination) {
+            this.destination = destination;
+        }
+
+        @Override
+        public String call() throws Exception {
+            return WSOutgoingPortTest.this.call(destination);
+        }
+    }
+}
@@ -468,9 +468,11 @@ public abstract class AbstractOsgiMockServiceTest extends AbstractOpenEngSBTest
                     String next = keys.nextElement();
                     newDict.put(next, arg.get(next));
                 }
+                Dictionary<String, Object> oldDict;
                 synchronized (serviceReferences) {
-                    serviceReferences.put(serviceReference, newDict);
+                    oldDict = serviceReferences.put(serviceReference, newDict);
                 }
+                updateServiceListeners(serviceReference, oldDict, newDict);
                 return null;
             }
         }).when(result).setProperties(any(Dictionary.class));
@@ -492,6 +494,24 @@ public abstract class AbstractOsgiMockServiceTest extends AbstractOpenEngSBTest
         }
     }
 
+    /**
+     * notifies the listeners about modified service properties. Listeners whose filter matched the old but not the new
+     * properties receive a {@link ServiceEvent#MODIFIED_ENDMATCH} event, like in a real framework.
+     */
+    private void updateServiceListeners(final ServiceReference<?> serviceReference,
+            Dictionary<String, Object> oldDict, Dictionary<String, Object> newDict) {
+        synchronized (listeners) {
+            for (Entry<ServiceListener, Filter> entry : listeners.entrySet()) {
+                Filter filter = entry.getValue();
+                if (filter == null || filter.match(newDict)) {
+                    entry.getKey().serviceChanged(new ServiceEvent(ServiceEvent.MODIFIED, serviceReference));
+                } else if (oldDict != null && filter.match(oldDict)) {
+                    entry.getKey().serviceChanged(new ServiceEvent(ServiceEvent.MODIFIED_ENDMATCH, serviceReference));
+                }
+            }
+        }
+    }
+
     protected <T> ServiceList<T> makeServiceList(Class<T> serviceClass) {
         ServiceTracker<T, T> serviceTracker = new ServiceTracker<T, T>(bundleContext, serviceClass.getName(), null);
         ServiceList<T> serviceList = new ServiceList<T>(serviceTracker);